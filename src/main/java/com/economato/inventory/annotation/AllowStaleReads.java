@@ -0,0 +1,14 @@
+package com.economato.inventory.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Marca una lectura {@code @Transactional(readOnly = true)} que tolera el
+ * retraso de la réplica: se envía al READER aunque no haya alcanzado las
+ * últimas escrituras del usuario.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface AllowStaleReads {
+}
@@ -0,0 +1,18 @@
+package com.economato.inventory.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Marca una operación pesada (informes, exportaciones, verificaciones
+ * completas) para aislarla de los endpoints OLTP.
+ *
+ * Solo se ejecutan a la vez tantas como conexiones tiene el pool de
+ * analítica; el resto espera su turno. Si además es
+ * {@code @Transactional(readOnly = true)}, usa ese pool, sobre la réplica y
+ * con su propio statement timeout; si escribe, sigue yendo al WRITER.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface AnalyticsQuery {
+}
@@ -0,0 +1,39 @@
+package com.economato.inventory.aspect;
+
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import com.economato.inventory.service.warmup.CacheAccessKey;
+import com.economato.inventory.service.warmup.CacheAccessTracker;
+
+/**
+ * Registra cada llamada a un método {@code @Cacheable} de los servicios para
+ * el warmup de caché. Se ejecuta por fuera del interceptor de caché, así que
+ * cuenta tanto aciertos como fallos.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Profile("!test")
+public class CacheAccessAspect {
+
+    private final CacheAccessTracker cacheAccessTracker;
+
+    public CacheAccessAspect(CacheAccessTracker cacheAccessTracker) {
+        this.cacheAccessTracker = cacheAccessTracker;
+    }
+
+    @Before("@annotation(org.springframework.cache.annotation.Cacheable) && within(com.economato.inventory.service..*)")
+    public void recordAccess(JoinPoint joinPoint) {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        cacheAccessTracker.record(CacheAccessKey.encode(
+                AopUtils.getTargetClass(joinPoint.getTarget()), signature.getMethod(), joinPoint.getArgs()));
+    }
+}
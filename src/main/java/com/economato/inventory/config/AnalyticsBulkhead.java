@@ -0,0 +1,94 @@
+package com.economato.inventory.config;
+
+import com.economato.inventory.exception.AnalyticsCapacityException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admission control for {@code @AnalyticsQuery} methods.
+ *
+ * Allows as many concurrent jobs as the analytics pool has connections, so a
+ * job never waits inside Hikari and, when it runs on the writer, never holds
+ * more than that many writer connections. Extra jobs queue for up to
+ * {@code maxWait} and then fail with {@link AnalyticsCapacityException}.
+ * Nested analytics calls reuse the caller's permit.
+ *
+ * Metrics: {@code db.analytics.queued}, {@code db.analytics.active},
+ * {@code db.analytics.wait} and {@code db.analytics.rejected}.
+ */
+@Component
+@Profile("!test & !resilience-test")
+public class AnalyticsBulkhead {
+
+    private static final ScopedValue<Boolean> HOLDS_PERMIT = ScopedValue.newInstance();
+
+    private final int maxConcurrent;
+    private final Semaphore permits;
+    private final Duration maxWait;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    public AnalyticsBulkhead(@Value("${db.analytics.maximum-pool-size:4}") int maxConcurrent,
+            @Value("${db.analytics.max-wait:PT2M}") Duration maxWait,
+            MeterRegistry meterRegistry) {
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxWait = maxWait;
+
+        Gauge.builder("db.analytics.queued", queued, AtomicInteger::get)
+                .description("Analytics jobs waiting for a slot")
+                .register(meterRegistry);
+        Gauge.builder("db.analytics.active", this, bulkhead -> bulkhead.maxConcurrent - bulkhead.permits.availablePermits())
+                .description("Analytics jobs running")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("db.analytics.wait")
+                .description("Time analytics jobs waited for a slot")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("db.analytics.rejected")
+                .description("Analytics jobs that gave up waiting for a slot")
+                .register(meterRegistry);
+    }
+
+    public <T> T execute(Job<T> job) throws Throwable {
+        if (HOLDS_PERMIT.isBound()) {
+            return job.run();
+        }
+        long start = System.nanoTime();
+        boolean acquired;
+        queued.incrementAndGet();
+        try {
+            acquired = permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AnalyticsCapacityException("Interrupted while waiting for an analytics slot");
+        } finally {
+            queued.decrementAndGet();
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (!acquired) {
+            rejected.increment();
+            throw new AnalyticsCapacityException("No analytics slot free after " + maxWait);
+        }
+        try {
+            return ScopedValue.where(HOLDS_PERMIT, Boolean.TRUE).call(job::run);
+        } finally {
+            permits.release();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Job<T> {
+        T run() throws Throwable;
+    }
+}
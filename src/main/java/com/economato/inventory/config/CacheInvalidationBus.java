@@ -0,0 +1,82 @@
+package com.economato.inventory.config;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.UUID;
+
+/**
+ * Publica por Redis pub/sub las invalidaciones de la caché local para que el
+ * resto de nodos descarten su copia.
+ *
+ * Formato del mensaje: {@code nodo \n caché [\n clave]}; sin clave significa
+ * vaciar la caché. Los mensajes del propio nodo se ignoran al recibirlos.
+ */
+@Slf4j
+public class CacheInvalidationBus {
+
+    public static final String CHANNEL = "cache:invalidation";
+
+    private static final char SEPARATOR = '\n';
+
+    private final StringRedisTemplate redisTemplate;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public CacheInvalidationBus(StringRedisTemplate redisTemplate, CircuitBreakerRegistry circuitBreakerRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+    }
+
+    public void publishEvict(String cacheName, String key) {
+        publish(nodeId + SEPARATOR + cacheName + SEPARATOR + key);
+    }
+
+    public void publishClear(String cacheName) {
+        publish(nodeId + SEPARATOR + cacheName);
+    }
+
+    /**
+     * Interpreta un mensaje recibido del canal.
+     *
+     * @return la invalidación, o nulo si la originó este nodo o no es válida
+     */
+    public Invalidation parse(String message) {
+        int first = message.indexOf(SEPARATOR);
+        if (first < 0 || message.substring(0, first).equals(nodeId)) {
+            return null;
+        }
+        int second = message.indexOf(SEPARATOR, first + 1);
+        if (second < 0) {
+            return new Invalidation(message.substring(first + 1), null);
+        }
+        return new Invalidation(message.substring(first + 1, second), message.substring(second + 1));
+    }
+
+    private void publish(String message) {
+        if (isRedisCircuitOpen()) {
+            // Sin Redis no hay a quién avisar: los nodos vacían su L1 al recuperarse
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(CHANNEL, message);
+        } catch (Exception e) {
+            log.debug("No se pudo publicar invalidación de caché: {}", e.getMessage());
+        }
+    }
+
+    private boolean isRedisCircuitOpen() {
+        try {
+            CircuitBreaker.State state = circuitBreakerRegistry.circuitBreaker("redis").getState();
+            return state == CircuitBreaker.State.OPEN || state == CircuitBreaker.State.FORCED_OPEN;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /** Invalidación recibida; {@code key} nulo indica vaciar la caché entera. */
+    public record Invalidation(String cacheName, String key) {
+    }
+}
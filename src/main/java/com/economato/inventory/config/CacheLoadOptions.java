@@ -0,0 +1,18 @@
+package com.economato.inventory.config;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+
+/**
+ * Loader settings for {@link CircuitBreakerAwareCache}.
+ *
+ * @param leaseTemplate Redis client for the cross-node load lease, or null to
+ *                      coalesce loads only within this node
+ * @param leaseTtl      how long a node may hold the lease while loading
+ * @param earlyRefreshBeta XFetch beta; higher refreshes earlier, 0 disables
+ */
+public record CacheLoadOptions(StringRedisTemplate leaseTemplate, Duration leaseTtl, double earlyRefreshBeta) {
+
+    public static final CacheLoadOptions DEFAULTS = new CacheLoadOptions(null, Duration.ofSeconds(2), 1.0);
+}
@@ -0,0 +1,152 @@
+package com.economato.inventory.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-cache-name metrics for {@link CircuitBreakerAwareCache}.
+ *
+ * Each Redis operation is timed as a whole. {@link RedisValueCodec} reports the
+ * time it spends encoding or decoding, and the payload size, for the operation
+ * running on the current thread. The rest of the operation counts as network
+ * time.
+ *
+ * Meters, tagged by {@code cache} and {@code operation} (get, put, evict, clear):
+ * - {@code cache.operation.time}, with {@code phase} = serialization | network
+ * - {@code cache.value.size}: encoded payload bytes read or written
+ * - {@code cache.lookups}, with {@code result} = hit | miss (gets only)
+ * - {@code cache.bypass}: operations skipped because the redis circuit is open
+ */
+public class CacheMetrics {
+
+    public static final CacheMetrics NOOP = new CacheMetrics(null);
+
+    private static final ThreadLocal<Sample> CURRENT = new ThreadLocal<>();
+    private static final Sample NOOP_SAMPLE = new Sample(null, null);
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, OperationMeters> operationMeters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> bypassCounters = new ConcurrentHashMap<>();
+
+    public CacheMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Starts timing an operation on this thread; close the sample when the
+     * delegate call returns.
+     */
+    Sample start(String cacheName, String operation) {
+        if (meterRegistry == null) {
+            return NOOP_SAMPLE;
+        }
+        Sample sample = new Sample(this, meters(cacheName, operation));
+        CURRENT.set(sample);
+        return sample;
+    }
+
+    void bypass(String cacheName, String operation) {
+        if (meterRegistry == null) {
+            return;
+        }
+        bypassCounters.computeIfAbsent(cacheName + ':' + operation, ignored -> Counter.builder("cache.bypass")
+                .description("Cache operations skipped because the redis circuit breaker is open")
+                .tag("cache", cacheName)
+                .tag("operation", operation)
+                .register(meterRegistry)).increment();
+    }
+
+    /** Called by the codec with the time spent encoding or decoding one value. */
+    static void recordCodec(long nanos, int bytes) {
+        Sample sample = CURRENT.get();
+        if (sample != null) {
+            sample.codecNanos += nanos;
+            sample.bytes += bytes;
+        }
+    }
+
+    private OperationMeters meters(String cacheName, String operation) {
+        return operationMeters.computeIfAbsent(cacheName + ':' + operation, ignored -> new OperationMeters(
+                timer(cacheName, operation, "serialization"),
+                timer(cacheName, operation, "network"),
+                DistributionSummary.builder("cache.value.size")
+                        .description("Encoded size of cache values read or written")
+                        .baseUnit("bytes")
+                        .tag("cache", cacheName)
+                        .tag("operation", operation)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry),
+                lookupCounter(cacheName, "hit"),
+                lookupCounter(cacheName, "miss")));
+    }
+
+    private Timer timer(String cacheName, String operation, String phase) {
+        return Timer.builder("cache.operation.time")
+                .description("Time spent in cache operations, split into serialization and network")
+                .tag("cache", cacheName)
+                .tag("operation", operation)
+                .tag("phase", phase)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofSeconds(5))
+                .register(meterRegistry);
+    }
+
+    private Counter lookupCounter(String cacheName, String result) {
+        return Counter.builder("cache.lookups")
+                .description("Cache reads reaching Redis, by result")
+                .tag("cache", cacheName)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record OperationMeters(Timer serialization, Timer network, DistributionSummary size,
+            Counter hits, Counter misses) {
+    }
+
+    /** One timed operation; records its meters on close. */
+    static final class Sample implements AutoCloseable {
+
+        private final CacheMetrics owner;
+        private final OperationMeters meters;
+        private final long startNanos = System.nanoTime();
+        private long codecNanos;
+        private int bytes;
+        private Boolean hit;
+
+        private Sample(CacheMetrics owner, OperationMeters meters) {
+            this.owner = owner;
+            this.meters = meters;
+        }
+
+        /** Marks a get as hit or miss. */
+        void hit(boolean hit) {
+            this.hit = hit;
+        }
+
+        @Override
+        public void close() {
+            if (owner == null) {
+                return;
+            }
+            if (CURRENT.get() == this) {
+                CURRENT.remove();
+            }
+            long total = System.nanoTime() - startNanos;
+            meters.serialization().record(codecNanos, TimeUnit.NANOSECONDS);
+            meters.network().record(Math.max(0, total - codecNanos), TimeUnit.NANOSECONDS);
+            if (bytes > 0) {
+                meters.size().record(bytes);
+            }
+            if (hit != null) {
+                (hit ? meters.hits() : meters.misses()).increment();
+            }
+        }
+    }
+}
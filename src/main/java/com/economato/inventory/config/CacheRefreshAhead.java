@@ -0,0 +1,147 @@
+package com.economato.inventory.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refresh-ahead for long-lived caches wrapped by {@link CircuitBreakerAwareCache}.
+ *
+ * A hit on an entry with less than {@code refreshWindow} of its TTL left is
+ * reloaded in the background, so keys that keep being read are rewritten
+ * before they expire and no reader pays the full load. Reads only reach Redis
+ * after the local cache expires, so the window must be longer than the local
+ * TTL for a key read steadily to be seen inside it.
+ *
+ * Refreshes run on virtual threads, at most {@code maxConcurrency} at a time;
+ * the rest are skipped and retried by a later hit.
+ *
+ * Metrics, tagged by cache: {@code cache.refresh_ahead.refreshes},
+ * {@code cache.refresh_ahead.failures} and {@code cache.refresh_ahead.rejected}.
+ */
+@Slf4j
+public class CacheRefreshAhead {
+
+    public static final CacheRefreshAhead DISABLED = new CacheRefreshAhead(Set.of(), 0, 0, null, null);
+
+    private final Set<String> cacheNames;
+    private final double refreshWindow;
+    private final Semaphore permits;
+    private final StringRedisTemplate redisTemplate;
+    private final ExecutorService executor;
+    private final Map<String, Counter> refreshes = new HashMap<>();
+    private final Map<String, Counter> failures = new HashMap<>();
+    private final Map<String, Counter> rejected = new HashMap<>();
+
+    /**
+     * @param cacheNames     caches that refresh ahead
+     * @param refreshWindow  fraction of the TTL, before expiry, in which a hit triggers a refresh
+     * @param maxConcurrency refreshes running at the same time
+     * @param redisTemplate  client used to read the remaining TTL of entries loaded by other nodes
+     * @param meterRegistry  registry for the refresh metrics
+     */
+    public CacheRefreshAhead(Set<String> cacheNames, double refreshWindow, int maxConcurrency,
+            StringRedisTemplate redisTemplate, MeterRegistry meterRegistry) {
+        boolean enabled = !cacheNames.isEmpty() && refreshWindow > 0 && maxConcurrency > 0;
+        this.cacheNames = enabled ? Set.copyOf(cacheNames) : Set.of();
+        this.refreshWindow = refreshWindow;
+        this.permits = new Semaphore(Math.max(0, maxConcurrency));
+        this.redisTemplate = redisTemplate;
+        this.executor = enabled
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("cache-refresh-ahead-", 0).factory())
+                : null;
+
+        for (String cacheName : this.cacheNames) {
+            refreshes.put(cacheName, Counter.builder("cache.refresh_ahead.refreshes")
+                    .description("Cache entries reloaded before expiry")
+                    .tag("cache", cacheName)
+                    .register(meterRegistry));
+            failures.put(cacheName, Counter.builder("cache.refresh_ahead.failures")
+                    .description("Refresh-ahead reloads that failed; the entry expires normally")
+                    .tag("cache", cacheName)
+                    .register(meterRegistry));
+            rejected.put(cacheName, Counter.builder("cache.refresh_ahead.rejected")
+                    .description("Refresh-ahead reloads skipped because all refresh slots were busy")
+                    .tag("cache", cacheName)
+                    .register(meterRegistry));
+        }
+    }
+
+    boolean appliesTo(String cacheName) {
+        return cacheNames.contains(cacheName);
+    }
+
+    /** Whether an entry with {@code remainingMillis} left of {@code ttlMillis} is due. */
+    boolean isDue(long remainingMillis, long ttlMillis) {
+        return remainingMillis >= 0 && remainingMillis <= ttlMillis * refreshWindow;
+    }
+
+    /**
+     * Remaining TTL of a Redis key in milliseconds, or -1 when it is unknown,
+     * the key has no TTL or does not exist.
+     */
+    long remainingTtlMillis(String redisKey) {
+        if (redisTemplate == null) {
+            return -1;
+        }
+        try {
+            Long ttl = redisTemplate.getExpire(redisKey, TimeUnit.MILLISECONDS);
+            return ttl != null ? ttl : -1;
+        } catch (Exception e) {
+            log.debug("Could not read TTL of '{}': {}", redisKey, e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Runs {@code refresh} in the background if a slot is free.
+     *
+     * @return false when the refresh was skipped
+     */
+    boolean submit(String cacheName, Object key, Runnable refresh) {
+        if (executor == null || !permits.tryAcquire()) {
+            increment(rejected, cacheName);
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                RuntimeException failure = null;
+                try {
+                    refresh.run();
+                } catch (RuntimeException e) {
+                    failure = e;
+                } finally {
+                    permits.release();
+                }
+                if (failure == null) {
+                    increment(refreshes, cacheName);
+                    log.debug("Refreshed cache entry '{}' in '{}' ahead of expiry", key, cacheName);
+                } else {
+                    increment(failures, cacheName);
+                    log.debug("Refresh-ahead of '{}' in '{}' failed: {}", key, cacheName, failure.getMessage());
+                }
+            });
+            return true;
+        } catch (RuntimeException e) {
+            permits.release();
+            increment(rejected, cacheName);
+            return false;
+        }
+    }
+
+    private static void increment(Map<String, Counter> counters, String cacheName) {
+        Counter counter = counters.get(cacheName);
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+}
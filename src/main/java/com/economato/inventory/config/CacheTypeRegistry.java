@@ -0,0 +1,83 @@
+package com.economato.inventory.config;
+
+import com.economato.inventory.dto.RestPage;
+import com.economato.inventory.dto.response.AllergenResponseDTO;
+import com.economato.inventory.dto.response.OrderResponseDTO;
+import com.economato.inventory.dto.response.ProductResponseDTO;
+import com.economato.inventory.dto.response.RecipeResponseDTO;
+import com.economato.inventory.dto.response.UserResponseDTO;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Registro de tipos cacheados con {@link RedisValueCodec}.
+ *
+ * Cada tipo se identifica con un id numérico estable en lugar del nombre de
+ * clase, y lleva una versión de esquema. Reglas:
+ * - Los ids no se reutilizan ni se reasignan.
+ * - Añadir campos a un DTO no requiere cambios (los desconocidos se ignoran).
+ * - Renombrar o cambiar el tipo de un campo exige subir {@code schemaVersion}:
+ *   los nodos con otra versión tratan la entrada como fallo de caché.
+ * - Los tipos no registrados (p.ej. entidades JPA) se siguen guardando en el
+ *   JSON con tipado por defecto.
+ */
+public final class CacheTypeRegistry {
+
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<Integer, Entry> byId = new HashMap<>();
+
+    public CacheTypeRegistry(TypeFactory typeFactory) {
+        register(1, 1, typeFactory.constructType(String.class), String.class::isInstance);
+        register(2, 1, typeFactory.constructType(ProductResponseDTO.class), ProductResponseDTO.class::isInstance);
+        register(3, 1, typeFactory.constructType(RecipeResponseDTO.class), RecipeResponseDTO.class::isInstance);
+        register(4, 1, typeFactory.constructType(OrderResponseDTO.class), OrderResponseDTO.class::isInstance);
+        register(5, 1, typeFactory.constructType(UserResponseDTO.class), UserResponseDTO.class::isInstance);
+        register(6, 1, typeFactory.constructParametricType(RestPage.class, ProductResponseDTO.class),
+                value -> isPageOf(value, ProductResponseDTO.class));
+        register(7, 1, typeFactory.constructParametricType(RestPage.class, RecipeResponseDTO.class),
+                value -> isPageOf(value, RecipeResponseDTO.class));
+        // Página vacía: el tipo de elemento no se puede deducir ni hace falta
+        register(8, 1, typeFactory.constructParametricType(RestPage.class, Object.class),
+                value -> value instanceof RestPage<?> page && page.getContent().isEmpty());
+        register(9, 1, typeFactory.constructType(AllergenResponseDTO.class), AllergenResponseDTO.class::isInstance);
+        // Respuestas JSON ya serializadas: Smile las guarda como binario, sin base64
+        register(10, 1, typeFactory.constructType(byte[].class), byte[].class::isInstance);
+    }
+
+    /** Tipo registrado para el valor, o nulo si debe usarse el formato JSON. */
+    public Entry find(Object value) {
+        for (Entry entry : entries) {
+            if (entry.matcher().test(value)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    public Entry get(int typeId) {
+        return byId.get(typeId);
+    }
+
+    private void register(int typeId, int schemaVersion, JavaType type, Predicate<Object> matcher) {
+        Entry entry = new Entry(typeId, schemaVersion, type, matcher);
+        if (byId.putIfAbsent(typeId, entry) != null) {
+            throw new IllegalStateException("Id de tipo de caché duplicado: " + typeId);
+        }
+        entries.add(entry);
+    }
+
+    private static boolean isPageOf(Object value, Class<?> elementType) {
+        return value instanceof RestPage<?> page
+                && !page.getContent().isEmpty()
+                && page.getContent().stream().allMatch(elementType::isInstance);
+    }
+
+    public record Entry(int typeId, int schemaVersion, JavaType type, Predicate<Object> matcher) {
+    }
+}
@@ -1,23 +1,104 @@
 package com.economato.inventory.config;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
 
 /**
  * Cache wrapper that checks Redis circuit breaker before every operation.
  * When circuit breaker is OPEN, returns null (cache miss) to bypass Redis entirely.
+ *
+ * {@link #get(Object, Callable)} (used by {@code @Cacheable(sync = true)}) also
+ * protects the database from stampedes:
+ * - Single-flight: concurrent misses for the same key share one loader call,
+ *   including while Redis is down.
+ * - Optional cross-node lease: the loading node holds a short Redis lock and the
+ *   other nodes poll the cache instead of running the same query.
+ * - Probabilistic early refresh (XFetch): a hit close to expiry may reload the
+ *   entry, with a probability that grows with the entry's load time.
+ * - Refresh-ahead for the caches listed in {@link CacheRefreshAhead}: a hit
+ *   close to expiry reloads the entry in the background instead of on the
+ *   caller's thread. These caches skip XFetch.
+ * Hits served by {@link TwoLevelCache} from L1 never reach this cache; it
+ * reports them through {@link #onLocalHit} so both checks still run for hot
+ * keys.
+ *
+ * Stale-while-revalidate: the last good value of each key is kept locally (see
+ * {@link StaleValueStore}). It is served instead of querying the database while
+ * Redis is OPEN, and when the loader fails with the db/replica circuit open.
+ * Values past the soft TTL mark the response ({@link StaleResponseMarker}) and
+ * are reloaded in the background when the dependency recovers.
+ *
+ * Every Redis operation and every bypass is recorded in {@link CacheMetrics}.
  */
 @Slf4j
-@RequiredArgsConstructor
 public class CircuitBreakerAwareCache implements Cache {
 
+    private static final RedisScript<Long> RELEASE_LEASE = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+    private static final long LEASE_POLL_MILLIS = 25;
+    private static final int MAX_TRACKED_ENTRIES = 10_000;
+    /** Values served from {@link StaleValueStore} on the current thread; see {@link #staleServes()}. */
+    private static final ThreadLocal<int[]> STALE_SERVES = new ThreadLocal<>();
+
     private final Cache delegate;
     private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final CacheLoadOptions loadOptions;
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final com.github.benmanes.caffeine.cache.Cache<Object, LoadStats> loadStats = Caffeine.newBuilder()
+            .maximumSize(MAX_TRACKED_ENTRIES)
+            .build();
+    private final String leaseOwner = UUID.randomUUID().toString();
+    private final StaleValueStore staleValues;
+    private final CacheRefreshAhead refreshAhead;
+    private final CacheMetrics metrics;
+    private final Set<Object> refreshingAhead = ConcurrentHashMap.newKeySet();
+
+    public CircuitBreakerAwareCache(Cache delegate, CircuitBreakerRegistry circuitBreakerRegistry) {
+        this(delegate, circuitBreakerRegistry, CacheLoadOptions.DEFAULTS);
+    }
+
+    public CircuitBreakerAwareCache(Cache delegate, CircuitBreakerRegistry circuitBreakerRegistry,
+            CacheLoadOptions loadOptions) {
+        this(delegate, circuitBreakerRegistry, loadOptions, StaleCacheOptions.DISABLED);
+    }
+
+    public CircuitBreakerAwareCache(Cache delegate, CircuitBreakerRegistry circuitBreakerRegistry,
+            CacheLoadOptions loadOptions, StaleCacheOptions staleOptions) {
+        this(delegate, circuitBreakerRegistry, loadOptions, staleOptions, CacheRefreshAhead.DISABLED,
+                CacheMetrics.NOOP);
+    }
+
+    public CircuitBreakerAwareCache(Cache delegate, CircuitBreakerRegistry circuitBreakerRegistry,
+            CacheLoadOptions loadOptions, StaleCacheOptions staleOptions, CacheRefreshAhead refreshAhead,
+            CacheMetrics metrics) {
+        this.delegate = delegate;
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.loadOptions = loadOptions;
+        this.staleValues = new StaleValueStore(staleOptions);
+        this.refreshAhead = refreshAhead;
+        this.metrics = metrics;
+    }
 
     @Override
     public String getName() {
@@ -33,17 +114,21 @@ public class CircuitBreakerAwareCache implements Cache {
     public ValueWrapper get(Object key) {
         if (isRedisCircuitOpen()) {
             log.debug("Redis CB OPEN: bypassing cache GET for key '{}'", key);
-            return null; // Cache miss
+            metrics.bypass(getName(), "get");
+            return staleWrapper(key); // Cache miss unless a stale value is kept
         }
         
         try {
-            ValueWrapper result = delegate.get(key);
+            ValueWrapper result = delegateGet(key);
             recordSuccess();
+            if (result != null) {
+                staleValues.remember(key, result.get());
+            }
             return result;
         } catch (Exception e) {
             log.debug("Cache GET error for key '{}', returning null: {}", key, e.getMessage());
             recordFailure(e);
-            return null;
+            return staleWrapper(key);
         }
     }
 
@@ -51,56 +136,119 @@ public class CircuitBreakerAwareCache implements Cache {
     public <T> T get(Object key, Class<T> type) {
         if (isRedisCircuitOpen()) {
             log.debug("Redis CB OPEN: bypassing cache GET for key '{}'", key);
-            return null;
+            metrics.bypass(getName(), "get");
+            return staleValue(key, type);
         }
         
         try {
-            T result = delegate.get(key, type);
+            T result;
+            try (CacheMetrics.Sample sample = metrics.start(getName(), "get")) {
+                result = delegate.get(key, type);
+                sample.hit(result != null);
+            }
             recordSuccess();
+            staleValues.remember(key, result);
             return result;
         } catch (Exception e) {
             log.debug("Cache GET error for key '{}', returning null: {}", key, e.getMessage());
             recordFailure(e);
-            return null;
+            return staleValue(key, type);
         }
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public <T> T get(Object key, Callable<T> valueLoader) {
         if (isRedisCircuitOpen()) {
-            log.debug("Redis CB OPEN: bypassing cache, calling valueLoader directly");
-            try {
-                return valueLoader.call();
-            } catch (Exception e) {
-                throw new ValueRetrievalException(key, valueLoader, e);
+            metrics.bypass(getName(), "get");
+            StaleValueStore.StaleEntry stale = staleValues.get(key);
+            if (stale != null) {
+                log.debug("Redis CB OPEN: serving last good value for key '{}'", key);
+                return (T) serveStale(key, stale, valueLoader);
             }
+            log.debug("Redis CB OPEN: bypassing cache, calling valueLoader once per key");
+            return (T) loadOrServeStale(key, valueLoader, false);
         }
-        
+
+        ValueWrapper cached;
         try {
-            T result = delegate.get(key, valueLoader);
+            cached = delegateGet(key);
             recordSuccess();
-            return result;
         } catch (Exception e) {
             log.debug("Cache GET error for key '{}': {}", key, e.getMessage());
             recordFailure(e);
             // Fall back to calling valueLoader directly
-            try {
-                return valueLoader.call();
-            } catch (Exception ex) {
-                throw new ValueRetrievalException(key, valueLoader, ex);
+            return (T) loadOrServeStale(key, valueLoader, false);
+        }
+
+        if (cached == null) {
+            return (T) loadOrServeStale(key, valueLoader, true);
+        }
+        staleValues.remember(key, cached.get());
+        return (T) refreshIfDue(key, cached.get(), valueLoader, reloaded -> {
+        });
+    }
+
+    /**
+     * Runs the refresh-ahead and XFetch checks for a hit served from
+     * {@link TwoLevelCache}'s local copy, without reading Redis. Reloaded values
+     * are passed to {@code onReload} so the local copy can be replaced; for
+     * refresh-ahead that happens on the background thread.
+     *
+     * @return the value to return to the caller: the reloaded one if XFetch
+     *         refreshed it on this thread, otherwise {@code value}
+     */
+    Object onLocalHit(Object key, Object value, Callable<?> valueLoader, Consumer<Object> onReload) {
+        if (isRedisCircuitOpen()) {
+            return value;
+        }
+        return refreshIfDue(key, value, valueLoader, onReload);
+    }
+
+    /**
+     * Number of values served from the last-good store on the current thread.
+     * {@link TwoLevelCache} compares it around a lookup and keeps stale values
+     * out of its local copy, where they would outlive the outage unmarked.
+     */
+    static int staleServes() {
+        int[] served = STALE_SERVES.get();
+        return served != null ? served[0] : 0;
+    }
+
+    private Object refreshIfDue(Object key, Object value, Callable<?> valueLoader, Consumer<Object> onReload) {
+        if (refreshAhead.appliesTo(getName())) {
+            refreshAheadIfDue(key, value, valueLoader, onReload);
+            return value;
+        }
+        if (shouldRefreshEarly(key) && !inFlight.containsKey(key)) {
+            log.debug("Early refresh of cache entry '{}' in '{}'", key, getName());
+            int staleBefore = staleServes();
+            Object reloaded = loadOrServeStale(key, valueLoader, true);
+            if (reloaded != null && staleServes() == staleBefore) {
+                onReload.accept(reloaded);
             }
+            return reloaded;
         }
+        return value;
     }
 
     @Override
     public void put(Object key, Object value) {
+        if (value != null) {
+            staleValues.remember(key, value);
+        } else {
+            staleValues.forget(key);
+        }
         if (isRedisCircuitOpen()) {
             log.debug("Redis CB OPEN: bypassing cache PUT for key '{}'", key);
+            metrics.bypass(getName(), "put");
             return;
         }
         
         try {
-            delegate.put(key, value);
+            try (CacheMetrics.Sample sample = metrics.start(getName(), "put")) {
+                delegate.put(key, value);
+            }
             recordSuccess();
         } catch (Exception e) {
             log.debug("Cache PUT error for key '{}': {}", key, e.getMessage());
@@ -110,13 +258,18 @@ public class CircuitBreakerAwareCache implements Cache {
 
     @Override
     public ValueWrapper putIfAbsent(Object key, Object value) {
+        staleValues.forget(key);
         if (isRedisCircuitOpen()) {
             log.debug("Redis CB OPEN: bypassing cache putIfAbsent for key '{}'", key);
+            metrics.bypass(getName(), "put");
             return null;
         }
         
         try {
-            ValueWrapper result = delegate.putIfAbsent(key, value);
+            ValueWrapper result;
+            try (CacheMetrics.Sample sample = metrics.start(getName(), "put")) {
+                result = delegate.putIfAbsent(key, value);
+            }
             recordSuccess();
             return result;
         } catch (Exception e) {
@@ -128,13 +281,17 @@ public class CircuitBreakerAwareCache implements Cache {
 
     @Override
     public void evict(Object key) {
+        staleValues.forget(key);
         if (isRedisCircuitOpen()) {
             log.debug("Redis CB OPEN: bypassing cache EVICT for key '{}'", key);
+            metrics.bypass(getName(), "evict");
             return;
         }
         
         try {
-            delegate.evict(key);
+            try (CacheMetrics.Sample sample = metrics.start(getName(), "evict")) {
+                delegate.evict(key);
+            }
             recordSuccess();
         } catch (Exception e) {
             log.debug("Cache EVICT error for key '{}': {}", key, e.getMessage());
@@ -144,13 +301,17 @@ public class CircuitBreakerAwareCache implements Cache {
 
     @Override
     public void clear() {
+        staleValues.clear();
         if (isRedisCircuitOpen()) {
             log.debug("Redis CB OPEN: bypassing cache CLEAR");
+            metrics.bypass(getName(), "clear");
             return;
         }
         
         try {
-            delegate.clear();
+            try (CacheMetrics.Sample sample = metrics.start(getName(), "clear")) {
+                delegate.clear();
+            }
             recordSuccess();
         } catch (Exception e) {
             log.debug("Cache CLEAR error: {}", e.getMessage());
@@ -158,6 +319,256 @@ public class CircuitBreakerAwareCache implements Cache {
         }
     }
 
+    private ValueWrapper delegateGet(Object key) {
+        try (CacheMetrics.Sample sample = metrics.start(getName(), "get")) {
+            ValueWrapper result = delegate.get(key);
+            sample.hit(result != null);
+            return result;
+        }
+    }
+
+    /**
+     * Reloads, one key at a time on {@code executor}, the keys served stale since
+     * the last recovery. Keys that still fail stay queued for the next one.
+     */
+    void refreshStale(Executor executor) {
+        staleValues.drainPendingRefreshes().forEach((key, loader) -> executor.execute(() -> {
+            try {
+                Object value = loadOnce(key, loader, !isRedisCircuitOpen());
+                staleValues.remember(key, value);
+                log.debug("Refreshed stale cache entry '{}' in '{}'", key, getName());
+            } catch (RuntimeException e) {
+                log.debug("Stale cache entry '{}' in '{}' still unavailable: {}", key, getName(), e.getMessage());
+                staleValues.scheduleRefresh(key, loader);
+            }
+        }));
+    }
+
+    /**
+     * Loads through {@link #loadOnce}; if the loader fails while the db/replica
+     * circuit is open, serves the last good value instead of the error.
+     */
+    private Object loadOrServeStale(Object key, Callable<?> valueLoader, boolean store) {
+        try {
+            Object value = loadOnce(key, valueLoader, store);
+            staleValues.remember(key, value);
+            return value;
+        } catch (ValueRetrievalException e) {
+            StaleValueStore.StaleEntry stale = isDatabaseCircuitOpen() ? staleValues.get(key) : null;
+            if (stale == null) {
+                throw e;
+            }
+            log.warn("Database unavailable: serving last good value for '{}' in '{}'", key, getName());
+            return serveStale(key, stale, valueLoader);
+        }
+    }
+
+    private Object serveStale(Object key, StaleValueStore.StaleEntry stale, Callable<?> valueLoader) {
+        int[] served = STALE_SERVES.get();
+        if (served == null) {
+            served = new int[1];
+            STALE_SERVES.set(served);
+        }
+        served[0]++;
+        if (staleValues.isStale(stale)) {
+            StaleResponseMarker.mark(stale.ageMillis());
+            staleValues.scheduleRefresh(key, valueLoader);
+        }
+        return stale.value();
+    }
+
+    private ValueWrapper staleWrapper(Object key) {
+        StaleValueStore.StaleEntry stale = staleValues.get(key);
+        return stale != null ? new SimpleValueWrapper(serveStale(key, stale, null)) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T staleValue(Object key, Class<T> type) {
+        StaleValueStore.StaleEntry stale = staleValues.get(key);
+        if (stale == null || (type != null && !type.isInstance(stale.value()))) {
+            return null;
+        }
+        return (T) serveStale(key, stale, null);
+    }
+
+    /**
+     * Runs the loader at most once per key at a time on this node; concurrent
+     * callers wait for the same result.
+     */
+    private Object loadOnce(Object key, Callable<?> valueLoader, boolean store) {
+        CompletableFuture<Object> loading = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, loading);
+        if (existing != null) {
+            return await(existing, key, valueLoader);
+        }
+
+        try {
+            Object value = store ? loadAndStore(key, valueLoader) : valueLoader.call();
+            loading.complete(value);
+            return value;
+        } catch (Exception e) {
+            loading.completeExceptionally(e);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            inFlight.remove(key, loading);
+        }
+    }
+
+    private Object await(CompletableFuture<Object> loading, Object key, Callable<?> valueLoader) {
+        try {
+            return loading.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } catch (ExecutionException e) {
+            throw new ValueRetrievalException(key, valueLoader, e.getCause());
+        }
+    }
+
+    private Object loadAndStore(Object key, Callable<?> valueLoader) throws Exception {
+        String lease = leaseKey(key);
+        if (lease != null && !acquireLease(lease)) {
+            Object loadedElsewhere = awaitOtherNode(key);
+            if (loadedElsewhere != null) {
+                return loadedElsewhere;
+            }
+            lease = null;
+        }
+
+        try {
+            long start = System.nanoTime();
+            Object value = valueLoader.call();
+            long loadMillis = (System.nanoTime() - start) / 1_000_000;
+            if (value != null) {
+                put(key, value);
+                trackLoad(key, value, loadMillis);
+            }
+            return value;
+        } finally {
+            if (lease != null) {
+                releaseLease(lease);
+            }
+        }
+    }
+
+    /**
+     * Schedules a background reload when the entry is inside the refresh-ahead
+     * window. The expiry comes from the last local load; entries loaded by other
+     * nodes, or that look due, are checked against the TTL left in Redis.
+     */
+    private void refreshAheadIfDue(Object key, Object value, Callable<?> valueLoader, Consumer<Object> onReload) {
+        if (!(delegate instanceof RedisCache redisCache) || refreshingAhead.contains(key)
+                || inFlight.containsKey(key) || isDatabaseCircuitOpen()) {
+            return;
+        }
+        Duration ttl = redisCache.getCacheConfiguration().getTtlFunction().getTimeToLive(key, value);
+        if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        LoadStats stats = loadStats.getIfPresent(key);
+        long remaining = stats != null ? stats.expiresAtMillis() - now : -1;
+        if (stats == null || refreshAhead.isDue(remaining, ttl.toMillis())) {
+            remaining = refreshAhead.remainingTtlMillis(
+                    redisCache.getCacheConfiguration().getKeyPrefixFor(getName()) + key);
+            if (remaining < 0) {
+                return;
+            }
+            loadStats.put(key, new LoadStats(now + remaining, stats != null ? stats.loadMillis() : 1));
+        }
+        if (!refreshAhead.isDue(remaining, ttl.toMillis()) || !refreshingAhead.add(key)) {
+            return;
+        }
+
+        boolean submitted = refreshAhead.submit(getName(), key, () -> {
+            try {
+                Object reloaded = loadOnce(key, valueLoader, true);
+                staleValues.remember(key, reloaded);
+                if (reloaded != null) {
+                    onReload.accept(reloaded);
+                }
+            } finally {
+                refreshingAhead.remove(key);
+            }
+        });
+        if (!submitted) {
+            refreshingAhead.remove(key);
+        }
+    }
+
+    /**
+     * XFetch: refresh when {@code now - delta * beta * ln(rand) >= expiry}, where
+     * delta is how long the last load took. Only entries loaded by this node are
+     * tracked.
+     */
+    private boolean shouldRefreshEarly(Object key) {
+        if (loadOptions.earlyRefreshBeta() <= 0) {
+            return false;
+        }
+        LoadStats stats = loadStats.getIfPresent(key);
+        if (stats == null) {
+            return false;
+        }
+        double random = ThreadLocalRandom.current().nextDouble();
+        double gap = -stats.loadMillis() * loadOptions.earlyRefreshBeta() * Math.log(random);
+        return System.currentTimeMillis() + gap >= stats.expiresAtMillis();
+    }
+
+    private void trackLoad(Object key, Object value, long loadMillis) {
+        boolean tracked = loadOptions.earlyRefreshBeta() > 0 || refreshAhead.appliesTo(getName());
+        if (!tracked || !(delegate instanceof RedisCache redisCache)) {
+            return;
+        }
+        Duration ttl = redisCache.getCacheConfiguration().getTtlFunction().getTimeToLive(key, value);
+        if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+            return;
+        }
+        loadStats.put(key, new LoadStats(System.currentTimeMillis() + ttl.toMillis(), Math.max(1, loadMillis)));
+    }
+
+    private String leaseKey(Object key) {
+        return loadOptions.leaseTemplate() != null ? "lock:" + getName() + "::" + key : null;
+    }
+
+    private boolean acquireLease(String lease) {
+        try {
+            Boolean acquired = loadOptions.leaseTemplate().opsForValue()
+                    .setIfAbsent(lease, leaseOwner, loadOptions.leaseTtl());
+            return !Boolean.FALSE.equals(acquired);
+        } catch (Exception e) {
+            log.debug("Cache lease '{}' unavailable, loading locally: {}", lease, e.getMessage());
+            return true;
+        }
+    }
+
+    private void releaseLease(String lease) {
+        try {
+            loadOptions.leaseTemplate().execute(RELEASE_LEASE, List.of(lease), leaseOwner);
+        } catch (Exception e) {
+            log.debug("Failed to release cache lease '{}': {}", lease, e.getMessage());
+        }
+    }
+
+    /**
+     * Another node holds the lease: poll the cache until it stores the value or
+     * the lease expires.
+     */
+    private Object awaitOtherNode(Object key) throws InterruptedException {
+        long deadline = System.nanoTime() + loadOptions.leaseTtl().toNanos();
+        while (System.nanoTime() < deadline) {
+            Thread.sleep(LEASE_POLL_MILLIS);
+            ValueWrapper wrapper = get(key);
+            if (wrapper != null) {
+                return wrapper.get();
+            }
+            if (isRedisCircuitOpen()) {
+                break;
+            }
+        }
+        return null;
+    }
+
     private boolean isRedisCircuitOpen() {
         try {
             CircuitBreaker cb = circuitBreakerRegistry.circuitBreaker("redis");
@@ -169,6 +580,20 @@ public class CircuitBreakerAwareCache implements Cache {
         }
     }
 
+    private boolean isDatabaseCircuitOpen() {
+        return isOpen("db") || isOpen("replica");
+    }
+
+    private boolean isOpen(String circuitBreakerName) {
+        try {
+            CircuitBreaker.State state = circuitBreakerRegistry.circuitBreaker(circuitBreakerName).getState();
+            return state == CircuitBreaker.State.OPEN || state == CircuitBreaker.State.FORCED_OPEN;
+        } catch (Exception e) {
+            log.warn("Error checking {} CB state: {}", circuitBreakerName, e.getMessage());
+            return false;
+        }
+    }
+
     private void recordSuccess() {
         try {
             CircuitBreaker cb = circuitBreakerRegistry.circuitBreaker("redis");
@@ -195,4 +620,7 @@ public class CircuitBreakerAwareCache implements Cache {
         }
         return current != null ? current : exception;
     }
+
+    private record LoadStats(long expiresAtMillis, long loadMillis) {
+    }
 }
@@ -1,21 +1,77 @@
 package com.economato.inventory.config;
 
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.support.NoOpCacheManager;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Slf4j
-@RequiredArgsConstructor
 public class CircuitBreakerAwareCacheManager implements CacheManager {
 
+    /** Circuits whose recovery triggers the refresh of values served stale. */
+    private static final List<String> STALE_REFRESH_CIRCUITS = List.of("redis", "db", "replica");
+
     private final CacheManager redisCacheManager;
     private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final CacheLoadOptions loadOptions;
+    private final StaleCacheOptions staleOptions;
+    private final CacheRefreshAhead refreshAhead;
+    private final CacheMetrics metrics;
     private final CacheManager noOpCacheManager = new NoOpCacheManager();
+    private final Map<String, CircuitBreakerAwareCache> caches = new ConcurrentHashMap<>();
+
+    public CircuitBreakerAwareCacheManager(CacheManager redisCacheManager,
+            CircuitBreakerRegistry circuitBreakerRegistry) {
+        this(redisCacheManager, circuitBreakerRegistry, CacheLoadOptions.DEFAULTS);
+    }
+
+    public CircuitBreakerAwareCacheManager(CacheManager redisCacheManager,
+            CircuitBreakerRegistry circuitBreakerRegistry, CacheLoadOptions loadOptions) {
+        this(redisCacheManager, circuitBreakerRegistry, loadOptions, StaleCacheOptions.DISABLED);
+    }
+
+    public CircuitBreakerAwareCacheManager(CacheManager redisCacheManager,
+            CircuitBreakerRegistry circuitBreakerRegistry, CacheLoadOptions loadOptions,
+            StaleCacheOptions staleOptions) {
+        this(redisCacheManager, circuitBreakerRegistry, loadOptions, staleOptions, CacheRefreshAhead.DISABLED,
+                CacheMetrics.NOOP);
+    }
+
+    public CircuitBreakerAwareCacheManager(CacheManager redisCacheManager,
+            CircuitBreakerRegistry circuitBreakerRegistry, CacheLoadOptions loadOptions,
+            StaleCacheOptions staleOptions, CacheRefreshAhead refreshAhead, CacheMetrics metrics) {
+        this.redisCacheManager = redisCacheManager;
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.loadOptions = loadOptions;
+        this.staleOptions = staleOptions;
+        this.refreshAhead = refreshAhead;
+        this.metrics = metrics;
+
+        if (staleOptions.enabled()) {
+            // One thread: recovery reloads keys one by one instead of bursting the database
+            ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "cache-stale-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            STALE_REFRESH_CIRCUITS.forEach(name -> circuitBreakerRegistry.circuitBreaker(name)
+                    .getEventPublisher().onStateTransition(event -> {
+                        if (event.getStateTransition().getToState() == CircuitBreaker.State.CLOSED) {
+                            log.info("Circuit '{}' closed: refreshing cache entries served stale", name);
+                            caches.values().forEach(cache -> cache.refreshStale(refreshExecutor));
+                        }
+                    }));
+        }
+    }
 
     @Override
     public Cache getCache(String name) {
@@ -24,12 +80,15 @@ public class CircuitBreakerAwareCacheManager implements CacheManager {
             return noOpCacheManager.getCache(name);
         }
 
-        // Wrap cache to check circuit breaker before every operation
-        return new CircuitBreakerAwareCache(cache, circuitBreakerRegistry);
+        // Wrap cache to check circuit breaker before every operation.
+        // One wrapper per name so that in-flight loads and stale values are shared.
+        return caches.computeIfAbsent(name,
+                cacheName -> new CircuitBreakerAwareCache(cache, circuitBreakerRegistry, loadOptions, staleOptions,
+                        refreshAhead, metrics));
     }
 
     @Override
     public Collection<String> getCacheNames() {
         return redisCacheManager.getCacheNames();
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,7 @@
 package com.economato.inventory.config;
 
+import com.economato.inventory.annotation.AllowStaleReads;
+import com.economato.inventory.annotation.AnalyticsQuery;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import lombok.RequiredArgsConstructor;
@@ -7,12 +9,26 @@ import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.annotation.Order;
 import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.lang.annotation.Annotation;
+
+/**
+ * Routes read-only transactions to the READER pool and the rest to the WRITER.
+ *
+ * Reads go to the writer when the db/replica circuit is open, and when the
+ * replica has not yet replayed the caller's last write (see
+ * {@link ReplicaLagTracker}), unless the method is {@link AllowStaleReads}.
+ *
+ * {@link AnalyticsQuery} methods are admitted through {@link AnalyticsBulkhead};
+ * read-only ones use the ANALYTICS pool instead of the READER.
+ */
 @Slf4j
 @Aspect
 @Component
@@ -22,16 +38,28 @@ import org.springframework.transaction.annotation.Transactional;
 public class DataSourceAspect {
 
     private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final ObjectProvider<ReplicaLagTracker> replicaLagTrackerProvider;
+    private final ObjectProvider<AnalyticsBulkhead> analyticsBulkheadProvider;
 
-    @SuppressWarnings("preview")
     @Around("@annotation(transactional)")
     public Object proceed(ProceedingJoinPoint pjp, Transactional transactional) throws Throwable {
-        DataSourceType type = transactional.readOnly() ? DataSourceType.READER : DataSourceType.WRITER;
+        AnalyticsBulkhead analyticsBulkhead = isAnnotated(pjp, AnalyticsQuery.class)
+                ? analyticsBulkheadProvider.getIfAvailable() : null;
+        if (analyticsBulkhead != null) {
+            return analyticsBulkhead.execute(() -> route(pjp, transactional, DataSourceType.ANALYTICS));
+        }
+        return route(pjp, transactional, DataSourceType.READER);
+    }
+
+    @SuppressWarnings("preview")
+    private Object route(ProceedingJoinPoint pjp, Transactional transactional, DataSourceType readType)
+            throws Throwable {
+        DataSourceType type = transactional.readOnly() ? readType : DataSourceType.WRITER;
         
         // Check if DB or replica circuit breaker is open to use writer as fallback
         CircuitBreaker dbCircuitBreaker = circuitBreakerRegistry.circuitBreaker("db");
         CircuitBreaker replicaCircuitBreaker = circuitBreakerRegistry.circuitBreaker("replica");
-        boolean useWriterFallback = type == DataSourceType.READER
+        boolean useWriterFallback = type != DataSourceType.WRITER
             && (dbCircuitBreaker.getState() == CircuitBreaker.State.OPEN
                 || replicaCircuitBreaker.getState() == CircuitBreaker.State.OPEN);
         
@@ -39,6 +67,13 @@ public class DataSourceAspect {
             log.debug("DB/REPLICA circuit breaker is OPEN, using WRITER datasource as fallback for read operation");
             type = DataSourceType.WRITER;
         }
+
+        ReplicaLagTracker replicaLagTracker = replicaLagTrackerProvider.getIfAvailable();
+        if (type != DataSourceType.WRITER && replicaLagTracker != null && !isAnnotated(pjp, AllowStaleReads.class)
+                && !replicaLagTracker.replicaCaughtUp()) {
+            log.debug("Replica behind the caller's last write, using WRITER datasource for read operation");
+            type = DataSourceType.WRITER;
+        }
         
         DataSourceType finalType = type;
         
@@ -48,7 +83,7 @@ public class DataSourceAspect {
                         return pjp.proceed();
                     } catch (Throwable t) {
                         // If reading from READER fails with connection error, retry with WRITER as fallback
-                        if (finalType == DataSourceType.READER && isConnectionException(t) && transactional.readOnly()) {
+                        if (finalType != DataSourceType.WRITER && isConnectionException(t) && transactional.readOnly()) {
                             log.warn("Read operation failed on READER datasource, retrying with WRITER as fallback: {}", 
                                     t.getMessage());
 
@@ -87,6 +122,11 @@ public class DataSourceAspect {
                 });
     }
     
+    private boolean isAnnotated(ProceedingJoinPoint pjp, Class<? extends Annotation> annotation) {
+        return pjp.getSignature() instanceof MethodSignature signature
+                && signature.getMethod().isAnnotationPresent(annotation);
+    }
+
     private boolean isConnectionException(Throwable t) {
         if (t == null) return false;
         
@@ -1,20 +1,34 @@
 package com.economato.inventory.config;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import javax.sql.DataSource;
 
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.BindResult;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
 
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Configuration
 @Profile("!test & !resilience-test")
@@ -54,30 +68,123 @@ public class DataSourceConfig {
         return writer;
     }
 
+    /**
+     * Pool de lectura sobre las réplicas de {@code spring.datasource.readers}.
+     * Sin esa lista se usa la réplica única de {@code spring.datasource.reader}.
+     */
     @Bean
-    @ConfigurationProperties("spring.datasource.reader")
-    public DataSource readerDataSource() {
-        HikariDataSource reader = DataSourceBuilder.create()
-                .type(HikariDataSource.class)
+    public DataSource readerDataSource(Environment environment, CircuitBreakerRegistry circuitBreakerRegistry,
+            MeterRegistry meterRegistry) {
+        Binder binder = Binder.get(environment);
+        List<ReaderProperties> readers = binder
+                .bind("spring.datasource.readers", Bindable.listOf(ReaderProperties.class))
+                .orElse(List.of());
+        boolean single = readers.isEmpty();
+        if (single) {
+            readers = List.of(binder.bind("spring.datasource.reader", ReaderProperties.class)
+                    .orElseThrow(() -> new IllegalStateException(
+                            "Falta spring.datasource.readers o spring.datasource.reader")));
+        }
+
+        // Cada réplica tiene su propio circuito con la configuración de "replica".
+        // Pasa sola a HALF_OPEN para que el pool vuelva a probarla.
+        CircuitBreakerConfig replicaConfig = CircuitBreakerConfig
+                .from(circuitBreakerRegistry.circuitBreaker("replica").getCircuitBreakerConfig())
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
                 .build();
-        configureHikari(reader, "reader-pool");
-        return reader;
+
+        List<ReplicaPoolDataSource.Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < readers.size(); i++) {
+            ReaderProperties properties = readers.get(i);
+            String name = properties.name() != null ? properties.name() : single ? "reader" : "reader-" + i;
+            HikariDataSource dataSource = createReplicaPool(properties, single ? "reader-pool" : "reader-pool-" + name,
+                    meterRegistry);
+            CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker("replica-" + name, replicaConfig);
+            replicas.add(new ReplicaPoolDataSource.Replica(name, dataSource, circuitBreaker));
+        }
+
+        ReplicaPoolDataSource pool = new ReplicaPoolDataSource(replicas);
+        pool.bindTo(meterRegistry);
+        return pool;
+    }
+
+    /**
+     * Pool pequeño para informes y exportaciones pesadas, sobre la réplica de
+     * {@code spring.datasource.analytics} (o la primera de lectura). Sus
+     * consultas tienen su propio statement timeout y no compiten por las
+     * conexiones OLTP.
+     */
+    @Bean
+    public DataSource analyticsDataSource(Environment environment, MeterRegistry meterRegistry,
+            @Value("${db.analytics.maximum-pool-size:4}") int analyticsPoolSize,
+            @Value("${db.analytics.statement-timeout:PT2M}") Duration statementTimeout,
+            @Value("${db.analytics.max-wait:PT2M}") Duration maxWait) {
+        Binder binder = Binder.get(environment);
+        ReaderProperties properties = Stream
+                .of("spring.datasource.analytics", "spring.datasource.readers[0]", "spring.datasource.reader")
+                .map(prefix -> binder.bind(prefix, ReaderProperties.class))
+                .filter(BindResult::isBound)
+                .map(BindResult::get)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Falta la configuración del pool de analítica"));
+
+        HikariDataSource analytics = createReplicaPool(properties, "analytics-pool", meterRegistry);
+        analytics.setMaximumPoolSize(analyticsPoolSize);
+        analytics.setMinimumIdle(0);
+        // Los trabajos esperan turno en AnalyticsBulkhead; aquí solo si algo se cuela
+        analytics.setConnectionTimeout(maxWait.toMillis());
+        analytics.setReadOnly(true);
+        analytics.addDataSourceProperty("options", "-c statement_timeout=" + statementTimeout.toMillis());
+        // El socket debe aguantar más que la consulta más larga permitida
+        analytics.addDataSourceProperty("socketTimeout", statementTimeout.toSeconds() + socketTimeoutSeconds);
+        return analytics;
     }
 
+    /**
+     * DataSource de la aplicación: enruta por {@link DbContextHolder} y mide
+     * cada sentencia para {@link SlowQueryLog}.
+     */
     @Bean
     @Primary
     public DataSource dataSource(@Qualifier("writerDataSource") DataSource writer,
-            @Qualifier("readerDataSource") DataSource reader) {
+            @Qualifier("readerDataSource") DataSource reader,
+            @Qualifier("analyticsDataSource") DataSource analytics,
+            SlowQueryLog slowQueryLog) {
         RoutingDataSource routingDataSource = new RoutingDataSource();
 
         Map<Object, Object> targetDataSources = new HashMap<>();
         targetDataSources.put(DataSourceType.WRITER, writer);
         targetDataSources.put(DataSourceType.READER, reader);
+        targetDataSources.put(DataSourceType.ANALYTICS, analytics);
 
         routingDataSource.setTargetDataSources(targetDataSources);
         routingDataSource.setDefaultTargetDataSource(writer);
+        // Ya no es el bean expuesto: Spring no lo inicializa por nosotros
+        routingDataSource.afterPropertiesSet();
+
+        return new SlowQueryDataSource(routingDataSource, slowQueryLog);
+    }
+
+    public record ReaderProperties(String name, String jdbcUrl, String username, String password,
+            String driverClassName) {
+    }
 
-        return routingDataSource;
+    /**
+     * Los pools de réplica no son beans, así que el binder de métricas de
+     * Hikari de Spring Boot no los ve: se registran aquí.
+     */
+    private HikariDataSource createReplicaPool(ReaderProperties properties, String poolName,
+            MeterRegistry meterRegistry) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(properties.jdbcUrl());
+        dataSource.setUsername(properties.username());
+        dataSource.setPassword(properties.password());
+        if (properties.driverClassName() != null) {
+            dataSource.setDriverClassName(properties.driverClassName());
+        }
+        configureHikari(dataSource, poolName);
+        dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return dataSource;
     }
 
     private void configureHikari(HikariDataSource dataSource, String poolName) {
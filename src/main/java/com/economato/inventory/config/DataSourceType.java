@@ -1,5 +1,5 @@
 package com.economato.inventory.config;
 
 public enum DataSourceType {
-    WRITER, READER
+    WRITER, READER, ANALYTICS
 }
@@ -0,0 +1,75 @@
+package com.economato.inventory.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Caché de segundo nivel de Hibernate (JCache sobre Caffeine) para las
+ * entidades de referencia que se cargan por id dentro de las escrituras:
+ * Product, Allergen, Supplier y User, con sus búsquedas por natural id, y la
+ * caché de consultas para la búsqueda de usuario por nombre.
+ *
+ * Cada contexto crea su propio CacheManager con regiones acotadas; las no
+ * declaradas aquí las crearía Hibernate sin límite (con aviso en el log). La
+ * invalidación entre nodos la hace {@link HibernateCacheInvalidator}.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    static final List<String> ENTITY_REGIONS = List.of("l2.product", "l2.allergen", "l2.supplier", "l2.user");
+    static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Value("${cache.hibernate.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cache.hibernate.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${cache.hibernate.ttl:PT1H}")
+    private Duration ttl;
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, enabled);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, enabled);
+            if (enabled) {
+                properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+                properties.put(ConfigSettings.CACHE_MANAGER, createCacheManager());
+            }
+        };
+    }
+
+    private CacheManager createCacheManager() {
+        // Proveedor propio: no se comparte el CacheManager global entre contextos
+        CacheManager cacheManager = new CaffeineCachingProvider().getCacheManager();
+        for (String region : ENTITY_REGIONS) {
+            cacheManager.createCache(region, regionConfiguration(maximumSize, ttl));
+            cacheManager.createCache(region + ".natural-id", regionConfiguration(maximumSize, ttl));
+        }
+        cacheManager.createCache(QUERY_RESULTS_REGION, regionConfiguration(maximumSize, ttl));
+        // Una entrada por tabla y sin expiración: perderla daría resultados de consulta obsoletos
+        cacheManager.createCache(UPDATE_TIMESTAMPS_REGION, new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+
+    private static CaffeineConfiguration<Object, Object> regionConfiguration(long maximumSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
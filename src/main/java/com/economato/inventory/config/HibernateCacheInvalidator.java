@@ -0,0 +1,156 @@
+package com.economato.inventory.config;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Invalidación entre nodos de la caché de segundo nivel de Hibernate.
+ *
+ * Tras el commit de un alta, modificación o borrado de una entidad cacheada
+ * se publica su id por {@link CacheInvalidationBus}. Los demás nodos eliminan
+ * esa entidad, sus natural ids y los resultados de consultas cacheadas (la
+ * región de timestamps es local y no se entera de escrituras remotas).
+ *
+ * Cuando el circuito de Redis se cierra tras una caída se vacía la caché
+ * entera: las invalidaciones emitidas durante la caída se han perdido.
+ */
+@Slf4j
+@Component
+@Profile("!test")
+public class HibernateCacheInvalidator implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener, MessageListener {
+
+    static final String CACHE_PREFIX = "hibernate:";
+
+    private final SessionFactoryImplementor sessionFactory;
+    private final CacheInvalidationBus invalidationBus;
+
+    public HibernateCacheInvalidator(EntityManagerFactory entityManagerFactory, StringRedisTemplate redisTemplate,
+            CircuitBreakerRegistry circuitBreakerRegistry) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.invalidationBus = new CacheInvalidationBus(redisTemplate, circuitBreakerRegistry);
+
+        if (!sessionFactory.getSessionFactoryOptions().isSecondLevelCacheEnabled()) {
+            return;
+        }
+        EventListenerRegistry listeners = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        listeners.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        listeners.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        listeners.appendListeners(EventType.POST_COMMIT_DELETE, this);
+
+        circuitBreakerRegistry.circuitBreaker("redis").getEventPublisher().onStateTransition(event -> {
+            if (event.getStateTransition().getToState() == CircuitBreaker.State.CLOSED) {
+                log.info("Redis recuperado: vaciando la caché de segundo nivel");
+                sessionFactory.getCache().evictAllRegions();
+            }
+        });
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return persister.canWriteToCache();
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        publish(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        publish(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        publish(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        // Sin commit no hay nada que invalidar en otros nodos
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        CacheInvalidationBus.Invalidation invalidation = invalidationBus
+                .parse(new String(message.getBody(), StandardCharsets.UTF_8));
+        if (invalidation == null || !invalidation.cacheName().startsWith(CACHE_PREFIX)) {
+            return;
+        }
+        String entityName = invalidation.cacheName().substring(CACHE_PREFIX.length());
+        try {
+            EntityPersister persister = sessionFactory.getMappingMetamodel().findEntityDescriptor(entityName);
+            if (persister == null) {
+                return;
+            }
+            Cache cache = sessionFactory.getCache();
+            if (invalidation.key() == null) {
+                cache.evictEntityData(entityName);
+            } else {
+                cache.evictEntityData(entityName, toIdentifier(persister, invalidation.key()));
+            }
+            cache.evictNaturalIdData(entityName);
+            cache.evictQueryRegions();
+        } catch (Exception e) {
+            log.warn("No se pudo aplicar la invalidación de {}: {}", invalidation.cacheName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Descarta todas las instancias de una entidad en este nodo y en los
+     * demás. Para escrituras que no pasan por Hibernate (SQL nativo, COPY) y
+     * por tanto no disparan los eventos de arriba.
+     */
+    public void evictAll(Class<?> entityClass) {
+        String entityName = entityClass.getName();
+        Cache cache = sessionFactory.getCache();
+        cache.evictEntityData(entityName);
+        cache.evictNaturalIdData(entityName);
+        cache.evictQueryRegions();
+        invalidationBus.publishClear(CACHE_PREFIX + entityName);
+    }
+
+    private void publish(EntityPersister persister, Object id) {
+        invalidationBus.publishEvict(CACHE_PREFIX + persister.getEntityName(), String.valueOf(id));
+    }
+
+    private static Object toIdentifier(EntityPersister persister, String key) {
+        Class<?> idType = persister.getIdentifierType().getReturnedClass();
+        if (idType == Integer.class) {
+            return Integer.valueOf(key);
+        }
+        if (idType == Long.class) {
+            return Long.valueOf(key);
+        }
+        return key;
+    }
+}
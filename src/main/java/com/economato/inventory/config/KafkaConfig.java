@@ -2,6 +2,7 @@ package com.economato.inventory.config;
 
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,15 +12,20 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
-import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.util.backoff.FixedBackOff;
 
 import com.economato.inventory.dto.event.InventoryAuditEvent;
 import com.economato.inventory.dto.event.OrderAuditEvent;
 import com.economato.inventory.dto.event.RecipeAuditEvent;
 import com.economato.inventory.dto.event.RecipeCookingAuditEvent;
+import com.economato.inventory.kafka.codec.AuditEventDeserializer;
 
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -27,6 +33,7 @@ import java.util.Map;
  * Configuración de Kafka para el sistema de auditoría asíncrona.
  * Solo se activa en perfiles NO-TEST.
  */
+@Slf4j
 @EnableKafka
 @Configuration
 @Profile({ "!test", "kafka-test" })
@@ -35,60 +42,63 @@ public class KafkaConfig {
     @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
     private String bootstrapServers;
 
+    @Value("${spring.kafka.consumer.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${audit.consumer.retry-interval:PT1S}")
+    private Duration retryInterval;
+
+    @Value("${audit.consumer.retry-attempts:2}")
+    private long retryAttempts;
+
+    @Value("${spring.kafka.producer.compression-type:lz4}")
+    private String compressionType;
+
+    @Value("${spring.kafka.producer.batch-size:16384}")
+    private int batchSize;
+
+    @Value("${spring.kafka.producer.linger-ms:10}")
+    private int lingerMs;
+
+    private final JsonMapper jsonMapper;
+
+    public KafkaConfig(JsonMapper jsonMapper) {
+        this.jsonMapper = jsonMapper;
+    }
+
     // ========== PRODUCER CONFIGURATION ==========
 
     /**
-     * Configuración común del productor
+     * Configuración común del productor.
+     * El payload del Outbox ya está codificado con {@code AuditEventCodec}, así
+     * que se envía como bytes sin volver a serializarlo.
      */
     private Map<String, Object> producerConfigs() {
         Map<String, Object> props = new HashMap<>();
         props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
         props.put(ProducerConfig.ACKS_CONFIG, "all"); // Required for idempotent producer
         props.put(ProducerConfig.RETRIES_CONFIG, 3); // Reintentos en caso de fallo
         props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true); // Evita duplicados
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType); // Compresión por lote
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
         return props;
     }
 
+    /**
+     * Productor único para todos los topics de auditoría. El tipo del evento
+     * viaja dentro del sobre binario.
+     */
     @Bean
-    public ProducerFactory<String, InventoryAuditEvent> inventoryAuditProducerFactory() {
-        return new DefaultKafkaProducerFactory<>(producerConfigs());
-    }
-
-    @Bean
-    public KafkaTemplate<String, InventoryAuditEvent> inventoryAuditKafkaTemplate() {
-        return new KafkaTemplate<>(inventoryAuditProducerFactory());
-    }
-
-    @Bean
-    public ProducerFactory<String, RecipeAuditEvent> recipeAuditProducerFactory() {
-        return new DefaultKafkaProducerFactory<>(producerConfigs());
-    }
-
-    @Bean
-    public KafkaTemplate<String, RecipeAuditEvent> recipeAuditKafkaTemplate() {
-        return new KafkaTemplate<>(recipeAuditProducerFactory());
-    }
-
-    @Bean
-    public ProducerFactory<String, OrderAuditEvent> orderAuditProducerFactory() {
-        return new DefaultKafkaProducerFactory<>(producerConfigs());
-    }
-
-    @Bean
-    public KafkaTemplate<String, OrderAuditEvent> orderAuditKafkaTemplate() {
-        return new KafkaTemplate<>(orderAuditProducerFactory());
-    }
-
-    @Bean
-    public ProducerFactory<String, RecipeCookingAuditEvent> recipeCookingAuditProducerFactory() {
+    public ProducerFactory<String, byte[]> auditProducerFactory() {
         return new DefaultKafkaProducerFactory<>(producerConfigs());
     }
 
     @Bean
-    public KafkaTemplate<String, RecipeCookingAuditEvent> recipeCookingAuditKafkaTemplate() {
-        return new KafkaTemplate<>(recipeCookingAuditProducerFactory());
+    public KafkaTemplate<String, byte[]> auditKafkaTemplate() {
+        return new KafkaTemplate<>(auditProducerFactory());
     }
 
     // ========== CONSUMER CONFIGURATION ==========
@@ -102,23 +112,32 @@ public class KafkaConfig {
         props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
-        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
-        // NO configurar JsonDeserializer.TRUSTED_PACKAGES aquí para evitar conflicto
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords); // Tamaño máximo del lote
         return props;
     }
 
+    /**
+     * Manejador de errores de los listeners por lotes. El consumidor lanza
+     * {@code BatchListenerFailedException} con el índice del registro erróneo:
+     * los anteriores se confirman y solo ese registro se reintenta. Agotados
+     * los reintentos se registra en el log y se salta, sin perder el resto del
+     * lote.
+     */
+    private DefaultErrorHandler auditErrorHandler() {
+        return new DefaultErrorHandler(
+                (record, exception) -> log.error(
+                        "Auditoría descartada tras {} reintentos: topic={}, partition={}, offset={}, key={}: {}",
+                        retryAttempts, record.topic(), record.partition(), record.offset(), record.key(),
+                        exception.getMessage(), exception),
+                new FixedBackOff(retryInterval.toMillis(), retryAttempts));
+    }
+
     @Bean
     public ConsumerFactory<String, InventoryAuditEvent> inventoryAuditConsumerFactory() {
-        // Configurar el deserializer SOLO programáticamente
-        JsonDeserializer<InventoryAuditEvent> deserializer = new JsonDeserializer<>(InventoryAuditEvent.class);
-        deserializer.addTrustedPackages("*");
-        deserializer.setRemoveTypeHeaders(false);
-        deserializer.setUseTypeMapperForKey(false);
-
         ErrorHandlingDeserializer<InventoryAuditEvent> errorHandlingDeserializer = new ErrorHandlingDeserializer<>(
-                deserializer);
+                new AuditEventDeserializer<>(InventoryAuditEvent.class, jsonMapper));
 
         return new DefaultKafkaConsumerFactory<>(
                 consumerConfigs("inventory-audit-consumer-group"),
@@ -131,21 +150,17 @@ public class KafkaConfig {
         ConcurrentKafkaListenerContainerFactory<String, InventoryAuditEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(inventoryAuditConsumerFactory());
         factory.setConcurrency(3); // 3 hilos concurrentes
+        factory.setBatchListener(true); // Un lote por poll, persistido en una sola transacción
         factory.getContainerProperties().setAckMode(
-                org.springframework.kafka.listener.ContainerProperties.AckMode.RECORD);
+                org.springframework.kafka.listener.ContainerProperties.AckMode.BATCH);
+        factory.setCommonErrorHandler(auditErrorHandler());
         return factory;
     }
 
     @Bean
     public ConsumerFactory<String, RecipeAuditEvent> recipeAuditConsumerFactory() {
-        // Configurar el deserializer SOLO programáticamente
-        JsonDeserializer<RecipeAuditEvent> deserializer = new JsonDeserializer<>(RecipeAuditEvent.class);
-        deserializer.addTrustedPackages("*");
-        deserializer.setRemoveTypeHeaders(false);
-        deserializer.setUseTypeMapperForKey(false);
-
         ErrorHandlingDeserializer<RecipeAuditEvent> errorHandlingDeserializer = new ErrorHandlingDeserializer<>(
-                deserializer);
+                new AuditEventDeserializer<>(RecipeAuditEvent.class, jsonMapper));
 
         return new DefaultKafkaConsumerFactory<>(
                 consumerConfigs("recipe-audit-consumer-group"),
@@ -158,21 +173,17 @@ public class KafkaConfig {
         ConcurrentKafkaListenerContainerFactory<String, RecipeAuditEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(recipeAuditConsumerFactory());
         factory.setConcurrency(3); // 3 hilos concurrentes
+        factory.setBatchListener(true); // Un lote por poll, persistido en una sola transacción
         factory.getContainerProperties().setAckMode(
-                org.springframework.kafka.listener.ContainerProperties.AckMode.RECORD);
+                org.springframework.kafka.listener.ContainerProperties.AckMode.BATCH);
+        factory.setCommonErrorHandler(auditErrorHandler());
         return factory;
     }
 
     @Bean
     public ConsumerFactory<String, OrderAuditEvent> orderAuditConsumerFactory() {
-        // Configurar el deserializer SOLO programáticamente
-        JsonDeserializer<OrderAuditEvent> deserializer = new JsonDeserializer<>(OrderAuditEvent.class);
-        deserializer.addTrustedPackages("*");
-        deserializer.setRemoveTypeHeaders(false);
-        deserializer.setUseTypeMapperForKey(false);
-
         ErrorHandlingDeserializer<OrderAuditEvent> errorHandlingDeserializer = new ErrorHandlingDeserializer<>(
-                deserializer);
+                new AuditEventDeserializer<>(OrderAuditEvent.class, jsonMapper));
 
         return new DefaultKafkaConsumerFactory<>(
                 consumerConfigs("order-audit-consumer-group"),
@@ -185,21 +196,17 @@ public class KafkaConfig {
         ConcurrentKafkaListenerContainerFactory<String, OrderAuditEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(orderAuditConsumerFactory());
         factory.setConcurrency(3); // 3 hilos concurrentes
+        factory.setBatchListener(true); // Un lote por poll, persistido en una sola transacción
         factory.getContainerProperties().setAckMode(
-                org.springframework.kafka.listener.ContainerProperties.AckMode.RECORD);
+                org.springframework.kafka.listener.ContainerProperties.AckMode.BATCH);
+        factory.setCommonErrorHandler(auditErrorHandler());
         return factory;
     }
 
     @Bean
     public ConsumerFactory<String, RecipeCookingAuditEvent> recipeCookingAuditConsumerFactory() {
-        // Configurar el deserializer SOLO programáticamente
-        JsonDeserializer<RecipeCookingAuditEvent> deserializer = new JsonDeserializer<>(RecipeCookingAuditEvent.class);
-        deserializer.addTrustedPackages("*");
-        deserializer.setRemoveTypeHeaders(false);
-        deserializer.setUseTypeMapperForKey(false);
-
         ErrorHandlingDeserializer<RecipeCookingAuditEvent> errorHandlingDeserializer = new ErrorHandlingDeserializer<>(
-                deserializer);
+                new AuditEventDeserializer<>(RecipeCookingAuditEvent.class, jsonMapper));
 
         return new DefaultKafkaConsumerFactory<>(
                 consumerConfigs("recipe-cooking-audit-consumer-group"),
@@ -212,8 +219,10 @@ public class KafkaConfig {
         ConcurrentKafkaListenerContainerFactory<String, RecipeCookingAuditEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(recipeCookingAuditConsumerFactory());
         factory.setConcurrency(3); // 3 hilos concurrentes
+        factory.setBatchListener(true); // Un lote por poll, persistido en una sola transacción
         factory.getContainerProperties().setAckMode(
-                org.springframework.kafka.listener.ContainerProperties.AckMode.RECORD);
+                org.springframework.kafka.listener.ContainerProperties.AckMode.BATCH);
+        factory.setCommonErrorHandler(auditErrorHandler());
         return factory;
     }
 }
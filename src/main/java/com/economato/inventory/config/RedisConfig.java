@@ -5,7 +5,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
 import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
@@ -19,6 +21,9 @@ import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
@@ -27,6 +32,7 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 @Configuration
 @EnableCaching
@@ -42,6 +48,45 @@ public class RedisConfig {
         @Value("${spring.data.redis.timeout:500}")
         private long redisTimeout;
 
+        @Value("${cache.local.maximum-size:10000}")
+        private long localCacheMaximumSize;
+
+        @Value("${cache.local.ttl:PT5M}")
+        private Duration localCacheTtl;
+
+        @Value("${cache.single-flight.lease-enabled:false}")
+        private boolean loadLeaseEnabled;
+
+        @Value("${cache.single-flight.lease-ttl:PT2S}")
+        private Duration loadLeaseTtl;
+
+        @Value("${cache.early-refresh.beta:1.0}")
+        private double earlyRefreshBeta;
+
+        @Value("${cache.stale.maximum-size:1000}")
+        private long staleMaximumSize;
+
+        @Value("${cache.stale.soft-ttl:PT30S}")
+        private Duration staleSoftTtl;
+
+        @Value("${cache.stale.hard-ttl:PT6H}")
+        private Duration staleHardTtl;
+
+        @Value("${cache.refresh-ahead.caches:recipe,allergens,allergen,recipeComponents}")
+        private Set<String> refreshAheadCaches;
+
+        @Value("${cache.refresh-ahead.window:0.2}")
+        private double refreshAheadWindow;
+
+        @Value("${cache.refresh-ahead.max-concurrency:4}")
+        private int refreshAheadMaxConcurrency;
+
+        @Value("${cache.codec.binary-enabled:true}")
+        private boolean binaryCodecEnabled;
+
+        @Value("${cache.codec.compression-threshold:1024}")
+        private int codecCompressionThreshold;
+
         /**
          * Configure Lettuce Redis connection factory with aggressive timeouts.
          * This ensures fast failure when Redis is down.
@@ -61,7 +106,16 @@ public class RedisConfig {
                 return new LettuceConnectionFactory(redisConfig, clientConfig);
         }
 
-        private static GenericJackson2JsonRedisSerializer buildRedisSerializer(ObjectMapper baseMapper) {
+        /**
+         * Codec binario con registro de tipos; los tipos no registrados y los valores
+         * antiguos siguen usando el JSON con tipado por defecto.
+         */
+        private RedisValueCodec buildValueCodec(ObjectMapper baseMapper) {
+                return new RedisValueCodec(baseMapper, buildRedisSerializer(baseMapper),
+                                codecCompressionThreshold, binaryCodecEnabled);
+        }
+
+        static GenericJackson2JsonRedisSerializer buildRedisSerializer(ObjectMapper baseMapper) {
                 PolymorphicTypeValidator ptv = BasicPolymorphicTypeValidator.builder()
                                 .allowIfBaseType(Object.class)
                                 .build();
@@ -86,13 +140,18 @@ public class RedisConfig {
          * - users: 30 minutos (datos de autenticación)
          * - orders: 15 minutos (datos transaccionales)
          * - allergens: 24 horas (datos maestros)
+         *
+         * Delante de Redis hay una caché local Caffeine por nombre, ver
+         * {@link TwoLevelCacheManager}. Las cachés de larga duración de
+         * {@code cache.refresh-ahead.caches} se recargan en segundo plano antes de
+         * expirar, ver {@link CacheRefreshAhead}.
          */
         @Bean
-        public CacheManager cacheManager(RedisConnectionFactory connectionFactory,
+        public TwoLevelCacheManager cacheManager(RedisConnectionFactory connectionFactory,
                         @Qualifier("jackson2ObjectMapper") ObjectMapper objectMapper,
-                        CircuitBreakerRegistry circuitBreakerRegistry) {
+                        CircuitBreakerRegistry circuitBreakerRegistry, MeterRegistry meterRegistry) {
 
-                GenericJackson2JsonRedisSerializer serializer = buildRedisSerializer(objectMapper);
+                RedisValueCodec serializer = buildValueCodec(objectMapper);
 
                 RedisCacheConfiguration defaultConfig = RedisCacheConfiguration
                                 .defaultCacheConfig()
@@ -120,15 +179,48 @@ public class RedisConfig {
                 cacheConfigurations.put("allergen", defaultConfig.entryTtl(Duration.ofHours(48)));
                 cacheConfigurations.put("recipeComponents", defaultConfig.entryTtl(Duration.ofHours(6)));
                 cacheConfigurations.put("recipeAllergens", defaultConfig.entryTtl(Duration.ofHours(6)));
+                // Respuestas JSON preserializadas (ver JsonResponseCache); la versión forma parte de la clave
+                cacheConfigurations.put("json_responses", defaultConfig.entryTtl(Duration.ofMinutes(30)));
+                // Debe sobrevivir a las páginas que versiona (ver CacheGenerationService)
+                cacheConfigurations.put("cache_generations", defaultConfig.entryTtl(Duration.ofDays(7)));
 
                 RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                                 .cacheDefaults(defaultConfig)
                                 .withInitialCacheConfigurations(cacheConfigurations)
                                 .enableStatistics()
-                                .transactionAware()
                                 .build();
 
-                return new CircuitBreakerAwareCacheManager(redisCacheManager, circuitBreakerRegistry);
+                // La sincronización con la transacción la aplica TwoLevelCacheManager sobre ambos niveles
+                StringRedisTemplate stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+                CacheLoadOptions loadOptions = new CacheLoadOptions(
+                                loadLeaseEnabled ? stringRedisTemplate : null, loadLeaseTtl, earlyRefreshBeta);
+                StaleCacheOptions staleOptions = new StaleCacheOptions(staleMaximumSize, staleSoftTtl, staleHardTtl);
+                CacheRefreshAhead refreshAhead = new CacheRefreshAhead(refreshAheadCaches, refreshAheadWindow,
+                                refreshAheadMaxConcurrency, stringRedisTemplate, meterRegistry);
+                CacheManager remoteCacheManager = new CircuitBreakerAwareCacheManager(redisCacheManager,
+                                circuitBreakerRegistry, loadOptions, staleOptions, refreshAhead,
+                                new CacheMetrics(meterRegistry));
+                CacheInvalidationBus invalidationBus = new CacheInvalidationBus(stringRedisTemplate,
+                                circuitBreakerRegistry);
+
+                return new TwoLevelCacheManager(remoteCacheManager, invalidationBus, circuitBreakerRegistry,
+                                localCacheMaximumSize, localCacheTtl);
+        }
+
+        /**
+         * Suscripción al canal de invalidaciones de la caché local y de la caché de
+         * segundo nivel de Hibernate.
+         */
+        @Bean
+        public RedisMessageListenerContainer cacheInvalidationListenerContainer(
+                        RedisConnectionFactory connectionFactory, TwoLevelCacheManager cacheManager,
+                        ObjectProvider<HibernateCacheInvalidator> hibernateCacheInvalidator) {
+                RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+                container.setConnectionFactory(connectionFactory);
+                container.addMessageListener(cacheManager, new ChannelTopic(CacheInvalidationBus.CHANNEL));
+                hibernateCacheInvalidator.ifAvailable(listener -> container.addMessageListener(listener,
+                                new ChannelTopic(CacheInvalidationBus.CHANNEL)));
+                return container;
         }
 
         @Bean
@@ -141,7 +233,7 @@ public class RedisConfig {
                 template.setKeySerializer(new StringRedisSerializer());
                 template.setHashKeySerializer(new StringRedisSerializer());
 
-                GenericJackson2JsonRedisSerializer serializer = buildRedisSerializer(objectMapper);
+                RedisValueCodec serializer = buildValueCodec(objectMapper);
 
                 template.setValueSerializer(serializer);
                 template.setHashValueSerializer(serializer);
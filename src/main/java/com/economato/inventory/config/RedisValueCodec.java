@@ -0,0 +1,169 @@
+package com.economato.inventory.config;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import lombok.extern.slf4j.Slf4j;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Serializador de valores de Redis en formato binario compacto.
+ *
+ * Formato: magic | versión de formato | flags | id de tipo (varint) |
+ * versión de esquema (varint) | [longitud sin comprimir (varint)] | cuerpo Smile.
+ *
+ * El tipo se identifica por su id en {@link CacheTypeRegistry}, no por el
+ * nombre de clase, y el cuerpo no lleva tipado polimórfico. Los cuerpos que
+ * superan {@code compressionThreshold} bytes se comprimen con LZ4.
+ *
+ * Despliegue mixto: los valores sin magic se leen con el serializador JSON
+ * anterior, y los de un formato, tipo o esquema desconocido se devuelven como
+ * fallo de caché. Con {@code writeBinary = false} el codec solo escribe JSON,
+ * lo que permite desplegar primero los lectores y activar la escritura binaria
+ * después.
+ *
+ * El tiempo de codificación y el tamaño de cada valor se notifican a
+ * {@link CacheMetrics} para la operación de caché en curso.
+ */
+@Slf4j
+public class RedisValueCodec implements RedisSerializer<Object> {
+
+    static final byte MAGIC = (byte) 0xC7;
+    static final byte FORMAT_VERSION = 1;
+    private static final int FLAG_LZ4 = 1;
+
+    private final ObjectMapper smileMapper;
+    private final RedisSerializer<Object> legacySerializer;
+    private final CacheTypeRegistry typeRegistry;
+    private final int compressionThreshold;
+    private final boolean writeBinary;
+    private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+    private final LZ4FastDecompressor decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+
+    public RedisValueCodec(ObjectMapper baseMapper, RedisSerializer<Object> legacySerializer,
+            int compressionThreshold, boolean writeBinary) {
+        this.smileMapper = baseMapper.copyWith(new SmileFactory())
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.legacySerializer = legacySerializer;
+        this.typeRegistry = new CacheTypeRegistry(smileMapper.getTypeFactory());
+        this.compressionThreshold = compressionThreshold;
+        this.writeBinary = writeBinary;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        long start = System.nanoTime();
+        byte[] bytes = encode(value);
+        CacheMetrics.recordCodec(System.nanoTime() - start, bytes != null ? bytes.length : 0);
+        return bytes;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        long start = System.nanoTime();
+        Object value = decode(bytes);
+        CacheMetrics.recordCodec(System.nanoTime() - start, bytes != null ? bytes.length : 0);
+        return value;
+    }
+
+    private byte[] encode(Object value) {
+        if (value == null) {
+            return new byte[0];
+        }
+        CacheTypeRegistry.Entry entry = writeBinary ? typeRegistry.find(value) : null;
+        if (entry == null) {
+            return legacySerializer.serialize(value);
+        }
+
+        try {
+            byte[] body = smileMapper.writerFor(entry.type()).writeValueAsBytes(value);
+            boolean compress = body.length >= compressionThreshold;
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(body.length + 16);
+            out.write(MAGIC);
+            out.write(FORMAT_VERSION);
+            out.write(compress ? FLAG_LZ4 : 0);
+            writeVarint(out, entry.typeId());
+            writeVarint(out, entry.schemaVersion());
+            if (compress) {
+                writeVarint(out, body.length);
+                body = compressor.compress(body);
+            }
+            out.write(body);
+            return out.toByteArray();
+        } catch (Exception e) {
+            throw new SerializationException("No se pudo serializar el valor de caché " + value.getClass().getName(), e);
+        }
+    }
+
+    private Object decode(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return legacySerializer.deserialize(bytes);
+        }
+
+        if (bytes.length < 3 || bytes[1] != FORMAT_VERSION) {
+            log.debug("Valor de caché con versión de formato desconocida, se trata como fallo");
+            return null;
+        }
+        int flags = bytes[2];
+        int[] position = { 3 };
+        int typeId = readVarint(bytes, position);
+        int schemaVersion = readVarint(bytes, position);
+        CacheTypeRegistry.Entry entry = typeRegistry.get(typeId);
+        if (entry == null || entry.schemaVersion() != schemaVersion) {
+            log.debug("Valor de caché con tipo {} v{} no reconocido, se trata como fallo", typeId, schemaVersion);
+            return null;
+        }
+
+        try {
+            byte[] body;
+            int offset;
+            int length;
+            if ((flags & FLAG_LZ4) != 0) {
+                int rawLength = readVarint(bytes, position);
+                body = decompressor.decompress(bytes, position[0], rawLength);
+                offset = 0;
+                length = rawLength;
+            } else {
+                body = bytes;
+                offset = position[0];
+                length = bytes.length - offset;
+            }
+            return smileMapper.readerFor(entry.type()).readValue(body, offset, length);
+        } catch (Exception e) {
+            throw new SerializationException("No se pudo deserializar el valor de caché de tipo " + typeId, e);
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(byte[] bytes, int[] position) {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (position[0] >= bytes.length) {
+                throw new SerializationException("Valor de caché truncado");
+            }
+            byte b = bytes[position[0]++];
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new SerializationException("Varint mal formado en valor de caché");
+    }
+}
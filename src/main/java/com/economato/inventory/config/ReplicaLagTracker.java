@@ -0,0 +1,345 @@
+package com.economato.inventory.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-your-writes for the READER pool, based on PostgreSQL WAL positions.
+ *
+ * Just before a write transaction commits, its WAL position is read on its own
+ * connection; once it commits, that position is recorded for the
+ * authenticated user and returned in {@value #TOKEN_HEADER}, and a client on
+ * another node can send it back to get the same guarantee. The position is
+ * taken after flushing the transaction, so only its commit record lies
+ * beyond it. A read goes to the
+ * replica only when its replay LSN has reached the highest of the two.
+ * The client token is not trusted: it is capped at the highest writer
+ * position this node has seen, so a made-up value cannot pin reads to the
+ * writer, and it is ignored until that position is known.
+ *
+ * The replay LSN is sampled on a schedule and cached, so routing costs no
+ * query. A sample older than {@code maxSampleAge} counts as unknown and reads
+ * that need a position go to the writer. A reader that is not in recovery
+ * (e.g. pointing at the primary) is always caught up. With several replicas
+ * the slowest one that answers is used, since the pool may pick any of them.
+ *
+ * Gauges: {@code db.replica.lag.bytes} and {@code db.replica.lag.seconds}
+ * (time since the last replayed transaction; grows while the primary is
+ * idle). Counter: {@code db.replica.reads.rerouted}.
+ */
+@Slf4j
+@Component
+@Profile("!test & !resilience-test")
+public class ReplicaLagTracker implements TransactionExecutionListener {
+
+    public static final String TOKEN_HEADER = "X-Consistency-Token";
+
+    static final long NONE = -1L;
+    static final long CAUGHT_UP = Long.MAX_VALUE;
+
+    private final JdbcTemplate writer;
+    private final List<JdbcTemplate> replicas;
+    private final Duration maxSampleAge;
+    private final Cache<String, Long> lastWriteByUser;
+    private final Counter reroutedReads;
+
+    private volatile long replayLsn = NONE;
+    private final AtomicLong writerLsn = new AtomicLong(NONE);
+    private volatile double lagSeconds = Double.NaN;
+    private volatile long sampledAtMillis;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ReplicaLagTracker(@Qualifier("writerDataSource") DataSource writerDataSource,
+            @Qualifier("readerDataSource") DataSource readerDataSource,
+            MeterRegistry meterRegistry,
+            @Value("${db.replica.lag.max-sample-age:PT2S}") Duration maxSampleAge,
+            @Value("${db.replica.lag.session-ttl:PT5M}") Duration sessionTtl) {
+        this.writer = new JdbcTemplate(writerDataSource);
+        this.replicas = readerDataSource instanceof ReplicaPoolDataSource pool
+                ? pool.replicas().stream().map(replica -> new JdbcTemplate(replica.dataSource())).toList()
+                : List.of(new JdbcTemplate(readerDataSource));
+        this.maxSampleAge = maxSampleAge;
+        this.lastWriteByUser = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(sessionTtl)
+                .build();
+
+        Gauge.builder("db.replica.lag.bytes", this, ReplicaLagTracker::lagBytes)
+                .description("WAL bytes written on the primary and not yet replayed by the replica")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("db.replica.lag.seconds", this, tracker -> tracker.lagSeconds)
+                .description("Time since the last transaction replayed by the replica")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.reroutedReads = Counter.builder("db.replica.reads.rerouted")
+                .description("Read-only transactions sent to the writer because the replica was behind")
+                .register(meterRegistry);
+    }
+
+    /** Samples the replay position of every replica and the writer position. */
+    @Scheduled(fixedDelayString = "${db.replica.lag.sample-interval:PT0.2S}")
+    public void sample() {
+        long slowestReplay = CAUGHT_UP;
+        double maxLagSeconds = 0;
+        int answered = 0;
+        for (JdbcTemplate replica : replicas) {
+            try {
+                ReplicaState state = replica.queryForObject(
+                        "SELECT pg_is_in_recovery(), pg_last_wal_replay_lsn()::text, "
+                                + "EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp())",
+                        (rs, rowNum) -> new ReplicaState(rs.getBoolean(1), rs.getString(2),
+                                rs.getObject(3, Double.class)));
+                answered++;
+                if (state == null || !state.inRecovery()) {
+                    continue;
+                }
+                long replay = parseLsn(state.replayLsn());
+                // NONE (nothing replayed yet) is also the highest unsigned value
+                if (replay == NONE || Long.compareUnsigned(replay, slowestReplay) < 0) {
+                    slowestReplay = replay;
+                }
+                if (state.lagSeconds() != null) {
+                    maxLagSeconds = Math.max(maxLagSeconds, state.lagSeconds());
+                }
+                if (slowestReplay == NONE) {
+                    break;
+                }
+            } catch (Exception e) {
+                // A replica that does not answer is not used by the pool either
+                log.debug("Could not sample replica lag: {}", e.getMessage());
+            }
+        }
+        if (answered == 0) {
+            replayLsn = NONE;
+            lagSeconds = Double.NaN;
+            return;
+        }
+        try {
+            observeWriterLsn(parseLsn(writer.queryForObject("SELECT pg_current_wal_lsn()::text", String.class)));
+        } catch (Exception e) {
+            log.debug("Could not sample writer LSN: {}", e.getMessage());
+            replayLsn = NONE;
+            lagSeconds = Double.NaN;
+            return;
+        }
+        replayLsn = slowestReplay;
+        lagSeconds = maxLagSeconds;
+        sampledAtMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Whether the replica has replayed the last write of the current user and
+     * the position sent by the client, if any.
+     */
+    public boolean replicaCaughtUp() {
+        long required = requiredLsn();
+        if (required == NONE) {
+            return true;
+        }
+        boolean fresh = System.currentTimeMillis() - sampledAtMillis <= maxSampleAge.toMillis();
+        boolean caughtUp = fresh && replayLsn != NONE && Long.compareUnsigned(replayLsn, required) >= 0;
+        if (!caughtUp) {
+            reroutedReads.increment();
+        }
+        return caughtUp;
+    }
+
+    /**
+     * Reads the WAL position of every new write transaction before it commits
+     * and records it once it has committed.
+     */
+    @Override
+    public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+        if (beginFailure != null || !transaction.isNewTransaction() || transaction.isReadOnly()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private long position = CAUGHT_UP;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                position = commitPosition();
+            }
+
+            @Override
+            public void afterCommit() {
+                recordCommit(position);
+            }
+        });
+    }
+
+    /**
+     * WAL insert position of the committing transaction, read on the
+     * connection it already holds once its pending changes are flushed.
+     * {@code CAUGHT_UP} if it cannot be read.
+     */
+    long commitPosition() {
+        entityManager.flush();
+        try {
+            Object lsn = entityManager.createNativeQuery("SELECT pg_current_wal_insert_lsn()::text")
+                    .getSingleResult();
+            return parseLsn((String) lsn);
+        } catch (RuntimeException e) {
+            log.debug("Could not read writer LSN before commit: {}", e.getMessage());
+            return CAUGHT_UP;
+        }
+    }
+
+    /**
+     * Records a committed position for the current user and returns it to the
+     * client. If the position could not be read, the user reads from the
+     * writer until the entry expires.
+     */
+    void recordCommit(long lsn) {
+        if (lsn != CAUGHT_UP) {
+            observeWriterLsn(lsn);
+        }
+        String user = currentUser();
+        if (user != null) {
+            lastWriteByUser.asMap().merge(user, lsn, (previous, current) ->
+                    Long.compareUnsigned(previous, current) >= 0 ? previous : current);
+        }
+        HttpServletResponse response = currentResponse();
+        if (response != null && lsn != CAUGHT_UP) {
+            response.setHeader(TOKEN_HEADER, formatLsn(lsn));
+        }
+    }
+
+    long requiredLsn() {
+        long required = NONE;
+        String user = currentUser();
+        if (user != null) {
+            Long lastWrite = lastWriteByUser.getIfPresent(user);
+            if (lastWrite != null) {
+                required = lastWrite;
+            }
+        }
+        HttpServletRequest request = currentRequest();
+        String token = request != null ? request.getHeader(TOKEN_HEADER) : null;
+        if (token != null) {
+            long fromClient = clientLsn(token);
+            if (fromClient != NONE && (required == NONE || Long.compareUnsigned(fromClient, required) > 0)) {
+                required = fromClient;
+            }
+        }
+        return required;
+    }
+
+    /**
+     * Position sent by the client, capped at the highest writer position seen
+     * by this node. {@link #NONE} if it does not parse or no writer position is
+     * known yet.
+     */
+    private long clientLsn(String token) {
+        long fromClient;
+        try {
+            fromClient = parseLsn(token.trim());
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring malformed {} header: {}", TOKEN_HEADER, token);
+            return NONE;
+        }
+        long written = writerLsn.get();
+        if (written == NONE || fromClient == NONE) {
+            return NONE;
+        }
+        if (Long.compareUnsigned(fromClient, written) > 0) {
+            log.debug("{} header {} is ahead of the writer ({}), capping it", TOKEN_HEADER, token,
+                    formatLsn(written));
+            return written;
+        }
+        return fromClient;
+    }
+
+    /** Raises the known writer position; it never moves back. */
+    void observeWriterLsn(long lsn) {
+        if (lsn == NONE) {
+            return;
+        }
+        writerLsn.accumulateAndGet(lsn, (current, observed) ->
+                current == NONE || Long.compareUnsigned(observed, current) > 0 ? observed : current);
+    }
+
+    private double lagBytes() {
+        long replay = replayLsn;
+        long written = writerLsn.get();
+        if (replay == CAUGHT_UP) {
+            return 0;
+        }
+        if (replay == NONE || written == NONE) {
+            return Double.NaN;
+        }
+        return Math.max(0, written - replay);
+    }
+
+    /** Parses a PostgreSQL LSN ({@code 16/B374D848}) into a comparable number. */
+    static long parseLsn(String lsn) {
+        if (lsn == null) {
+            return NONE;
+        }
+        int slash = lsn.indexOf('/');
+        if (slash <= 0 || slash == lsn.length() - 1) {
+            throw new IllegalArgumentException("Invalid LSN: " + lsn);
+        }
+        long high = Long.parseLong(lsn.substring(0, slash), 16);
+        long low = Long.parseLong(lsn.substring(slash + 1), 16);
+        return (high << 32) | (low & 0xFFFFFFFFL);
+    }
+
+    static String formatLsn(long lsn) {
+        return Long.toHexString(lsn >>> 32).toUpperCase() + '/' + Long.toHexString(lsn & 0xFFFFFFFFL).toUpperCase();
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken) ? authentication.getName() : null;
+    }
+
+    private static HttpServletRequest currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servletAttributes ? servletAttributes.getRequest()
+                : null;
+    }
+
+    private static HttpServletResponse currentResponse() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servletAttributes ? servletAttributes.getResponse()
+                : null;
+    }
+
+    private record ReplicaState(boolean inRecovery, String replayLsn, Double lagSeconds) {
+    }
+}
@@ -0,0 +1,222 @@
+package com.economato.inventory.config;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * READER pool spread over several replicas.
+ *
+ * Each connection request takes two random replicas whose circuit is not open
+ * and uses the one with the lower load, {@code (in-flight + 1) * EWMA latency}
+ * ("power of two choices"). Latency is the time a connection is held, i.e.
+ * the duration of the read transaction. Open replicas are only tried after
+ * the rest, so a failing replica is drained without moving reads to the writer.
+ *
+ * Each replica has its own circuit breaker, fed with connection failures. A
+ * failed attempt moves on to the next replica; only when none can give a
+ * connection does this fail, with a {@link SQLTransientConnectionException}
+ * that DataSourceAspect treats as a replica outage and retries on the writer.
+ */
+@Slf4j
+public class ReplicaPoolDataSource extends AbstractDataSource implements AutoCloseable {
+
+    /** Weight of the newest sample in the latency average. */
+    static final double EWMA_WEIGHT = 0.3;
+    private static final double INITIAL_LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final List<Replica> replicas;
+
+    public ReplicaPoolDataSource(List<Replica> replicas) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("At least one replica is required");
+        }
+        this.replicas = List.copyOf(replicas);
+    }
+
+    public List<Replica> replicas() {
+        return replicas;
+    }
+
+    /** Registers {@code db.replica.in_flight} and {@code db.replica.latency} per replica. */
+    public void bindTo(MeterRegistry meterRegistry) {
+        for (Replica replica : replicas) {
+            Gauge.builder("db.replica.in_flight", replica.inFlight, AtomicInteger::get)
+                    .description("Connections currently held on the replica")
+                    .tag("replica", replica.name())
+                    .register(meterRegistry);
+            Gauge.builder("db.replica.latency", replica, r -> r.latencyNanos / 1e9)
+                    .description("EWMA of the connection hold time on the replica")
+                    .tag("replica", replica.name())
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection connect(ConnectionOpener opener) throws SQLException {
+        SQLException failure = null;
+        for (Replica replica : candidates()) {
+            CircuitBreaker circuitBreaker = replica.circuitBreaker();
+            if (!circuitBreaker.tryAcquirePermission()) {
+                continue;
+            }
+            long start = System.nanoTime();
+            try {
+                Connection connection = opener.open(replica.dataSource());
+                circuitBreaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return replica.track(connection);
+            } catch (SQLException e) {
+                circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+                log.warn("Replica {} unavailable, trying the next one: {}", replica.name(), e.getMessage());
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        throw new SQLTransientConnectionException("No replica connection available", failure);
+    }
+
+    /** Replicas in the order they should be tried. */
+    List<Replica> candidates() {
+        List<Replica> available = new ArrayList<>(replicas.size());
+        List<Replica> open = new ArrayList<>();
+        for (Replica replica : replicas) {
+            (replica.isAvailable() ? available : open).add(replica);
+        }
+        if (available.size() >= 2) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(available.size());
+            int second = random.nextInt(available.size() - 1);
+            if (second >= first) {
+                second++;
+            }
+            if (available.get(second).load() < available.get(first).load()) {
+                int swap = first;
+                first = second;
+                second = swap;
+            }
+            Replica preferred = available.get(first);
+            Replica alternative = available.get(second);
+            available.remove(preferred);
+            available.remove(alternative);
+            available.add(0, alternative);
+            available.add(0, preferred);
+        }
+        available.addAll(open);
+        return available;
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource() instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionOpener {
+        Connection open(DataSource dataSource) throws SQLException;
+    }
+
+    public static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private final CircuitBreaker circuitBreaker;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile double latencyNanos = INITIAL_LATENCY_NANOS;
+
+        public Replica(String name, DataSource dataSource, CircuitBreaker circuitBreaker) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.circuitBreaker = circuitBreaker;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public DataSource dataSource() {
+            return dataSource;
+        }
+
+        public CircuitBreaker circuitBreaker() {
+            return circuitBreaker;
+        }
+
+        int inFlight() {
+            return inFlight.get();
+        }
+
+        double load() {
+            return (inFlight.get() + 1) * latencyNanos;
+        }
+
+        void recordLatency(long nanos) {
+            // Unsynchronized on purpose: a lost update only drops one sample
+            latencyNanos += EWMA_WEIGHT * (nanos - latencyNanos);
+        }
+
+        private boolean isAvailable() {
+            CircuitBreaker.State state = circuitBreaker.getState();
+            return state != CircuitBreaker.State.OPEN && state != CircuitBreaker.State.FORCED_OPEN;
+        }
+
+        private Connection track(Connection connection) {
+            inFlight.incrementAndGet();
+            long start = System.nanoTime();
+            AtomicBoolean released = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            case "close":
+                                if (released.compareAndSet(false, true)) {
+                                    inFlight.decrementAndGet();
+                                    recordLatency(System.nanoTime() - start);
+                                }
+                                break;
+                            default:
+                                break;
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
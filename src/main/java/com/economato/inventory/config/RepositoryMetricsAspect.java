@@ -0,0 +1,122 @@
+package com.economato.inventory.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.BaseStream;
+
+/**
+ * Rows returned per repository method, and the name of the running repository
+ * method for {@link SlowQueryLog}.
+ *
+ * Call latency is already timed by Spring Boot's
+ * {@code spring.data.repository.invocations}; this aspect only adds
+ * {@code db.repository.rows}, the entities returned by methods that return
+ * entities, collections, pages or optionals (not counts, streams or void).
+ * It carries the same {@code repository}, {@code method}, {@code state} and
+ * {@code exception} tags as the Boot timer, so both can be joined per method.
+ * Rows are only recorded for successful calls.
+ *
+ * It uses fixed SLO buckets instead of a percentile histogram to keep the
+ * number of series per method small.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Profile("!test & !resilience-test")
+public class RepositoryMetricsAspect {
+
+    private static final ScopedValue<String> CURRENT = ScopedValue.newInstance();
+
+    private final MeterRegistry meterRegistry;
+    private final ClassValue<Map<Method, MethodMeters>> meters = new ClassValue<>() {
+        @Override
+        protected Map<Method, MethodMeters> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    public RepositoryMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /** Repository method running on this thread, as {@code Repository.method}. */
+    public static Optional<String> currentMethod() {
+        return CURRENT.isBound() ? Optional.of(CURRENT.get()) : Optional.empty();
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object measure(ProceedingJoinPoint pjp) throws Throwable {
+        Class<?> repositoryType = pjp.getThis().getClass();
+        Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+        MethodMeters methodMeters = meters.get(repositoryType)
+                .computeIfAbsent(method, ignored -> register(repositoryName(repositoryType), method));
+
+        Object result = ScopedValue.where(CURRENT, methodMeters.label()).call(pjp::proceed);
+        if (methodMeters.rows() != null) {
+            methodMeters.rows().record(rows(result));
+        }
+        return result;
+    }
+
+    static int rows(Object result) {
+        return switch (result) {
+            case null -> 0;
+            case Collection<?> collection -> collection.size();
+            case Slice<?> slice -> slice.getNumberOfElements();
+            case Optional<?> optional -> optional.isPresent() ? 1 : 0;
+            default -> 1;
+        };
+    }
+
+    /** The application interface the Spring Data proxy implements. */
+    static String repositoryName(Class<?> repositoryType) {
+        for (Class<?> candidate : repositoryType.getInterfaces()) {
+            if (Repository.class.isAssignableFrom(candidate)
+                    && !candidate.getName().startsWith("org.springframework.")) {
+                return candidate.getSimpleName();
+            }
+        }
+        return repositoryType.getSimpleName();
+    }
+
+    private MethodMeters register(String repository, Method method) {
+        String name = method.getName();
+        DistributionSummary rows = null;
+        if (returnsRows(method.getReturnType())) {
+            rows = DistributionSummary.builder("db.repository.rows")
+                    .description("Entities returned per repository call")
+                    .tag("repository", repository)
+                    .tag("method", name)
+                    .tag("state", "SUCCESS")
+                    .tag("exception", "None")
+                    .serviceLevelObjectives(0, 1, 10, 100, 1_000, 10_000)
+                    .register(meterRegistry);
+        }
+        return new MethodMeters(repository + "." + name, rows);
+    }
+
+    private static boolean returnsRows(Class<?> type) {
+        return type != void.class && type != boolean.class && type != Boolean.class
+                && !type.isPrimitive() && !Number.class.isAssignableFrom(type)
+                && !BaseStream.class.isAssignableFrom(type);
+    }
+
+    private record MethodMeters(String label, DistributionSummary rows) {
+    }
+}
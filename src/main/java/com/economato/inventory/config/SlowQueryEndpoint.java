@@ -0,0 +1,106 @@
+package com.economato.inventory.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * {@code /actuator/slowqueries}: the statements kept by {@link SlowQueryLog}
+ * and, when {@code db.query.slow.explain-enabled} is set, their plan on demand.
+ *
+ * POST {@code /actuator/slowqueries/{id}} runs
+ * {@code EXPLAIN (ANALYZE, BUFFERS)} with the original binds on the analytics
+ * pool, so it executes on a replica under the analytics statement timeout,
+ * in a read-only transaction that is rolled back. Only plain SELECT
+ * statements are explained.
+ */
+@Component
+@Endpoint(id = "slowqueries")
+@Profile("!test & !resilience-test")
+public class SlowQueryEndpoint {
+
+    private final SlowQueryLog slowQueryLog;
+    private final DataSource analyticsDataSource;
+    private final boolean explainEnabled;
+
+    public SlowQueryEndpoint(SlowQueryLog slowQueryLog,
+            @Qualifier("analyticsDataSource") DataSource analyticsDataSource,
+            @Value("${db.query.slow.explain-enabled:false}") boolean explainEnabled) {
+        this.slowQueryLog = slowQueryLog;
+        this.analyticsDataSource = analyticsDataSource;
+        this.explainEnabled = explainEnabled;
+    }
+
+    @ReadOperation
+    public List<SlowQueryLog.SlowQuery> slowQueries() {
+        return slowQueryLog.recent();
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<List<String>> explain(@Selector long id) throws SQLException {
+        if (!explainEnabled) {
+            return new WebEndpointResponse<>(List.of("EXPLAIN disabled (db.query.slow.explain-enabled)"),
+                    WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        SlowQueryLog.Captured captured = slowQueryLog.find(id).orElse(null);
+        if (captured == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        String sql = captured.query().sql();
+        if (!isSelect(sql)) {
+            return new WebEndpointResponse<>(List.of("Only SELECT statements can be explained"),
+                    WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        return new WebEndpointResponse<>(plan(sql, captured.values()));
+    }
+
+    private List<String> plan(String sql, Object[] values) throws SQLException {
+        try (Connection connection = analyticsDataSource.getConnection()) {
+            connection.setReadOnly(true);
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN (ANALYZE, BUFFERS) " + sql)) {
+                for (int i = 0; i < values.length; i++) {
+                    if (values[i] instanceof SlowQueryLog.NullBind nullBind) {
+                        statement.setNull(i + 1, nullBind.sqlType());
+                    } else {
+                        statement.setObject(i + 1, values[i]);
+                    }
+                }
+                List<String> lines = new ArrayList<>();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        lines.add(resultSet.getString(1));
+                    }
+                }
+                return lines;
+            } finally {
+                connection.rollback();
+            }
+        }
+    }
+
+    static boolean isSelect(String sql) {
+        if (sql == null) {
+            return false;
+        }
+        String head = sql.stripLeading().toLowerCase(Locale.ROOT);
+        // Writable CTEs and SELECT ... FOR UPDATE would fail in a read-only transaction
+        return (head.startsWith("select") || head.startsWith("with"))
+                && !head.matches("(?s).*\\b(insert|update|delete)\\b.*");
+    }
+}
@@ -0,0 +1,120 @@
+package com.economato.inventory.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statements slower than {@code db.query.slow.threshold}, as seen by
+ * {@link SlowQueryDataSource}.
+ *
+ * Each one is logged with the repository method that issued it and the shape
+ * of its binds (type and length, never the values), and counted in
+ * {@code db.query.slow} by method. The last {@code db.query.slow.capacity}
+ * are kept with their bind values so {@link SlowQueryEndpoint} can run
+ * EXPLAIN on them later.
+ */
+@Slf4j
+@Component
+@Profile("!test & !resilience-test")
+public class SlowQueryLog {
+
+    private final long thresholdNanos;
+    private final int capacity;
+    private final MeterRegistry meterRegistry;
+    private final Deque<Captured> recent = new ArrayDeque<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public SlowQueryLog(@Value("${db.query.slow.threshold:PT0.5S}") Duration threshold,
+            @Value("${db.query.slow.capacity:50}") int capacity,
+            MeterRegistry meterRegistry) {
+        this.thresholdNanos = threshold.toNanos();
+        this.capacity = capacity;
+        this.meterRegistry = meterRegistry;
+    }
+
+    long thresholdNanos() {
+        return thresholdNanos;
+    }
+
+    /** Called on the slow path only, after a statement exceeded the threshold. */
+    void record(String sql, Object[] binds, int bindCount, int batchSize, long nanos) {
+        String source = RepositoryMetricsAspect.currentMethod().orElse("unknown");
+        List<String> shapes = new ArrayList<>(bindCount);
+        Object[] values = new Object[bindCount];
+        for (int i = 0; i < bindCount; i++) {
+            values[i] = binds[i + 1];
+            shapes.add(shape(values[i]));
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        SlowQuery query = new SlowQuery(sequence.incrementAndGet(), Instant.now(), source, millis, batchSize,
+                sql, shapes);
+
+        log.warn("Slow query ({} ms) from {}: {} binds={}{}", millis, source, sql, shapes,
+                batchSize > 1 ? " batch=" + batchSize : "");
+        counters.computeIfAbsent(source, method -> Counter.builder("db.query.slow")
+                .description("Statements slower than db.query.slow.threshold")
+                .tag("method", method)
+                .register(meterRegistry)).increment();
+
+        synchronized (recent) {
+            recent.addFirst(new Captured(query, values));
+            while (recent.size() > capacity) {
+                recent.removeLast();
+            }
+        }
+    }
+
+    /** Newest first. */
+    public List<SlowQuery> recent() {
+        synchronized (recent) {
+            return recent.stream().map(Captured::query).toList();
+        }
+    }
+
+    Optional<Captured> find(long id) {
+        synchronized (recent) {
+            return recent.stream().filter(captured -> captured.query().id() == id).findFirst();
+        }
+    }
+
+    static String shape(Object value) {
+        return switch (value) {
+            case null -> "unset";
+            case NullBind ignored -> "null";
+            case String s -> "varchar(" + s.length() + ")";
+            case byte[] bytes -> "bytea(" + bytes.length + ")";
+            case Collection<?> collection -> "array(" + collection.size() + ")";
+            case Object[] array -> "array(" + array.length + ")";
+            default -> value.getClass().getSimpleName().toLowerCase();
+        };
+    }
+
+    /** A bind set with {@code setNull}; replayed with the same SQL type. */
+    record NullBind(int sqlType) {
+    }
+
+    record Captured(SlowQuery query, Object[] values) {
+    }
+
+    public record SlowQuery(long id, Instant at, String source, long millis, int batchSize, String sql,
+            List<String> binds) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.economato.inventory.config;
+
+import java.time.Duration;
+
+/**
+ * Stale-while-revalidate settings for {@link CircuitBreakerAwareCache}.
+ *
+ * @param maximumSize last good values kept per cache; 0 disables stale serving
+ * @param softTtl     age after which a value served while degraded is marked
+ *                    stale and refreshed once the dependency recovers
+ * @param hardTtl     age after which a value is dropped and never served
+ */
+public record StaleCacheOptions(long maximumSize, Duration softTtl, Duration hardTtl) {
+
+    public static final StaleCacheOptions DISABLED = new StaleCacheOptions(0, Duration.ZERO, Duration.ZERO);
+
+    public boolean enabled() {
+        return maximumSize > 0 && hardTtl.isPositive();
+    }
+}
@@ -0,0 +1,42 @@
+package com.economato.inventory.config;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Marca la respuesta HTTP en curso cuando incluye datos de caché servidos
+ * fuera de plazo mientras Redis o la base de datos están degradados.
+ *
+ * La cabecera {@value #HEADER} lleva la antigüedad en segundos del dato más
+ * viejo servido en la petición. Fuera de una petición HTTP no hace nada.
+ */
+public final class StaleResponseMarker {
+
+    public static final String HEADER = "X-Cache-Stale";
+
+    private StaleResponseMarker() {
+    }
+
+    public static void mark(long ageMillis) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return;
+        }
+        HttpServletResponse response = servletAttributes.getResponse();
+        if (response == null || response.isCommitted()) {
+            return;
+        }
+        long ageSeconds = ageMillis / 1000;
+        String current = response.getHeader(HEADER);
+        if (current != null) {
+            try {
+                ageSeconds = Math.max(ageSeconds, Long.parseLong(current));
+            } catch (NumberFormatException ignored) {
+                // Se sobrescribe con la antigüedad actual
+            }
+        }
+        response.setHeader(HEADER, Long.toString(ageSeconds));
+    }
+}
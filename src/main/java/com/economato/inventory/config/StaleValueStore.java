@@ -0,0 +1,91 @@
+package com.economato.inventory.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Last good values of one cache, kept in memory so they can still be served
+ * while Redis or the database is degraded.
+ *
+ * Values are remembered on every successful read, load and put, and dropped
+ * on evict/clear or after the hard TTL. Keys served stale are queued, with
+ * their loader, to be refreshed once the dependency recovers.
+ */
+class StaleValueStore {
+
+    private final StaleCacheOptions options;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, StaleEntry> values;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Callable<?>> pendingRefreshes;
+
+    StaleValueStore(StaleCacheOptions options) {
+        this.options = options;
+        if (options.enabled()) {
+            this.values = Caffeine.newBuilder()
+                    .maximumSize(options.maximumSize())
+                    .expireAfterWrite(options.hardTtl())
+                    .build();
+            this.pendingRefreshes = Caffeine.newBuilder()
+                    .maximumSize(options.maximumSize())
+                    .expireAfterWrite(options.hardTtl())
+                    .build();
+        } else {
+            this.values = null;
+            this.pendingRefreshes = null;
+        }
+    }
+
+    void remember(Object key, Object value) {
+        if (values != null && value != null) {
+            values.put(key, new StaleEntry(value, System.currentTimeMillis()));
+        }
+    }
+
+    StaleEntry get(Object key) {
+        return values != null ? values.getIfPresent(key) : null;
+    }
+
+    /** Whether the entry is past the soft TTL and must be served as stale. */
+    boolean isStale(StaleEntry entry) {
+        return entry.ageMillis() >= options.softTtl().toMillis();
+    }
+
+    void forget(Object key) {
+        if (values != null) {
+            values.invalidate(key);
+            pendingRefreshes.invalidate(key);
+        }
+    }
+
+    void clear() {
+        if (values != null) {
+            values.invalidateAll();
+            pendingRefreshes.invalidateAll();
+        }
+    }
+
+    void scheduleRefresh(Object key, Callable<?> loader) {
+        if (pendingRefreshes != null && loader != null) {
+            pendingRefreshes.put(key, loader);
+        }
+    }
+
+    /** Removes and returns the keys waiting to be refreshed. */
+    Map<Object, Callable<?>> drainPendingRefreshes() {
+        if (pendingRefreshes == null) {
+            return Map.of();
+        }
+        Map<Object, Callable<?>> drained = new HashMap<>(pendingRefreshes.asMap());
+        drained.keySet().forEach(pendingRefreshes::invalidate);
+        return drained;
+    }
+
+    record StaleEntry(Object value, long storedAtMillis) {
+
+        long ageMillis() {
+            return Math.max(0, System.currentTimeMillis() - storedAtMillis);
+        }
+    }
+}
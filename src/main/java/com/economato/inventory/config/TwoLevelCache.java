@@ -0,0 +1,162 @@
+package com.economato.inventory.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Caché de dos niveles: Caffeine local (L1) delante de Redis (L2).
+ *
+ * Los aciertos en L1 no salen del proceso ni deserializan. Cada escritura o
+ * borrado se propaga a L2 y se anuncia por {@link CacheInvalidationBus} para que
+ * el resto de nodos descarten su copia local. Si Redis no está disponible, L2
+ * ya degrada a fallo de caché y L1 sigue sirviendo hasta su TTL.
+ *
+ * Los últimos valores buenos que L2 sirve durante una caída de Redis o de la
+ * base de datos no se copian en L1: seguirían sirviéndose tras la
+ * recuperación, hasta el TTL local, sin la cabecera de
+ * {@link StaleResponseMarker}.
+ *
+ * Los aciertos en L1 de {@link #get(Object, Callable)} se notifican a
+ * {@link CircuitBreakerAwareCache} sin consultar Redis, para que el refresco
+ * anticipado (XFetch) y el refresh-ahead sigan actuando sobre las claves más
+ * leídas; el valor recargado sustituye a la copia local.
+ *
+ * Las claves locales usan la representación en texto de la clave, igual que
+ * las claves de Redis, para que las invalidaciones remotas coincidan.
+ */
+@Slf4j
+public class TwoLevelCache implements Cache {
+
+    private final Cache remote;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> local;
+    private final CacheInvalidationBus invalidationBus;
+
+    public TwoLevelCache(Cache remote, com.github.benmanes.caffeine.cache.Cache<String, Object> local,
+            CacheInvalidationBus invalidationBus) {
+        this.remote = remote;
+        this.local = local;
+        this.invalidationBus = invalidationBus;
+    }
+
+    @Override
+    public String getName() {
+        return remote.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        Object value = local.getIfPresent(localKey);
+        if (value != null) {
+            return new SimpleValueWrapper(value);
+        }
+
+        int staleBefore = CircuitBreakerAwareCache.staleServes();
+        ValueWrapper result = remote.get(key);
+        if (result != null && result.get() != null && !servedStale(staleBefore)) {
+            local.put(localKey, result.get());
+        }
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        String localKey = localKey(key);
+        Object value = local.getIfPresent(localKey);
+        if (value != null && (type == null || type.isInstance(value))) {
+            return (T) value;
+        }
+
+        int staleBefore = CircuitBreakerAwareCache.staleServes();
+        T result = remote.get(key, type);
+        if (result != null && !servedStale(staleBefore)) {
+            local.put(localKey, result);
+        }
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        Object value = local.getIfPresent(localKey);
+        if (value != null) {
+            if (remote instanceof CircuitBreakerAwareCache breakerAware) {
+                return (T) breakerAware.onLocalHit(key, value, valueLoader,
+                        reloaded -> local.put(localKey, reloaded));
+            }
+            return (T) value;
+        }
+
+        int staleBefore = CircuitBreakerAwareCache.staleServes();
+        T result = remote.get(key, valueLoader);
+        if (result != null && !servedStale(staleBefore)) {
+            local.put(localKey, result);
+        }
+        return result;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        String localKey = localKey(key);
+        if (value != null) {
+            local.put(localKey, value);
+        } else {
+            local.invalidate(localKey);
+        }
+        invalidationBus.publishEvict(getName(), localKey);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = remote.putIfAbsent(key, value);
+        String localKey = localKey(key);
+        local.invalidate(localKey);
+        if (existing == null) {
+            invalidationBus.publishEvict(getName(), localKey);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        String localKey = localKey(key);
+        local.invalidate(localKey);
+        invalidationBus.publishEvict(getName(), localKey);
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        invalidationBus.publishClear(getName());
+    }
+
+    /** Descarta la copia local tras una invalidación recibida de otro nodo. */
+    void evictLocal(String localKey) {
+        local.invalidate(localKey);
+    }
+
+    void clearLocal() {
+        local.invalidateAll();
+    }
+
+    private static boolean servedStale(int staleServesBefore) {
+        return CircuitBreakerAwareCache.staleServes() != staleServesBefore;
+    }
+
+    static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
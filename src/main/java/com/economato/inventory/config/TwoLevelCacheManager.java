@@ -0,0 +1,100 @@
+package com.economato.inventory.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CacheManager híbrido: una caché Caffeine acotada por nombre (L1) delante de
+ * las cachés de {@link CircuitBreakerAwareCacheManager} (L2).
+ *
+ * Las escrituras y borrados se aplican tras el commit de la transacción en
+ * curso, en ambos niveles a la vez, para que L1 no se repueble con el valor
+ * anterior mientras Redis aún no se ha actualizado.
+ *
+ * Escucha el canal de {@link CacheInvalidationBus} y, cuando el circuito de
+ * Redis se cierra tras una caída, vacía L1: las invalidaciones emitidas durante
+ * la caída se han perdido.
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+
+    private final CacheManager remoteCacheManager;
+    private final CacheInvalidationBus invalidationBus;
+    private final long localMaximumSize;
+    private final Duration localTtl;
+    private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+    private final Map<String, Cache> decorated = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager remoteCacheManager, CacheInvalidationBus invalidationBus,
+            CircuitBreakerRegistry circuitBreakerRegistry, long localMaximumSize, Duration localTtl) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.invalidationBus = invalidationBus;
+        this.localMaximumSize = localMaximumSize;
+        this.localTtl = localTtl;
+
+        circuitBreakerRegistry.circuitBreaker("redis").getEventPublisher().onStateTransition(event -> {
+            if (event.getStateTransition().getToState() == CircuitBreaker.State.CLOSED) {
+                log.info("Redis recuperado: vaciando cachés locales");
+                clearLocal();
+            }
+        });
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return decorated.computeIfAbsent(name, cacheName -> {
+            Cache remote = remoteCacheManager.getCache(cacheName);
+            if (remote == null) {
+                return null;
+            }
+            TwoLevelCache cache = new TwoLevelCache(remote,
+                    Caffeine.newBuilder()
+                            .maximumSize(localMaximumSize)
+                            .expireAfterWrite(localTtl)
+                            .build(),
+                    invalidationBus);
+            caches.put(cacheName, cache);
+            return new TransactionAwareCacheDecorator(cache);
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remoteCacheManager.getCacheNames();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        CacheInvalidationBus.Invalidation invalidation = invalidationBus
+                .parse(new String(message.getBody(), StandardCharsets.UTF_8));
+        if (invalidation == null) {
+            return;
+        }
+        TwoLevelCache cache = caches.get(invalidation.cacheName());
+        if (cache == null) {
+            return;
+        }
+        if (invalidation.key() == null) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(invalidation.key());
+        }
+    }
+
+    private void clearLocal() {
+        caches.values().forEach(TwoLevelCache::clearLocal);
+    }
+}
@@ -0,0 +1,86 @@
+package com.economato.inventory.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import com.economato.inventory.dto.response.BulkImportResponseDTO;
+import com.economato.inventory.service.LedgerBulkTransferService;
+import com.economato.inventory.service.LedgerBulkTransferService.BulkFormat;
+import com.economato.inventory.service.LedgerBulkTransferService.BulkTable;
+
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/bulk")
+@RequiredArgsConstructor
+@Tag(name = "Transferencia masiva", description = "Exportación e importación con COPY del ledger y las auditorías")
+public class BulkTransferController {
+
+    private final LedgerBulkTransferService bulkTransferService;
+
+    @Operation(summary = "Exportar una tabla con COPY", description = "Descarga en streaming la tabla completa "
+            + "(stock_ledger, inventory_audit, recipe_cooking_audit, order_audit o recipe_audit) en CSV con cabecera "
+            + "o en el formato binario de PostgreSQL. Se lee desde el pool de analítica y no tiene más límite de "
+            + "tiempo que db.analytics.export-timeout. [Rol requerido: ADMIN]")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Exportación en curso", content = @Content(mediaType = "application/octet-stream")),
+            @ApiResponse(responseCode = "400", description = "Tabla o formato no soportados")
+    })
+    @GetMapping("/{table}/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public WebAsyncTask<Void> exportTable(
+            @PathVariable String table,
+            @Parameter(description = "csv o binary") @RequestParam(defaultValue = "csv") String format,
+            HttpServletResponse response) {
+        BulkTable bulkTable = BulkTable.of(table);
+        BulkFormat bulkFormat = BulkFormat.of(format);
+
+        response.setContentType(bulkFormat.mediaType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(bulkTable.tableName() + "." + bulkFormat.extension())
+                .build()
+                .toString());
+
+        // Con StreamingResponseBody se aplicaría el timeout asíncrono por defecto
+        // del contenedor (30 s en Tomcat) y una tabla grande llegaría cortada
+        return new WebAsyncTask<>(bulkTransferService.exportTimeout().toMillis(), () -> {
+            bulkTransferService.export(bulkTable, bulkFormat, response.getOutputStream());
+            return null;
+        });
+    }
+
+    @Operation(summary = "Importar una tabla con COPY", description = "Carga en streaming el cuerpo de la petición "
+            + "(un fichero generado por la exportación) en una sola transacción. En stock_ledger se verifican "
+            + "todas las cadenas de hashes antes de aplicar nada y se actualizan los snapshots; en las auditorías "
+            + "se descartan los eventos ya presentes. Ejemplo: "
+            + "curl --data-binary @stock_ledger.csv -H 'Content-Type: text/csv' .../api/bulk/stock_ledger/import. "
+            + "[Rol requerido: ADMIN]")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Importación completada", content = @Content(mediaType = "application/json", schema = @Schema(implementation = BulkImportResponseDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Fichero inválido o cadena corrupta - no se ha aplicado ningún cambio"),
+            @ApiResponse(responseCode = "403", description = "Requiere permisos de ADMIN")
+    })
+    @PostMapping("/{table}/import")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkImportResponseDTO> importTable(
+            @PathVariable String table,
+            @Parameter(description = "csv o binary") @RequestParam(defaultValue = "csv") String format,
+            InputStream body) {
+        BulkImportResponseDTO response = bulkTransferService.importTable(
+                BulkTable.of(table), BulkFormat.of(format), body);
+        return ResponseEntity.ok(response);
+    }
+}
@@ -17,6 +17,7 @@ import com.economato.inventory.dto.request.ProductRequestDTO;
 import com.economato.inventory.dto.response.IntegrityCheckResult;
 import com.economato.inventory.dto.response.LedgerPdfResponseDTO;
 import com.economato.inventory.dto.response.ProductResponseDTO;
+import com.economato.inventory.service.JsonResponseCache;
 import com.economato.inventory.service.ProductExcelService;
 import com.economato.inventory.service.ProductService;
 import com.economato.inventory.service.StockLedgerPdfService;
@@ -39,21 +40,24 @@ public class ProductController {
         private final ProductExcelService productExcelService;
         private final StockLedgerPdfService stockLedgerPdfService;
         private final StockLedgerService stockLedgerService;
+        private final JsonResponseCache jsonResponseCache;
 
         public ProductController(ProductService productService, ProductExcelService productExcelService,
-                StockLedgerPdfService stockLedgerPdfService, StockLedgerService stockLedgerService) {
+                StockLedgerPdfService stockLedgerPdfService, StockLedgerService stockLedgerService,
+                JsonResponseCache jsonResponseCache) {
                 this.productService = productService;
                 this.productExcelService = productExcelService;
                 this.stockLedgerPdfService = stockLedgerPdfService;
                 this.stockLedgerService = stockLedgerService;
+                this.jsonResponseCache = jsonResponseCache;
         }
 
         @PreAuthorize("hasAnyRole('USER', 'CHEF', 'ELEVATED', 'ADMIN')")
         @Operation(summary = "Obtener todos los productos", description = "Devuelve una lista paginada de todos los productos registrados en el sistema. [Rol requerido: USER]")
         @ApiResponse(responseCode = "200", description = "Lista de productos obtenida correctamente", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductResponseDTO.class)))
         @GetMapping
-        public ResponseEntity<Page<ProductResponseDTO>> getAllProducts(Pageable pageable) {
-                return ResponseEntity.ok(productService.findAll(pageable));
+        public ResponseEntity<?> getAllProducts(Pageable pageable) {
+                return jsonResponseCache.page("products_page", pageable, () -> productService.findAll(pageable));
         }
 
         @PreAuthorize("hasAnyRole('USER', 'CHEF', 'ELEVATED', 'ADMIN')")
@@ -109,11 +113,9 @@ public class ProductController {
                         @ApiResponse(responseCode = "404", description = "Producto no encontrado")
         })
         @GetMapping("/{id}")
-        public ResponseEntity<ProductResponseDTO> getProductById(
+        public ResponseEntity<?> getProductById(
                         @Parameter(description = "ID del producto", example = "3", required = true) @PathVariable Integer id) {
-                return productService.findById(id)
-                                .map(ResponseEntity::ok)
-                                .orElse(ResponseEntity.notFound().build());
+                return jsonResponseCache.entity("product", id, () -> productService.findById(id));
         }
 
         @PreAuthorize("hasAnyRole('CHEF', 'ELEVATED', 'ADMIN')")
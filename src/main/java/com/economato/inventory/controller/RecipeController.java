@@ -18,6 +18,7 @@ import org.springframework.web.bind.annotation.*;
 import com.economato.inventory.dto.request.RecipeCookingRequestDTO;
 import com.economato.inventory.dto.request.RecipeRequestDTO;
 import com.economato.inventory.dto.response.RecipeResponseDTO;
+import com.economato.inventory.service.JsonResponseCache;
 import com.economato.inventory.service.RecipePdfService;
 import com.economato.inventory.service.RecipeService;
 
@@ -37,10 +38,13 @@ public class RecipeController {
 
         private final RecipeService recipeService;
         private final RecipePdfService recipePdfService;
+        private final JsonResponseCache jsonResponseCache;
 
-        public RecipeController(RecipeService recipeService, RecipePdfService recipePdfService) {
+        public RecipeController(RecipeService recipeService, RecipePdfService recipePdfService,
+                        JsonResponseCache jsonResponseCache) {
                 this.recipeService = recipeService;
                 this.recipePdfService = recipePdfService;
+                this.jsonResponseCache = jsonResponseCache;
         }
 
         @PreAuthorize("hasAnyRole('USER', 'CHEF', 'ELEVATED', 'ADMIN')")
@@ -49,8 +53,8 @@ public class RecipeController {
         @ApiResponses({
                         @ApiResponse(responseCode = "200", description = "Lista de recetas", content = @Content(mediaType = "application/json", schema = @Schema(implementation = RecipeResponseDTO.class)))
         })
-        public ResponseEntity<Page<RecipeResponseDTO>> getAll(Pageable pageable) {
-                return ResponseEntity.ok(recipeService.findAll(pageable));
+        public ResponseEntity<?> getAll(Pageable pageable) {
+                return jsonResponseCache.page("recipes_page", pageable, () -> recipeService.findAll(pageable));
         }
 
         @PreAuthorize("hasAnyRole('USER', 'CHEF', 'ELEVATED', 'ADMIN')")
@@ -60,11 +64,9 @@ public class RecipeController {
                         @ApiResponse(responseCode = "200", description = "Receta encontrada", content = @Content(mediaType = "application/json", schema = @Schema(implementation = RecipeResponseDTO.class))),
                         @ApiResponse(responseCode = "404", description = "Receta no encontrada")
         })
-        public ResponseEntity<RecipeResponseDTO> getById(
+        public ResponseEntity<?> getById(
                         @Parameter(description = "ID de la receta", required = true) @PathVariable Integer id) {
-                return recipeService.findById(id)
-                                .map(ResponseEntity::ok)
-                                .orElse(ResponseEntity.notFound().build());
+                return jsonResponseCache.entity("recipe", id, () -> recipeService.findById(id));
         }
 
         @PreAuthorize("hasAnyRole('CHEF', 'ELEVATED', 'ADMIN')")
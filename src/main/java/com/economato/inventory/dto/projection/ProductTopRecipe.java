@@ -0,0 +1,14 @@
+package com.economato.inventory.dto.projection;
+
+/**
+ * Proyección de resultado de la query nativa que devuelve, para cada
+ * producto, las recetas que más lo consumen en el período analizado.
+ */
+public interface ProductTopRecipe {
+
+    /** ID del producto (ingrediente). */
+    Integer getProductId();
+
+    /** Nombre de la receta. */
+    String getRecipeName();
+}
@@ -0,0 +1,39 @@
+package com.economato.inventory.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Resultado de una importación masiva con COPY")
+public class BulkImportResponseDTO {
+
+    @Schema(description = "Tabla importada", example = "stock_ledger")
+    private String table;
+
+    @Schema(description = "Formato del fichero importado", example = "csv")
+    private String format;
+
+    @Schema(description = "Filas leídas del fichero", example = "250000")
+    private long rowsRead;
+
+    @Schema(description = "Filas insertadas en la tabla", example = "250000")
+    private long rowsInserted;
+
+    @Schema(description = "Filas descartadas por estar ya presentes (mismo eventId)", example = "0")
+    private long rowsSkipped;
+
+    @Schema(description = "Productos cuyo snapshot y stock se han actualizado (solo stock_ledger)", example = "120")
+    private long productsUpdated;
+
+    @Schema(description = "Duración de la importación en milisegundos", example = "1830")
+    private long elapsedMillis;
+
+    @Schema(description = "Mensaje descriptivo del resultado")
+    private String message;
+}
@@ -0,0 +1,12 @@
+package com.economato.inventory.exception;
+
+/**
+ * Excepción lanzada cuando una operación pesada no obtiene turno en el pool
+ * de analítica dentro del tiempo de espera máximo.
+ */
+public class AnalyticsCapacityException extends RuntimeException {
+
+    public AnalyticsCapacityException(String message) {
+        super(message);
+    }
+}
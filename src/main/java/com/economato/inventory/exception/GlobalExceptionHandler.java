@@ -132,6 +132,16 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.LOCKED);
     }
 
+    @ExceptionHandler(AnalyticsCapacityException.class)
+    public ResponseEntity<ErrorResponse> handleAnalyticsCapacityException(AnalyticsCapacityException ex) {
+        log.warn("Operación pesada rechazada: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                i18nService.getMessage(MessageKey.ERROR_ANALYTICS_BUSY),
+                LocalDateTime.now());
+        return new ResponseEntity<>(error, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGeneralException(Exception ex) {
 
@@ -41,7 +41,7 @@ public class CircuitBreakerHealthChecker {
             @Qualifier("writerDataSource") DataSource writerDataSource,
             @Qualifier("readerDataSource") DataSource readerDataSource,
             RedisConnectionFactory redisConnectionFactory,
-            @Qualifier("inventoryAuditKafkaTemplate") KafkaTemplate<String, ?> kafkaTemplate) {
+            @Qualifier("auditKafkaTemplate") KafkaTemplate<String, ?> kafkaTemplate) {
         this.circuitBreakerRegistry = circuitBreakerRegistry;
         this.writerDataSource = writerDataSource;
         this.readerDataSource = readerDataSource;
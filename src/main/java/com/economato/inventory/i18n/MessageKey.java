@@ -38,6 +38,7 @@ public enum MessageKey {
     ERROR_OPTIMISTIC_LOCK("error.optimistic.lock"),
     ERROR_PESSIMISTIC_LOCK("error.pessimistic.lock"),
     ERROR_INTERNAL_SERVER_ERROR("error.internal.server.error"),
+    ERROR_ANALYTICS_BUSY("error.analytics.busy"),
     ERROR_AUTH_BAD_CREDENTIALS("error.auth.bad.credentials"),
     ERROR_AUTH_JWT_INVALID("error.auth.jwt.invalid"),
     ERROR_AUTH_JWT_MISSING("error.auth.jwt.missing"),
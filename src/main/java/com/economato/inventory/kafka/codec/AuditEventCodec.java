@@ -0,0 +1,349 @@
+package com.economato.inventory.kafka.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.economato.inventory.dto.event.InventoryAuditEvent;
+import com.economato.inventory.dto.event.OrderAuditEvent;
+import com.economato.inventory.dto.event.RecipeAuditEvent;
+import com.economato.inventory.dto.event.RecipeCookingAuditEvent;
+
+/**
+ * Sobre binario compacto y versionado para los eventos de auditoría.
+ *
+ * Formato (versión 1):
+ *
+ * <pre>
+ * magic(1) | version(1) | typeId(1) | fieldCount(varint) | presencia(ceil(fieldCount/8)) | valores...
+ * </pre>
+ *
+ * Cada campo presente se escribe en el orden del esquema del tipo, sin nombre
+ * ni clase: enteros como varint zigzag, textos como longitud + UTF-8, decimales
+ * como escala + bytes del valor sin escala, y fechas como segundos UTC + nanos.
+ * Un payload que no empieza por {@link #MAGIC} se considera JSON heredado.
+ *
+ * Reglas de evolución del esquema (verificadas en {@code AuditEventCodecTest}):
+ * <ol>
+ * <li>Los campos se identifican por posición: los nuevos se añaden siempre al
+ * final del esquema.</li>
+ * <li>Nunca se elimina ni se reordena un campo; uno obsoleto se sigue
+ * declarando y se escribe como ausente.</li>
+ * <li>Nunca se cambia el tipo de un campo; se añade uno nuevo en su lugar.</li>
+ * <li>Un lector antiguo ignora los campos finales que no conoce y un lector
+ * nuevo deja a {@code null} los campos que el emisor no escribió.</li>
+ * <li>Un cambio incompatible del propio sobre incrementa {@link #VERSION}; los
+ * lectores rechazan versiones que no conocen.</li>
+ * <li>Los {@code typeId} no se reutilizan nunca.</li>
+ * </ol>
+ */
+public final class AuditEventCodec {
+
+    public static final byte MAGIC = (byte) 0xAE;
+    public static final byte VERSION = 1;
+
+    static final Schema<InventoryAuditEvent> INVENTORY_AUDIT = new Schema<>(1, InventoryAuditEvent::new)
+            .field(FieldType.INT, InventoryAuditEvent::getProductId, InventoryAuditEvent::setProductId)
+            .field(FieldType.STRING, InventoryAuditEvent::getProductName, InventoryAuditEvent::setProductName)
+            .field(FieldType.INT, InventoryAuditEvent::getUserId, InventoryAuditEvent::setUserId)
+            .field(FieldType.STRING, InventoryAuditEvent::getUserName, InventoryAuditEvent::setUserName)
+            .field(FieldType.STRING, InventoryAuditEvent::getMovementType, InventoryAuditEvent::setMovementType)
+            .field(FieldType.DECIMAL, InventoryAuditEvent::getQuantity, InventoryAuditEvent::setQuantity)
+            .field(FieldType.STRING, InventoryAuditEvent::getActionDescription,
+                    InventoryAuditEvent::setActionDescription)
+            .field(FieldType.STRING, InventoryAuditEvent::getPreviousState, InventoryAuditEvent::setPreviousState)
+            .field(FieldType.STRING, InventoryAuditEvent::getNewState, InventoryAuditEvent::setNewState)
+            .field(FieldType.DATETIME, InventoryAuditEvent::getMovementDate, InventoryAuditEvent::setMovementDate);
+
+    static final Schema<RecipeAuditEvent> RECIPE_AUDIT = new Schema<>(2, RecipeAuditEvent::new)
+            .field(FieldType.INT, RecipeAuditEvent::getRecipeId, RecipeAuditEvent::setRecipeId)
+            .field(FieldType.STRING, RecipeAuditEvent::getRecipeName, RecipeAuditEvent::setRecipeName)
+            .field(FieldType.INT, RecipeAuditEvent::getUserId, RecipeAuditEvent::setUserId)
+            .field(FieldType.STRING, RecipeAuditEvent::getUserName, RecipeAuditEvent::setUserName)
+            .field(FieldType.STRING, RecipeAuditEvent::getAction, RecipeAuditEvent::setAction)
+            .field(FieldType.STRING, RecipeAuditEvent::getDetails, RecipeAuditEvent::setDetails)
+            .field(FieldType.STRING, RecipeAuditEvent::getPreviousState, RecipeAuditEvent::setPreviousState)
+            .field(FieldType.STRING, RecipeAuditEvent::getNewState, RecipeAuditEvent::setNewState)
+            .field(FieldType.DATETIME, RecipeAuditEvent::getAuditDate, RecipeAuditEvent::setAuditDate);
+
+    static final Schema<OrderAuditEvent> ORDER_AUDIT = new Schema<>(3, OrderAuditEvent::new)
+            .field(FieldType.INT, OrderAuditEvent::getOrderId, OrderAuditEvent::setOrderId)
+            .field(FieldType.INT, OrderAuditEvent::getUserId, OrderAuditEvent::setUserId)
+            .field(FieldType.STRING, OrderAuditEvent::getUserName, OrderAuditEvent::setUserName)
+            .field(FieldType.STRING, OrderAuditEvent::getAction, OrderAuditEvent::setAction)
+            .field(FieldType.STRING, OrderAuditEvent::getDetails, OrderAuditEvent::setDetails)
+            .field(FieldType.STRING, OrderAuditEvent::getPreviousState, OrderAuditEvent::setPreviousState)
+            .field(FieldType.STRING, OrderAuditEvent::getNewState, OrderAuditEvent::setNewState)
+            .field(FieldType.DATETIME, OrderAuditEvent::getAuditDate, OrderAuditEvent::setAuditDate);
+
+    static final Schema<RecipeCookingAuditEvent> RECIPE_COOKING_AUDIT = new Schema<>(4, RecipeCookingAuditEvent::new)
+            .field(FieldType.INT, RecipeCookingAuditEvent::getRecipeId, RecipeCookingAuditEvent::setRecipeId)
+            .field(FieldType.STRING, RecipeCookingAuditEvent::getRecipeName, RecipeCookingAuditEvent::setRecipeName)
+            .field(FieldType.INT, RecipeCookingAuditEvent::getUserId, RecipeCookingAuditEvent::setUserId)
+            .field(FieldType.STRING, RecipeCookingAuditEvent::getUserName, RecipeCookingAuditEvent::setUserName)
+            .field(FieldType.DECIMAL, RecipeCookingAuditEvent::getQuantityCooked,
+                    RecipeCookingAuditEvent::setQuantityCooked)
+            .field(FieldType.STRING, RecipeCookingAuditEvent::getDetails, RecipeCookingAuditEvent::setDetails)
+            .field(FieldType.STRING, RecipeCookingAuditEvent::getComponentsState,
+                    RecipeCookingAuditEvent::setComponentsState)
+            .field(FieldType.DATETIME, RecipeCookingAuditEvent::getCookingDate,
+                    RecipeCookingAuditEvent::setCookingDate);
+
+    private static final Map<Class<?>, Schema<?>> SCHEMAS = Map.of(
+            InventoryAuditEvent.class, INVENTORY_AUDIT,
+            RecipeAuditEvent.class, RECIPE_AUDIT,
+            OrderAuditEvent.class, ORDER_AUDIT,
+            RecipeCookingAuditEvent.class, RECIPE_COOKING_AUDIT);
+
+    private AuditEventCodec() {
+    }
+
+    /**
+     * Indica si el payload está codificado con este sobre (o es JSON heredado).
+     */
+    public static boolean isEnvelope(byte[] data) {
+        return data != null && data.length > 0 && data[0] == MAGIC;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> byte[] encode(T event) {
+        Schema<T> schema = (Schema<T>) SCHEMAS.get(event.getClass());
+        if (schema == null) {
+            throw new IllegalArgumentException("Tipo de evento sin esquema binario: " + event.getClass().getName());
+        }
+        return encode(event, schema);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T decode(byte[] data, Class<T> type) {
+        Schema<T> schema = (Schema<T>) SCHEMAS.get(type);
+        if (schema == null) {
+            throw new IllegalArgumentException("Tipo de evento sin esquema binario: " + type.getName());
+        }
+        return decode(data, schema);
+    }
+
+    static <T> byte[] encode(T event, Schema<T> schema) {
+        int fieldCount = schema.fields.size();
+        Object[] values = new Object[fieldCount];
+        byte[] presence = new byte[(fieldCount + 7) / 8];
+        for (int i = 0; i < fieldCount; i++) {
+            values[i] = schema.fields.get(i).getter().apply(event);
+            if (values[i] != null) {
+                presence[i >>> 3] |= (byte) (1 << (i & 7));
+            }
+        }
+
+        Output out = new Output();
+        out.write(MAGIC);
+        out.write(VERSION);
+        out.write(schema.typeId);
+        out.writeVarLong(fieldCount);
+        out.write(presence, 0, presence.length);
+        for (int i = 0; i < fieldCount; i++) {
+            if (values[i] != null) {
+                schema.fields.get(i).type().write(out, values[i]);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    static <T> T decode(byte[] data, Schema<T> schema) {
+        if (!isEnvelope(data)) {
+            throw new IllegalArgumentException("El payload no es un sobre binario de auditoría");
+        }
+        Input in = new Input(data);
+        in.readByte(); // magic
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Versión de sobre no soportada: " + version);
+        }
+        byte typeId = in.readByte();
+        if (typeId != schema.typeId) {
+            throw new IllegalArgumentException(
+                    "Tipo de evento inesperado: " + typeId + " (se esperaba " + schema.typeId + ")");
+        }
+        int fieldCount = (int) in.readVarLong();
+        byte[] presence = in.readBytes((fieldCount + 7) / 8);
+
+        T event = schema.factory.get();
+        // Los campos finales desconocidos (emisor más nuevo) se ignoran: siempre van al final
+        int readable = Math.min(fieldCount, schema.fields.size());
+        for (int i = 0; i < readable; i++) {
+            if ((presence[i >>> 3] & (1 << (i & 7))) != 0) {
+                schema.fields.get(i).read(in, event);
+            }
+        }
+        return event;
+    }
+
+    /**
+     * Esquema posicional de un tipo de evento.
+     */
+    static final class Schema<T> {
+
+        final byte typeId;
+        final Supplier<T> factory;
+        final List<Field<T, ?>> fields = new ArrayList<>();
+
+        Schema(int typeId, Supplier<T> factory) {
+            this.typeId = (byte) typeId;
+            this.factory = factory;
+        }
+
+        <V> Schema<T> field(FieldType<V> type, Function<T, V> getter, BiConsumer<T, V> setter) {
+            fields.add(new Field<>(type, getter, setter));
+            return this;
+        }
+    }
+
+    private record Field<T, V>(FieldType<V> type, Function<T, V> getter, BiConsumer<T, V> setter) {
+
+        void read(Input in, T event) {
+            setter.accept(event, type.read(in));
+        }
+    }
+
+    /**
+     * Codificación de los tipos de valor soportados.
+     */
+    abstract static class FieldType<V> {
+
+        static final FieldType<Integer> INT = new FieldType<>() {
+            @Override
+            void write(Output out, Object value) {
+                out.writeZigZag((Integer) value);
+            }
+
+            @Override
+            Integer read(Input in) {
+                return (int) in.readZigZag();
+            }
+        };
+
+        static final FieldType<String> STRING = new FieldType<>() {
+            @Override
+            void write(Output out, Object value) {
+                byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+                out.writeVarLong(bytes.length);
+                out.write(bytes, 0, bytes.length);
+            }
+
+            @Override
+            String read(Input in) {
+                int length = (int) in.readVarLong();
+                return new String(in.readBytes(length), StandardCharsets.UTF_8);
+            }
+        };
+
+        static final FieldType<BigDecimal> DECIMAL = new FieldType<>() {
+            @Override
+            void write(Output out, Object value) {
+                BigDecimal decimal = (BigDecimal) value;
+                byte[] unscaled = decimal.unscaledValue().toByteArray();
+                out.writeZigZag(decimal.scale());
+                out.writeVarLong(unscaled.length);
+                out.write(unscaled, 0, unscaled.length);
+            }
+
+            @Override
+            BigDecimal read(Input in) {
+                int scale = (int) in.readZigZag();
+                int length = (int) in.readVarLong();
+                return new BigDecimal(new BigInteger(in.readBytes(length)), scale);
+            }
+        };
+
+        static final FieldType<LocalDateTime> DATETIME = new FieldType<>() {
+            @Override
+            void write(Output out, Object value) {
+                LocalDateTime dateTime = (LocalDateTime) value;
+                out.writeZigZag(dateTime.toEpochSecond(ZoneOffset.UTC));
+                out.writeVarLong(dateTime.getNano());
+            }
+
+            @Override
+            LocalDateTime read(Input in) {
+                long seconds = in.readZigZag();
+                int nanos = (int) in.readVarLong();
+                return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+            }
+        };
+
+        abstract void write(Output out, Object value);
+
+        abstract V read(Input in);
+    }
+
+    static final class Output extends ByteArrayOutputStream {
+
+        Output() {
+            super(128);
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeZigZag(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+    }
+
+    static final class Input {
+
+        private final byte[] data;
+        private int position;
+
+        Input(byte[] data) {
+            this.data = data;
+        }
+
+        byte readByte() {
+            if (position >= data.length) {
+                throw new IllegalArgumentException("Sobre de auditoría truncado");
+            }
+            return data[position++];
+        }
+
+        byte[] readBytes(int length) {
+            if (length < 0 || position + length > data.length) {
+                throw new IllegalArgumentException("Sobre de auditoría truncado");
+            }
+            byte[] bytes = new byte[length];
+            System.arraycopy(data, position, bytes, 0, length);
+            position += length;
+            return bytes;
+        }
+
+        long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException("Varint mal formado en sobre de auditoría");
+        }
+
+        long readZigZag() {
+            long raw = readVarLong();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+    }
+}
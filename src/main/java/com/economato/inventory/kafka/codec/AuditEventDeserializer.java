@@ -0,0 +1,37 @@
+package com.economato.inventory.kafka.codec;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Deserializador de eventos de auditoría. Lee el sobre binario de
+ * {@link AuditEventCodec} y, durante el despliegue, también el JSON que
+ * publicaban las versiones anteriores.
+ */
+public class AuditEventDeserializer<T> implements Deserializer<T> {
+
+    private final Class<T> type;
+    private final JsonMapper jsonMapper;
+
+    public AuditEventDeserializer(Class<T> type, JsonMapper jsonMapper) {
+        this.type = type;
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            if (AuditEventCodec.isEnvelope(data)) {
+                return AuditEventCodec.decode(data, type);
+            }
+            return jsonMapper.readValue(data, type);
+        } catch (Exception e) {
+            throw new SerializationException("No se pudo deserializar el evento de auditoría del topic " + topic, e);
+        }
+    }
+}
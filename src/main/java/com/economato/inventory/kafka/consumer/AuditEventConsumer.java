@@ -1,23 +1,28 @@
 package com.economato.inventory.kafka.consumer;
 
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
 import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.economato.inventory.dto.event.InventoryAuditEvent;
 import com.economato.inventory.dto.event.OrderAuditEvent;
 import com.economato.inventory.dto.event.RecipeAuditEvent;
 import com.economato.inventory.dto.event.RecipeCookingAuditEvent;
+import com.economato.inventory.kafka.producer.AuditEventProducer;
+import com.economato.inventory.kafka.producer.AuditOutboxMetrics;
 import com.economato.inventory.model.InventoryAudit;
-import com.economato.inventory.model.Order;
 import com.economato.inventory.model.OrderAudit;
-import com.economato.inventory.model.Product;
-import com.economato.inventory.model.Recipe;
 import com.economato.inventory.model.RecipeAudit;
 import com.economato.inventory.model.RecipeCookingAudit;
-import com.economato.inventory.model.User;
 import com.economato.inventory.repository.InventoryAuditRepository;
 import com.economato.inventory.repository.OrderAuditRepository;
 import com.economato.inventory.repository.OrderRepository;
@@ -28,6 +33,30 @@ import com.economato.inventory.repository.RecipeRepository;
 import com.economato.inventory.repository.UserRepository;
 import com.economato.inventory.service.StockAlertService;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Consumidor de eventos de auditoría en modo batch.
+ * Cada poll se persiste en una única transacción: las claves foráneas se
+ * validan con una sola consulta IN por entidad y se enlazan con
+ * {@code getReferenceById}, sin cargar las entidades referenciadas.
+ * Los eventos repetidos se descartan con {@link AuditEventDeduplicator}.
+ *
+ * Si el lote falla se reintenta registro a registro, cada uno en su
+ * transacción, hasta dar con el que falla: se lanza
+ * {@link BatchListenerFailedException} con su índice para que el
+ * {@code DefaultErrorHandler} confirme los anteriores y reintente o descarte
+ * solo ese registro.
+ */
 @Slf4j
 @Service
 @Profile({ "!test", "kafka-test" })
@@ -42,6 +71,9 @@ public class AuditEventConsumer {
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
     private final StockAlertService stockAlertService;
+    private final AuditEventDeduplicator deduplicator;
+    private final AuditOutboxMetrics outboxMetrics;
+    private final TransactionTemplate transactionTemplate;
 
     public AuditEventConsumer(
             InventoryAuditRepository inventoryAuditRepository,
@@ -52,7 +84,10 @@ public class AuditEventConsumer {
             RecipeRepository recipeRepository,
             OrderRepository orderRepository,
             UserRepository userRepository,
-            StockAlertService stockAlertService) {
+            StockAlertService stockAlertService,
+            AuditEventDeduplicator deduplicator,
+            AuditOutboxMetrics outboxMetrics,
+            PlatformTransactionManager transactionManager) {
         this.inventoryAuditRepository = inventoryAuditRepository;
         this.recipeAuditRepository = recipeAuditRepository;
         this.recipeCookingAuditRepository = recipeCookingAuditRepository;
@@ -62,153 +97,351 @@ public class AuditEventConsumer {
         this.orderRepository = orderRepository;
         this.userRepository = userRepository;
         this.stockAlertService = stockAlertService;
+        this.deduplicator = deduplicator;
+        this.outboxMetrics = outboxMetrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     @KafkaListener(topics = "inventory-audit-events", groupId = "inventory-audit-consumer-group", containerFactory = "inventoryAuditKafkaListenerContainerFactory")
-    @Transactional
-    public void consumeInventoryAudit(InventoryAuditEvent event) {
-        try {
-            log.debug("Procesando evento de auditoría de inventario: producto={}, tipo={}",
-                    event.getProductId(), event.getMovementType());
-
-            Product product = productRepository.findById(event.getProductId())
-                    .orElseThrow(() -> new RuntimeException("Producto no encontrado: " + event.getProductId()));
+    public void consumeInventoryAudit(List<ConsumerRecord<String, InventoryAuditEvent>> records) {
+        consume(records, "inventario", this::persistInventoryAudits);
+    }
 
-            User user = null;
-            if (event.getUserId() != null) {
-                user = userRepository.findById(event.getUserId()).orElse(null);
+    private void persistInventoryAudits(List<ConsumerRecord<String, InventoryAuditEvent>> records) {
+        List<ReceivedEvent<InventoryAuditEvent>> events = newEvents(records,
+                inventoryAuditRepository::findExistingEventIds);
+        log.debug("Procesando lote de auditoría de inventario: {} eventos", events.size());
+
+        Set<Integer> productIds = existingIds(events, InventoryAuditEvent::getProductId,
+                productRepository::findExistingIds);
+        Set<Integer> userIds = existingIds(events, InventoryAuditEvent::getUserId,
+                userRepository::findExistingIds);
+
+        List<InventoryAudit> audits = new ArrayList<>(events.size());
+        for (ReceivedEvent<InventoryAuditEvent> received : events) {
+            InventoryAuditEvent event = received.event();
+            if (!productIds.contains(event.getProductId())) {
+                log.warn("Producto no encontrado, se descarta la auditoría: {}", event.getProductId());
+                continue;
             }
 
             InventoryAudit audit = new InventoryAudit();
-            audit.setProduct(product);
-            audit.setUser(user);
+            audit.setEventId(received.eventId());
+            audit.setProduct(productRepository.getReferenceById(event.getProductId()));
+            if (userIds.contains(event.getUserId())) {
+                audit.setUser(userRepository.getReferenceById(event.getUserId()));
+            }
             audit.setMovementType(event.getMovementType());
             audit.setQuantity(event.getQuantity());
             audit.setActionDescription(event.getActionDescription());
             audit.setPreviousState(event.getPreviousState());
             audit.setNewState(event.getNewState());
             audit.setMovementDate(event.getMovementDate());
+            audits.add(audit);
+        }
 
-            inventoryAuditRepository.save(audit);
-
-            log.info("Auditoría de inventario guardada: id={}, producto={}, tipo={}",
-                    audit.getId(), event.getProductId(), event.getMovementType());
-
-        } catch (Exception e) {
-            log.error("Error al procesar evento de auditoría de inventario: {}", e.getMessage(), e);
+        inventoryAuditRepository.saveAllAndFlush(audits);
+        deduplicator.markProcessed(eventIds(events));
+        recordConsumed(AuditEventProducer.INVENTORY_AUDIT_TOPIC, events, audits.size());
 
-            throw new RuntimeException("Error procesando auditoría de inventario", e);
-        }
+        log.info("Lote de auditoría de inventario guardado: {} de {} eventos", audits.size(), records.size());
     }
 
     @KafkaListener(topics = "recipe-audit-events", groupId = "recipe-audit-consumer-group", containerFactory = "recipeAuditKafkaListenerContainerFactory")
-    @Transactional
-    public void consumeRecipeAudit(RecipeAuditEvent event) {
-        try {
-            log.debug("Procesando evento de auditoría de receta: receta={}, acción={}",
-                    event.getRecipeId(), event.getAction());
-
-            Recipe recipe = recipeRepository.findById(event.getRecipeId())
-                    .orElseThrow(() -> new RuntimeException("Receta no encontrada: " + event.getRecipeId()));
+    public void consumeRecipeAudit(List<ConsumerRecord<String, RecipeAuditEvent>> records) {
+        consume(records, "receta", this::persistRecipeAudits);
+    }
 
-            User user = null;
-            if (event.getUserId() != null) {
-                user = userRepository.findById(event.getUserId()).orElse(null);
+    private void persistRecipeAudits(List<ConsumerRecord<String, RecipeAuditEvent>> records) {
+        List<ReceivedEvent<RecipeAuditEvent>> events = newEvents(records,
+                recipeAuditRepository::findExistingEventIds);
+        log.debug("Procesando lote de auditoría de receta: {} eventos", events.size());
+
+        Set<Integer> recipeIds = existingIds(events, RecipeAuditEvent::getRecipeId,
+                recipeRepository::findExistingIds);
+        Set<Integer> userIds = existingIds(events, RecipeAuditEvent::getUserId,
+                userRepository::findExistingIds);
+
+        List<RecipeAudit> audits = new ArrayList<>(events.size());
+        for (ReceivedEvent<RecipeAuditEvent> received : events) {
+            RecipeAuditEvent event = received.event();
+            if (!recipeIds.contains(event.getRecipeId())) {
+                log.warn("Receta no encontrada, se descarta la auditoría: {}", event.getRecipeId());
+                continue;
             }
 
             RecipeAudit audit = new RecipeAudit();
-            audit.setRecipe(recipe);
-            audit.setUser(user);
+            audit.setEventId(received.eventId());
+            audit.setRecipe(recipeRepository.getReferenceById(event.getRecipeId()));
+            if (userIds.contains(event.getUserId())) {
+                audit.setUser(userRepository.getReferenceById(event.getUserId()));
+            }
             audit.setAction(event.getAction());
             audit.setDetails(event.getDetails());
             audit.setPreviousState(event.getPreviousState());
             audit.setNewState(event.getNewState());
             audit.setAuditDate(event.getAuditDate());
+            audits.add(audit);
+        }
 
-            recipeAuditRepository.save(audit);
-
-            log.info("Auditoría de receta guardada: id={}, receta={}, acción={}",
-                    audit.getId(), event.getRecipeId(), event.getAction());
-
-        } catch (Exception e) {
-            log.error("Error al procesar evento de auditoría de receta: {}", e.getMessage(), e);
+        recipeAuditRepository.saveAllAndFlush(audits);
+        deduplicator.markProcessed(eventIds(events));
+        recordConsumed(AuditEventProducer.RECIPE_AUDIT_TOPIC, events, audits.size());
 
-            throw new RuntimeException("Error procesando auditoría de receta", e);
-        }
+        log.info("Lote de auditoría de receta guardado: {} de {} eventos", audits.size(), records.size());
     }
 
     @KafkaListener(topics = "order-audit-events", groupId = "order-audit-consumer-group", containerFactory = "orderAuditKafkaListenerContainerFactory")
-    @Transactional
-    public void consumeOrderAudit(OrderAuditEvent event) {
-        try {
-            log.debug("Procesando evento de auditoría de orden: orden={}, acción={}",
-                    event.getOrderId(), event.getAction());
+    public void consumeOrderAudit(List<ConsumerRecord<String, OrderAuditEvent>> records) {
+        consume(records, "orden", this::persistOrderAudits);
+    }
 
-            Order order = orderRepository.findById(event.getOrderId())
-                    .orElse(null);
+    private void persistOrderAudits(List<ConsumerRecord<String, OrderAuditEvent>> records) {
+        List<ReceivedEvent<OrderAuditEvent>> events = newEvents(records,
+                orderAuditRepository::findExistingEventIds);
+        log.debug("Procesando lote de auditoría de orden: {} eventos", events.size());
 
-            User user = null;
-            if (event.getUserId() != null) {
-                user = userRepository.findById(event.getUserId()).orElse(null);
-            }
+        Set<Integer> orderIds = existingIds(events, OrderAuditEvent::getOrderId,
+                orderRepository::findExistingIds);
+        Set<Integer> userIds = existingIds(events, OrderAuditEvent::getUserId,
+                userRepository::findExistingIds);
 
+        List<OrderAudit> audits = new ArrayList<>(events.size());
+        for (ReceivedEvent<OrderAuditEvent> received : events) {
+            OrderAuditEvent event = received.event();
             OrderAudit audit = new OrderAudit();
-            audit.setOrder(order);
-            audit.setUser(user);
+            audit.setEventId(received.eventId());
+            if (orderIds.contains(event.getOrderId())) {
+                audit.setOrder(orderRepository.getReferenceById(event.getOrderId()));
+            }
+            if (userIds.contains(event.getUserId())) {
+                audit.setUser(userRepository.getReferenceById(event.getUserId()));
+            }
             audit.setAction(event.getAction());
             audit.setDetails(event.getDetails());
             audit.setPreviousState(event.getPreviousState());
             audit.setNewState(event.getNewState());
             audit.setAuditDate(event.getAuditDate());
+            audits.add(audit);
+        }
 
-            orderAuditRepository.save(audit);
-
-            log.info("Auditoría de orden guardada: id={}, orden={}, acción={}",
-                    audit.getId(), event.getOrderId(), event.getAction());
-
-        } catch (Exception e) {
-            log.error("Error al procesar evento de auditoría de orden: {}", e.getMessage(), e);
+        orderAuditRepository.saveAllAndFlush(audits);
+        deduplicator.markProcessed(eventIds(events));
+        recordConsumed(AuditEventProducer.ORDER_AUDIT_TOPIC, events, audits.size());
 
-            throw new RuntimeException("Error procesando auditoría de orden", e);
-        }
+        log.info("Lote de auditoría de orden guardado: {} eventos", audits.size());
     }
 
     @KafkaListener(topics = "recipe-cooking-audit-events", groupId = "recipe-cooking-audit-consumer-group", containerFactory = "recipeCookingAuditKafkaListenerContainerFactory")
-    @Transactional
-    public void consumeRecipeCookingAudit(RecipeCookingAuditEvent event) {
-        try {
-            log.debug("Procesando evento de auditoría de cocinado: receta={}, cantidad={}",
-                    event.getRecipeId(), event.getQuantityCooked());
-
-            Recipe recipe = recipeRepository.findById(event.getRecipeId())
-                    .orElseThrow(() -> new RuntimeException("Receta no encontrada: " + event.getRecipeId()));
+    public void consumeRecipeCookingAudit(List<ConsumerRecord<String, RecipeCookingAuditEvent>> records) {
+        consume(records, "cocinado", this::persistRecipeCookingAudits);
+    }
 
-            User user = null;
-            if (event.getUserId() != null) {
-                user = userRepository.findById(event.getUserId()).orElse(null);
+    private void persistRecipeCookingAudits(List<ConsumerRecord<String, RecipeCookingAuditEvent>> records) {
+        List<ReceivedEvent<RecipeCookingAuditEvent>> events = newEvents(records,
+                recipeCookingAuditRepository::findExistingEventIds);
+        log.debug("Procesando lote de auditoría de cocinado: {} eventos", events.size());
+
+        Set<Integer> recipeIds = existingIds(events, RecipeCookingAuditEvent::getRecipeId,
+                recipeRepository::findExistingIds);
+        Set<Integer> userIds = existingIds(events, RecipeCookingAuditEvent::getUserId,
+                userRepository::findExistingIds);
+
+        List<RecipeCookingAudit> audits = new ArrayList<>(events.size());
+        Set<Integer> cookedRecipeIds = new LinkedHashSet<>();
+        for (ReceivedEvent<RecipeCookingAuditEvent> received : events) {
+            RecipeCookingAuditEvent event = received.event();
+            if (!recipeIds.contains(event.getRecipeId())) {
+                log.warn("Receta no encontrada, se descarta la auditoría de cocinado: {}", event.getRecipeId());
+                continue;
             }
 
             RecipeCookingAudit audit = new RecipeCookingAudit();
-            audit.setRecipe(recipe);
-            audit.setUser(user);
+            audit.setEventId(received.eventId());
+            audit.setRecipe(recipeRepository.getReferenceById(event.getRecipeId()));
+            if (userIds.contains(event.getUserId())) {
+                audit.setUser(userRepository.getReferenceById(event.getUserId()));
+            }
             audit.setQuantityCooked(event.getQuantityCooked());
             audit.setDetails(event.getDetails());
             audit.setComponentsState(event.getComponentsState());
             audit.setCookingDate(event.getCookingDate());
+            audits.add(audit);
+            cookedRecipeIds.add(event.getRecipeId());
+        }
+
+        recipeCookingAuditRepository.saveAllAndFlush(audits);
+        deduplicator.markProcessed(eventIds(events));
+        recordConsumed(AuditEventProducer.RECIPE_COOKING_AUDIT_TOPIC, events, audits.size());
+
+        log.info("Lote de auditoría de cocinado guardado: {} de {} eventos", audits.size(), records.size());
+
+        // Disparar recálculo asíncrono de predicciones una vez por receta del lote
+        cookedRecipeIds.forEach(stockAlertService::updatePredictionsForRecipe);
+    }
+
+    /**
+     * Extrae los eventos nuevos del lote. Los registros que no se pudieron
+     * deserializar llegan con valor nulo desde el ErrorHandlingDeserializer y se
+     * descartan, igual que los que el deduplicador identifica como repetidos.
+     */
+    private <T> List<ReceivedEvent<T>> newEvents(List<ConsumerRecord<String, T>> records,
+            Function<Collection<String>, List<String>> existingEventIdsFinder) {
+        List<ReceivedEvent<T>> events = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, T> record : records) {
+            if (record.value() == null) {
+                log.warn("Evento de auditoría ilegible descartado: topic={}, offset={}", record.topic(),
+                        record.offset());
+                continue;
+            }
+            events.add(new ReceivedEvent<>(eventId(record), createdAtMillis(record), record.value()));
+        }
+
+        List<String> eventIds = eventIds(events);
+        if (eventIds.isEmpty()) {
+            return events;
+        }
+        Set<String> duplicates = deduplicator.findDuplicates(eventIds, existingEventIdsFinder);
+        if (duplicates.isEmpty()) {
+            return events;
+        }
+
+        // Solo se descartan las repeticiones: la primera aparición de un id que no
+        // está en BD se conserva
+        List<ReceivedEvent<T>> fresh = new ArrayList<>(events.size());
+        Set<String> kept = new HashSet<>();
+        for (ReceivedEvent<T> received : events) {
+            String eventId = received.eventId();
+            if (eventId == null || (!duplicates.contains(eventId) && kept.add(eventId))) {
+                fresh.add(received);
+            }
+        }
+        return fresh;
+    }
+
+    private static String eventId(ConsumerRecord<String, ?> record) {
+        Header header = record.headers().lastHeader(AuditEventProducer.EVENT_ID_HEADER);
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+
+    private static Long createdAtMillis(ConsumerRecord<String, ?> record) {
+        Header header = record.headers().lastHeader(AuditOutboxMetrics.CREATED_AT_HEADER);
+        if (header == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(new String(header.value(), StandardCharsets.UTF_8));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Persiste el lote en una transacción. Si falla, lo reintenta registro a
+     * registro para confirmar los que preceden al erróneo e informar de su
+     * índice al {@code DefaultErrorHandler}.
+     */
+    private <T> void consume(List<ConsumerRecord<String, T>> records, String label,
+            Consumer<List<ConsumerRecord<String, T>>> persister) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> persister.accept(records));
+            return;
+        } catch (RuntimeException e) {
+            if (e instanceof DataIntegrityViolationException) {
+                // Posible duplicado no detectado en memoria (p.ej. tras un reinicio): se verifica en BD al reintentar
+                deduplicator.markSuspect(headerEventIds(records));
+            }
+            if (records.size() == 1) {
+                log.error("Error al procesar auditoría de {}: {}", label, e.getMessage(), e);
+                throw new BatchListenerFailedException("Error procesando auditoría de " + label, e, 0);
+            }
+            log.warn("Lote de auditoría de {} fallido, se reintenta registro a registro: {}", label, e.getMessage());
+        }
 
-            recipeCookingAuditRepository.save(audit);
+        for (int i = 0; i < records.size(); i++) {
+            List<ConsumerRecord<String, T>> single = List.of(records.get(i));
+            try {
+                transactionTemplate.executeWithoutResult(status -> persister.accept(single));
+            } catch (RuntimeException e) {
+                if (e instanceof DataIntegrityViolationException) {
+                    deduplicator.markSuspect(headerEventIds(single));
+                }
+                log.error("Error al procesar auditoría de {}: topic={}, offset={}: {}", label,
+                        records.get(i).topic(), records.get(i).offset(), e.getMessage(), e);
+                throw new BatchListenerFailedException("Error procesando auditoría de " + label, e, i);
+            }
+        }
+    }
 
-            log.info("Auditoría de cocinado guardada: id={}, receta={}, cantidad={}, usuario={}",
-                    audit.getId(), event.getRecipeId(), event.getQuantityCooked(), event.getUserName());
+    /**
+     * Registra la latencia desde la creación en el Outbox y el tamaño del lote
+     * una vez confirmada su transacción.
+     */
+    private <T> void recordConsumed(String topic, List<ReceivedEvent<T>> events, int persisted) {
+        List<Long> createdAt = new ArrayList<>(events.size());
+        for (ReceivedEvent<T> received : events) {
+            if (received.createdAtMillis() != null) {
+                createdAt.add(received.createdAtMillis());
+            }
+        }
+        Runnable record = () -> {
+            outboxMetrics.recordBatch(topic, persisted);
+            createdAt.forEach(millis -> outboxMetrics.recordEndToEnd(topic, millis));
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record.run();
+                }
+            });
+        } else {
+            record.run();
+        }
+    }
 
-            // Disparar recálculo asíncrono de predicciones para los productos de esta
-            // receta
-            stockAlertService.updatePredictionsForRecipe(event.getRecipeId());
+    private static <T> List<String> eventIds(List<ReceivedEvent<T>> events) {
+        List<String> ids = new ArrayList<>(events.size());
+        for (ReceivedEvent<T> received : events) {
+            if (received.eventId() != null) {
+                ids.add(received.eventId());
+            }
+        }
+        return ids;
+    }
 
-        } catch (Exception e) {
-            log.error("Error al procesar evento de auditoría de cocinado: {}", e.getMessage(), e);
+    private static <T> List<String> headerEventIds(List<ConsumerRecord<String, T>> records) {
+        List<String> ids = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, T> record : records) {
+            String eventId = eventId(record);
+            if (eventId != null) {
+                ids.add(eventId);
+            }
+        }
+        return ids;
+    }
 
-            throw new RuntimeException("Error procesando auditoría de cocinado", e);
+    /**
+     * Resuelve con una única consulta IN qué ids referenciados por el lote
+     * existen realmente.
+     */
+    private <T> Set<Integer> existingIds(List<ReceivedEvent<T>> events, Function<T, Integer> idExtractor,
+            Function<Collection<Integer>, List<Integer>> finder) {
+        Set<Integer> ids = new HashSet<>();
+        for (ReceivedEvent<T> received : events) {
+            ids.add(idExtractor.apply(received.event()));
+        }
+        ids.removeIf(Objects::isNull);
+        if (ids.isEmpty()) {
+            return ids;
         }
+        return new HashSet<>(finder.apply(ids));
+    }
+
+    /**
+     * Evento recibido junto a su id y fecha de creación en el Outbox (nulos en
+     * eventos antiguos sin cabeceras).
+     */
+    private record ReceivedEvent<T>(String eventId, Long createdAtMillis, T event) {
     }
 }
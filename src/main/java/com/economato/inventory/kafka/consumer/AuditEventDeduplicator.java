@@ -0,0 +1,216 @@
+package com.economato.inventory.kafka.consumer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Detecta eventos de auditoría ya persistidos sin consultar la base de datos en
+ * el camino habitual.
+ *
+ * Combina dos estructuras en memoria:
+ * - Un filtro de Bloom rotatorio (dos generaciones) que responde "seguro que
+ * no visto" para la gran mayoría de eventos nuevos.
+ * - Una ventana exacta de ids recientes que confirma los duplicados típicos
+ * (reenvíos del Outbox, rebalanceos).
+ *
+ * Solo cuando el filtro da positivo y la ventana exacta no lo confirma (falso
+ * positivo o id ya expirado), o cuando un lote anterior chocó con el índice
+ * único, se verifica contra la base de datos con una única consulta IN. El
+ * índice único sobre {@code event_id} garantiza la corrección en cualquier
+ * caso, por ejemplo tras un reinicio con la memoria vacía.
+ */
+@Slf4j
+@Component
+@Profile({ "!test", "kafka-test" })
+public class AuditEventDeduplicator {
+
+    private static final int HASH_FUNCTIONS = 7;
+    private static final int BITS_PER_ENTRY = 10; // ~1% de falsos positivos con 7 funciones
+
+    private final int generationCapacity;
+    private final Cache<String, Boolean> recentIds;
+    private final Set<String> suspectIds = ConcurrentHashMap.newKeySet();
+    private final Counter duplicatesCounter;
+    private final Counter verificationsCounter;
+
+    private BloomFilter currentGeneration;
+    private BloomFilter previousGeneration;
+
+    public AuditEventDeduplicator(
+            @Value("${audit.dedupe.window-size:100000}") int windowSize,
+            @Value("${audit.dedupe.window-ttl:PT6H}") Duration windowTtl,
+            MeterRegistry meterRegistry) {
+        this.generationCapacity = windowSize;
+        this.recentIds = Caffeine.newBuilder()
+                .maximumSize(windowSize)
+                .expireAfterWrite(windowTtl)
+                .build();
+        this.currentGeneration = new BloomFilter(windowSize);
+        this.previousGeneration = new BloomFilter(windowSize);
+
+        this.duplicatesCounter = Counter.builder("kafka.audit.duplicates.skipped")
+                .description("Eventos de auditoría duplicados descartados por el consumidor")
+                .register(meterRegistry);
+        this.verificationsCounter = Counter.builder("kafka.audit.duplicates.db.checks")
+                .description("Verificaciones de duplicados que necesitaron consultar la base de datos")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Devuelve los ids del lote que ya fueron persistidos, incluidos los que se
+     * repiten dentro del propio lote.
+     *
+     * @param eventIds ids del lote en orden de llegada (sin nulos)
+     * @param existingFinder consulta IN que devuelve los ids ya presentes en BD
+     */
+    public Set<String> findDuplicates(List<String> eventIds,
+            Function<Collection<String>, List<String>> existingFinder) {
+        Set<String> duplicates = new HashSet<>();
+        Set<String> seenInBatch = new HashSet<>();
+        List<String> uncertain = new ArrayList<>();
+
+        for (String eventId : eventIds) {
+            if (!seenInBatch.add(eventId) || recentIds.getIfPresent(eventId) != null) {
+                duplicates.add(eventId);
+            } else if (suspectIds.contains(eventId) || mightContain(eventId)) {
+                uncertain.add(eventId);
+            }
+        }
+
+        if (!uncertain.isEmpty()) {
+            verificationsCounter.increment();
+            duplicates.addAll(existingFinder.apply(uncertain));
+            uncertain.forEach(suspectIds::remove);
+        }
+
+        if (!duplicates.isEmpty()) {
+            duplicatesCounter.increment(duplicates.size());
+            log.info("Descartados {} eventos de auditoría duplicados", duplicates.size());
+        }
+        return duplicates;
+    }
+
+    /**
+     * Registra los ids como procesados. Si hay una transacción activa se hace
+     * tras el commit, para no marcar como vistos eventos que se revierten.
+     */
+    public void markProcessed(Collection<String> eventIds) {
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        List<String> ids = List.copyOf(eventIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remember(ids);
+                }
+            });
+        } else {
+            remember(ids);
+        }
+    }
+
+    /**
+     * Marca los ids de un lote que chocó con el índice único para que en la
+     * reentrega se verifiquen contra la base de datos.
+     */
+    public void markSuspect(Collection<String> eventIds) {
+        suspectIds.addAll(eventIds);
+    }
+
+    private synchronized boolean mightContain(String eventId) {
+        long hash = hash64(eventId);
+        return currentGeneration.mightContain(hash) || previousGeneration.mightContain(hash);
+    }
+
+    private synchronized void remember(List<String> eventIds) {
+        for (String eventId : eventIds) {
+            recentIds.put(eventId, Boolean.TRUE);
+            if (currentGeneration.size() >= generationCapacity) {
+                // Rotación: la generación anterior se descarta para mantener acotada
+                // la tasa de falsos positivos
+                previousGeneration = currentGeneration;
+                currentGeneration = new BloomFilter(generationCapacity);
+            }
+            currentGeneration.put(hash64(eventId));
+        }
+    }
+
+    /** FNV-1a de 64 bits seguido de un mezclado final (fmix64 de MurmurHash3). */
+    private static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Filtro de Bloom de tamaño fijo con doble hashing (Kirsch-Mitzenmacher).
+     */
+    private static final class BloomFilter {
+
+        private final long[] bits;
+        private final int bitCount;
+        private int size;
+
+        BloomFilter(int expectedEntries) {
+            long requested = Math.max(64L, (long) expectedEntries * BITS_PER_ENTRY);
+            this.bitCount = (int) Math.min(requested, Integer.MAX_VALUE - 63);
+            this.bits = new long[(bitCount + 63) / 64];
+        }
+
+        void put(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= HASH_FUNCTIONS; i++) {
+                int index = Math.floorMod(h1 + i * h2, bitCount);
+                bits[index >>> 6] |= 1L << index;
+            }
+            size++;
+        }
+
+        boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= HASH_FUNCTIONS; i++) {
+                int index = Math.floorMod(h1 + i * h2, bitCount);
+                if ((bits[index >>> 6] & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.economato.inventory.kafka.consumer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.economato.inventory.dto.event.InventoryAuditEvent;
+import com.economato.inventory.dto.event.RecipeAuditEvent;
+import com.economato.inventory.service.ReadModelService;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Mantiene los modelos de lectura de productos y recetas.
+ *
+ * Lee los mismos topics de auditoría que {@link AuditEventConsumer} con su
+ * propio grupo: cada lote vuelve a proyectar los productos o recetas que
+ * aparecen en él. Un fallo no se reintenta desde Kafka; la fila sigue marcada
+ * stale por los disparadores de db/migration/006 y la recoge el barrido
+ * periódico, que también cubre los cambios que no publican eventos.
+ *
+ * Los listeners solo arrancan con {@code read-model.enabled=true}.
+ */
+@Slf4j
+@Service
+@Profile("!test & !resilience-test")
+public class ReadModelProjector {
+
+    static final String GROUP_ID = "read-model-projector-group";
+
+    private final ReadModelService readModelService;
+    private final int batchSize;
+
+    public ReadModelProjector(ReadModelService readModelService,
+            @Value("${read-model.batch-size:200}") int batchSize) {
+        this.readModelService = readModelService;
+        this.batchSize = batchSize;
+    }
+
+    @KafkaListener(topics = "inventory-audit-events", groupId = GROUP_ID, containerFactory = "inventoryAuditKafkaListenerContainerFactory", autoStartup = "${read-model.enabled:false}")
+    public void onProductEvents(List<ConsumerRecord<String, InventoryAuditEvent>> records) {
+        Set<Integer> productIds = ids(records, InventoryAuditEvent::getProductId);
+        try {
+            int projected = readModelService.projectProducts(productIds);
+            log.debug("Modelo de lectura de productos actualizado: {} productos de {} eventos", projected,
+                    records.size());
+        } catch (Exception e) {
+            log.warn("No se pudo proyectar el lote de productos {}, queda para el barrido: {}", productIds,
+                    e.getMessage());
+        }
+    }
+
+    @KafkaListener(topics = "recipe-audit-events", groupId = GROUP_ID, containerFactory = "recipeAuditKafkaListenerContainerFactory", autoStartup = "${read-model.enabled:false}")
+    public void onRecipeEvents(List<ConsumerRecord<String, RecipeAuditEvent>> records) {
+        Set<Integer> recipeIds = ids(records, RecipeAuditEvent::getRecipeId);
+        try {
+            int projected = readModelService.projectRecipes(recipeIds);
+            log.debug("Modelo de lectura de recetas actualizado: {} recetas de {} eventos", projected,
+                    records.size());
+        } catch (Exception e) {
+            log.warn("No se pudo proyectar el lote de recetas {}, queda para el barrido: {}", recipeIds,
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Proyecta las filas marcadas stale en lotes de {@code batch-size}, cada
+     * uno en su transacción, hasta vaciarlas. Tras la migración rellena todas
+     * las filas existentes.
+     */
+    @Scheduled(fixedDelayString = "${read-model.sweep-interval:PT5S}")
+    public void sweepStale() {
+        if (!readModelService.isEnabled()) {
+            return;
+        }
+        int products = 0;
+        int batch;
+        do {
+            batch = readModelService.projectStaleProducts(batchSize);
+            products += batch;
+        } while (batch == batchSize);
+
+        int recipes = 0;
+        do {
+            batch = readModelService.projectStaleRecipes(batchSize);
+            recipes += batch;
+        } while (batch == batchSize);
+
+        if (products > 0 || recipes > 0) {
+            log.debug("Barrido de modelos de lectura: {} productos y {} recetas proyectados", products, recipes);
+        }
+    }
+
+    /** Ids del lote; los registros ilegibles llegan con valor nulo y se ignoran. */
+    private static <T> Set<Integer> ids(List<ConsumerRecord<String, T>> records, Function<T, Integer> idExtractor) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (ConsumerRecord<String, T> record : records) {
+            Integer id = record.value() != null ? idExtractor.apply(record.value()) : null;
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+}
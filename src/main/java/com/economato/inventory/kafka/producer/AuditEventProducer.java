@@ -4,13 +4,15 @@ import com.economato.inventory.dto.event.InventoryAuditEvent;
 import com.economato.inventory.dto.event.OrderAuditEvent;
 import com.economato.inventory.dto.event.RecipeAuditEvent;
 import com.economato.inventory.dto.event.RecipeCookingAuditEvent;
+import com.economato.inventory.kafka.codec.AuditEventCodec;
 import com.economato.inventory.model.AuditOutbox;
 import com.economato.inventory.repository.AuditOutboxRepository;
-import tools.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
+import java.util.Map;
+
 @Slf4j
 @Service
 @Profile({ "!test", "kafka-test" })
@@ -21,12 +23,24 @@ public class AuditEventProducer {
     public static final String ORDER_AUDIT_TOPIC = "order-audit-events";
     public static final String RECIPE_COOKING_AUDIT_TOPIC = "recipe-cooking-audit-events";
 
+    /** Cabecera Kafka con el id estable del evento de Outbox. */
+    public static final String EVENT_ID_HEADER = "audit-event-id";
+
+    /**
+     * Tipo de evento publicado en cada topic.
+     */
+    public static final Map<String, Class<?>> EVENT_TYPES = Map.of(
+            INVENTORY_AUDIT_TOPIC, InventoryAuditEvent.class,
+            RECIPE_AUDIT_TOPIC, RecipeAuditEvent.class,
+            ORDER_AUDIT_TOPIC, OrderAuditEvent.class,
+            RECIPE_COOKING_AUDIT_TOPIC, RecipeCookingAuditEvent.class);
+
     private final AuditOutboxRepository outboxRepository;
-    private final ObjectMapper objectMapper;
+    private final AuditOutboxMetrics outboxMetrics;
 
-    public AuditEventProducer(AuditOutboxRepository outboxRepository, ObjectMapper objectMapper) {
+    public AuditEventProducer(AuditOutboxRepository outboxRepository, AuditOutboxMetrics outboxMetrics) {
         this.outboxRepository = outboxRepository;
-        this.objectMapper = objectMapper;
+        this.outboxMetrics = outboxMetrics;
     }
 
     public void publishInventoryAudit(InventoryAuditEvent event) {
@@ -47,13 +61,14 @@ public class AuditEventProducer {
 
     private void saveToOutbox(String topic, String key, Object event) {
         try {
-            String payload = objectMapper.writeValueAsString(event);
+            byte[] payload = AuditEventCodec.encode(event);
             AuditOutbox outbox = AuditOutbox.builder()
                     .topic(topic)
                     .eventKey(key)
                     .payload(payload)
                     .build();
             outboxRepository.save(outbox);
+            outboxMetrics.onEnqueued();
             log.debug("Evento de auditoría guardado en Outbox: topic={}, key={}", topic, key);
         } catch (Exception e) {
             log.error("Excepción al guardar evento en Outbox: {}", e.getMessage(), e);
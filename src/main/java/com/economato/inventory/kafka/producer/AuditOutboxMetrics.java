@@ -0,0 +1,190 @@
+package com.economato.inventory.kafka.producer;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.economato.inventory.model.AuditOutbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Métricas del Outbox de auditoría mantenidas de forma incremental por el
+ * despachador, sin consultas a la base de datos en cada scrape.
+ *
+ * El backlog lo fija periódicamente el despachador con una medida barata de
+ * la tabla ({@link #onMeasured(long)}); entre medidas se suman los encolados
+ * por esta instancia y se restan los enviados. Cada ciclo también lo corrige:
+ * si la lectura devuelve menos filas que el tamaño de lote, el Outbox cabía
+ * entero y el valor leído es exacto.
+ */
+@Component
+@Profile({ "!test", "kafka-test" })
+public class AuditOutboxMetrics {
+
+    /** Cabecera Kafka con el instante de creación del evento en el Outbox (epoch millis). */
+    public static final String CREATED_AT_HEADER = "audit-event-created-at";
+
+    private static final long NO_PENDING = -1L;
+
+    private final AtomicLong backlogEstimate = new AtomicLong();
+    private final AtomicLong oldestPendingMillis = new AtomicLong(NO_PENDING);
+    private final AtomicLong lastCycleSent = new AtomicLong();
+    private final AtomicLong lastCycleStartNanos = new AtomicLong(System.nanoTime());
+    private volatile double eventsPerSecond;
+
+    private final Map<String, Timer> sendLatencyTimers = new HashMap<>();
+    private final Map<String, Timer> endToEndTimers = new HashMap<>();
+    private final Map<String, Counter> sentCounters = new HashMap<>();
+    private final Map<String, DistributionSummary> batchSizes = new HashMap<>();
+
+    public AuditOutboxMetrics(MeterRegistry meterRegistry) {
+        Gauge.builder("kafka.audit.outbox.backlog", backlogEstimate, AtomicLong::get)
+                .description("Estimación de eventos pendientes en Outbox (Lag de Integración)")
+                .register(meterRegistry);
+        Gauge.builder("kafka.audit.outbox.oldest.age", this, AuditOutboxMetrics::oldestPendingAgeSeconds)
+                .description("Antigüedad del evento pendiente más antiguo del Outbox")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("kafka.audit.outbox.throughput", this, metrics -> metrics.eventsPerSecond)
+                .description("Eventos enviados a Kafka por segundo en el último ciclo del Outbox")
+                .baseUnit("events/s")
+                .register(meterRegistry);
+
+        for (String topic : AuditEventProducer.EVENT_TYPES.keySet()) {
+            sentCounters.put(topic, Counter.builder("kafka.audit.outbox.sent")
+                    .description("Eventos del Outbox confirmados por Kafka")
+                    .tag("topic", topic)
+                    .register(meterRegistry));
+            sendLatencyTimers.put(topic, Timer.builder("kafka.audit.outbox.send.latency")
+                    .description("Tiempo desde el envío hasta la confirmación de Kafka")
+                    .tag("topic", topic)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            endToEndTimers.put(topic, Timer.builder("kafka.audit.end_to_end.latency")
+                    .description("Tiempo desde la creación en el Outbox hasta la persistencia en el consumidor")
+                    .tag("topic", topic)
+                    .publishPercentileHistogram()
+                    .maximumExpectedValue(Duration.ofHours(1))
+                    .register(meterRegistry));
+            batchSizes.put(topic, DistributionSummary.builder("kafka.audit.consumer.batch.size")
+                    .description("Auditorías persistidas por cada transacción del consumidor")
+                    .tag("topic", topic)
+                    .baseUnit("events")
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Registra un evento encolado en el Outbox. Si hay transacción activa se
+     * cuenta tras el commit.
+     */
+    public void onEnqueued() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    backlogEstimate.incrementAndGet();
+                }
+            });
+        } else {
+            backlogEstimate.incrementAndGet();
+        }
+    }
+
+    /**
+     * Ajusta backlog y antigüedad con la lectura de un ciclo del despachador.
+     *
+     * @param batch eventos leídos, ordenados por fecha de creación
+     * @param batchLimit tamaño máximo de la lectura
+     */
+    public void onPolled(List<AuditOutbox> batch, int batchLimit) {
+        long now = System.nanoTime();
+        long elapsedNanos = now - lastCycleStartNanos.getAndSet(now);
+        long sent = lastCycleSent.getAndSet(0);
+        eventsPerSecond = elapsedNanos > 0 ? sent * 1e9 / elapsedNanos : 0.0;
+
+        if (batch.size() < batchLimit) {
+            backlogEstimate.set(batch.size());
+        } else {
+            backlogEstimate.accumulateAndGet(batch.size(), Math::max);
+        }
+        oldestPendingMillis.set(batch.isEmpty() ? NO_PENDING : toEpochMillis(batch.get(0).getCreatedAt()));
+    }
+
+    /** Fija el backlog con una medida de la tabla del Outbox. */
+    public void onMeasured(long pending) {
+        backlogEstimate.set(Math.max(0, pending));
+    }
+
+    /**
+     * Registra un envío confirmado.
+     *
+     * @param next siguiente evento pendiente del lote, o nulo si era el último
+     */
+    public void onSent(AuditOutbox event, long sendNanos, AuditOutbox next) {
+        lastCycleSent.incrementAndGet();
+        long remaining = backlogEstimate.updateAndGet(value -> Math.max(0, value - 1));
+        Timer timer = sendLatencyTimers.get(event.getTopic());
+        if (timer != null) {
+            timer.record(sendNanos, TimeUnit.NANOSECONDS);
+            sentCounters.get(event.getTopic()).increment();
+        }
+        if (next != null) {
+            oldestPendingMillis.set(toEpochMillis(next.getCreatedAt()));
+        } else if (remaining == 0) {
+            oldestPendingMillis.set(NO_PENDING);
+        }
+    }
+
+    /** Descuenta del backlog un evento descartado sin enviar. */
+    public void onDiscarded() {
+        backlogEstimate.updateAndGet(value -> Math.max(0, value - 1));
+    }
+
+    /**
+     * Registra la latencia extremo a extremo de un evento persistido por el
+     * consumidor.
+     */
+    public void recordEndToEnd(String topic, long createdAtMillis) {
+        Timer timer = endToEndTimers.get(topic);
+        if (timer != null) {
+            timer.record(Math.max(0, System.currentTimeMillis() - createdAtMillis), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Registra una transacción confirmada del consumidor y las auditorías que persistió. */
+    public void recordBatch(String topic, int persisted) {
+        DistributionSummary summary = batchSizes.get(topic);
+        if (summary != null) {
+            summary.record(persisted);
+        }
+    }
+
+    /**
+     * {@code created_at} se guarda en UTC (ver {@link AuditOutbox}): la
+     * conversión no depende de la zona por defecto de cada nodo.
+     */
+    public static long toEpochMillis(LocalDateTime createdAt) {
+        return createdAt.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private double oldestPendingAgeSeconds() {
+        long oldest = oldestPendingMillis.get();
+        return oldest == NO_PENDING ? 0.0 : Math.max(0, System.currentTimeMillis() - oldest) / 1000.0;
+    }
+}
@@ -1,30 +1,25 @@
 package com.economato.inventory.kafka.producer;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.context.annotation.Profile;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import com.economato.inventory.dto.event.InventoryAuditEvent;
-import com.economato.inventory.dto.event.OrderAuditEvent;
-import com.economato.inventory.dto.event.RecipeAuditEvent;
-import com.economato.inventory.dto.event.RecipeCookingAuditEvent;
 import com.economato.inventory.model.AuditOutbox;
 import com.economato.inventory.repository.AuditOutboxRepository;
 
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
-import io.micrometer.core.instrument.Gauge;
-import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
-import tools.jackson.databind.ObjectMapper;
 
 @Slf4j
 @Service
@@ -32,36 +27,25 @@ import tools.jackson.databind.ObjectMapper;
 public class AuditOutboxProcessor {
 
     private final AuditOutboxRepository outboxRepository;
-    private final ObjectMapper objectMapper;
-    private final KafkaTemplate<String, InventoryAuditEvent> inventoryKafkaTemplate;
-    private final KafkaTemplate<String, RecipeAuditEvent> recipeKafkaTemplate;
-    private final KafkaTemplate<String, OrderAuditEvent> orderKafkaTemplate;
-    private final KafkaTemplate<String, RecipeCookingAuditEvent> recipeCookingKafkaTemplate;
+    private final KafkaTemplate<String, byte[]> auditKafkaTemplate;
     private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final AuditOutboxMetrics outboxMetrics;
+
+    /** Tamaño de lote de {@code findTop50ByOrderByCreatedAtAsc}. */
+    private static final int BATCH_SIZE = 50;
+
+    /** Por debajo de este rango de ids el COUNT exacto sigue siendo barato. */
+    private static final long EXACT_BACKLOG_LIMIT = 10_000;
 
     public AuditOutboxProcessor(
             AuditOutboxRepository outboxRepository,
-            ObjectMapper objectMapper,
-            KafkaTemplate<String, InventoryAuditEvent> inventoryKafkaTemplate,
-            KafkaTemplate<String, RecipeAuditEvent> recipeKafkaTemplate,
-            KafkaTemplate<String, OrderAuditEvent> orderKafkaTemplate,
-            KafkaTemplate<String, RecipeCookingAuditEvent> recipeCookingKafkaTemplate,
-            MeterRegistry meterRegistry,
-            CircuitBreakerRegistry circuitBreakerRegistry) {
+            KafkaTemplate<String, byte[]> auditKafkaTemplate,
+            CircuitBreakerRegistry circuitBreakerRegistry,
+            AuditOutboxMetrics outboxMetrics) {
         this.outboxRepository = outboxRepository;
-        this.objectMapper = objectMapper;
-        this.inventoryKafkaTemplate = inventoryKafkaTemplate;
-        this.recipeKafkaTemplate = recipeKafkaTemplate;
-        this.orderKafkaTemplate = orderKafkaTemplate;
-        this.recipeCookingKafkaTemplate = recipeCookingKafkaTemplate;
+        this.auditKafkaTemplate = auditKafkaTemplate;
         this.circuitBreakerRegistry = circuitBreakerRegistry;
-
-        // Registrar Gauge para eventos pendientes en Outbox
-        Gauge.builder("kafka.audit.outbox.pending",
-                outboxRepository,
-                AuditOutboxRepository::count)
-                .description("Eventos pendientes en Outbox (Lag de Integración)")
-                .register(meterRegistry);
+        this.outboxMetrics = outboxMetrics;
     }
 
     @Scheduled(fixedDelay = 5000)
@@ -79,86 +63,47 @@ public class AuditOutboxProcessor {
             log.warn("DB circuit breaker OPEN, cannot read outbox: {}", e.getMessage());
             return;
         }
+        outboxMetrics.onPolled(outboxEvents, BATCH_SIZE);
 
         int consecutiveKafkaFailures = 0;
         final int MAX_CONSECUTIVE_FAILURES = 3; // Fail fast after 3 consecutive Kafka failures
 
-        for (AuditOutbox event : outboxEvents) {
+        for (int i = 0; i < outboxEvents.size(); i++) {
+            AuditOutbox event = outboxEvents.get(i);
             try {
-                Object auditEvent = null;
-                try {
-                    switch (event.getTopic()) {
-                        case AuditEventProducer.INVENTORY_AUDIT_TOPIC:
-                            auditEvent = objectMapper.readValue(event.getPayload(), InventoryAuditEvent.class);
-                            break;
-                        case AuditEventProducer.RECIPE_AUDIT_TOPIC:
-                            auditEvent = objectMapper.readValue(event.getPayload(), RecipeAuditEvent.class);
-                            break;
-                        case AuditEventProducer.ORDER_AUDIT_TOPIC:
-                            auditEvent = objectMapper.readValue(event.getPayload(), OrderAuditEvent.class);
-                            break;
-                        case AuditEventProducer.RECIPE_COOKING_AUDIT_TOPIC:
-                            auditEvent = objectMapper.readValue(event.getPayload(), RecipeCookingAuditEvent.class);
-                            break;
-                        default:
-                            log.warn("Topic no reconocido en Outbox: {}", event.getTopic());
-                            outboxRepository.delete(event);
-                            continue;
-                    }
-                } catch (CallNotPermittedException e) {
-                    throw e; // Propagate to outer catch to log DB problem correctly
-                } catch (Exception e) {
-                    log.error("Corrupted event payload in Outbox: id={}, topic={}, error={}",
-                            event.getId(), event.getTopic(), e.getMessage());
-                    try {
-                        outboxRepository.delete(event);
-                    } catch (CallNotPermittedException dbEx) {
-                        throw dbEx;
-                    } catch (Exception deleteEx) {
-                        log.warn("Failed to delete corrupted event: {}", deleteEx.getMessage());
-                    }
+                if (!AuditEventProducer.EVENT_TYPES.containsKey(event.getTopic())) {
+                    log.warn("Topic no reconocido en Outbox: {}", event.getTopic());
+                    outboxRepository.delete(event);
+                    outboxMetrics.onDiscarded();
                     continue;
                 }
 
-                CompletableFuture<?> future = null;
-                if (auditEvent != null) {
-                    switch (event.getTopic()) {
-                        case AuditEventProducer.INVENTORY_AUDIT_TOPIC:
-                            future = inventoryKafkaTemplate.send(event.getTopic(), event.getEventKey(),
-                                    (InventoryAuditEvent) auditEvent);
-                            break;
-                        case AuditEventProducer.RECIPE_AUDIT_TOPIC:
-                            future = recipeKafkaTemplate.send(event.getTopic(), event.getEventKey(),
-                                    (RecipeAuditEvent) auditEvent);
-                            break;
-                        case AuditEventProducer.ORDER_AUDIT_TOPIC:
-                            future = orderKafkaTemplate.send(event.getTopic(), event.getEventKey(),
-                                    (OrderAuditEvent) auditEvent);
-                            break;
-                        case AuditEventProducer.RECIPE_COOKING_AUDIT_TOPIC:
-                            future = recipeCookingKafkaTemplate.send(event.getTopic(), event.getEventKey(),
-                                    (RecipeCookingAuditEvent) auditEvent);
-                            break;
-                    }
+                // El payload ya es el sobre binario del evento: se envía tal cual
+                ProducerRecord<String, byte[]> record = new ProducerRecord<>(event.getTopic(), event.getEventKey(),
+                        event.getPayload());
+                record.headers().add(AuditEventProducer.EVENT_ID_HEADER,
+                        event.getEventId().getBytes(StandardCharsets.UTF_8));
+                record.headers().add(AuditOutboxMetrics.CREATED_AT_HEADER,
+                        Long.toString(AuditOutboxMetrics.toEpochMillis(event.getCreatedAt()))
+                                .getBytes(StandardCharsets.UTF_8));
+
+                long sendStart = System.nanoTime();
+                CompletableFuture<?> future = auditKafkaTemplate.send(record);
+                try {
+                    future.get(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Kafka send interrupted", e);
                 }
+                long sendNanos = System.nanoTime() - sendStart;
 
-                if (future != null) {
-                    try {
-                        future.get(5, TimeUnit.SECONDS);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        throw new RuntimeException("Kafka send interrupted", e);
-                    } catch (ExecutionException | TimeoutException e) {
-                        throw e;
-                    }
-
-                    outboxRepository.delete(event);
-                    log.debug("Evento de Outbox enviado a Kafka con éxito: topic={}, key={}", event.getTopic(),
-                            event.getEventKey());
+                outboxRepository.delete(event);
+                outboxMetrics.onSent(event, sendNanos, i + 1 < outboxEvents.size() ? outboxEvents.get(i + 1) : null);
+                log.debug("Evento de Outbox enviado a Kafka con éxito: topic={}, key={}", event.getTopic(),
+                        event.getEventKey());
 
-                    // Reset consecutive failure counter on success
-                    consecutiveKafkaFailures = 0;
-                }
+                // Reset consecutive failure counter on success
+                consecutiveKafkaFailures = 0;
             } catch (ExecutionException | TimeoutException e) {
                 log.error("Error procesando evento Outbox (Kafka): id={}, error={}", event.getId(), e.getMessage());
                 recordKafkaFailure(e);
@@ -182,6 +127,21 @@ public class AuditOutboxProcessor {
         }
     }
 
+    /**
+     * Mide el backlog real del Outbox: la lectura de cada ciclo no ve más allá
+     * del tamaño de lote. Con pocos pendientes se cuentan; con muchos basta el
+     * rango de ids.
+     */
+    @Scheduled(fixedDelayString = "${audit.outbox.backlog-refresh-interval:PT30S}")
+    public void refreshBacklog() {
+        try {
+            long range = outboxRepository.pendingIdRange();
+            outboxMetrics.onMeasured(range <= EXACT_BACKLOG_LIMIT ? outboxRepository.count() : range);
+        } catch (CallNotPermittedException e) {
+            log.debug("DB circuit breaker OPEN, cannot measure outbox backlog: {}", e.getMessage());
+        }
+    }
+
     private void recordKafkaFailure(Exception e) {
         try {
             var circuitBreaker = circuitBreakerRegistry.circuitBreaker("kafka");
@@ -1,6 +1,10 @@
 package com.economato.inventory.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import jakarta.validation.constraints.*;
 import java.util.List;
 
@@ -23,6 +27,8 @@ import lombok.*;
         @UniqueConstraint(name = "uk_allergen_name", columnNames = "name")
     }
 )
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "l2.allergen")
+@NaturalIdCache(region = "l2.allergen.natural-id")
 public class Allergen {
 
     @Id
@@ -32,6 +38,7 @@ public class Allergen {
 
     @NotBlank(message = "{validation.allergen.name.notBlank}")
     @Size(min = 2, max = 50, message = "{validation.allergen.name.size}")
+    @NaturalId(mutable = true)
     @Column(name = "name", nullable = false, unique = true, length = 50)
     private String name;
 
@@ -7,6 +7,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
 
 @Entity
 @Table(name = "audit_outbox")
@@ -17,25 +19,38 @@ import java.time.LocalDateTime;
 public class AuditOutbox {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "audit_outbox_seq")
+    @SequenceGenerator(name = "audit_outbox_seq", sequenceName = "audit_outbox_seq", allocationSize = 50)
     private Long id;
 
+    /**
+     * Identificador estable del evento. Se mantiene en todos los reenvíos para
+     * que el consumidor pueda descartar duplicados.
+     */
+    @Column(name = "event_id", nullable = false, updatable = false, unique = true, length = 36)
+    private String eventId;
+
     @Column(nullable = false)
     private String topic;
 
     @Column(name = "event_key", nullable = false)
     private String eventKey;
 
-    @Column(nullable = false, columnDefinition = "TEXT")
-    private String payload;
+    /** Evento codificado con {@code AuditEventCodec}. */
+    @Column(nullable = false, columnDefinition = "BYTEA")
+    private byte[] payload;
 
+    /** En UTC, para que la latencia medida no dependa de la zona de cada nodo. */
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
     @PrePersist
     public void prePersist() {
+        if (eventId == null) {
+            eventId = UUID.randomUUID().toString();
+        }
         if (createdAt == null) {
-            createdAt = LocalDateTime.now();
+            createdAt = LocalDateTime.now(ZoneOffset.UTC);
         }
     }
 }
@@ -19,16 +19,21 @@ import java.time.LocalDateTime;
         @Index(name = "idx_inventory_audit_product", columnList = "product_id"),
         @Index(name = "idx_inventory_audit_user", columnList = "user_id"),
         @Index(name = "idx_inventory_audit_date", columnList = "movement_date"),
-        @Index(name = "idx_inventory_audit_type", columnList = "movement_type")
+        @Index(name = "idx_inventory_audit_type", columnList = "movement_type"),
+        @Index(name = "uk_inventory_audit_event_id", columnList = "event_id", unique = true)
 })
 @EntityListeners(AuditingEntityListener.class)
 public class InventoryAudit {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_audit_seq")
+    @SequenceGenerator(name = "inventory_audit_seq", sequenceName = "inventory_audit_seq", allocationSize = 50)
     @Column(name = "audit_id")
     private Integer id;
 
+    @Column(name = "event_id", length = 36, updatable = false)
+    private String eventId;
+
     @NotNull(message = "{validation.inventoryAudit.product.notNull}")
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "product_id", nullable = false, foreignKey = @ForeignKey(name = "fk_inventory_audit_product"))
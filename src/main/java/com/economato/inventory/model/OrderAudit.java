@@ -18,16 +18,21 @@ import java.time.LocalDateTime;
         @Index(name = "idx_order_audit_order", columnList = "order_id"),
         @Index(name = "idx_order_audit_user", columnList = "user_id"),
         @Index(name = "idx_order_audit_date", columnList = "audit_date"),
-        @Index(name = "idx_order_audit_action", columnList = "action")
+        @Index(name = "idx_order_audit_action", columnList = "action"),
+        @Index(name = "uk_order_audit_event_id", columnList = "event_id", unique = true)
 })
 @EntityListeners(AuditingEntityListener.class)
 public class OrderAudit {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_audit_seq")
+    @SequenceGenerator(name = "order_audit_seq", sequenceName = "order_audit_seq", allocationSize = 50)
     @Column(name = "audit_id")
     private Integer id;
 
+    @Column(name = "event_id", length = 36, updatable = false)
+    private String eventId;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "order_id", foreignKey = @ForeignKey(name = "fk_order_audit_order", foreignKeyDefinition = "FOREIGN KEY (order_id) REFERENCES order_header(order_id) ON DELETE SET NULL"))
     private Order order;
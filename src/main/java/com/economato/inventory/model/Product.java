@@ -2,6 +2,12 @@ package com.economato.inventory.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import org.hibernate.annotations.OptimisticLock;
+import org.hibernate.annotations.SecondaryRow;
 import jakarta.validation.constraints.*;
 import java.math.BigDecimal;
 import java.util.List;
@@ -19,6 +25,11 @@ import lombok.*;
 }, uniqueConstraints = {
                 @UniqueConstraint(name = "uk_product_code", columnNames = "product_code")
 })
+@SecondaryTable(name = "product_stock", pkJoinColumns = @PrimaryKeyJoinColumn(name = "product_id"),
+                foreignKey = @ForeignKey(name = "fk_product_stock_product"))
+@SecondaryRow(table = "product_stock", optional = false)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "l2.product")
+@NaturalIdCache(region = "l2.product.natural-id")
 public class Product {
 
         @Id
@@ -48,13 +59,17 @@ public class Product {
 
         @NotBlank(message = "{validation.product.productCode.notBlank}")
         @Size(max = 50)
+        @NaturalId(mutable = true)
         @Column(name = "product_code", nullable = false, unique = true, length = 50)
         private String productCode;
 
         @NotNull(message = "{validation.product.currentStock.notNull}")
         @DecimalMin(value = "0.0", inclusive = true, message = "{validation.product.currentStock.decimalMin}")
         @Digits(integer = 10, fraction = 3, message = "{validation.product.currentStock.digits}")
-        @Column(name = "current_stock", nullable = false, precision = 10, scale = 3)
+        // Vive en product_stock (ver db/migration/005): los movimientos de stock
+        // actualizan solo esa fila y no incrementan la versión del catálogo
+        @OptimisticLock(excluded = true)
+        @Column(name = "current_stock", table = "product_stock", nullable = false, precision = 10, scale = 3)
         private BigDecimal currentStock;
 
         @DecimalMin(value = "0.00", message = "{validation.product.availabilityPercentage.decimalMin}")
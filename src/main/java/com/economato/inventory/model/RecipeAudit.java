@@ -18,16 +18,21 @@ import java.time.LocalDateTime;
         @Index(name = "idx_recipe_audit_recipe", columnList = "recipe_id"),
         @Index(name = "idx_recipe_audit_user", columnList = "user_id"),
         @Index(name = "idx_recipe_audit_date", columnList = "audit_date"),
-        @Index(name = "idx_recipe_audit_action", columnList = "action")
+        @Index(name = "idx_recipe_audit_action", columnList = "action"),
+        @Index(name = "uk_recipe_audit_event_id", columnList = "event_id", unique = true)
 })
 @EntityListeners(AuditingEntityListener.class)
 public class RecipeAudit {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recipe_audit_seq")
+    @SequenceGenerator(name = "recipe_audit_seq", sequenceName = "recipe_audit_seq", allocationSize = 50)
     @Column(name = "audit_id")
     private Integer id;
 
+    @Column(name = "event_id", length = 36, updatable = false)
+    private String eventId;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "recipe_id", foreignKey = @ForeignKey(name = "fk_recipe_audit_recipe", foreignKeyDefinition = "FOREIGN KEY (recipe_id) REFERENCES recipe(recipe_id) ON DELETE SET NULL"))
     private Recipe recipe;
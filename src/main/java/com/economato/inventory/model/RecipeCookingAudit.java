@@ -13,6 +13,10 @@ import java.time.LocalDateTime;
 /**
  * Auditoría específica para el cocinado de recetas.
  * Registra quién cocina qué receta y en qué cantidad.
+ *
+ * En PostgreSQL la tabla está particionada por mes sobre cooking_date (ver
+ * db/migration/004): las claves únicas incluyen cooking_date y las consultas
+ * que filtran por fecha solo leen los meses afectados.
  */
 @Getter
 @Setter
@@ -22,16 +26,21 @@ import java.time.LocalDateTime;
 @Table(name = "recipe_cooking_audit", indexes = {
         @Index(name = "idx_cooking_audit_recipe", columnList = "recipe_id"),
         @Index(name = "idx_cooking_audit_user", columnList = "user_id"),
-        @Index(name = "idx_cooking_audit_date", columnList = "cooking_date")
+        @Index(name = "idx_cooking_audit_date", columnList = "cooking_date"),
+        @Index(name = "uk_cooking_audit_event_id", columnList = "event_id, cooking_date", unique = true)
 })
 @EntityListeners(AuditingEntityListener.class)
 public class RecipeCookingAudit {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recipe_cooking_audit_seq")
+    @SequenceGenerator(name = "recipe_cooking_audit_seq", sequenceName = "recipe_cooking_audit_seq", allocationSize = 50)
     @Column(name = "cooking_audit_id")
     private Long id;
 
+    @Column(name = "event_id", length = 36, updatable = false)
+    private String eventId;
+
     @NotNull(message = "{validation.recipeCookingAudit.recipe.notNull}")
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "recipe_id", nullable = false, foreignKey = @ForeignKey(name = "fk_cooking_audit_recipe"))
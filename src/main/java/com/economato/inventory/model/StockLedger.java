@@ -12,7 +12,10 @@ import lombok.*;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "stock_ledger", indexes = {
+@Table(name = "stock_ledger", uniqueConstraints = {
+        // Una cadena no puede bifurcarse: ver db/migration/007
+        @UniqueConstraint(name = "uk_ledger_product_sequence", columnNames = { "product_id", "sequence_number" })
+}, indexes = {
         @Index(name = "idx_ledger_product", columnList = "product_id"),
         @Index(name = "idx_ledger_timestamp", columnList = "transaction_timestamp"),
         @Index(name = "idx_ledger_type", columnList = "movement_type"),
@@ -21,7 +24,8 @@ import lombok.*;
 public class StockLedger {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_ledger_seq")
+    @SequenceGenerator(name = "stock_ledger_seq", sequenceName = "stock_ledger_seq", allocationSize = 50)
     @Column(name = "transaction_id")
     private Long id;
 
@@ -1,6 +1,10 @@
 package com.economato.inventory.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import jakarta.validation.constraints.*;
 import java.util.List;
 
@@ -17,6 +21,8 @@ import lombok.*;
 }, uniqueConstraints = {
         @UniqueConstraint(name = "uk_supplier_name", columnNames = "name")
 })
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "l2.supplier")
+@NaturalIdCache(region = "l2.supplier.natural-id")
 public class Supplier {
 
     @Id
@@ -26,6 +32,7 @@ public class Supplier {
 
     @NotBlank(message = "{validation.supplier.name.notBlank}")
     @Size(min = 2, max = 100, message = "{validation.supplier.name.size}")
+    @NaturalId(mutable = true)
     @Column(name = "name", nullable = false, unique = true, length = 100)
     private String name;
 
@@ -2,6 +2,10 @@ package com.economato.inventory.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import jakarta.validation.constraints.*;
 import java.util.List;
 import lombok.*;
@@ -17,6 +21,8 @@ import lombok.*;
 }, uniqueConstraints = {
                 @UniqueConstraint(name = "uk_user_user", columnNames = "\"user\"")
 })
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "l2.user")
+@NaturalIdCache(region = "l2.user.natural-id")
 public class User {
 
         @Id
@@ -31,6 +37,7 @@ public class User {
 
         @NotBlank(message = "{validation.user.user.notBlank}")
         @Size(max = 100)
+        @NaturalId(mutable = true)
         @Column(name = "\"user\"", nullable = false, unique = true, length = 100)
         private String user;
 
@@ -2,6 +2,7 @@ package com.economato.inventory.repository;
 
 import com.economato.inventory.model.AuditOutbox;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,4 +11,12 @@ import java.util.List;
 public interface AuditOutboxRepository extends JpaRepository<AuditOutbox, Long> {
 
     List<AuditOutbox> findTop50ByOrderByCreatedAtAsc();
+
+    /**
+     * Amplitud del rango de ids pendientes: dos lecturas de los extremos del
+     * índice de la clave primaria. Es una cota superior, porque los huecos de
+     * la secuencia también cuentan.
+     */
+    @Query("SELECT COALESCE(MAX(o.id) - MIN(o.id) + 1, 0) FROM AuditOutbox o")
+    long pendingIdRange();
 }
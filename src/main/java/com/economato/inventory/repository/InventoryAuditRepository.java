@@ -9,6 +9,7 @@ import com.economato.inventory.model.Product;
 import com.economato.inventory.model.User;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface InventoryAuditRepository extends JpaRepository<InventoryAudit, Integer> {
@@ -55,4 +56,7 @@ public interface InventoryAuditRepository extends JpaRepository<InventoryAudit,
        List<com.economato.inventory.dto.projection.InventoryAuditProjection> findProjectedByMovementDateBetween(
                      @Param("start") LocalDateTime start,
                      @Param("end") LocalDateTime end);
+
+       @Query("SELECT a.eventId FROM InventoryAudit a WHERE a.eventId IN :eventIds")
+       List<String> findExistingEventIds(@Param("eventIds") Collection<String> eventIds);
 }
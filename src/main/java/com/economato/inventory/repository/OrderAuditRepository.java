@@ -1,6 +1,7 @@
 package com.economato.inventory.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -49,4 +50,7 @@ public interface OrderAuditRepository extends JpaRepository<OrderAudit, Integer>
        List<com.economato.inventory.dto.projection.OrderAuditProjection> findProjectedByAuditDateBetween(
                      @Param("start") LocalDateTime start,
                      @Param("end") LocalDateTime end);
+
+       @Query("SELECT a.eventId FROM OrderAudit a WHERE a.eventId IN :eventIds")
+       List<String> findExistingEventIds(@Param("eventIds") Collection<String> eventIds);
 }
@@ -16,6 +16,7 @@ import com.economato.inventory.model.OrderStatus;
 import com.economato.inventory.model.User;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -99,4 +100,7 @@ public interface OrderRepository extends JpaRepository<Order, Integer> {
        @EntityGraph(attributePaths = { "details", "details.product", "user" })
        List<com.economato.inventory.dto.projection.OrderProjection> findProjectedByOrderDateBetween(LocalDateTime start,
                      LocalDateTime end);
-}
\ No newline at end of file
+
+       @Query("SELECT o.id FROM Order o WHERE o.id IN :ids")
+       List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
+}
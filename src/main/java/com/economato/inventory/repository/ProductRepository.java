@@ -3,6 +3,7 @@ package com.economato.inventory.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
@@ -13,6 +14,7 @@ import com.economato.inventory.model.Product;
 
 import jakarta.persistence.LockModeType;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -43,6 +45,23 @@ public interface ProductRepository extends JpaRepository<Product, Integer> {
         @Query("SELECT p FROM Product p WHERE p.id IN :ids")
         List<Product> findByIdsForUpdate(@Param("ids") List<Integer> ids);
 
+        /**
+         * Bloquea solo la fila de stock del producto: serializa los movimientos
+         * de stock sin bloquear la fila de catálogo de product.
+         */
+        @Query(value = "SELECT current_stock FROM product_stock WHERE product_id = :id FOR UPDATE", nativeQuery = true)
+        Optional<BigDecimal> lockStockById(@Param("id") Integer id);
+
+        /**
+         * Variante de {@link #lockStockById} para un lote de movimientos. Bloquea
+         * en orden de id para que dos lotes con productos en común no se crucen.
+         */
+        @Query(value = "SELECT product_id FROM product_stock WHERE product_id IN (:ids) ORDER BY product_id FOR UPDATE", nativeQuery = true)
+        List<Integer> lockStockByIds(@Param("ids") Collection<Integer> ids);
+
+        @Query("SELECT p FROM Product p WHERE p.id IN :ids")
+        List<Product> findAllByIdOptimized(@Param("ids") Collection<Integer> ids);
+
         @Lock(LockModeType.PESSIMISTIC_READ)
         @Query("SELECT p FROM Product p WHERE p.id = :id")
         Optional<Product> findByIdForRead(@Param("id") Integer id);
@@ -51,25 +70,39 @@ public interface ProductRepository extends JpaRepository<Product, Integer> {
 
         // --- Proyecciones ---
 
+        // El proveedor va en la misma consulta: sin el grafo, la proyección lo carga por producto
+        @EntityGraph(attributePaths = { "supplier" })
         Page<ProductProjection> findByIsHiddenFalse(Pageable pageable);
 
+        @EntityGraph(attributePaths = { "supplier" })
         Page<ProductProjection> findByIsHiddenTrue(Pageable pageable);
 
+        @EntityGraph(attributePaths = { "supplier" })
         List<ProductProjection> findByIsHiddenFalse(Sort sort);
 
+        @EntityGraph(attributePaths = { "supplier" })
         Optional<ProductProjection> findProjectedById(Integer id);
 
+        @EntityGraph(attributePaths = { "supplier" })
         Optional<ProductProjection> findProjectedByProductCode(String productCode);
 
+        @EntityGraph(attributePaths = { "supplier" })
+        List<ProductProjection> findProjectedByIdIn(Collection<Integer> ids);
+
+        @EntityGraph(attributePaths = { "supplier" })
         Page<ProductProjection> findByNameContainingIgnoreCaseAndIsHiddenFalse(String namePart,
                         Pageable pageable);
 
+        @EntityGraph(attributePaths = { "supplier" })
         List<ProductProjection> findByNameContainingIgnoreCaseAndIsHiddenFalse(String namePart);
 
+        @EntityGraph(attributePaths = { "supplier" })
         List<ProductProjection> findByTypeAndIsHiddenFalse(String type);
 
+        @EntityGraph(attributePaths = { "supplier" })
         List<ProductProjection> findByCurrentStockLessThanAndIsHiddenFalse(BigDecimal stock);
 
+        @EntityGraph(attributePaths = { "supplier" })
         List<ProductProjection> findByUnitPriceBetweenAndIsHiddenFalse(BigDecimal min,
                         BigDecimal max);
 
@@ -81,4 +114,7 @@ public interface ProductRepository extends JpaRepository<Product, Integer> {
                         "AND EXISTS (SELECT 1 FROM StockLedger l WHERE l.product.id = p.id) " +
                         "AND LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%'))")
         Page<Product> findProductsWithLedgerByName(@Param("name") String name, Pageable pageable);
+
+        @Query("SELECT p.id FROM Product p WHERE p.id IN :ids")
+        List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
 }
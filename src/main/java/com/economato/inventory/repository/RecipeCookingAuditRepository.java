@@ -9,11 +9,19 @@ import java.util.stream.Stream;
 import org.springframework.stereotype.Repository;
 
 import com.economato.inventory.model.RecipeCookingAudit;
+import com.economato.inventory.dto.projection.ProductTopRecipe;
 import com.economato.inventory.dto.projection.WeeklyIngredientConsumption;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
+/**
+ * La tabla está particionada por mes sobre cooking_date. Las consultas por
+ * fecha comparan la columna directamente con los parámetros (sin funciones ni
+ * casts sobre cooking_date) para que PostgreSQL descarte las particiones fuera
+ * del rango; las que no filtran por fecha recorren todos los meses retenidos.
+ */
 @Repository
 public interface RecipeCookingAuditRepository extends JpaRepository<RecipeCookingAudit, Long> {
 
@@ -65,21 +73,31 @@ public interface RecipeCookingAuditRepository extends JpaRepository<RecipeCookin
       @Param("refDate") LocalDateTime refDate);
 
   /**
-   * Devuelve los nombres de las recetas que más consumen un ingrediente
-   * en el período analizado, ordenadas por consumo total descendente.
+   * Devuelve, para cada ingrediente, los nombres de las tres recetas que más lo
+   * consumen en el período analizado, ordenadas por consumo total descendente.
+   * Una sola consulta para todas las alertas en vez de una por producto.
    */
   @Query(value = """
-      SELECT r.recipe_name
-      FROM recipe_cooking_audit rca
-      INNER JOIN recipe r       ON r.recipe_id = rca.recipe_id
-      INNER JOIN recipe_component rc ON rc.parent_recipe_id = rca.recipe_id
-      WHERE rc.product_id = :productId
-        AND rca.cooking_date >= :since
-      GROUP BY r.recipe_id, r.recipe_name
-      ORDER BY SUM(rca.quantity_cooked * rc.quantity) DESC
-      LIMIT 3
+      SELECT ranked.productId, ranked.recipeName
+      FROM (
+          SELECT rc.product_id                                              AS productId,
+                 r.recipe_name                                              AS recipeName,
+                 ROW_NUMBER() OVER (PARTITION BY rc.product_id
+                                    ORDER BY SUM(rca.quantity_cooked * rc.quantity) DESC) AS recipe_rank
+          FROM recipe_cooking_audit rca
+          INNER JOIN recipe r       ON r.recipe_id = rca.recipe_id
+          INNER JOIN recipe_component rc ON rc.parent_recipe_id = rca.recipe_id
+          WHERE rc.product_id IN (:productIds)
+            AND rca.cooking_date >= :since
+          GROUP BY rc.product_id, r.recipe_id, r.recipe_name
+      ) ranked
+      WHERE ranked.recipe_rank <= 3
+      ORDER BY ranked.productId, ranked.recipe_rank
       """, nativeQuery = true)
-  List<String> findTopConsumingRecipesByProduct(
-      @Param("productId") Integer productId,
+  List<ProductTopRecipe> findTopConsumingRecipesByProducts(
+      @Param("productIds") Collection<Integer> productIds,
       @Param("since") LocalDateTime since);
+
+  @Query("SELECT a.eventId FROM RecipeCookingAudit a WHERE a.eventId IN :eventIds")
+  List<String> findExistingEventIds(@Param("eventIds") Collection<String> eventIds);
 }
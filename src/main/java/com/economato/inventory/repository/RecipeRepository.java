@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import com.economato.inventory.model.Recipe;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -75,6 +76,9 @@ public interface RecipeRepository extends JpaRepository<Recipe, Integer> {
         @EntityGraph(attributePaths = { "components", "components.product", "allergens" })
         Optional<com.economato.inventory.dto.projection.RecipeProjection> findProjectedById(Integer id);
 
+        @EntityGraph(attributePaths = { "components", "components.product", "allergens" })
+        List<com.economato.inventory.dto.projection.RecipeProjection> findProjectedByIdIn(Collection<Integer> ids);
+
         @EntityGraph(attributePaths = { "components", "components.product", "allergens" })
         List<com.economato.inventory.dto.projection.RecipeProjection> findByNameContainingIgnoreCaseAndIsHiddenFalse(
                         String namePart);
@@ -82,4 +86,7 @@ public interface RecipeRepository extends JpaRepository<Recipe, Integer> {
         @EntityGraph(attributePaths = { "components", "components.product", "allergens" })
         List<com.economato.inventory.dto.projection.RecipeProjection> findByTotalCostLessThanAndIsHiddenFalse(
                         BigDecimal maxCost);
+
+        @Query("SELECT r.id FROM Recipe r WHERE r.id IN :ids")
+        List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
 }
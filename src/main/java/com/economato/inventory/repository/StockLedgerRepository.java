@@ -12,8 +12,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.economato.inventory.model.StockLedger;
 
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 @Repository
 public interface StockLedgerRepository extends JpaRepository<StockLedger, Long> {
@@ -24,8 +24,9 @@ public interface StockLedgerRepository extends JpaRepository<StockLedger, Long>
     @EntityGraph(attributePaths = { "product", "user" })
     Page<StockLedger> findByProductId(@Param("productId") Integer productId, Pageable pageable);
 
-    @Query("SELECT l FROM StockLedger l JOIN FETCH l.product LEFT JOIN FETCH l.user WHERE l.product.id = :productId ORDER BY l.sequenceNumber DESC LIMIT 1")
-    Optional<StockLedger> findLastTransactionByProductId(@Param("productId") Integer productId);
+    @Query("SELECT l FROM StockLedger l WHERE l.product.id IN :productIds AND l.sequenceNumber = "
+            + "(SELECT MAX(l2.sequenceNumber) FROM StockLedger l2 WHERE l2.product.id = l.product.id)")
+    List<StockLedger> findLastTransactionsByProductIds(@Param("productIds") Collection<Integer> productIds);
 
     long countByProductId(Integer productId);
 
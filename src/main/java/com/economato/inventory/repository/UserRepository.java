@@ -4,21 +4,29 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import com.economato.inventory.dto.projection.UserProjection;
 import com.economato.inventory.model.Role;
 import com.economato.inventory.model.User;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+
 import java.util.Optional;
+import java.util.Collection;
 import java.util.List;
 
-public interface UserRepository extends JpaRepository<User, Integer> {
+public interface UserRepository extends JpaRepository<User, Integer>, UserRepositoryCustom {
 
+    /**
+     * Usuario autenticado: se consulta en cada escritura (auditoría, helper de
+     * seguridad), por eso el resultado va a la caché de consultas de Hibernate.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByName(String username);
 
-    Optional<User> findByUser(String user);
-
     Optional<User> findByNameAndIsHiddenFalse(String username);
 
     Optional<User> findByUserAndIsHiddenFalse(String user);
@@ -59,4 +67,7 @@ public interface UserRepository extends JpaRepository<User, Integer> {
 
     @Query("SELECT u FROM User u WHERE u.teacher.id = :teacherId AND u.isHidden = false")
     List<UserProjection> findProjectedByTeacherIdAndIsHiddenFalse(@Param("teacherId") Integer teacherId);
+
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
 }
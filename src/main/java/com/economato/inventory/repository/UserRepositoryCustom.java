@@ -0,0 +1,11 @@
+package com.economato.inventory.repository;
+
+import java.util.Optional;
+
+import com.economato.inventory.model.User;
+
+public interface UserRepositoryCustom {
+
+    /** Búsqueda por login (natural id), resuelta desde la caché de segundo nivel si está activa. */
+    Optional<User> findByUser(String user);
+}
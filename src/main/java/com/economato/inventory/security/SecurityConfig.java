@@ -1,5 +1,7 @@
 package com.economato.inventory.security;
 
+import com.economato.inventory.config.ReplicaLagTracker;
+import com.economato.inventory.config.StaleResponseMarker;
 import com.economato.inventory.i18n.I18nService;
 import com.economato.inventory.i18n.MessageKey;
 
@@ -81,7 +83,8 @@ public class SecurityConfig {
 
                                                 // Actuator & Prometheus (Solo desde subred interna Docker 172.19.x.x)
                                                 .requestMatchers("/actuator/prometheus", "/actuator/health",
-                                                                "/actuator/health/**")
+                                                                "/actuator/health/**", "/actuator/slowqueries",
+                                                                "/actuator/slowqueries/**")
                                                 .access((authentication, request) -> {
                                                         String clientIp = request.getRequest().getRemoteAddr();
                                                         return new AuthorizationDecision(
@@ -158,8 +161,10 @@ public class SecurityConfig {
                                 "http://127.0.0.1:8081",
                                 "https://economato.servehttp.com"));
                 configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
-                configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "Accept", "Origin"));
-                configuration.setExposedHeaders(List.of("Authorization"));
+                configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "Accept", "Origin",
+                                ReplicaLagTracker.TOKEN_HEADER));
+                configuration.setExposedHeaders(List.of("Authorization", "ETag", StaleResponseMarker.HEADER,
+                                ReplicaLagTracker.TOKEN_HEADER));
                 configuration.setAllowCredentials(true);
                 configuration.setMaxAge(86400L);
 
@@ -1,5 +1,7 @@
 package com.economato.inventory.service;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
@@ -33,6 +35,7 @@ public class AllergenService {
                 .map(allergenMapper::toResponseDTO);
     }
 
+    @Cacheable(value = "allergen", key = "#id", sync = true)
     @Transactional(readOnly = true)
     public Optional<AllergenResponseDTO> findById(Integer id) {
         return repository.findProjectedById(id)
@@ -44,6 +47,7 @@ public class AllergenService {
         return allergenMapper.toResponseDTO(repository.save(allergen));
     }
 
+    @CacheEvict(value = "allergen", key = "#id")
     public Optional<AllergenResponseDTO> update(Integer id, AllergenRequestDTO requestDTO) {
         return repository.findById(id)
                 .map(existing -> {
@@ -52,6 +56,7 @@ public class AllergenService {
                 });
     }
 
+    @CacheEvict(value = "allergen", key = "#id")
     public void deleteById(Integer id) {
         if (repository.existsById(id)) {
             repository.deleteById(id);
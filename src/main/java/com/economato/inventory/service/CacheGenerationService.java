@@ -0,0 +1,99 @@
+package com.economato.inventory.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+/**
+ * Invalidación de cachés de páginas por generación.
+ *
+ * Las claves de {@code products_page} y {@code recipes_page} incluyen la
+ * generación vigente de su caché. Una escritura publica una generación nueva y
+ * las páginas anteriores dejan de leerse y expiran por TTL, sin SCAN/DEL en
+ * Redis. La generación se guarda en la caché {@code cache_generations}, así que
+ * se comparte entre nodos y se aplica tras el commit como cualquier otra
+ * escritura en caché.
+ *
+ * La misma caché guarda la versión de las respuestas JSON preserializadas
+ * (ver {@link JsonResponseCache}): una por caché de páginas y una por entrada
+ * ({@code product:5}). Las de entrada se invalidan eliminándolas junto a la
+ * entrada, con {@code @CacheEvict} sobre {@link #GENERATIONS_CACHE}.
+ */
+@Service
+public class CacheGenerationService {
+
+    public static final String GENERATIONS_CACHE = "cache_generations";
+
+    private static final String INITIAL_GENERATION = "0";
+
+    private final ObjectProvider<CacheManager> cacheManagerProvider;
+
+    public CacheGenerationService(ObjectProvider<CacheManager> cacheManagerProvider) {
+        this.cacheManagerProvider = cacheManagerProvider;
+    }
+
+    /** Generación vigente de la caché, usada como prefijo de sus claves. */
+    public String current(String cacheName) {
+        Cache generations = cache(GENERATIONS_CACHE);
+        if (generations == null) {
+            return INITIAL_GENERATION;
+        }
+        String generation = generations.get(cacheName, String.class);
+        return generation != null ? generation : INITIAL_GENERATION;
+    }
+
+    /** Invalida todas las entradas de la caché pasando a una generación nueva. */
+    public void advance(String cacheName) {
+        Cache generations = cache(GENERATIONS_CACHE);
+        if (generations != null) {
+            // Basta con que sea distinta de las anteriores: no hace falta un contador atómico entre nodos
+            generations.put(cacheName, newGeneration());
+        }
+    }
+
+    /**
+     * Versión vigente de {@code name}. A diferencia de {@link #current}, si no
+     * existe se publica una nueva aleatoria: una versión perdida nunca vuelve a
+     * un valor anterior, así que puede usarse como ETag.
+     *
+     * @return nulo si no hay caché disponible
+     */
+    public String version(String name) {
+        Cache generations = cache(GENERATIONS_CACHE);
+        if (generations == null) {
+            return null;
+        }
+        String version = generations.get(name, String.class);
+        if (version != null) {
+            return version;
+        }
+        String candidate = newGeneration();
+        Cache.ValueWrapper existing = generations.putIfAbsent(name, candidate);
+        return existing != null && existing.get() instanceof String published ? published : candidate;
+    }
+
+    /** Versión de una entrada concreta, p.ej. {@code version("product", 5)}. */
+    public String version(String cacheName, Object key) {
+        return version(cacheName + ':' + key);
+    }
+
+    /** Elimina una entrada concreta cuya clave solo se conoce dentro del método. */
+    public void evict(String cacheName, Object key) {
+        Cache cache = cache(cacheName);
+        if (cache != null && key != null) {
+            cache.evict(key);
+        }
+    }
+
+    private static String newGeneration() {
+        return Long.toHexString(ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE));
+    }
+
+    private Cache cache(String cacheName) {
+        CacheManager cacheManager = cacheManagerProvider.getIfAvailable();
+        return cacheManager != null ? cacheManager.getCache(cacheName) : null;
+    }
+}
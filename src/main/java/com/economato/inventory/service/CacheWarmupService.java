@@ -1,116 +1,166 @@
 package com.economato.inventory.service;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Profile;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
 
-import com.economato.inventory.dto.response.RecipeResponseDTO;
-import com.economato.inventory.dto.response.UserResponseDTO;
+import com.economato.inventory.service.warmup.CacheAccessKey;
+import com.economato.inventory.service.warmup.CacheAccessTracker;
 
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+
+import java.lang.reflect.InvocationTargetException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
-
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Warmup de caché a partir de las claves más accedidas (ver
+ * {@link CacheAccessTracker}).
+ *
+ * Se ejecuta como CommandLineRunner, antes de que Spring Boot publique el
+ * estado de readiness ACCEPTING_TRAFFIC, así que el probe no da UP hasta que
+ * termina o agota {@code cache.warmup.timeout}. Las llamadas se hacen en
+ * paralelo con un máximo de {@code cache.warmup.concurrency} a la vez y
+ * {@code cache.warmup.rate} por segundo para no saturar la base de datos.
+ *
+ * Sin historial (primer despliegue o Redis caído) solo se carga la primera
+ * página de productos y de recetas.
+ */
 @Slf4j
 @Component
 @Profile("!test")
-@RequiredArgsConstructor
 public class CacheWarmupService implements CommandLineRunner {
 
+    private final CacheAccessTracker cacheAccessTracker;
+    private final ApplicationContext applicationContext;
     private final ProductService productService;
     private final RecipeService recipeService;
-    private final UserService userService;
+    private final int topK;
+    private final int concurrency;
+    private final int ratePerSecond;
+    private final Duration timeout;
+
+    public CacheWarmupService(CacheAccessTracker cacheAccessTracker,
+            ApplicationContext applicationContext,
+            ProductService productService,
+            RecipeService recipeService,
+            @Value("${cache.warmup.top-k:200}") int topK,
+            @Value("${cache.warmup.concurrency:4}") int concurrency,
+            @Value("${cache.warmup.rate:50}") int ratePerSecond,
+            @Value("${cache.warmup.timeout:PT30S}") Duration timeout) {
+        this.cacheAccessTracker = cacheAccessTracker;
+        this.applicationContext = applicationContext;
+        this.productService = productService;
+        this.recipeService = recipeService;
+        this.topK = topK;
+        this.concurrency = concurrency;
+        this.ratePerSecond = ratePerSecond;
+        this.timeout = timeout;
+    }
 
     @Override
-    public void run(String... args) throws Exception {
+    public void run(String... args) {
         log.info("Iniciando warmup de caché...");
         long startTime = System.currentTimeMillis();
 
+        // Las llamadas del warmup no deben contar como tráfico real
+        cacheAccessTracker.pause();
         try {
-
-            CompletableFuture<Void> productsWarmup = CompletableFuture.runAsync(this::warmupProducts);
-            CompletableFuture<Void> recipesWarmup = CompletableFuture.runAsync(this::warmupRecipes);
-            CompletableFuture<Void> usersWarmup = CompletableFuture.runAsync(this::warmupUsers);
-
-            CompletableFuture.allOf(productsWarmup, recipesWarmup, usersWarmup)
-                    .get(30, TimeUnit.SECONDS);
+            List<String> hotKeys = cacheAccessTracker.hotKeys(topK);
+            if (hotKeys.isEmpty()) {
+                log.info("Sin historial de claves calientes: pre-cargando primeras páginas");
+                warmupDefaults();
+            } else {
+                warmupHotKeys(hotKeys);
+            }
 
             long duration = System.currentTimeMillis() - startTime;
             log.info("Warmup de caché completado en {}ms", duration);
-            log.info("Sistema listo para recibir peticiones con caché pre-cargado");
-
         } catch (Exception e) {
             log.warn("Error durante warmup de caché (no crítico): {}", e.getMessage());
             log.info("Sistema continuará con caché vacío (se llenará con las primeras peticiones)");
+        } finally {
+            cacheAccessTracker.resume();
         }
     }
 
-    private void warmupProducts() {
+    private void warmupHotKeys(List<String> hotKeys) throws Exception {
+        RateLimiter rateLimiter = RateLimiter.of("cache-warmup", RateLimiterConfig.custom()
+                .limitForPeriod(ratePerSecond)
+                .limitRefreshPeriod(Duration.ofSeconds(1))
+                .timeoutDuration(timeout)
+                .build());
+        AtomicInteger loaded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger throttled = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency,
+                Thread.ofVirtual().name("cache-warmup-", 0).factory());
         try {
-            log.info("Pre-cargando productos...");
-
-            Pageable page1 = PageRequest.of(0, 10);
-            productService.findAll(page1);
-
-            Pageable page2 = PageRequest.of(1, 10);
-            productService.findAll(page2);
-
-            log.info("Productos pre-cargados (2 páginas, 20 items)");
-        } catch (Exception e) {
-            log.warn("Error pre-cargando productos: {}", e.getMessage());
+            List<CompletableFuture<Void>> tasks = new ArrayList<>(hotKeys.size());
+            for (String key : hotKeys) {
+                tasks.add(CompletableFuture.runAsync(() -> {
+                    if (!rateLimiter.acquirePermission()) {
+                        throttled.incrementAndGet();
+                        log.debug("Warmup de {} descartado: sin permiso del limitador en {}", key, timeout);
+                        return;
+                    }
+                    if (warmup(key)) {
+                        loaded.incrementAndGet();
+                    } else {
+                        failed.incrementAndGet();
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new))
+                    .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Warmup de caché interrumpido tras {}: el resto se cargará con las peticiones", timeout);
+        } finally {
+            executor.shutdownNow();
         }
+        log.info("Claves calientes pre-cargadas: {} de {} ({} fallidas, {} descartadas por el limitador)",
+                loaded.get(), hotKeys.size(), failed.get(), throttled.get());
     }
 
-    private void warmupRecipes() {
+    /** Repite la llamada cacheable a través del proxy del bean, que guarda el resultado. */
+    private boolean warmup(String key) {
+        CacheAccessKey.Invocation invocation = CacheAccessKey.decode(key);
+        if (invocation == null) {
+            log.debug("Clave de warmup no reconocida: {}", key);
+            return false;
+        }
         try {
-            log.info("Pre-cargando recetas...");
-
-            Pageable page1 = PageRequest.of(0, 10);
-            Page<RecipeResponseDTO> recipes1 = recipeService.findAll(page1);
-
-            Pageable page2 = PageRequest.of(1, 10);
-            recipeService.findAll(page2);
-
-            recipes1.stream()
-                    .limit(5)
-                    .forEach(recipe -> {
-                        try {
-                            recipeService.findById(recipe.getId());
-                        } catch (Exception e) {
-                            log.warn("Error cargando detalle de receta {}: {}", recipe.getId(), e.getMessage());
-                        }
-                    });
-
-            log.info("Recetas pre-cargadas (2 páginas + 5 detalles)");
+            Object bean = applicationContext.getBean(invocation.targetClass());
+            invocation.method().invoke(bean, invocation.args());
+            return true;
+        } catch (InvocationTargetException e) {
+            log.debug("Error pre-cargando {}: {}", key, e.getTargetException().getMessage());
+            return false;
         } catch (Exception e) {
-            log.warn("Error pre-cargando recetas: {}", e.getMessage());
+            log.debug("Error pre-cargando {}: {}", key, e.getMessage());
+            return false;
         }
     }
 
-    private void warmupUsers() {
+    private void warmupDefaults() {
         try {
-            log.info("Pre-cargando usuarios...");
-
-            Pageable page1 = PageRequest.of(0, 10);
-            Page<UserResponseDTO> users = userService.findAll(page1);
-
-            users.stream()
-                    .limit(3)
-                    .forEach(user -> {
-                        try {
-                            userService.findById(user.getId());
-                        } catch (Exception e) {
-                            log.warn("Error cargando detalle de usuario {}: {}", user.getId(), e.getMessage());
-                        }
-                    });
-
-            log.info("Usuarios pre-cargados (1 página + 3 detalles)");
+            productService.findAll(PageRequest.of(0, 10));
+            recipeService.findAll(PageRequest.of(0, 10));
         } catch (Exception e) {
-            log.warn("Error pre-cargando usuarios: {}", e.getMessage());
+            log.warn("Error pre-cargando primeras páginas: {}", e.getMessage());
         }
     }
 }
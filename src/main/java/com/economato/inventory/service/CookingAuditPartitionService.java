@@ -0,0 +1,162 @@
+package com.economato.inventory.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Mantenimiento de las particiones mensuales de recipe_cooking_audit (ver
+ * db/migration/004).
+ *
+ * Al arrancar y cada noche:
+ * - Crea las particiones de los próximos {@code premake-months} meses, para
+ *   que las inserciones nunca caigan en la partición DEFAULT. Si DEFAULT ya
+ *   tiene filas de ese mes, se trasladan a la partición nueva.
+ * - Los meses anteriores a {@code retention-months} se resumen en
+ *   recipe_cooking_monthly e ingredient_consumption_monthly y la partición se
+ *   separa y elimina, en la misma transacción.
+ *
+ * Un bloqueo consultivo evita que varios nodos lo ejecuten a la vez.
+ */
+@Slf4j
+@Service
+@Profile("!test & !resilience-test")
+public class CookingAuditPartitionService {
+
+    static final String TABLE = "recipe_cooking_audit";
+    static final String DEFAULT_PARTITION = TABLE + "_default";
+
+    private static final long LOCK_KEY = 0x7265636970650001L;
+    private static final Pattern PARTITION_NAME = Pattern.compile(TABLE + "_p(\\d{6})");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int premakeMonths;
+    private final int retentionMonths;
+
+    public CookingAuditPartitionService(DataSource dataSource,
+            @Value("${audit.cooking.partitions.premake-months:3}") int premakeMonths,
+            @Value("${audit.cooking.partitions.retention-months:24}") int retentionMonths) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.premakeMonths = premakeMonths;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${audit.cooking.partitions.cron:0 30 3 * * *}")
+    @Transactional(rollbackFor = Exception.class)
+    public void maintainPartitions() {
+        Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class,
+                LOCK_KEY);
+        if (!Boolean.TRUE.equals(locked)) {
+            log.debug("Mantenimiento de particiones de {} en curso en otro nodo", TABLE);
+            return;
+        }
+
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= premakeMonths; i++) {
+            createPartitionIfMissing(current.plusMonths(i));
+        }
+
+        YearMonth oldestKept = current.minusMonths(retentionMonths);
+        for (String partition : partitions()) {
+            partitionMonth(partition)
+                    .filter(month -> month.isBefore(oldestKept))
+                    .ifPresent(month -> rollUpAndDrop(partition, month));
+        }
+        rollUpDefaultPartition(oldestKept);
+    }
+
+    private void createPartitionIfMissing(YearMonth month) {
+        String partition = partitionName(month);
+        if (jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition)) {
+            return;
+        }
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+
+        // CREATE ... PARTITION OF fallaría si DEFAULT ya tiene filas del mes:
+        // se crea suelta, se le pasan esas filas y después se adjunta
+        jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE " + TABLE + " INCLUDING DEFAULTS)");
+        int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION
+                + " WHERE cooking_date >= ? AND cooking_date < ? RETURNING *)"
+                + " INSERT INTO " + partition + " SELECT * FROM moved", from, to);
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + partition
+                + " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+
+        log.info("Partición {} creada ({} filas trasladadas desde {})", partition, moved, DEFAULT_PARTITION);
+    }
+
+    private void rollUpAndDrop(String partition, YearMonth month) {
+        rollUp(partition, month.plusMonths(1).atDay(1));
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition);
+        jdbcTemplate.execute("DROP TABLE " + partition);
+        log.info("Partición {} resumida y eliminada (retención {} meses)", partition, retentionMonths);
+    }
+
+    private void rollUpDefaultPartition(YearMonth oldestKept) {
+        LocalDate cutoff = oldestKept.atDay(1);
+        rollUp(DEFAULT_PARTITION, cutoff);
+        int deleted = jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE cooking_date < ?",
+                cutoff.atStartOfDay());
+        if (deleted > 0) {
+            log.info("{} filas de {} anteriores a {} resumidas y eliminadas", deleted, DEFAULT_PARTITION, cutoff);
+        }
+    }
+
+    /** Acumula en los resúmenes mensuales las filas de {@code source} anteriores a {@code before}. */
+    private void rollUp(String source, LocalDate before) {
+        LocalDateTime cutoff = before.atStartOfDay();
+        jdbcTemplate.update("INSERT INTO recipe_cooking_monthly (month, recipe_id, cookings, quantity_cooked)"
+                + " SELECT date_trunc('month', cooking_date)::date, recipe_id, COUNT(*), SUM(quantity_cooked)"
+                + " FROM " + source + " WHERE cooking_date < ?"
+                + " GROUP BY 1, 2"
+                + " ON CONFLICT (month, recipe_id) DO UPDATE SET"
+                + " cookings = recipe_cooking_monthly.cookings + EXCLUDED.cookings,"
+                + " quantity_cooked = recipe_cooking_monthly.quantity_cooked + EXCLUDED.quantity_cooked",
+                cutoff);
+        jdbcTemplate.update("INSERT INTO ingredient_consumption_monthly (month, product_id, quantity_consumed)"
+                + " SELECT date_trunc('month', rca.cooking_date)::date, rc.product_id,"
+                + " SUM(rca.quantity_cooked * rc.quantity)"
+                + " FROM " + source + " rca"
+                + " INNER JOIN recipe_component rc ON rc.parent_recipe_id = rca.recipe_id"
+                + " WHERE rca.cooking_date < ?"
+                + " GROUP BY 1, 2"
+                + " ON CONFLICT (month, product_id) DO UPDATE SET"
+                + " quantity_consumed = ingredient_consumption_monthly.quantity_consumed"
+                + " + EXCLUDED.quantity_consumed",
+                cutoff);
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i"
+                + " JOIN pg_class c ON c.oid = i.inhrelid"
+                + " WHERE i.inhparent = ?::regclass ORDER BY c.relname", String.class, TABLE);
+    }
+
+    static String partitionName(YearMonth month) {
+        return TABLE + "_p" + month.format(SUFFIX);
+    }
+
+    /** Mes de una partición mensual; vacío para DEFAULT o nombres ajenos. */
+    static Optional<YearMonth> partitionMonth(String partition) {
+        Matcher matcher = PARTITION_NAME.matcher(partition);
+        return matcher.matches() ? Optional.of(YearMonth.parse(matcher.group(1), SUFFIX)) : Optional.empty();
+    }
+}
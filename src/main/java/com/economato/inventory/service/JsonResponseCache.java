@@ -0,0 +1,203 @@
+package com.economato.inventory.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.economato.inventory.config.StaleResponseMarker;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Caché de respuestas JSON ya serializadas para las lecturas más frecuentes.
+ *
+ * Guarda los bytes UTF-8 finales (y, opcionalmente, su versión gzip) por
+ * versión de la entidad o de la página y por idioma, y los devuelve tal cual:
+ * un acierto no mapea ni serializa ningún objeto. El ETag se deriva de la
+ * versión, así que un {@code If-None-Match} vigente responde 304 sin leer la
+ * caché.
+ *
+ * Las versiones las gestiona {@link CacheGenerationService}: las páginas usan
+ * la generación de su caché y las entidades una versión por entrada que se
+ * elimina junto a la entrada. Las respuestas construidas con datos servidos
+ * como obsoletos no se guardan.
+ *
+ * Desactivada por defecto ({@code cache.response.enabled}); sin ella, o sin
+ * caché disponible, se responde con el DTO como siempre.
+ */
+@Slf4j
+@Service
+public class JsonResponseCache {
+
+    public static final String CACHE_NAME = "json_responses";
+
+    private static final String GZIP = "gzip";
+
+    private final CacheGenerationService cacheGenerationService;
+    private final ObjectProvider<CacheManager> cacheManagerProvider;
+    private final JsonMapper jsonMapper;
+    private final boolean enabled;
+    private final boolean gzipEnabled;
+    private final int gzipMinSize;
+
+    public JsonResponseCache(CacheGenerationService cacheGenerationService,
+            ObjectProvider<CacheManager> cacheManagerProvider,
+            JsonMapper jsonMapper,
+            @Value("${cache.response.enabled:false}") boolean enabled,
+            @Value("${cache.response.gzip:true}") boolean gzipEnabled,
+            @Value("${server.compression.min-response-size:1024}") int gzipMinSize) {
+        this.cacheGenerationService = cacheGenerationService;
+        this.cacheManagerProvider = cacheManagerProvider;
+        this.jsonMapper = jsonMapper;
+        this.enabled = enabled;
+        this.gzipEnabled = gzipEnabled;
+        this.gzipMinSize = gzipMinSize;
+    }
+
+    /**
+     * Respuesta de una entidad leída por id; 404 si el cargador no la encuentra.
+     *
+     * @param cacheName caché del DTO, cuyas evicciones invalidan también la versión
+     */
+    public ResponseEntity<?> entity(String cacheName, Object id, Supplier<? extends Optional<?>> loader) {
+        if (!enabled) {
+            return uncached(loader);
+        }
+        return respond(cacheName + ':' + id, cacheGenerationService.version(cacheName, id), loader);
+    }
+
+    /** Respuesta de una página de una caché versionada por generación. */
+    public ResponseEntity<?> page(String pageCacheName, Pageable pageable, Supplier<?> loader) {
+        // Desactivada no se consulta ni se crea la generación: son las lecturas más frecuentes
+        if (!enabled) {
+            return uncached(() -> Optional.ofNullable(loader.get()));
+        }
+        String key = pageCacheName + ':' + pageable.getPageNumber() + '-' + pageable.getPageSize() + '-'
+                + pageable.getSort();
+        return respond(key, cacheGenerationService.version(pageCacheName), () -> Optional.ofNullable(loader.get()));
+    }
+
+    private ResponseEntity<?> respond(String key, String version, Supplier<? extends Optional<?>> loader) {
+        Cache cache = cache();
+        HttpServletRequest request = currentRequest();
+        if (version == null || cache == null || request == null) {
+            return uncached(loader);
+        }
+
+        boolean gzip = gzipEnabled && acceptsGzip(request);
+        String language = LocaleContextHolder.getLocale().toLanguageTag();
+        String eTag = '"' + version + '-' + language + (gzip ? "-gz" : "") + '"';
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
+        String entryKey = key + ':' + version + ':' + language;
+        byte[] body = gzip ? cache.get(entryKey + ":gz", byte[].class) : null;
+        boolean compressed = body != null;
+        if (body == null) {
+            body = cache.get(entryKey, byte[].class);
+        }
+        if (body == null) {
+            Optional<?> value = loader.get();
+            if (value.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            body = jsonMapper.writeValueAsBytes(value.get());
+            if (servedStale()) {
+                return build(body, eTag, false);
+            }
+            cache.put(entryKey, body);
+        }
+        if (gzip && !compressed && body.length >= gzipMinSize) {
+            body = gzip(body);
+            compressed = true;
+            cache.put(entryKey + ":gz", body);
+        }
+        return build(body, eTag, compressed);
+    }
+
+    private static ResponseEntity<?> uncached(Supplier<? extends Optional<?>> loader) {
+        return loader.get().map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private static ResponseEntity<byte[]> build(byte[] body, String eTag, boolean compressed) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_LANGUAGE, HttpHeaders.ACCEPT_ENCODING);
+        if (compressed) {
+            // Con Content-Encoding presente el conector no vuelve a comprimir
+            builder.header(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+        return builder.body(body);
+    }
+
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || trimmed.equals(eTag) || trimmed.equals("W/" + eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains(GZIP);
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean servedStale() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return false;
+        }
+        HttpServletResponse response = servletAttributes.getResponse();
+        return response != null && response.getHeader(StaleResponseMarker.HEADER) != null;
+    }
+
+    private static HttpServletRequest currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servletAttributes ? servletAttributes.getRequest()
+                : null;
+    }
+
+    private Cache cache() {
+        CacheManager cacheManager = cacheManagerProvider.getIfAvailable();
+        return cacheManager != null ? cacheManager.getCache(CACHE_NAME) : null;
+    }
+}
@@ -1,5 +1,7 @@
 package com.economato.inventory.service;
 
+import com.economato.inventory.annotation.AllowStaleReads;
+import com.economato.inventory.annotation.AnalyticsQuery;
 import com.economato.inventory.dto.request.ReportRange;
 import com.economato.inventory.dto.response.KitchenReportResponseDTO;
 import com.economato.inventory.dto.response.ProductStatDTO;
@@ -44,6 +46,8 @@ public class KitchenReportService {
         this.objectMapper = new ObjectMapper();
     }
 
+    @AllowStaleReads
+    @AnalyticsQuery
     @Transactional(readOnly = true)
     public KitchenReportResponseDTO generateReport(ReportRange range, LocalDate startDate, LocalDate endDate) {
         LocalDateTime start;
@@ -0,0 +1,496 @@
+package com.economato.inventory.service;
+
+import com.economato.inventory.annotation.AnalyticsQuery;
+import com.economato.inventory.config.HibernateCacheInvalidator;
+import com.economato.inventory.dto.response.BulkImportResponseDTO;
+import com.economato.inventory.exception.InvalidOperationException;
+import com.economato.inventory.model.Product;
+import com.economato.inventory.model.StockSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Exportación e importación masiva del ledger y de las tablas de auditoría con
+ * {@code COPY} de PostgreSQL (CopyManager de PgJDBC), en CSV o binario.
+ *
+ * Los datos van directamente entre el socket de la base de datos y el stream
+ * de la petición o respuesta, sin pasar por entidades: la memoria usada no
+ * depende del número de filas.
+ *
+ * La importación carga primero una tabla temporal y solo copia a la tabla real
+ * si todo es válido, en la misma transacción:
+ * - stock_ledger: antes de leer la cola de cada cadena se bloquean las filas
+ *   de product_stock de los productos del fichero, igual que hace
+ *   recordStockMovement, para que ningún movimiento concurrente la alargue
+ *   entre la verificación y el INSERT. Cada cadena se verifica continuando la
+ *   que ya existe para el producto (o desde GENESIS) y se recalculan todos los
+ *   hashes; después se actualizan stock_snapshot y el stock del producto.
+ * - Auditorías: las filas con un eventId ya presente se descartan, y las
+ *   históricas sin eventId si ya hay otra idéntica, así que reimportar el
+ *   mismo fichero no duplica nada.
+ *
+ * Los ids de origen no se conservan: cada fila toma el DEFAULT de su secuencia,
+ * como cualquier INSERT manual, para no chocar con los bloques que Hibernate
+ * ya tiene reservados.
+ */
+@Slf4j
+@Service
+public class LedgerBulkTransferService {
+
+    private static final String GENESIS_HASH = "GENESIS";
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final int FETCH_SIZE = 1_000;
+
+    private final DataSource dataSource;
+    private final StockLedgerService stockLedgerService;
+    private final CacheGenerationService cacheGenerationService;
+    private final ObjectProvider<CacheManager> cacheManagerProvider;
+    private final ObjectProvider<HibernateCacheInvalidator> hibernateCacheInvalidator;
+    private final Duration exportTimeout;
+
+    public LedgerBulkTransferService(DataSource dataSource, StockLedgerService stockLedgerService,
+            CacheGenerationService cacheGenerationService, ObjectProvider<CacheManager> cacheManagerProvider,
+            ObjectProvider<HibernateCacheInvalidator> hibernateCacheInvalidator,
+            @Value("${db.analytics.export-timeout:0}") Duration exportTimeout) {
+        this.dataSource = dataSource;
+        this.stockLedgerService = stockLedgerService;
+        this.cacheGenerationService = cacheGenerationService;
+        this.cacheManagerProvider = cacheManagerProvider;
+        this.hibernateCacheInvalidator = hibernateCacheInvalidator;
+        this.exportTimeout = exportTimeout;
+    }
+
+    /** Límite de una exportación, en la base de datos y en la petición HTTP; cero si no tiene. */
+    public Duration exportTimeout() {
+        return exportTimeout;
+    }
+
+    /**
+     * Vuelca la tabla entera al stream. Va al pool de analítica: lee de una
+     * réplica y no ocupa conexiones del pool principal.
+     *
+     * El COPY dura lo que tarde el cliente en leer la respuesta, así que no usa
+     * el statement timeout del pool sino {@code db.analytics.export-timeout}
+     * (0, sin límite), fijado con SET LOCAL solo para esta transacción: con el
+     * del pool, una tabla grande o un cliente lento cortarían el fichero a
+     * medias.
+     *
+     * @return filas exportadas
+     */
+    @AnalyticsQuery
+    @Transactional(readOnly = true)
+    public long export(BulkTable table, BulkFormat format, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET LOCAL statement_timeout = " + exportTimeout.toMillis());
+            }
+            long rows = copyManager(connection)
+                    .copyOut("COPY " + table.tableName() + " TO STDOUT " + format.options(), out);
+            log.info("Exportación {} ({}): {} filas en {} ms", table.tableName(), format.extension(), rows,
+                    (System.nanoTime() - start) / 1_000_000);
+            return rows;
+        } catch (SQLException e) {
+            throw new IOException("Error exportando " + table.tableName() + ": " + e.getMessage(), e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    @Transactional(rollbackFor = Exception.class)
+    public BulkImportResponseDTO importTable(BulkTable table, BulkFormat format, InputStream in) {
+        long start = System.nanoTime();
+        String staging = "bulk_" + table.tableName();
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TEMP TABLE " + staging + " (LIKE " + table.tableName()
+                        + " INCLUDING DEFAULTS) ON COMMIT DROP");
+            }
+            long rowsRead = copyManager(connection)
+                    .copyIn("COPY " + staging + " FROM STDIN " + format.options(), in, COPY_BUFFER_SIZE);
+
+            long productsUpdated = 0;
+            long rowsInserted;
+            if (table == BulkTable.STOCK_LEDGER) {
+                lockProductStock(connection, staging);
+                verifyLedger(connection, staging);
+                rowsInserted = copyRows(connection, table, staging, false);
+                productsUpdated = applyLedgerTails(connection, staging);
+                invalidateProductCachesAfterCommit();
+            } else {
+                rowsInserted = copyRows(connection, table, staging, true);
+            }
+
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            log.info("Importación {} ({}): {} filas leídas, {} insertadas en {} ms", table.tableName(),
+                    format.extension(), rowsRead, rowsInserted, elapsedMillis);
+
+            return BulkImportResponseDTO.builder()
+                    .table(table.tableName())
+                    .format(format.extension())
+                    .rowsRead(rowsRead)
+                    .rowsInserted(rowsInserted)
+                    .rowsSkipped(rowsRead - rowsInserted)
+                    .productsUpdated(productsUpdated)
+                    .elapsedMillis(elapsedMillis)
+                    .message(String.format("Importación completada: %d de %d filas insertadas",
+                            rowsInserted, rowsRead))
+                    .build();
+        } catch (SQLException | IOException e) {
+            throw new InvalidOperationException(
+                    "Importación de " + table.tableName() + " fallida, no se ha aplicado ningún cambio: "
+                            + e.getMessage());
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /**
+     * Bloquea, en orden de id como el resto de bloqueos de stock, las filas de
+     * product_stock de los productos importados hasta el fin de la transacción.
+     */
+    private void lockProductStock(Connection connection, String staging) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SELECT 1 FROM product_stock WHERE product_id IN"
+                    + " (SELECT DISTINCT product_id FROM " + staging + ") ORDER BY product_id FOR UPDATE");
+        }
+    }
+
+    /**
+     * Recorre la tabla temporal por producto y secuencia con un cursor,
+     * continuando desde la última transacción ya registrada de cada producto.
+     * Cualquier error aborta la importación.
+     */
+    private void verifyLedger(Connection connection, String staging) throws SQLException {
+        String sql = "WITH tail AS ("
+                + " SELECT DISTINCT ON (l.product_id) l.product_id, l.current_hash, l.sequence_number"
+                + " FROM stock_ledger l"
+                + " WHERE l.product_id IN (SELECT DISTINCT product_id FROM " + staging + ")"
+                + " ORDER BY l.product_id, l.sequence_number DESC)"
+                + " SELECT s.product_id, s.quantity_delta, s.resulting_stock, s.transaction_timestamp,"
+                + " s.previous_hash, s.current_hash, s.sequence_number,"
+                + " t.current_hash AS tail_hash, t.sequence_number AS tail_sequence"
+                + " FROM " + staging + " s LEFT JOIN tail t ON t.product_id = s.product_id"
+                + " ORDER BY s.product_id, s.sequence_number";
+
+        ChainVerifier verifier = new ChainVerifier(stockLedgerService::recalculateHash);
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setFetchSize(FETCH_SIZE);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    verifier.accept(new LedgerRow(
+                            resultSet.getInt("product_id"),
+                            resultSet.getBigDecimal("quantity_delta"),
+                            resultSet.getBigDecimal("resulting_stock"),
+                            resultSet.getObject("transaction_timestamp", LocalDateTime.class),
+                            resultSet.getString("previous_hash"),
+                            resultSet.getString("current_hash"),
+                            resultSet.getLong("sequence_number"),
+                            resultSet.getString("tail_hash"),
+                            resultSet.getObject("tail_sequence", Long.class)));
+                }
+            }
+        }
+
+        if (verifier.errorCount() > 0) {
+            log.error("Importación de stock_ledger rechazada: {} errores en {} transacciones",
+                    verifier.errorCount(), verifier.rows());
+            throw new InvalidOperationException(String.format(
+                    "CORRUPCIÓN DETECTADA en el fichero: %d errores en %d transacciones. %s",
+                    verifier.errorCount(), verifier.rows(), String.join("; ", verifier.errors())));
+        }
+        log.info("Cadenas importadas íntegras: {} transacciones verificadas", verifier.rows());
+    }
+
+    private long copyRows(Connection connection, BulkTable table, String staging, boolean skipExisting)
+            throws SQLException {
+        String sql = insertSql(table, columnsWithoutId(connection, table), staging, skipExisting);
+        try (Statement statement = connection.createStatement()) {
+            return statement.executeLargeUpdate(sql);
+        }
+    }
+
+    /**
+     * INSERT desde la tabla temporal. Con {@code skipExisting} las filas con
+     * eventId se descartan por ON CONFLICT; las históricas sin eventId no
+     * chocan con ningún índice único, así que se descartan las idénticas (sin
+     * contar el id) a otra ya presente. EXCEPT ALL compara NULL como igual y
+     * conserva las repeticiones que el fichero tenga de más.
+     */
+    static String insertSql(BulkTable table, List<String> columns, String staging, boolean skipExisting) {
+        String columnList = String.join(", ", columns);
+        String sql = "INSERT INTO " + table.tableName() + " (" + columnList + ") ";
+        if (!skipExisting) {
+            sql += "SELECT " + columnList + " FROM " + staging;
+            if (table == BulkTable.STOCK_LEDGER) {
+                sql += " ORDER BY product_id, sequence_number";
+            }
+            return sql;
+        }
+        return sql + "SELECT " + columnList + " FROM " + staging + " WHERE event_id IS NOT NULL"
+                + " UNION ALL (SELECT " + columnList + " FROM " + staging + " WHERE event_id IS NULL"
+                + " EXCEPT ALL SELECT " + columnList + " FROM " + table.tableName() + " WHERE event_id IS NULL)"
+                + " ON CONFLICT DO NOTHING";
+    }
+
+    private List<String> columnsWithoutId(Connection connection, BulkTable table) throws SQLException {
+        String sql = "SELECT quote_ident(column_name) FROM information_schema.columns"
+                + " WHERE table_schema = current_schema() AND table_name = ? AND column_name <> ?"
+                + " ORDER BY ordinal_position";
+        List<String> columns = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, table.tableName());
+            statement.setString(2, table.idColumn());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    columns.add(resultSet.getString(1));
+                }
+            }
+        }
+        if (columns.isEmpty()) {
+            throw new SQLException("Sin columnas para " + table.tableName());
+        }
+        return columns;
+    }
+
+    /**
+     * Deja el snapshot y el stock de cada producto importado en la última
+     * transacción del fichero, como haría recordStockMovement.
+     *
+     * @return productos actualizados
+     */
+    private long applyLedgerTails(Connection connection, String staging) throws SQLException {
+        String lastRows = "SELECT DISTINCT ON (product_id) product_id, resulting_stock, current_hash, sequence_number"
+                + " FROM " + staging + " ORDER BY product_id, sequence_number DESC";
+        try (Statement statement = connection.createStatement()) {
+            long products = statement.executeLargeUpdate(
+                    "INSERT INTO stock_snapshot (product_id, current_stock, last_transaction_hash,"
+                            + " last_sequence_number, last_updated, last_verified, integrity_status, version)"
+                            + " SELECT product_id, resulting_stock, current_hash, sequence_number,"
+                            + " LOCALTIMESTAMP, LOCALTIMESTAMP, 'VALID', 0 FROM (" + lastRows + ") last"
+                            + " ON CONFLICT (product_id) DO UPDATE SET"
+                            + " current_stock = EXCLUDED.current_stock,"
+                            + " last_transaction_hash = EXCLUDED.last_transaction_hash,"
+                            + " last_sequence_number = EXCLUDED.last_sequence_number,"
+                            + " last_updated = EXCLUDED.last_updated,"
+                            + " last_verified = EXCLUDED.last_verified,"
+                            + " integrity_status = 'VALID',"
+                            + " version = stock_snapshot.version + 1");
+            // Filas ya bloqueadas por lockProductStock antes de verificar las
+            // cadenas; la versión del catálogo no cambia
+            statement.executeLargeUpdate(
+                    "UPDATE product_stock ps SET current_stock = last.resulting_stock"
+                            + " FROM (" + lastRows + ") last WHERE ps.product_id = last.product_id");
+            return products;
+        }
+    }
+
+    /**
+     * El SQL nativo no pasa por Hibernate ni por las anotaciones de caché:
+     * tras el commit se descartan a mano los productos y snapshots cacheados.
+     */
+    private void invalidateProductCachesAfterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                CacheManager cacheManager = cacheManagerProvider.getIfAvailable();
+                if (cacheManager != null) {
+                    Cache productCache = cacheManager.getCache("product");
+                    if (productCache != null) {
+                        productCache.clear();
+                    }
+                }
+                cacheGenerationService.advance("products_page");
+                hibernateCacheInvalidator.ifAvailable(invalidator -> {
+                    invalidator.evictAll(Product.class);
+                    invalidator.evictAll(StockSnapshot.class);
+                });
+            }
+        });
+    }
+
+    private static CopyManager copyManager(Connection connection) throws SQLException {
+        return connection.unwrap(PGConnection.class).getCopyAPI();
+    }
+
+    /** Tablas que admiten COPY, con su columna de id generada. */
+    public enum BulkTable {
+        STOCK_LEDGER("stock_ledger", "transaction_id"),
+        INVENTORY_AUDIT("inventory_audit", "audit_id"),
+        RECIPE_COOKING_AUDIT("recipe_cooking_audit", "cooking_audit_id"),
+        ORDER_AUDIT("order_audit", "audit_id"),
+        RECIPE_AUDIT("recipe_audit", "audit_id");
+
+        private final String tableName;
+        private final String idColumn;
+
+        BulkTable(String tableName, String idColumn) {
+            this.tableName = tableName;
+            this.idColumn = idColumn;
+        }
+
+        public String tableName() {
+            return tableName;
+        }
+
+        String idColumn() {
+            return idColumn;
+        }
+
+        public static BulkTable of(String tableName) {
+            for (BulkTable table : values()) {
+                if (table.tableName.equalsIgnoreCase(tableName)) {
+                    return table;
+                }
+            }
+            throw new InvalidOperationException("Tabla no soportada para COPY: " + tableName);
+        }
+    }
+
+    public enum BulkFormat {
+        CSV("(FORMAT csv, HEADER)", "text/csv", "csv"),
+        BINARY("(FORMAT binary)", "application/octet-stream", "bin");
+
+        private final String options;
+        private final String mediaType;
+        private final String extension;
+
+        BulkFormat(String options, String mediaType, String extension) {
+            this.options = options;
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        String options() {
+            return options;
+        }
+
+        public String mediaType() {
+            return mediaType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        public static BulkFormat of(String format) {
+            return switch (format.toLowerCase(Locale.ROOT)) {
+                case "csv" -> CSV;
+                case "binary", "bin" -> BINARY;
+                default -> throw new InvalidOperationException("Formato no soportado para COPY: " + format);
+            };
+        }
+    }
+
+    record LedgerRow(Integer productId, BigDecimal quantityDelta, BigDecimal resultingStock,
+            LocalDateTime timestamp, String previousHash, String currentHash, long sequenceNumber,
+            String tailHash, Long tailSequence) {
+    }
+
+    @FunctionalInterface
+    interface Hasher {
+        String hash(Integer productId, BigDecimal quantityDelta, BigDecimal resultingStock,
+                LocalDateTime timestamp, String previousHash, Long sequenceNumber);
+    }
+
+    /**
+     * Verificación en streaming de las filas, ordenadas por producto y
+     * secuencia: mismas comprobaciones que verifyChainIntegrity, pero cada
+     * cadena empieza donde termina la ya registrada. Solo guarda los primeros
+     * errores.
+     */
+    static final class ChainVerifier {
+
+        static final int MAX_REPORTED_ERRORS = 20;
+
+        private final Hasher hasher;
+        private final List<String> errors = new ArrayList<>();
+        private long errorCount;
+        private long rows;
+        private Integer productId;
+        private String expectedPreviousHash;
+        private long expectedSequence;
+
+        ChainVerifier(Hasher hasher) {
+            this.hasher = hasher;
+        }
+
+        void accept(LedgerRow row) {
+            rows++;
+            if (!row.productId().equals(productId)) {
+                productId = row.productId();
+                expectedPreviousHash = row.tailHash() != null ? row.tailHash() : GENESIS_HASH;
+                expectedSequence = row.tailSequence() != null ? row.tailSequence() + 1 : 1;
+            }
+
+            if (row.sequenceNumber() != expectedSequence) {
+                error("Producto %d TX#%d: Secuencia rota. Esperado: %d",
+                        productId, row.sequenceNumber(), expectedSequence);
+            }
+            if (!expectedPreviousHash.equals(row.previousHash())) {
+                error("Producto %d TX#%d: previousHash incorrecto. Esperado: %s, Encontrado: %s",
+                        productId, row.sequenceNumber(), prefix(expectedPreviousHash), prefix(row.previousHash()));
+            }
+            String recalculatedHash = hasher.hash(productId, row.quantityDelta(), row.resultingStock(),
+                    row.timestamp(), row.previousHash(), row.sequenceNumber());
+            if (!recalculatedHash.equals(row.currentHash())) {
+                error("Producto %d TX#%d: Hash corrupto. Esperado: %s, Encontrado: %s",
+                        productId, row.sequenceNumber(), prefix(recalculatedHash), prefix(row.currentHash()));
+            }
+
+            expectedPreviousHash = row.currentHash();
+            expectedSequence = row.sequenceNumber() + 1;
+        }
+
+        private void error(String format, Object... args) {
+            errorCount++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(String.format(format, args));
+            }
+        }
+
+        private static String prefix(String hash) {
+            return hash == null ? "null" : hash.substring(0, Math.min(8, hash.length()));
+        }
+
+        List<String> errors() {
+            return errors;
+        }
+
+        long errorCount() {
+            return errorCount;
+        }
+
+        long rows() {
+            return rows;
+        }
+    }
+}
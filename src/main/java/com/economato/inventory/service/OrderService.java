@@ -212,8 +212,10 @@ public class OrderService {
                 if (OrderStatus.CONFIRMED == receptionData.getStatus()) {
                         log.info("Confirmando orden {} - Registrando en ledger inmutable", order.getId());
 
+                        // Sin bloqueo sobre product: recordStockMovement bloquea la fila de
+                        // product_stock y las ediciones de catálogo no quedan a la espera
                         for (OrderDetail detail : order.getDetails()) {
-                                Product product = productRepository.findByIdForUpdate(detail.getProduct().getId())
+                                Product product = productRepository.findById(detail.getProduct().getId())
                                                 .orElseThrow(() -> new ResourceNotFoundException(
                                                                 i18nService.getMessage(
                                                                                 MessageKey.ERROR_PRODUCT_NOT_FOUND)));
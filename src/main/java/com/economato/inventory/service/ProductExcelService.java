@@ -22,6 +22,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.economato.inventory.annotation.AnalyticsQuery;
 import com.economato.inventory.dto.projection.ProductProjection;
 import com.economato.inventory.repository.ProductRepository;
 
@@ -45,6 +46,7 @@ public class ProductExcelService {
      * ByteArrayOutputStream
      * intermedio, de modo que la memoria usada es O(1) respecto al total de filas.
      */
+    @AnalyticsQuery
     @Transactional(readOnly = true)
     public void streamProductsExcel(OutputStream out) throws IOException {
         try (SXSSFWorkbook workbook = new SXSSFWorkbook(CHUNK_SIZE)) {
@@ -7,6 +7,7 @@ import java.util.Set;
 
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -50,6 +51,8 @@ public class ProductService {
     private final ProductMapper productMapper;
     private final StockLedgerService stockLedgerService;
     private final SecurityContextHelper securityContextHelper;
+    private final CacheGenerationService cacheGenerationService;
+    private final ReadModelService readModelService;
 
     public ProductService(I18nService i18nService,
             ProductRepository repository,
@@ -58,7 +61,9 @@ public class ProductService {
             SupplierRepository supplierRepository,
             ProductMapper productMapper,
             StockLedgerService stockLedgerService,
-            SecurityContextHelper securityContextHelper) {
+            SecurityContextHelper securityContextHelper,
+            CacheGenerationService cacheGenerationService,
+            ReadModelService readModelService) {
         this.i18nService = i18nService;
         this.repository = repository;
         this.movementRepository = movementRepository;
@@ -67,25 +72,29 @@ public class ProductService {
         this.productMapper = productMapper;
         this.stockLedgerService = stockLedgerService;
         this.securityContextHelper = securityContextHelper;
+        this.cacheGenerationService = cacheGenerationService;
+        this.readModelService = readModelService;
     }
 
-    @Cacheable(value = "products_page", key = "#pageable.pageNumber + '-' + #pageable.pageSize + '-' + #pageable.sort")
+    @Cacheable(value = "products_page", key = "@cacheGenerationService.current('products_page') + ':' + #pageable.pageNumber + '-' + #pageable.pageSize + '-' + #pageable.sort", sync = true)
     @Transactional(readOnly = true)
     public Page<ProductResponseDTO> findAll(Pageable pageable) {
-        Page<ProductResponseDTO> page = repository.findByIsHiddenFalse(pageable)
-                .map(productMapper::toResponseDTO);
-        return new com.economato.inventory.dto.RestPage<>(page.getContent(), page.getPageable(),
-                page.getTotalElements());
+        return readModelService.findProducts(pageable).orElseGet(() -> {
+            Page<ProductResponseDTO> page = repository.findByIsHiddenFalse(pageable)
+                    .map(productMapper::toResponseDTO);
+            return new com.economato.inventory.dto.RestPage<>(page.getContent(), page.getPageable(),
+                    page.getTotalElements());
+        });
     }
 
-    @Cacheable(value = "product", key = "#id")
+    @Cacheable(value = "product", key = "#id", sync = true)
     @Transactional(readOnly = true)
     public Optional<ProductResponseDTO> findById(Integer id) {
-        return repository.findProjectedById(id)
-                .map(productMapper::toResponseDTO);
+        return readModelService.findProduct(id)
+                .or(() -> repository.findProjectedById(id).map(productMapper::toResponseDTO));
     }
 
-    @Cacheable(value = "product", key = "'code:' + #codebar")
+    @Cacheable(value = "product", key = "'code:' + #codebar", sync = true)
     @Transactional(readOnly = true)
     public Optional<ProductResponseDTO> findByCodebar(String codebar) {
         return repository.findProjectedByProductCode(codebar)
@@ -112,7 +121,6 @@ public class ProductService {
         return new RestPage<>(page.getContent(), page.getPageable(), page.getTotalElements());
     }
 
-    @CacheEvict(value = { "products_page", "product" }, allEntries = true)
     @ProductAuditable(action = "CREATE_PRODUCT")
     @Transactional(rollbackFor = { InvalidOperationException.class, RuntimeException.class, Exception.class })
     public ProductResponseDTO save(ProductRequestDTO requestDTO) {
@@ -122,10 +130,12 @@ public class ProductService {
 
         validateProductData(requestDTO);
         Product product = productMapper.toEntity(requestDTO);
+        invalidateCachedViews(product.getProductCode());
         return productMapper.toResponseDTO(repository.save(product));
     }
 
-    @CacheEvict(value = { "products_page", "product" }, allEntries = true)
+    @Caching(evict = { @CacheEvict(value = "product", key = "#id"),
+            @CacheEvict(value = CacheGenerationService.GENERATIONS_CACHE, key = "'product:' + #id") })
     @ProductAuditable(action = "UPDATE_PRODUCT")
     @Retryable(includes = { OptimisticLockingFailureException.class }, maxRetries = 3, delay = 100)
     @Transactional(rollbackFor = { InvalidOperationException.class, RuntimeException.class,
@@ -139,6 +149,7 @@ public class ProductService {
                                 i18nService.getMessage(MessageKey.ERROR_PRODUCT_ALREADY_EXISTS));
                     }
                     validateProductData(requestDTO);
+                    invalidateCachedViews(existing.getProductCode(), requestDTO.getProductCode());
                     productMapper.updateEntity(requestDTO, existing);
 
                     try {
@@ -149,7 +160,8 @@ public class ProductService {
                 });
     }
 
-    @CacheEvict(value = { "products_page", "product" }, allEntries = true)
+    @Caching(evict = { @CacheEvict(value = "product", key = "#id"),
+            @CacheEvict(value = CacheGenerationService.GENERATIONS_CACHE, key = "'product:' + #id") })
     @Deprecated(since = "2026-03", forRemoval = false)
     @Transactional(rollbackFor = { InvalidOperationException.class, RuntimeException.class, Exception.class })
     public void deleteById(Integer id) {
@@ -165,6 +177,7 @@ public class ProductService {
             throw new InvalidOperationException(
                     i18nService.getMessage(MessageKey.ERROR_PRODUCT_DELETE_IN_RECIPE));
         }
+        invalidateCachedViews(product.getProductCode());
         repository.delete(product);
     }
 
@@ -219,7 +232,8 @@ public class ProductService {
                 page.getTotalElements());
     }
 
-    @CacheEvict(value = { "products_page", "product" }, allEntries = true)
+    @Caching(evict = { @CacheEvict(value = "product", key = "#id"),
+            @CacheEvict(value = CacheGenerationService.GENERATIONS_CACHE, key = "'product:' + #id") })
     @ProductAuditable(action = "TOGGLE_HIDDEN")
     @Transactional(rollbackFor = { ResourceNotFoundException.class, InvalidOperationException.class })
     public void toggleProductHiddenStatus(Integer id, boolean hidden) {
@@ -227,20 +241,40 @@ public class ProductService {
                 .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + id));
 
         product.setHidden(hidden);
+        invalidateCachedViews(product.getProductCode());
         repository.save(product);
     }
 
+    /**
+     * Invalida las vistas del producto que no se pueden expresar con la clave
+     * del método: todas las páginas (nueva generación) y las entradas por
+     * código de barras.
+     */
+    private void invalidateCachedViews(String... productCodes) {
+        cacheGenerationService.advance("products_page");
+        for (String productCode : productCodes) {
+            if (productCode != null) {
+                cacheGenerationService.evict("product", "code:" + productCode);
+            }
+        }
+    }
+
     private boolean isValidUnit(String unit) {
         return unit != null && VALID_UNITS.contains(unit.toUpperCase());
     }
 
-    @CacheEvict(value = { "products_page", "product" }, allEntries = true)
+    @Caching(evict = { @CacheEvict(value = "product", key = "#id"),
+            @CacheEvict(value = CacheGenerationService.GENERATIONS_CACHE, key = "'product:' + #id") })
     @Transactional(rollbackFor = { InvalidOperationException.class, RuntimeException.class,
             Exception.class }, isolation = Isolation.REPEATABLE_READ)
     public Optional<ProductResponseDTO> updateStockManually(Integer id, ProductRequestDTO requestDTO) {
         return repository.findById(id)
                 .map(existing -> {
-                    BigDecimal previousStock = existing.getCurrentStock();
+                    // existing puede venir de la caché L2 con el stock de antes de un
+                    // movimiento en otro nodo: el delta parte de la fila bloqueada aquí
+                    BigDecimal previousStock = repository.lockStockById(id)
+                            .orElseThrow(() -> new ResourceNotFoundException(
+                                    i18nService.getMessage(MessageKey.ERROR_PRODUCT_NOT_FOUND)));
                     BigDecimal newStock = requestDTO.getCurrentStock();
                     BigDecimal stockDelta = newStock.subtract(previousStock);
 
@@ -250,6 +284,7 @@ public class ProductService {
                                 i18nService.getMessage(MessageKey.ERROR_PRODUCT_ALREADY_EXISTS));
                     }
                     validateProductData(requestDTO);
+                    invalidateCachedViews(existing.getProductCode(), requestDTO.getProductCode());
 
                     existing.setName(requestDTO.getName());
                     existing.setType(requestDTO.getType());
@@ -0,0 +1,314 @@
+package com.economato.inventory.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.economato.inventory.dto.RestPage;
+import com.economato.inventory.dto.response.ProductResponseDTO;
+import com.economato.inventory.dto.response.RecipeResponseDTO;
+import com.economato.inventory.mapper.ProductMapper;
+import com.economato.inventory.mapper.RecipeMapper;
+import com.economato.inventory.repository.ProductRepository;
+import com.economato.inventory.repository.RecipeRepository;
+
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Modelos de lectura de productos y recetas (ver db/migration/006): el DTO de
+ * respuesta ya resuelto como JSONB, una fila por elemento.
+ *
+ * Las lecturas devuelven vacío cuando el modelo no puede responder (desactivado,
+ * fila pendiente de proyectar, listado aún sin completar u orden no soportado)
+ * y el llamador recurre al esquema normalizado. Los detalles solo se sirven
+ * desde filas al día; los listados admiten filas marcadas stale durante los
+ * segundos que tarda la proyección.
+ *
+ * La proyección la dispara {@code ReadModelProjector} con los eventos del
+ * Outbox y con el barrido de filas stale.
+ */
+@Slf4j
+@Service
+public class ReadModelService {
+
+    private static final Map<String, String> PRODUCT_SORT_COLUMNS = Map.of("id", "m.product_id", "name", "m.name");
+    private static final Map<String, String> RECIPE_SORT_COLUMNS = Map.of("id", "m.recipe_id", "name", "m.name");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JsonMapper jsonMapper;
+    private final ProductRepository productRepository;
+    private final RecipeRepository recipeRepository;
+    private final ProductMapper productMapper;
+    private final RecipeMapper recipeMapper;
+    private final CacheGenerationService cacheGenerationService;
+    private final boolean enabled;
+
+    // Una vez rellenadas las filas de la migración no vuelven a faltar: se recuerda por nodo
+    private volatile boolean productsReady;
+    private volatile boolean recipesReady;
+
+    public ReadModelService(DataSource dataSource,
+            JsonMapper jsonMapper,
+            ProductRepository productRepository,
+            RecipeRepository recipeRepository,
+            ProductMapper productMapper,
+            RecipeMapper recipeMapper,
+            CacheGenerationService cacheGenerationService,
+            @Value("${read-model.enabled:false}") boolean enabled) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jsonMapper = jsonMapper;
+        this.productRepository = productRepository;
+        this.recipeRepository = recipeRepository;
+        this.productMapper = productMapper;
+        this.recipeMapper = recipeMapper;
+        this.cacheGenerationService = cacheGenerationService;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // ========== LECTURAS ==========
+
+    /** Detalle de un producto con el stock actual de product_stock. */
+    public Optional<ProductResponseDTO> findProduct(Integer id) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return jdbcTemplate.query("SELECT m.document, s.current_stock FROM product_read_model m"
+                + " JOIN product_stock s ON s.product_id = m.product_id"
+                + " WHERE m.product_id = ? AND NOT m.stale", this::mapProduct, id).stream().findFirst();
+    }
+
+    /** Página de productos visibles, o vacío si el modelo no puede servirla. */
+    public Optional<Page<ProductResponseDTO>> findProducts(Pageable pageable) {
+        if (!enabled || pageable.isUnpaged() || !productsReady()) {
+            return Optional.empty();
+        }
+        return orderBy(pageable.getSort(), PRODUCT_SORT_COLUMNS, "m.product_id").map(orderBy -> {
+            List<ProductResponseDTO> content = jdbcTemplate.query(
+                    "SELECT m.document, s.current_stock FROM product_read_model m"
+                            + " JOIN product_stock s ON s.product_id = m.product_id"
+                            + " WHERE NOT m.hidden AND m.document IS NOT NULL"
+                            + " ORDER BY " + orderBy + " LIMIT ? OFFSET ?",
+                    this::mapProduct, pageable.getPageSize(), pageable.getOffset());
+            Long total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM product_read_model m"
+                    + " JOIN product_stock s ON s.product_id = m.product_id"
+                    + " WHERE NOT m.hidden AND m.document IS NOT NULL", Long.class);
+            return new RestPage<>(content, pageable, total != null ? total : 0L);
+        });
+    }
+
+    public Optional<RecipeResponseDTO> findRecipe(Integer id) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return jdbcTemplate.query("SELECT m.document FROM recipe_read_model m WHERE m.recipe_id = ? AND NOT m.stale",
+                this::mapRecipe, id).stream().findFirst();
+    }
+
+    /** Página de recetas visibles, o vacío si el modelo no puede servirla. */
+    public Optional<Page<RecipeResponseDTO>> findRecipes(Pageable pageable) {
+        if (!enabled || pageable.isUnpaged() || !recipesReady()) {
+            return Optional.empty();
+        }
+        return orderBy(pageable.getSort(), RECIPE_SORT_COLUMNS, "m.recipe_id").map(orderBy -> {
+            List<RecipeResponseDTO> content = jdbcTemplate.query(
+                    "SELECT m.document FROM recipe_read_model m"
+                            + " WHERE NOT m.hidden AND m.document IS NOT NULL"
+                            + " ORDER BY " + orderBy + " LIMIT ? OFFSET ?",
+                    this::mapRecipe, pageable.getPageSize(), pageable.getOffset());
+            Long total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM recipe_read_model m"
+                    + " WHERE NOT m.hidden AND m.document IS NOT NULL", Long.class);
+            return new RestPage<>(content, pageable, total != null ? total : 0L);
+        });
+    }
+
+    private ProductResponseDTO mapProduct(ResultSet rs, int rowNum) throws SQLException {
+        ProductResponseDTO product = jsonMapper.readValue(rs.getString("document"), ProductResponseDTO.class);
+        product.setCurrentStock(rs.getBigDecimal("current_stock"));
+        return product;
+    }
+
+    private RecipeResponseDTO mapRecipe(ResultSet rs, int rowNum) throws SQLException {
+        return jsonMapper.readValue(rs.getString("document"), RecipeResponseDTO.class);
+    }
+
+    private boolean productsReady() {
+        if (!productsReady) {
+            productsReady = Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT NOT EXISTS (SELECT 1 FROM product_read_model WHERE projected_at IS NULL)", Boolean.class));
+        }
+        return productsReady;
+    }
+
+    private boolean recipesReady() {
+        if (!recipesReady) {
+            recipesReady = Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT NOT EXISTS (SELECT 1 FROM recipe_read_model WHERE projected_at IS NULL)", Boolean.class));
+        }
+        return recipesReady;
+    }
+
+    /**
+     * Traduce el orden de la página a columnas del modelo; vacío si pide una
+     * propiedad que el modelo no indexa. Se añade el id como desempate para que
+     * las páginas no se solapen.
+     */
+    static Optional<String> orderBy(Sort sort, Map<String, String> columns, String idColumn) {
+        if (sort.isUnsorted()) {
+            return Optional.of(idColumn);
+        }
+        StringJoiner clauses = new StringJoiner(", ");
+        boolean byId = false;
+        for (Sort.Order order : sort) {
+            String column = columns.get(order.getProperty());
+            if (column == null || order.isIgnoreCase()) {
+                return Optional.empty();
+            }
+            clauses.add(column + (order.isAscending() ? " ASC" : " DESC"));
+            byId |= column.equals(idColumn);
+        }
+        if (!byId) {
+            clauses.add(idColumn);
+        }
+        return Optional.of(clauses.toString());
+    }
+
+    // ========== PROYECCIÓN ==========
+
+    /**
+     * Vuelve a proyectar los productos indicados desde el estado actual.
+     *
+     * @return filas proyectadas
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public int projectProducts(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        // Bloquear las filas antes de leer el origen: una escritura concurrente
+        // espera a este commit y vuelve a marcar la fila como stale
+        lockRows("product_read_model", "product_id", ids);
+
+        List<ProductResponseDTO> products = productRepository.findProjectedByIdIn(ids).stream()
+                .map(productMapper::toResponseDTO)
+                .toList();
+        List<Object[]> rows = new ArrayList<>(products.size());
+        Set<Integer> missing = new HashSet<>(ids);
+        for (ProductResponseDTO product : products) {
+            // El stock se une al leer: guardarlo aquí solo daría una copia desfasada
+            product.setCurrentStock(null);
+            rows.add(new Object[] { product.getId(), product.getName(), product.isHidden(),
+                    jsonMapper.writeValueAsString(product) });
+            missing.remove(product.getId());
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO product_read_model (product_id, name, hidden, document, stale,"
+                + " projected_at) VALUES (?, ?, ?, ?::jsonb, FALSE, LOCALTIMESTAMP)"
+                + " ON CONFLICT (product_id) DO UPDATE SET name = EXCLUDED.name, hidden = EXCLUDED.hidden,"
+                + " document = EXCLUDED.document, stale = FALSE, projected_at = EXCLUDED.projected_at", rows);
+        deleteRows("product_read_model", "product_id", missing);
+
+        for (ProductResponseDTO product : products) {
+            cacheGenerationService.evict("product", product.getId());
+            cacheGenerationService.evict(CacheGenerationService.GENERATIONS_CACHE, "product:" + product.getId());
+        }
+        cacheGenerationService.advance("products_page");
+        return products.size();
+    }
+
+    /**
+     * Vuelve a proyectar las recetas indicadas desde el estado actual.
+     *
+     * @return filas proyectadas
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public int projectRecipes(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        lockRows("recipe_read_model", "recipe_id", ids);
+
+        List<RecipeResponseDTO> recipes = recipeRepository.findProjectedByIdIn(ids).stream()
+                .map(recipeMapper::toResponseDTO)
+                .toList();
+        List<Object[]> rows = new ArrayList<>(recipes.size());
+        Set<Integer> missing = new HashSet<>(ids);
+        for (RecipeResponseDTO recipe : recipes) {
+            rows.add(new Object[] { recipe.getId(), recipe.getName(), recipe.isHidden(),
+                    jsonMapper.writeValueAsString(recipe) });
+            missing.remove(recipe.getId());
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO recipe_read_model (recipe_id, name, hidden, document, stale,"
+                + " projected_at) VALUES (?, ?, ?, ?::jsonb, FALSE, LOCALTIMESTAMP)"
+                + " ON CONFLICT (recipe_id) DO UPDATE SET name = EXCLUDED.name, hidden = EXCLUDED.hidden,"
+                + " document = EXCLUDED.document, stale = FALSE, projected_at = EXCLUDED.projected_at", rows);
+        deleteRows("recipe_read_model", "recipe_id", missing);
+
+        for (RecipeResponseDTO recipe : recipes) {
+            cacheGenerationService.evict("recipe", recipe.getId());
+            cacheGenerationService.evict(CacheGenerationService.GENERATIONS_CACHE, "recipe:" + recipe.getId());
+        }
+        cacheGenerationService.advance("recipes_page");
+        return recipes.size();
+    }
+
+    /**
+     * Proyecta hasta {@code limit} productos marcados stale. SKIP LOCKED reparte
+     * el barrido entre nodos sin esperas.
+     *
+     * @return filas proyectadas; menos que {@code limit} cuando no quedan más
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public int projectStaleProducts(int limit) {
+        List<Integer> ids = jdbcTemplate.queryForList("SELECT product_id FROM product_read_model WHERE stale"
+                + " ORDER BY product_id LIMIT ? FOR UPDATE SKIP LOCKED", Integer.class, limit);
+        projectProducts(ids);
+        return ids.size();
+    }
+
+    /** Igual que {@link #projectStaleProducts(int)} para recetas. */
+    @Transactional(rollbackFor = Exception.class)
+    public int projectStaleRecipes(int limit) {
+        List<Integer> ids = jdbcTemplate.queryForList("SELECT recipe_id FROM recipe_read_model WHERE stale"
+                + " ORDER BY recipe_id LIMIT ? FOR UPDATE SKIP LOCKED", Integer.class, limit);
+        projectRecipes(ids);
+        return ids.size();
+    }
+
+    private void lockRows(String table, String idColumn, Collection<Integer> ids) {
+        jdbcTemplate.queryForList("SELECT " + idColumn + " FROM " + table + " WHERE " + idColumn
+                + " = ANY (?) ORDER BY " + idColumn + " FOR UPDATE", Integer.class,
+                (Object) ids.toArray(Integer[]::new));
+    }
+
+    /** Filas de elementos que ya no existen (el disparador de borrado no llegó a verlas). */
+    private void deleteRows(String table, String idColumn, Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        int deleted = jdbcTemplate.update("DELETE FROM " + table + " WHERE " + idColumn + " = ANY (?)",
+                (Object) ids.toArray(Integer[]::new));
+        if (deleted > 0) {
+            log.debug("{} filas de {} sin origen eliminadas", deleted, table);
+        }
+    }
+}
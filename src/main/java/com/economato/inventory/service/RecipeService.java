@@ -6,6 +6,7 @@ import com.economato.inventory.i18n.MessageKey;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -14,6 +15,7 @@ import org.springframework.transaction.annotation.Transactional;
 import com.economato.inventory.annotation.RecipeAuditable;
 import com.economato.inventory.annotation.RecipeCookingAuditable;
 import com.economato.inventory.dto.RestPage;
+import com.economato.inventory.dto.request.BatchMovementItem;
 import com.economato.inventory.dto.request.RecipeComponentRequestDTO;
 import com.economato.inventory.dto.request.RecipeCookingRequestDTO;
 import com.economato.inventory.dto.request.RecipeRequestDTO;
@@ -36,8 +38,10 @@ import com.economato.inventory.repository.RecipeRepository;
 import com.economato.inventory.security.SecurityContextHelper;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -55,6 +59,8 @@ public class RecipeService {
     private final StatsMapper statsMapper;
     private final StockLedgerService stockLedgerService;
     private final SecurityContextHelper securityContextHelper;
+    private final CacheGenerationService cacheGenerationService;
+    private final ReadModelService readModelService;
 
     public RecipeService(I18nService i18nService, RecipeRepository repository,
             ProductRepository productRepository,
@@ -62,7 +68,9 @@ public class RecipeService {
             RecipeMapper recipeMapper,
             StatsMapper statsMapper,
             StockLedgerService stockLedgerService,
-            SecurityContextHelper securityContextHelper) {
+            SecurityContextHelper securityContextHelper,
+            CacheGenerationService cacheGenerationService,
+            ReadModelService readModelService) {
         this.i18nService = i18nService;
         this.repository = repository;
         this.productRepository = productRepository;
@@ -71,24 +79,28 @@ public class RecipeService {
         this.statsMapper = statsMapper;
         this.stockLedgerService = stockLedgerService;
         this.securityContextHelper = securityContextHelper;
+        this.cacheGenerationService = cacheGenerationService;
+        this.readModelService = readModelService;
     }
 
-    @Cacheable(value = "recipes_page", key = "#pageable.pageNumber + '-' + #pageable.pageSize + '-' + #pageable.sort")
+    @Cacheable(value = "recipes_page", key = "@cacheGenerationService.current('recipes_page') + ':' + #pageable.pageNumber + '-' + #pageable.pageSize + '-' + #pageable.sort", sync = true)
     @Transactional(readOnly = true)
     public Page<RecipeResponseDTO> findAll(Pageable pageable) {
-        Page<RecipeResponseDTO> page = repository.findByIsHiddenFalse(pageable)
-                .map(recipeMapper::toResponseDTO);
-        return new RestPage<>(page.getContent(), page.getPageable(),
-                page.getTotalElements());
+        return readModelService.findRecipes(pageable).orElseGet(() -> {
+            Page<RecipeResponseDTO> page = repository.findByIsHiddenFalse(pageable)
+                    .map(recipeMapper::toResponseDTO);
+            return new RestPage<>(page.getContent(), page.getPageable(),
+                    page.getTotalElements());
+        });
     }
 
-    @Cacheable(value = "recipe", key = "#id")
+    @Cacheable(value = "recipe", key = "#id", sync = true)
     @Transactional(readOnly = true)
     public Optional<RecipeResponseDTO> findById(Integer id) {
-        return repository.findProjectedById(id).map(recipeMapper::toResponseDTO);
+        return readModelService.findRecipe(id)
+                .or(() -> repository.findProjectedById(id).map(recipeMapper::toResponseDTO));
     }
 
-    @CacheEvict(value = { "recipes_page", "recipe" }, allEntries = true)
     @RecipeAuditable(action = "CREATE_RECIPE")
     @Transactional(rollbackFor = { InvalidOperationException.class, ResourceNotFoundException.class,
             RuntimeException.class, Exception.class })
@@ -96,12 +108,14 @@ public class RecipeService {
         Recipe recipe = toEntity(requestDTO);
         calculateTotalCost(recipe);
         recipe = repository.save(recipe);
+        cacheGenerationService.advance("recipes_page");
 
         // Return using mapper for consistency with entity state
         return recipeMapper.toResponseDTO(recipe);
     }
 
-    @CacheEvict(value = { "recipes_page", "recipe" }, allEntries = true)
+    @Caching(evict = { @CacheEvict(value = "recipe", key = "#id"),
+            @CacheEvict(value = CacheGenerationService.GENERATIONS_CACHE, key = "'recipe:' + #id") })
     @RecipeAuditable(action = "UPDATE_RECIPE")
     @Transactional(rollbackFor = { InvalidOperationException.class, ResourceNotFoundException.class,
             RuntimeException.class, Exception.class })
@@ -111,16 +125,19 @@ public class RecipeService {
                     updateEntity(existing, requestDTO);
                     calculateTotalCost(existing);
                     Recipe saved = repository.save(existing);
+                    cacheGenerationService.advance("recipes_page");
                     return recipeMapper.toResponseDTO(saved);
                 });
     }
 
-    @CacheEvict(value = { "recipes_page", "recipe" }, allEntries = true)
+    @Caching(evict = { @CacheEvict(value = "recipe", key = "#id"),
+            @CacheEvict(value = CacheGenerationService.GENERATIONS_CACHE, key = "'recipe:' + #id") })
     @Deprecated(since = "2026-03", forRemoval = false)
     @Transactional(rollbackFor = { InvalidOperationException.class, ResourceNotFoundException.class,
             RuntimeException.class, Exception.class })
     public void deleteById(Integer id) {
         repository.deleteById(id);
+        cacheGenerationService.advance("recipes_page");
     }
 
     @Transactional(readOnly = true)
@@ -145,7 +162,8 @@ public class RecipeService {
                 page.getTotalElements());
     }
 
-    @CacheEvict(value = { "recipes_page", "recipe" }, allEntries = true)
+    @Caching(evict = { @CacheEvict(value = "recipe", key = "#id"),
+            @CacheEvict(value = CacheGenerationService.GENERATIONS_CACHE, key = "'recipe:' + #id") })
     @RecipeAuditable(action = "TOGGLE_HIDDEN")
     @Transactional(rollbackFor = { ResourceNotFoundException.class, InvalidOperationException.class })
     public void toggleRecipeHiddenStatus(Integer id, boolean hidden) {
@@ -155,6 +173,7 @@ public class RecipeService {
 
         recipe.setHidden(hidden);
         repository.save(recipe);
+        cacheGenerationService.advance("recipes_page");
     }
 
     private Recipe toEntity(RecipeRequestDTO requestDTO) {
@@ -283,11 +302,23 @@ public class RecipeService {
 
         User currentUser = securityContextHelper.getCurrentUser();
 
+        // Una consulta para todos los productos en vez de una por componente
+        Map<Integer, Product> products = productRepository.findAllById(recipe.getComponents().stream()
+                .map(component -> component.getProduct().getId())
+                .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Product::getId, product -> product));
+
+        String movementDescription = String.format("Cocinado de receta '%s' - Cantidad: %s", recipe.getName(),
+                cookingRequest.getQuantity());
+        List<BatchMovementItem> movements = new ArrayList<>(recipe.getComponents().size());
         for (RecipeComponent component : recipe.getComponents()) {
-            Product product = productRepository.findById(component.getProduct().getId())
-                    .orElseThrow(() -> new ResourceNotFoundException(
-                            i18nService.getMessage(MessageKey.ERROR_PRODUCT_NOT_FOUND) + ": "
-                                    + component.getProduct().getId()));
+            Product product = products.get(component.getProduct().getId());
+            if (product == null) {
+                throw new ResourceNotFoundException(
+                        i18nService.getMessage(MessageKey.ERROR_PRODUCT_NOT_FOUND) + ": "
+                                + component.getProduct().getId());
+            }
 
             BigDecimal requiredQuantity = component.getQuantity().multiply(cookingRequest.getQuantity());
 
@@ -306,19 +337,14 @@ public class RecipeService {
                                 ". Solicitado: " + requiredQuantity + ", Disponible: " + usableStock);
             }
 
-            stockLedgerService.recordStockMovement(
-                    product.getId(),
-                    requiredQuantity.negate(),
-                    MovementType.SALIDA,
-                    String.format("Cocinado de receta '%s' - Cantidad: %s", recipe.getName(),
-                            cookingRequest.getQuantity()),
-                    currentUser,
-                    null);
-
-            log.info("Stock descontado del ledger: producto={}, cantidad={}",
-                    product.getName(), requiredQuantity);
+            movements.add(new BatchMovementItem(product.getId(), requiredQuantity.negate(), MovementType.SALIDA,
+                    movementDescription));
         }
 
+        // Todos los descuentos se encadenan en memoria y se escriben en un solo lote
+        stockLedgerService.recordBatchStockMovements(movements, currentUser, null);
+        log.info("Stock descontado del ledger: {} productos", movements.size());
+
         log.info("Receta cocinada exitosamente: receta={}, cantidad={}, usuario={}",
                 recipe.getName(), cookingRequest.getQuantity(),
                 currentUser != null ? currentUser.getName() : "Sistema");
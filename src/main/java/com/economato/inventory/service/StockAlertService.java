@@ -1,6 +1,7 @@
 package com.economato.inventory.service;
 
 import com.economato.inventory.dto.projection.PendingProductQuantity;
+import com.economato.inventory.dto.projection.ProductTopRecipe;
 import com.economato.inventory.dto.projection.WeeklyIngredientConsumption;
 import com.economato.inventory.dto.response.AlertResolution;
 import com.economato.inventory.dto.response.AlertSeverity;
@@ -137,22 +138,41 @@ public class StockAlertService {
         }
 
         Map<Integer, BigDecimal> pendingByProduct = buildPendingMap();
-        Map<Integer, BigDecimal> stockByProduct = buildStockMap();
+        Map<Integer, Product> products = buildProductMap(persistedPredictions.keySet());
 
-        List<StockAlertDTO> alerts = new ArrayList<>();
+        // Primero se evalúan todos; las recetas que más consumen se piden de una
+        // vez solo para los productos que acaban con alerta
+        Map<Integer, StockAlertDTO.StockAlertDTOBuilder> candidates = new LinkedHashMap<>();
         for (Map.Entry<Integer, BigDecimal> entry : persistedPredictions.entrySet()) {
             Integer productId = entry.getKey();
             BigDecimal projected = entry.getValue();
 
-            BigDecimal currentStock = stockByProduct.getOrDefault(productId, BigDecimal.ZERO);
+            Product product = products.get(productId);
+            if (product == null) {
+                continue;
+            }
+            // Los productos ocultos cuentan como sin stock
+            BigDecimal currentStock = !product.isHidden() && product.getCurrentStock() != null
+                    ? product.getCurrentStock()
+                    : BigDecimal.ZERO;
             BigDecimal pending = pendingByProduct.getOrDefault(productId, BigDecimal.ZERO);
 
-            StockAlertDTO alert = buildAlert(productId, currentStock, pending, projected, since);
+            StockAlertDTO.StockAlertDTOBuilder alert = buildAlert(product, currentStock, pending, projected);
             if (alert != null) {
-                alerts.add(alert);
+                candidates.put(productId, alert);
             }
         }
 
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Integer, List<String>> topRecipes = buildTopRecipesMap(candidates.keySet(), since);
+        List<StockAlertDTO> alerts = new ArrayList<>(candidates.size());
+        candidates.forEach((productId, alert) -> alerts.add(alert
+                .topConsumingRecipes(topRecipes.getOrDefault(productId, List.of()))
+                .build()));
+
         return alerts;
     }
 
@@ -213,18 +233,10 @@ public class StockAlertService {
         log.info("[Async] Recálculo completado para receta ID: {}", recipeId);
     }
 
-    private StockAlertDTO buildAlert(Integer productId,
+    private StockAlertDTO.StockAlertDTOBuilder buildAlert(Product product,
             BigDecimal currentStock,
             BigDecimal pending,
-            BigDecimal projected,
-            LocalDateTime since) {
-
-        // Recuperar nombre y unidad del producto
-        var productOpt = productRepository.findById(productId);
-        if (productOpt.isEmpty())
-            return null;
-        var product = productOpt.get();
-        String unit = product.getUnit();
+            BigDecimal projected) {
 
         BigDecimal effective = currentStock.add(pending);
         BigDecimal gap = projected.subtract(effective).setScale(3, RoundingMode.HALF_UP);
@@ -250,11 +262,8 @@ public class StockAlertService {
         String message = buildMessage(product.getName(), currentStock, pending, projected, gap,
                 resolution, product.getUnit());
 
-        List<String> topRecipes = cookingAuditRepository
-                .findTopConsumingRecipesByProduct(productId, since);
-
         return StockAlertDTO.builder()
-                .productId(productId)
+                .productId(product.getId())
                 .productName(product.getName())
                 .unit(product.getUnit())
                 .currentStock(currentStock)
@@ -264,9 +273,7 @@ public class StockAlertService {
                 .estimatedDaysRemaining(Math.min(daysRemaining, 999))
                 .severity(severity)
                 .resolution(resolution)
-                .message(message)
-                .topConsumingRecipes(topRecipes)
-                .build();
+                .message(message);
     }
 
     // -------------------------------------------------------------------------
@@ -382,13 +389,18 @@ public class StockAlertService {
                         p -> p.getPendingQuantity() != null ? p.getPendingQuantity() : BigDecimal.ZERO));
     }
 
-    private Map<Integer, BigDecimal> buildStockMap() {
-        return productRepository.findAll()
+    private Map<Integer, Product> buildProductMap(Collection<Integer> productIds) {
+        return productRepository.findAllById(productIds)
                 .stream()
-                .filter(p -> !p.isHidden())
-                .collect(Collectors.toMap(
-                        p -> p.getId(),
-                        p -> p.getCurrentStock() != null ? p.getCurrentStock() : BigDecimal.ZERO));
+                .collect(Collectors.toMap(Product::getId, p -> p));
+    }
+
+    private Map<Integer, List<String>> buildTopRecipesMap(Collection<Integer> productIds, LocalDateTime since) {
+        return cookingAuditRepository.findTopConsumingRecipesByProducts(productIds, since)
+                .stream()
+                .collect(Collectors.groupingBy(
+                        ProductTopRecipe::getProductId,
+                        Collectors.mapping(ProductTopRecipe::getRecipeName, Collectors.toList())));
     }
 
     private Map<Integer, BigDecimal> buildPredictionMap() {
@@ -1,5 +1,6 @@
 package com.economato.inventory.service;
 
+import com.economato.inventory.annotation.AnalyticsQuery;
 import com.economato.inventory.dto.response.IntegrityCheckResult;
 import com.economato.inventory.dto.response.LedgerPdfResponseDTO;
 import com.economato.inventory.exception.ResourceNotFoundException;
@@ -75,6 +76,8 @@ public class StockLedgerPdfService {
         this.stockLedgerService = stockLedgerService;
     }
 
+    @AnalyticsQuery
+    @Transactional(readOnly = true)
     public byte[] generateStockLedgerPdf(Integer productId) {
         try {
             var product = productRepository.findById(productId)
@@ -133,6 +136,8 @@ public class StockLedgerPdfService {
      * @param productId ID del producto
      * @return DTO con el PDF y la información de integridad
      */
+    @AnalyticsQuery
+    @Transactional(readOnly = true)
     public LedgerPdfResponseDTO generateStockLedgerPdfWithIntegrity(Integer productId) {
         // Generar el PDF
         byte[] pdfContent = generateStockLedgerPdf(productId);
@@ -1,5 +1,6 @@
 package com.economato.inventory.service;
 
+import com.economato.inventory.annotation.AnalyticsQuery;
 import com.economato.inventory.i18n.I18nService;
 import com.economato.inventory.i18n.MessageKey;
 import io.micrometer.core.instrument.Counter;
@@ -35,8 +36,12 @@ import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeSet;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -52,6 +57,7 @@ public class StockLedgerService {
     private final OrderRepository orderRepository;
     private final RecipeCookingAuditRepository recipeCookingAuditRepository;
     private final SecurityContextHelper securityContextHelper;
+    private final CacheGenerationService cacheGenerationService;
     private final Environment environment;
 
     // Métricas declaradas como final para thread-safety
@@ -68,6 +74,7 @@ public class StockLedgerService {
             OrderRepository orderRepository,
             RecipeCookingAuditRepository recipeCookingAuditRepository,
             SecurityContextHelper securityContextHelper,
+            CacheGenerationService cacheGenerationService,
             Environment environment,
             MeterRegistry meterRegistry) {
         this.i18nService = i18nService;
@@ -77,6 +84,7 @@ public class StockLedgerService {
         this.orderRepository = orderRepository;
         this.recipeCookingAuditRepository = recipeCookingAuditRepository;
         this.securityContextHelper = securityContextHelper;
+        this.cacheGenerationService = cacheGenerationService;
         this.environment = environment;
 
         // Inicializar métricas
@@ -110,34 +118,86 @@ public class StockLedgerService {
             User user,
             Integer orderId) {
 
-        log.info("Registrando movimiento: Producto={}, Delta={}, Tipo={}",
-                productId, quantityDelta, movementType);
+        ChainHead head = loadChainHeads(List.of(productId)).get(productId);
+        return appendMovement(head, quantityDelta, movementType, description, user, orderId);
+    }
+
+    /**
+     * Bloquea y lee de una vez, antes de escribir nada, todo lo que necesitan
+     * los movimientos: stock, snapshot y última transacción de cada producto.
+     * Así ninguna consulta posterior provoca un flush automático y los INSERT
+     * del ledger salen en un único lote al confirmar.
+     */
+    private Map<Integer, ChainHead> loadChainHeads(Collection<Integer> productIds) {
+        // Orden de id: dos lotes con productos en común bloquean en el mismo orden
+        List<Integer> ids = new ArrayList<>(new TreeSet<>(productIds));
 
         boolean isTestProfile = Arrays.asList(environment.getActiveProfiles()).contains("test");
 
-        Product product;
+        List<Product> products;
         if (isTestProfile) {
-            product = productRepository.findById(productId)
-                    .orElseThrow(() -> new InvalidOperationException("Producto no encontrado: " + productId));
+            products = productRepository.findAllById(ids);
         } else {
-            product = productRepository.findByIdForUpdate(productId)
-                    .orElseThrow(() -> new InvalidOperationException("Producto no encontrado: " + productId));
+            // Se bloquean solo las filas de product_stock: las ediciones de
+            // catálogo no esperan a los movimientos. Los productos se leen con
+            // una consulta y no de la caché L2 para partir del stock bloqueado.
+            productRepository.lockStockByIds(ids);
+            products = productRepository.findAllByIdOptimized(ids);
         }
 
-        StockSnapshot snapshot = snapshotRepository.findById(productId)
-                .orElseGet(() -> createInitialSnapshot(product));
+        Map<Integer, StockSnapshot> snapshots = new HashMap<>();
+        for (StockSnapshot snapshot : snapshotRepository.findAllById(ids)) {
+            snapshots.put(snapshot.getProductId(), snapshot);
+        }
+        Map<Integer, StockLedger> lastTransactions = new HashMap<>();
+        for (StockLedger last : ledgerRepository.findLastTransactionsByProductIds(ids)) {
+            lastTransactions.put(last.getProduct().getId(), last);
+        }
 
-        BigDecimal newStock = snapshot.getCurrentStock().add(quantityDelta);
+        Map<Integer, ChainHead> heads = new HashMap<>();
+        for (Product product : products) {
+            StockSnapshot snapshot = snapshots.get(product.getId());
+            StockLedger last = lastTransactions.get(product.getId());
+            heads.put(product.getId(), new ChainHead(
+                    product,
+                    snapshot != null ? snapshot : createInitialSnapshot(product),
+                    last != null ? last.getCurrentHash() : GENESIS_HASH,
+                    last != null ? last.getSequenceNumber() + 1 : 1L));
+        }
+        for (Integer id : ids) {
+            if (!heads.containsKey(id)) {
+                throw new InvalidOperationException("Producto no encontrado: " + id);
+            }
+        }
+        return heads;
+    }
+
+    /**
+     * Encadena un movimiento a la cabeza en memoria y la avanza. Solo guarda
+     * entidades: no lanza consultas.
+     */
+    private StockLedger appendMovement(
+            ChainHead head,
+            BigDecimal quantityDelta,
+            MovementType movementType,
+            String description,
+            User user,
+            Integer orderId) {
+
+        Product product = head.product;
+        log.info("Registrando movimiento: Producto={}, Delta={}, Tipo={}",
+                product.getId(), quantityDelta, movementType);
+
+        BigDecimal newStock = head.snapshot.getCurrentStock().add(quantityDelta);
 
         if (newStock.compareTo(BigDecimal.ZERO) < 0) {
             throw new InvalidOperationException(
                     String.format("Stock insuficiente. Actual: %s, Solicitado: %s",
-                            snapshot.getCurrentStock(), quantityDelta.abs()));
+                            head.snapshot.getCurrentStock(), quantityDelta.abs()));
         }
 
-        Optional<StockLedger> lastTransaction = ledgerRepository.findLastTransactionByProductId(productId);
-        String previousHash = lastTransaction.map(StockLedger::getCurrentHash).orElse(GENESIS_HASH);
-        Long nextSequence = lastTransaction.map(t -> t.getSequenceNumber() + 1).orElse(1L);
+        String previousHash = head.previousHash;
+        Long nextSequence = head.nextSequence;
 
         LocalDateTime now = normalizeTimestamp(LocalDateTime.now());
 
@@ -145,7 +205,7 @@ public class StockLedgerService {
         BigDecimal normalizedStock = newStock.setScale(3, java.math.RoundingMode.HALF_UP);
 
         String currentHash = calculateTransactionHash(
-                productId,
+                product.getId(),
                 normalizedDelta,
                 normalizedStock,
                 now,
@@ -172,21 +232,55 @@ public class StockLedgerService {
         // Incrementar métrica de movimientos totales
         stockMovementsCounter.increment();
 
+        StockSnapshot snapshot = head.snapshot;
         snapshot.setCurrentStock(normalizedStock);
         snapshot.setLastTransactionHash(currentHash);
         snapshot.setLastSequenceNumber(nextSequence);
         snapshot.setLastUpdated(now);
         snapshot.setIntegrityStatus("VALID");
-        snapshotRepository.save(snapshot);
+        head.snapshot = snapshotRepository.save(snapshot);
 
+        // Solo cambia product_stock: la versión del producto no se incrementa
         product.setCurrentStock(normalizedStock);
         productRepository.save(product);
+        evictStockViews(product);
+
+        head.previousHash = currentHash;
+        head.nextSequence = nextSequence + 1;
 
         log.info("Movimiento registrado: TX#{} Hash={}", nextSequence, currentHash.substring(0, 8));
 
         return transaction;
     }
 
+    /** Estado de la cadena de un producto mientras se le encadenan movimientos. */
+    private static final class ChainHead {
+        private final Product product;
+        private StockSnapshot snapshot;
+        private String previousHash;
+        private long nextSequence;
+
+        private ChainHead(Product product, StockSnapshot snapshot, String previousHash, long nextSequence) {
+            this.product = product;
+            this.snapshot = snapshot;
+            this.previousHash = previousHash;
+            this.nextSequence = nextSequence;
+        }
+    }
+
+    /**
+     * Descarta las vistas cacheadas de este producto, que incluyen su stock.
+     * Las páginas de productos no avanzan de generación: un movimiento no
+     * cambia ningún dato de catálogo.
+     */
+    private void evictStockViews(Product product) {
+        cacheGenerationService.evict("product", product.getId());
+        cacheGenerationService.evict(CacheGenerationService.GENERATIONS_CACHE, "product:" + product.getId());
+        if (product.getProductCode() != null) {
+            cacheGenerationService.evict("product", "code:" + product.getProductCode());
+        }
+    }
+
     private String calculateTransactionHash(
             Integer productId,
             BigDecimal quantityDelta,
@@ -216,6 +310,27 @@ public class StockLedgerService {
         });
     }
 
+    /**
+     * Recalcula el hash de una transacción leída fuera de JPA (importación
+     * masiva), con la misma normalización que {@link #verifyChainIntegrity}.
+     */
+    String recalculateHash(
+            Integer productId,
+            BigDecimal quantityDelta,
+            BigDecimal resultingStock,
+            LocalDateTime timestamp,
+            String previousHash,
+            Long sequenceNumber) {
+
+        return calculateTransactionHash(
+                productId,
+                quantityDelta.setScale(3, java.math.RoundingMode.HALF_UP),
+                resultingStock.setScale(3, java.math.RoundingMode.HALF_UP),
+                normalizeTimestamp(timestamp),
+                previousHash,
+                sequenceNumber);
+    }
+
     @Transactional(readOnly = true)
     public IntegrityCheckResult verifyChainIntegrity(Integer productId) {
         log.info("Verificando integridad del ledger para producto {}", productId);
@@ -295,6 +410,7 @@ public class StockLedgerService {
         }
     }
 
+    @AnalyticsQuery
     @Transactional
     public List<IntegrityCheckResult> verifyAllChains() {
         log.info("Verificando integridad de todas las cadenas...");
@@ -457,9 +573,11 @@ public class StockLedgerService {
         List<StockLedger> transactions = new ArrayList<>();
 
         try {
+            Map<Integer, ChainHead> heads = loadChainHeads(
+                    movements.stream().map(BatchMovementItem::getProductId).toList());
             for (BatchMovementItem item : movements) {
-                StockLedger transaction = recordStockMovementInternal(
-                        item.getProductId(),
+                StockLedger transaction = appendMovement(
+                        heads.get(item.getProductId()),
                         item.getQuantityDelta(),
                         item.getMovementType(),
                         item.getDescription(),
@@ -0,0 +1,135 @@
+package com.economato.inventory.service.warmup;
+
+import java.lang.reflect.Method;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Identificador persistible de una llamada a un método {@link Cacheable}:
+ * {@code clase#método#arg1|arg2...}.
+ *
+ * Solo se admiten argumentos Integer, Long, String y Pageable, que cubren las
+ * claves de las cachés actuales; las llamadas con otros tipos no se registran.
+ * Al decodificar solo se aceptan clases de la aplicación y métodos anotados
+ * con {@code @Cacheable}, ya que las claves se leen de Redis.
+ */
+public final class CacheAccessKey {
+
+    private static final String APPLICATION_PACKAGE = "com.economato.inventory.";
+    private static final String NULL = "~";
+    private static final String UNPAGED = "unpaged";
+
+    private CacheAccessKey() {
+    }
+
+    /** Clave de la llamada, o nulo si algún argumento no es codificable. */
+    public static String encode(Class<?> targetClass, Method method, Object[] args) {
+        StringBuilder key = new StringBuilder(targetClass.getName())
+                .append('#').append(method.getName()).append('#');
+        for (int i = 0; i < args.length; i++) {
+            String encoded = encodeArg(args[i]);
+            if (encoded == null) {
+                return null;
+            }
+            if (i > 0) {
+                key.append('|');
+            }
+            key.append(encoded);
+        }
+        return key.toString();
+    }
+
+    /** Llamada descrita por la clave, o nulo si no corresponde a un método cacheable. */
+    public static Invocation decode(String key) {
+        String[] parts = key.split("#", -1);
+        if (parts.length != 3 || !parts[0].startsWith(APPLICATION_PACKAGE)) {
+            return null;
+        }
+        try {
+            Class<?> targetClass = Class.forName(parts[0]);
+            String[] encodedArgs = parts[2].isEmpty() ? new String[0] : parts[2].split("\\|", -1);
+            for (Method method : targetClass.getMethods()) {
+                if (method.getName().equals(parts[1])
+                        && method.getParameterCount() == encodedArgs.length
+                        && method.isAnnotationPresent(Cacheable.class)) {
+                    Object[] args = new Object[encodedArgs.length];
+                    Class<?>[] types = method.getParameterTypes();
+                    for (int i = 0; i < args.length; i++) {
+                        args[i] = decodeArg(encodedArgs[i], types[i]);
+                    }
+                    return new Invocation(targetClass, method, args);
+                }
+            }
+        } catch (ClassNotFoundException | RuntimeException e) {
+            return null;
+        }
+        return null;
+    }
+
+    private static String encodeArg(Object arg) {
+        if (arg == null) {
+            return NULL;
+        }
+        if (arg instanceof Integer || arg instanceof Long) {
+            return arg.toString();
+        }
+        if (arg instanceof String value) {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8);
+        }
+        if (arg instanceof Pageable pageable) {
+            if (pageable.isUnpaged()) {
+                return UNPAGED;
+            }
+            List<String> orders = new ArrayList<>();
+            pageable.getSort().forEach(order -> orders.add(order.getProperty() + ':' + order.getDirection()));
+            return pageable.getPageNumber() + ":" + pageable.getPageSize() + ":"
+                    + URLEncoder.encode(String.join(",", orders), StandardCharsets.UTF_8);
+        }
+        return null;
+    }
+
+    private static Object decodeArg(String value, Class<?> type) {
+        if (NULL.equals(value)) {
+            return null;
+        }
+        if (type == Integer.class || type == int.class) {
+            return Integer.valueOf(value);
+        }
+        if (type == Long.class || type == long.class) {
+            return Long.valueOf(value);
+        }
+        if (type == String.class) {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8);
+        }
+        if (type == Pageable.class) {
+            if (UNPAGED.equals(value)) {
+                return Pageable.unpaged();
+            }
+            String[] parts = value.split(":", 3);
+            String orders = URLDecoder.decode(parts[2], StandardCharsets.UTF_8);
+            Sort sort = Sort.unsorted();
+            if (!orders.isEmpty()) {
+                List<Sort.Order> parsed = new ArrayList<>();
+                for (String order : orders.split(",")) {
+                    int separator = order.lastIndexOf(':');
+                    parsed.add(new Sort.Order(Sort.Direction.valueOf(order.substring(separator + 1)),
+                            order.substring(0, separator)));
+                }
+                sort = Sort.by(parsed);
+            }
+            return PageRequest.of(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), sort);
+        }
+        throw new IllegalArgumentException("Tipo de argumento no soportado: " + type.getName());
+    }
+
+    public record Invocation(Class<?> targetClass, Method method, Object[] args) {
+    }
+}
@@ -0,0 +1,112 @@
+package com.economato.inventory.service.warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.connection.zset.Aggregate;
+import org.springframework.data.redis.connection.zset.Weights;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Frecuencia de acceso a las cachés, usada para calentar tras un despliegue.
+ *
+ * Cada llamada a un método {@code @Cacheable} se anota en un
+ * {@link HotKeySketch} local. Periódicamente el top de la ventana se suma al
+ * sorted set {@value #HOT_KEYS}, compartido por todos los nodos. Las
+ * puntuaciones se reducen a la mitad una vez por {@code cache.warmup.decay-period}
+ * (con un candado en Redis para que no lo haga cada nodo), de forma que el
+ * conjunto refleja el tráfico reciente.
+ */
+@Slf4j
+@Component
+@Profile("!test")
+public class CacheAccessTracker {
+
+    static final String HOT_KEYS = "cache:warmup:hot-keys";
+    static final String DECAY_LOCK = "cache:warmup:decay";
+
+    private final StringRedisTemplate redisTemplate;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final HotKeySketch sketch;
+    private final int storedKeys;
+    private final Duration decayPeriod;
+    private volatile boolean paused;
+
+    public CacheAccessTracker(StringRedisTemplate redisTemplate,
+            CircuitBreakerRegistry circuitBreakerRegistry,
+            @Value("${cache.warmup.top-k:200}") int topK,
+            @Value("${cache.warmup.decay-period:PT6H}") Duration decayPeriod) {
+        this.redisTemplate = redisTemplate;
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.sketch = new HotKeySketch(topK * 16, topK);
+        // Se guarda más que el top-K para que las claves que suben despacio no se pierdan
+        this.storedKeys = topK * 4;
+        this.decayPeriod = decayPeriod;
+    }
+
+    public void record(String key) {
+        if (!paused && key != null) {
+            sketch.record(key);
+        }
+    }
+
+    /** Deja de registrar accesos, p.ej. mientras el propio warmup hace llamadas. */
+    public void pause() {
+        paused = true;
+    }
+
+    public void resume() {
+        paused = false;
+    }
+
+    @Scheduled(fixedDelayString = "${cache.warmup.persist-interval:PT1M}")
+    public void persist() {
+        if (isRedisCircuitOpen()) {
+            return;
+        }
+        Map<String, Long> window = sketch.drain();
+        if (window.isEmpty()) {
+            return;
+        }
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(DECAY_LOCK, "1", decayPeriod))) {
+                redisTemplate.opsForZSet().unionAndStore(HOT_KEYS, List.of(), HOT_KEYS,
+                        Aggregate.SUM, Weights.of(0.5));
+            }
+            window.forEach((key, count) -> redisTemplate.opsForZSet().incrementScore(HOT_KEYS, key, count));
+            redisTemplate.opsForZSet().removeRange(HOT_KEYS, 0, -(storedKeys + 1));
+            log.debug("Persistidas {} claves calientes de caché", window.size());
+        } catch (Exception e) {
+            log.warn("No se pudieron persistir las claves calientes de caché: {}", e.getMessage());
+        }
+    }
+
+    /** Claves más accedidas, de mayor a menor frecuencia. */
+    public List<String> hotKeys(int limit) {
+        if (isRedisCircuitOpen()) {
+            return List.of();
+        }
+        try {
+            Set<String> keys = redisTemplate.opsForZSet().reverseRange(HOT_KEYS, 0, limit - 1);
+            return keys != null ? List.copyOf(keys) : List.of();
+        } catch (Exception e) {
+            log.warn("No se pudieron leer las claves calientes de caché: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    private boolean isRedisCircuitOpen() {
+        CircuitBreaker.State state = circuitBreakerRegistry.circuitBreaker("redis").getState();
+        return state == CircuitBreaker.State.OPEN || state == CircuitBreaker.State.FORCED_OPEN;
+    }
+}
@@ -0,0 +1,142 @@
+package com.economato.inventory.service.warmup;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.Collectors;
+
+/**
+ * Top-K de claves más accedidas sobre un count-min sketch.
+ *
+ * El sketch estima la frecuencia de cualquier clave en memoria constante
+ * (DEPTH x width contadores). Las claves que superan el umbral de admisión se
+ * anotan como candidatas; cuando hay más de {@code capacity * 4}, se conservan
+ * las de mayor estimación y el umbral sube hasta la menor de ellas.
+ *
+ * {@link #record(String)} se llama en cada acierto de {@code @Cacheable} y no
+ * toma ningún candado: cada fila se incrementa de forma atómica (sin
+ * actualización conservadora, que con varios hilos podría perder accesos) y
+ * la poda la hace un solo hilo sin bloquear a los demás. El top se ordena solo en
+ * {@link #drain()}, que lo devuelve y empieza otra ventana.
+ */
+public class HotKeySketch {
+
+    private static final int DEPTH = 4;
+    private static final int CANDIDATE_FACTOR = 4;
+
+    private final int mask;
+    private final int capacity;
+    private final AtomicIntegerArray[] counters;
+    private final Set<String> candidates = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean pruning = new AtomicBoolean();
+    private volatile long admission;
+
+    /**
+     * @param width    contadores por fila; se redondea a potencia de dos
+     * @param capacity número de claves calientes conservadas
+     */
+    public HotKeySketch(int width, int capacity) {
+        int size = Integer.highestOneBit(Math.max(16, width));
+        if (size < width) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.capacity = capacity;
+        this.counters = new AtomicIntegerArray[DEPTH];
+        for (int row = 0; row < DEPTH; row++) {
+            counters[row] = new AtomicIntegerArray(size);
+        }
+    }
+
+    public void record(String key) {
+        long estimate = increment(key);
+        if (estimate > admission && candidates.add(key) && candidates.size() > capacity * CANDIDATE_FACTOR) {
+            prune();
+        }
+    }
+
+    /** Frecuencia estimada de la clave en la ventana actual (nunca por debajo de la real). */
+    public long estimate(String key) {
+        int h1 = spread(key.hashCode());
+        int h2 = spread(h1 * 0x9E3779B9) | 1;
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counters[row].get((h1 + row * h2) & mask));
+        }
+        return min;
+    }
+
+    /**
+     * Top de la ventana, de mayor a menor frecuencia, y reinicio del sketch. Los
+     * accesos que coinciden con el reinicio pueden contarse en cualquiera de
+     * las dos ventanas.
+     */
+    public Map<String, Long> drain() {
+        while (!pruning.compareAndSet(false, true)) {
+            Thread.onSpinWait();
+        }
+        try {
+            Map<String, Long> snapshot = new LinkedHashMap<>();
+            for (Map.Entry<String, Long> entry : ranked(capacity)) {
+                snapshot.put(entry.getKey(), entry.getValue());
+            }
+            candidates.clear();
+            admission = 0;
+            for (AtomicIntegerArray row : counters) {
+                for (int i = 0; i < row.length(); i++) {
+                    row.set(i, 0);
+                }
+            }
+            return snapshot;
+        } finally {
+            pruning.set(false);
+        }
+    }
+
+    /** Deja las {@code capacity * 2} candidatas más frecuentes; si ya hay otra poda en curso, no hace nada. */
+    private void prune() {
+        if (!pruning.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<Map.Entry<String, Long>> kept = ranked(capacity * 2);
+            if (kept.isEmpty()) {
+                return;
+            }
+            candidates.retainAll(kept.stream().map(Map.Entry::getKey).collect(Collectors.toSet()));
+            admission = kept.get(kept.size() - 1).getValue();
+        } finally {
+            pruning.set(false);
+        }
+    }
+
+    private List<Map.Entry<String, Long>> ranked(int limit) {
+        return candidates.stream()
+                .map(key -> Map.entry(key, estimate(key)))
+                .filter(entry -> entry.getValue() > 0)
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    private long increment(String key) {
+        int h1 = spread(key.hashCode());
+        int h2 = spread(h1 * 0x9E3779B9) | 1;
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counters[row].incrementAndGet((h1 + row * h2) & mask));
+        }
+        return min;
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        return hash;
+    }
+}
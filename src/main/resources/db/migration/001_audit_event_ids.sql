@@ -0,0 +1,25 @@
+-- ============================================
+-- Identificadores estables de eventos de auditoría
+-- ============================================
+-- El esquema se valida con ddl-auto=validate: aplicar este script antes de
+-- desplegar la versión que consume eventos con cabecera audit-event-id.
+
+-- Outbox: cada evento recibe un id que se conserva en todos los reenvíos
+ALTER TABLE audit_outbox ADD COLUMN IF NOT EXISTS event_id VARCHAR(36);
+UPDATE audit_outbox SET event_id = gen_random_uuid()::text WHERE event_id IS NULL;
+ALTER TABLE audit_outbox ALTER COLUMN event_id SET NOT NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_audit_outbox_event_id ON audit_outbox (event_id);
+
+-- Tablas de auditoría: las filas históricas quedan con event_id NULL, que el
+-- índice único admite sin conflicto
+ALTER TABLE inventory_audit ADD COLUMN IF NOT EXISTS event_id VARCHAR(36);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_inventory_audit_event_id ON inventory_audit (event_id);
+
+ALTER TABLE recipe_audit ADD COLUMN IF NOT EXISTS event_id VARCHAR(36);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_recipe_audit_event_id ON recipe_audit (event_id);
+
+ALTER TABLE order_audit ADD COLUMN IF NOT EXISTS event_id VARCHAR(36);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_order_audit_event_id ON order_audit (event_id);
+
+ALTER TABLE recipe_cooking_audit ADD COLUMN IF NOT EXISTS event_id VARCHAR(36);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_cooking_audit_event_id ON recipe_cooking_audit (event_id);
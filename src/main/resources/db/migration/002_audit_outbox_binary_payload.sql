@@ -0,0 +1,7 @@
+-- ============================================
+-- Payload binario en audit_outbox
+-- ============================================
+-- Los eventos se guardan codificados con AuditEventCodec. Las filas pendientes
+-- en JSON se conservan como bytes UTF-8: el consumidor sigue aceptando JSON.
+ALTER TABLE audit_outbox
+    ALTER COLUMN payload TYPE BYTEA USING convert_to(payload, 'UTF8');
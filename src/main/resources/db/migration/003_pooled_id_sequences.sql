@@ -0,0 +1,50 @@
+-- ============================================
+-- Secuencias para las tablas de ledger y auditoría
+-- ============================================
+-- Las entidades pasan de IDENTITY a SEQUENCE con el optimizador pooled-lo
+-- (allocationSize = 50): cada nextval reserva un bloque de 50 ids en memoria
+-- y Hibernate puede agrupar los INSERT en lotes JDBC. El INCREMENT BY debe
+-- coincidir con allocationSize o ddl-auto=validate rechaza el esquema.
+--
+-- Los ids existentes se conservan: cada secuencia arranca en MAX(id) + 1. La
+-- columna deja de ser IDENTITY y toma la secuencia como DEFAULT, así que los
+-- INSERT manuales sin id siguen funcionando (solo usan el primer id del
+-- bloque que obtienen, sin solaparse con los de la aplicación).
+--
+-- Aplicar con la aplicación parada: un nodo antiguo seguiría usando IDENTITY.
+
+CREATE SEQUENCE IF NOT EXISTS stock_ledger_seq INCREMENT BY 50;
+ALTER TABLE stock_ledger ALTER COLUMN transaction_id DROP IDENTITY IF EXISTS;
+SELECT setval('stock_ledger_seq', COALESCE((SELECT MAX(transaction_id) FROM stock_ledger), 0) + 1, false);
+ALTER TABLE stock_ledger ALTER COLUMN transaction_id SET DEFAULT nextval('stock_ledger_seq');
+ALTER SEQUENCE stock_ledger_seq OWNED BY stock_ledger.transaction_id;
+
+CREATE SEQUENCE IF NOT EXISTS audit_outbox_seq INCREMENT BY 50;
+ALTER TABLE audit_outbox ALTER COLUMN id DROP IDENTITY IF EXISTS;
+SELECT setval('audit_outbox_seq', COALESCE((SELECT MAX(id) FROM audit_outbox), 0) + 1, false);
+ALTER TABLE audit_outbox ALTER COLUMN id SET DEFAULT nextval('audit_outbox_seq');
+ALTER SEQUENCE audit_outbox_seq OWNED BY audit_outbox.id;
+
+CREATE SEQUENCE IF NOT EXISTS inventory_audit_seq INCREMENT BY 50;
+ALTER TABLE inventory_audit ALTER COLUMN audit_id DROP IDENTITY IF EXISTS;
+SELECT setval('inventory_audit_seq', COALESCE((SELECT MAX(audit_id) FROM inventory_audit), 0) + 1, false);
+ALTER TABLE inventory_audit ALTER COLUMN audit_id SET DEFAULT nextval('inventory_audit_seq');
+ALTER SEQUENCE inventory_audit_seq OWNED BY inventory_audit.audit_id;
+
+CREATE SEQUENCE IF NOT EXISTS recipe_cooking_audit_seq INCREMENT BY 50;
+ALTER TABLE recipe_cooking_audit ALTER COLUMN cooking_audit_id DROP IDENTITY IF EXISTS;
+SELECT setval('recipe_cooking_audit_seq', COALESCE((SELECT MAX(cooking_audit_id) FROM recipe_cooking_audit), 0) + 1, false);
+ALTER TABLE recipe_cooking_audit ALTER COLUMN cooking_audit_id SET DEFAULT nextval('recipe_cooking_audit_seq');
+ALTER SEQUENCE recipe_cooking_audit_seq OWNED BY recipe_cooking_audit.cooking_audit_id;
+
+CREATE SEQUENCE IF NOT EXISTS order_audit_seq INCREMENT BY 50;
+ALTER TABLE order_audit ALTER COLUMN audit_id DROP IDENTITY IF EXISTS;
+SELECT setval('order_audit_seq', COALESCE((SELECT MAX(audit_id) FROM order_audit), 0) + 1, false);
+ALTER TABLE order_audit ALTER COLUMN audit_id SET DEFAULT nextval('order_audit_seq');
+ALTER SEQUENCE order_audit_seq OWNED BY order_audit.audit_id;
+
+CREATE SEQUENCE IF NOT EXISTS recipe_audit_seq INCREMENT BY 50;
+ALTER TABLE recipe_audit ALTER COLUMN audit_id DROP IDENTITY IF EXISTS;
+SELECT setval('recipe_audit_seq', COALESCE((SELECT MAX(audit_id) FROM recipe_audit), 0) + 1, false);
+ALTER TABLE recipe_audit ALTER COLUMN audit_id SET DEFAULT nextval('recipe_audit_seq');
+ALTER SEQUENCE recipe_audit_seq OWNED BY recipe_audit.audit_id;
@@ -0,0 +1,91 @@
+-- ============================================
+-- recipe_cooking_audit particionada por mes
+-- ============================================
+-- La tabla solo crece y las consultas analíticas (previsión de consumo,
+-- alertas de stock, informes de cocina) filtran por cooking_date. Con
+-- particiones mensuales por RANGE (cooking_date) el planificador descarta los
+-- meses fuera del rango pedido y la retención pasa a ser DETACH + DROP de una
+-- partición en lugar de un DELETE masivo.
+--
+-- PostgreSQL exige que las claves únicas de una tabla particionada incluyan la
+-- columna de partición: la PK pasa a (cooking_audit_id, cooking_date) y el
+-- índice único de event_id a (event_id, cooking_date). La deduplicación de
+-- eventos sigue siendo correcta porque un reenvío conserva su cooking_date.
+--
+-- CookingAuditPartitionService crea por adelantado los meses siguientes y
+-- resume y elimina los que superan la retención. La partición DEFAULT solo
+-- recoge filas fuera de los meses creados; el servicio las traslada cuando
+-- crea el mes que les corresponde.
+--
+-- Aplicar con la aplicación parada (consumidores de auditoría incluidos).
+
+CREATE TABLE recipe_cooking_audit_partitioned (
+    cooking_audit_id BIGINT NOT NULL,
+    event_id VARCHAR(36),
+    recipe_id INTEGER NOT NULL,
+    user_id INTEGER,
+    quantity_cooked NUMERIC(10, 3) NOT NULL,
+    details TEXT,
+    components_state TEXT,
+    cooking_date TIMESTAMP(6) NOT NULL
+) PARTITION BY RANGE (cooking_date);
+
+-- Un mes por partición desde la fila más antigua hasta tres meses vista
+DO $$
+DECLARE
+    month DATE := date_trunc('month',
+            COALESCE((SELECT MIN(cooking_date) FROM recipe_cooking_audit), LOCALTIMESTAMP))::date;
+    last_month DATE := (date_trunc('month', LOCALTIMESTAMP) + INTERVAL '3 months')::date;
+BEGIN
+    WHILE month <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF recipe_cooking_audit_partitioned FOR VALUES FROM (%L) TO (%L)',
+                'recipe_cooking_audit_p' || to_char(month, 'YYYYMM'), month, (month + INTERVAL '1 month')::date);
+        month := (month + INTERVAL '1 month')::date;
+    END LOOP;
+END $$;
+
+CREATE TABLE recipe_cooking_audit_default PARTITION OF recipe_cooking_audit_partitioned DEFAULT;
+
+INSERT INTO recipe_cooking_audit_partitioned (cooking_audit_id, event_id, recipe_id, user_id, quantity_cooked,
+        details, components_state, cooking_date)
+SELECT cooking_audit_id, event_id, recipe_id, user_id, quantity_cooked, details, components_state, cooking_date
+FROM recipe_cooking_audit;
+
+-- La secuencia pertenece a la columna antigua: desvincularla para que el DROP no la borre
+ALTER SEQUENCE recipe_cooking_audit_seq OWNED BY NONE;
+DROP TABLE recipe_cooking_audit;
+ALTER TABLE recipe_cooking_audit_partitioned RENAME TO recipe_cooking_audit;
+
+ALTER TABLE recipe_cooking_audit ALTER COLUMN cooking_audit_id SET DEFAULT nextval('recipe_cooking_audit_seq');
+ALTER SEQUENCE recipe_cooking_audit_seq OWNED BY recipe_cooking_audit.cooking_audit_id;
+
+-- Índices y claves ajenas de la tabla particionada: se propagan a cada partición
+ALTER TABLE recipe_cooking_audit ADD CONSTRAINT recipe_cooking_audit_pkey
+    PRIMARY KEY (cooking_audit_id, cooking_date);
+CREATE UNIQUE INDEX uk_cooking_audit_event_id ON recipe_cooking_audit (event_id, cooking_date);
+CREATE INDEX idx_cooking_audit_recipe ON recipe_cooking_audit (recipe_id);
+CREATE INDEX idx_cooking_audit_user ON recipe_cooking_audit (user_id);
+CREATE INDEX idx_cooking_audit_date ON recipe_cooking_audit (cooking_date);
+ALTER TABLE recipe_cooking_audit ADD CONSTRAINT fk_cooking_audit_recipe
+    FOREIGN KEY (recipe_id) REFERENCES recipe (recipe_id);
+ALTER TABLE recipe_cooking_audit ADD CONSTRAINT fk_cooking_audit_user
+    FOREIGN KEY (user_id) REFERENCES users (user_id);
+
+-- Resúmenes mensuales de los meses que salen de la retención. Sin claves
+-- ajenas: el histórico se conserva aunque la receta o el producto se borren.
+CREATE TABLE IF NOT EXISTS recipe_cooking_monthly (
+    month DATE NOT NULL,
+    recipe_id INTEGER NOT NULL,
+    cookings BIGINT NOT NULL,
+    quantity_cooked NUMERIC(14, 3) NOT NULL,
+    PRIMARY KEY (month, recipe_id)
+);
+
+-- Consumo por ingrediente con la composición de la receta en el momento del
+-- resumen, igual que findWeeklyConsumptionPerIngredient
+CREATE TABLE IF NOT EXISTS ingredient_consumption_monthly (
+    month DATE NOT NULL,
+    product_id INTEGER NOT NULL,
+    quantity_consumed NUMERIC(16, 3) NOT NULL,
+    PRIMARY KEY (month, product_id)
+);
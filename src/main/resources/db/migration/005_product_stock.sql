@@ -0,0 +1,33 @@
+-- ============================================
+-- Stock del producto en su propia tabla
+-- ============================================
+-- Cada movimiento de stock actualizaba la fila de product: incrementaba su
+-- versión, chocaba por bloqueo optimista con las ediciones de catálogo de
+-- ProductService.update y bloqueaba la fila entera mientras duraba la
+-- transacción del ledger. product_stock guarda solo el stock actual; Product
+-- la mapea como tabla secundaria (INNER JOIN al leer) y excluye la columna
+-- del bloqueo optimista, así que un movimiento solo toca y bloquea esta fila.
+--
+-- La PK cubre current_stock (INCLUDE) para que la unión con product y las
+-- lecturas de stock por id se resuelvan con un index-only scan. A cambio, un
+-- UPDATE de current_stock nunca es HOT y siempre escribe en el índice: con
+-- filas de 16 bytes el índice es pequeño y el autovacuum más agresivo de
+-- abajo lo mantiene compacto.
+--
+-- stock_snapshot conserva su propio current_stock como registro de
+-- integridad del ledger; product_stock es el valor operativo.
+--
+-- Aplicar con la aplicación parada.
+
+CREATE TABLE product_stock (
+    product_id INTEGER NOT NULL,
+    current_stock NUMERIC(10, 3) NOT NULL,
+    CONSTRAINT product_stock_pkey PRIMARY KEY (product_id) INCLUDE (current_stock),
+    CONSTRAINT fk_product_stock_product FOREIGN KEY (product_id)
+        REFERENCES product (product_id) ON DELETE CASCADE
+) WITH (autovacuum_vacuum_scale_factor = 0.01, autovacuum_analyze_scale_factor = 0.02);
+
+INSERT INTO product_stock (product_id, current_stock)
+SELECT product_id, current_stock FROM product;
+
+ALTER TABLE product DROP COLUMN current_stock;
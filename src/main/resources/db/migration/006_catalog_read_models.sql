@@ -0,0 +1,129 @@
+-- ============================================
+-- Modelos de lectura de productos y recetas
+-- ============================================
+-- Los listados y detalles de productos y recetas montaban el DTO desde el
+-- esquema normalizado (proveedor, componentes con su producto, alérgenos) en
+-- cada fallo de caché. product_read_model y recipe_read_model guardan el DTO
+-- de respuesta ya resuelto como JSONB: una fila por elemento.
+--
+-- ReadModelProjector los mantiene:
+-- - Desde el flujo de eventos del Outbox (inventory-audit-events y
+--   recipe-audit-events, con su propio grupo de consumidores): cada evento
+--   vuelve a proyectar su producto o receta.
+-- - Con un barrido de las filas marcadas stale. Los disparadores de abajo
+--   marcan stale todo documento cuyo origen cambia, también por caminos que
+--   no publican eventos (componentes, alérgenos, proveedores, SQL manual);
+--   crean la fila vacía de cada producto o receta nuevo y borran la de los
+--   eliminados.
+--
+-- La proyección relee siempre el estado actual, así que el orden y las
+-- repeticiones de los eventos no importan. El stock no forma parte del
+-- documento: se une desde product_stock al leer la fila.
+--
+-- Las filas existentes se crean vacías (document NULL) y el barrido las
+-- rellena; los listados no se sirven desde el modelo hasta que no queda
+-- ninguna pendiente. Solo se usan con read-model.enabled=true.
+
+CREATE TABLE product_read_model (
+    product_id INTEGER PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    hidden BOOLEAN NOT NULL,
+    document JSONB,
+    stale BOOLEAN NOT NULL DEFAULT TRUE,
+    projected_at TIMESTAMP(6)
+);
+CREATE INDEX idx_product_read_model_name ON product_read_model (name, product_id) WHERE NOT hidden;
+CREATE INDEX idx_product_read_model_stale ON product_read_model (product_id) WHERE stale;
+
+CREATE TABLE recipe_read_model (
+    recipe_id INTEGER PRIMARY KEY,
+    name VARCHAR(150) NOT NULL,
+    hidden BOOLEAN NOT NULL,
+    document JSONB,
+    stale BOOLEAN NOT NULL DEFAULT TRUE,
+    projected_at TIMESTAMP(6)
+);
+CREATE INDEX idx_recipe_read_model_name ON recipe_read_model (name, recipe_id) WHERE NOT hidden;
+CREATE INDEX idx_recipe_read_model_stale ON recipe_read_model (recipe_id) WHERE stale;
+
+INSERT INTO product_read_model (product_id, name, hidden)
+SELECT product_id, name, is_hidden FROM product;
+
+INSERT INTO recipe_read_model (recipe_id, name, hidden)
+SELECT recipe_id, recipe_name, is_hidden FROM recipe;
+
+-- Nombre y visibilidad se copian al momento para que el filtro de ocultos del
+-- listado no espere a la proyección
+CREATE FUNCTION product_read_model_touch() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        DELETE FROM product_read_model WHERE product_id = OLD.product_id;
+        RETURN OLD;
+    END IF;
+    INSERT INTO product_read_model (product_id, name, hidden)
+    VALUES (NEW.product_id, NEW.name, NEW.is_hidden)
+    ON CONFLICT (product_id) DO UPDATE SET name = EXCLUDED.name, hidden = EXCLUDED.hidden, stale = TRUE;
+    -- Nombre y precio del producto aparecen en los componentes de las recetas
+    IF TG_OP = 'UPDATE' AND (NEW.name IS DISTINCT FROM OLD.name OR NEW.unit_price IS DISTINCT FROM OLD.unit_price) THEN
+        UPDATE recipe_read_model SET stale = TRUE
+        WHERE recipe_id IN (SELECT parent_recipe_id FROM recipe_component WHERE product_id = NEW.product_id);
+    END IF;
+    RETURN NEW;
+END $$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_product_read_model AFTER INSERT OR UPDATE OR DELETE ON product
+    FOR EACH ROW EXECUTE FUNCTION product_read_model_touch();
+
+CREATE FUNCTION recipe_read_model_touch() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        DELETE FROM recipe_read_model WHERE recipe_id = OLD.recipe_id;
+        RETURN OLD;
+    END IF;
+    INSERT INTO recipe_read_model (recipe_id, name, hidden)
+    VALUES (NEW.recipe_id, NEW.recipe_name, NEW.is_hidden)
+    ON CONFLICT (recipe_id) DO UPDATE SET name = EXCLUDED.name, hidden = EXCLUDED.hidden, stale = TRUE;
+    RETURN NEW;
+END $$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_recipe_read_model AFTER INSERT OR UPDATE OR DELETE ON recipe
+    FOR EACH ROW EXECUTE FUNCTION recipe_read_model_touch();
+
+-- Componentes y alérgenos forman parte del documento de la receta
+CREATE FUNCTION recipe_read_model_touch_parent() RETURNS trigger AS $$
+BEGIN
+    IF TG_TABLE_NAME = 'recipe_component' THEN
+        UPDATE recipe_read_model SET stale = TRUE
+        WHERE recipe_id IN (NEW.parent_recipe_id, OLD.parent_recipe_id);
+    ELSE
+        UPDATE recipe_read_model SET stale = TRUE
+        WHERE recipe_id IN (NEW.recipe_id, OLD.recipe_id);
+    END IF;
+    RETURN NULL;
+END $$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_recipe_component_read_model AFTER INSERT OR UPDATE OR DELETE ON recipe_component
+    FOR EACH ROW EXECUTE FUNCTION recipe_read_model_touch_parent();
+
+CREATE TRIGGER trg_recipe_allergen_read_model AFTER INSERT OR UPDATE OR DELETE ON recipe_allergen
+    FOR EACH ROW EXECUTE FUNCTION recipe_read_model_touch_parent();
+
+CREATE FUNCTION supplier_read_model_touch() RETURNS trigger AS $$
+BEGIN
+    UPDATE product_read_model SET stale = TRUE
+    WHERE product_id IN (SELECT product_id FROM product WHERE supplier_id = NEW.supplier_id);
+    RETURN NULL;
+END $$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_supplier_read_model AFTER UPDATE ON supplier
+    FOR EACH ROW EXECUTE FUNCTION supplier_read_model_touch();
+
+CREATE FUNCTION allergen_read_model_touch() RETURNS trigger AS $$
+BEGIN
+    UPDATE recipe_read_model SET stale = TRUE
+    WHERE recipe_id IN (SELECT recipe_id FROM recipe_allergen WHERE allergen_id = NEW.allergen_id);
+    RETURN NULL;
+END $$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_allergen_read_model AFTER UPDATE ON allergen
+    FOR EACH ROW EXECUTE FUNCTION allergen_read_model_touch();
@@ -0,0 +1,18 @@
+-- ============================================
+-- Número de secuencia único por producto en stock_ledger
+-- ============================================
+-- recordStockMovement y la importación masiva calculan el siguiente
+-- sequence_number a partir de la cola de la cadena con la fila de
+-- product_stock bloqueada. La restricción es la última defensa: si dos
+-- escrituras llegaran a leer la misma cola, la segunda falla en lugar de
+-- bifurcar la cadena de hashes con dos filas del mismo número.
+--
+-- Falla si alguna cadena ya está bifurcada. Para localizarlas:
+--   SELECT product_id, sequence_number, COUNT(*) FROM stock_ledger
+--   GROUP BY product_id, sequence_number HAVING COUNT(*) > 1;
+--
+-- El índice único también sirve para leer la cola de cada cadena
+-- (ORDER BY sequence_number DESC) sin ordenar.
+
+ALTER TABLE stock_ledger
+    ADD CONSTRAINT uk_ledger_product_sequence UNIQUE (product_id, sequence_number);
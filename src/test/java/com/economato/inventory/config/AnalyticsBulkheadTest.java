@@ -0,0 +1,59 @@
+package com.economato.inventory.config;
+
+import com.economato.inventory.exception.AnalyticsCapacityException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalyticsBulkheadTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void nestedJob_reusesCallerSlot() throws Throwable {
+        AnalyticsBulkhead bulkhead = new AnalyticsBulkhead(1, Duration.ofMillis(50), meterRegistry);
+
+        assertEquals("inner", bulkhead.execute(() -> bulkhead.execute(() -> "inner")));
+        assertEquals(0, meterRegistry.get("db.analytics.rejected").counter().count());
+    }
+
+    @Test
+    void jobBeyondCapacity_waitsAndThenFails() throws Exception {
+        AnalyticsBulkhead bulkhead = new AnalyticsBulkhead(1, Duration.ofMillis(100), meterRegistry);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Object> first = executor.submit(() -> {
+                try {
+                    return bulkhead.execute(() -> {
+                        running.countDown();
+                        release.await();
+                        return "first";
+                    });
+                } catch (Throwable t) {
+                    throw new IllegalStateException(t);
+                }
+            });
+            running.await();
+
+            assertThrows(AnalyticsCapacityException.class, () -> bulkhead.execute(() -> "second"));
+            assertEquals(1, meterRegistry.get("db.analytics.rejected").counter().count());
+
+            release.countDown();
+            assertEquals("first", first.get());
+            assertEquals("third", bulkhead.execute(() -> "third"));
+        } catch (Throwable t) {
+            throw new AssertionError(t);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
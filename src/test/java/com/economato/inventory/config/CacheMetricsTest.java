@@ -0,0 +1,119 @@
+package com.economato.inventory.config;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    private CircuitBreakerAwareCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+        cache = new CircuitBreakerAwareCache(new EncodingCache("recipe"), circuitBreakerRegistry,
+                CacheLoadOptions.DEFAULTS, StaleCacheOptions.DISABLED, CacheRefreshAhead.DISABLED,
+                new CacheMetrics(meterRegistry));
+    }
+
+    @Test
+    void lookups_areCountedAsHitOrMiss() {
+        assertNull(cache.get(1));
+        cache.put(1, "Paella");
+        assertEquals("Paella", cache.get(1).get());
+
+        assertEquals(1.0, lookups("hit"));
+        assertEquals(1.0, lookups("miss"));
+    }
+
+    @Test
+    void codecTime_isSplitFromNetworkTime() {
+        cache.put(1, "Paella");
+
+        double serialization = meterRegistry.get("cache.operation.time")
+                .tags("cache", "recipe", "operation", "put", "phase", "serialization").timer()
+                .totalTime(TimeUnit.MILLISECONDS);
+        double network = meterRegistry.get("cache.operation.time")
+                .tags("cache", "recipe", "operation", "put", "phase", "network").timer()
+                .totalTime(TimeUnit.MILLISECONDS);
+
+        assertTrue(serialization >= EncodingCache.CODEC_MILLIS);
+        assertTrue(network < serialization);
+    }
+
+    @Test
+    void payloadSizes_areRecordedPerOperation() {
+        cache.put(1, "Paella");
+        cache.get(1);
+
+        assertEquals(6.0, meterRegistry.get("cache.value.size")
+                .tags("cache", "recipe", "operation", "put").summary().totalAmount());
+        assertEquals(6.0, meterRegistry.get("cache.value.size")
+                .tags("cache", "recipe", "operation", "get").summary().totalAmount());
+    }
+
+    @Test
+    void openCircuit_countsBypasses() {
+        circuitBreakerRegistry.circuitBreaker("redis").transitionToForcedOpenState();
+
+        cache.get(1);
+        cache.put(1, "Paella");
+        cache.evict(1);
+
+        assertEquals(1.0, bypasses("get"));
+        assertEquals(1.0, bypasses("put"));
+        assertEquals(1.0, bypasses("evict"));
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get("cache.lookups").tags("cache", "recipe", "result", result).counter().count();
+    }
+
+    private double bypasses(String operation) {
+        return meterRegistry.get("cache.bypass").tags("cache", "recipe", "operation", operation).counter().count();
+    }
+
+    /** Caché en memoria que simula el codec: notifica tamaño y tiempo de codificación. */
+    private static final class EncodingCache extends ConcurrentMapCache {
+
+        static final long CODEC_MILLIS = 20;
+
+        EncodingCache(String name) {
+            super(name, false);
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            ValueWrapper value = super.get(key);
+            if (value != null) {
+                encode(value.get());
+            }
+            return value;
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            encode(value);
+            super.put(key, value);
+        }
+
+        private static void encode(Object value) {
+            long start = System.nanoTime();
+            try {
+                Thread.sleep(CODEC_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            CacheMetrics.recordCodec(System.nanoTime() - start, String.valueOf(value).length());
+        }
+    }
+}
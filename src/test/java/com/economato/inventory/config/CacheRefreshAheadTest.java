@@ -0,0 +1,101 @@
+package com.economato.inventory.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CacheRefreshAheadTest {
+
+    private static final long TTL = 4 * 60 * 60 * 1000L;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CacheRefreshAhead refreshAhead;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        refreshAhead = new CacheRefreshAhead(Set.of("recipe"), 0.2, 1, null, meterRegistry);
+    }
+
+    @Test
+    void appliesOnlyToConfiguredCaches() {
+        assertTrue(refreshAhead.appliesTo("recipe"));
+        assertFalse(refreshAhead.appliesTo("products_page"));
+        assertFalse(CacheRefreshAhead.DISABLED.appliesTo("recipe"));
+    }
+
+    @Test
+    void isDue_onlyInsideWindowBeforeExpiry() {
+        assertFalse(refreshAhead.isDue(TTL / 2, TTL));
+        assertTrue(refreshAhead.isDue(TTL / 10, TTL));
+        assertTrue(refreshAhead.isDue(0, TTL));
+        assertFalse(refreshAhead.isDue(-1, TTL));
+    }
+
+    @Test
+    void submit_countsRefreshesAndFailures() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        assertTrue(refreshAhead.submit("recipe", 1, done::countDown));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        awaitCount("cache.refresh_ahead.refreshes", 1);
+
+        assertTrue(refreshAhead.submit("recipe", 2, () -> {
+            throw new IllegalStateException("db down");
+        }));
+        awaitCount("cache.refresh_ahead.failures", 1);
+    }
+
+    @Test
+    void submit_skipsWhenAllSlotsAreBusy() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        assertTrue(refreshAhead.submit("recipe", 1, () -> await(release)));
+
+        assertFalse(refreshAhead.submit("recipe", 2, () -> { }));
+        assertEquals(1.0, counter("cache.refresh_ahead.rejected"));
+
+        release.countDown();
+        awaitCount("cache.refresh_ahead.refreshes", 1);
+        assertTrue(refreshAhead.submit("recipe", 2, () -> { }));
+    }
+
+    @Test
+    void remainingTtl_readsRedisAndTreatsErrorsAsUnknown() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        when(redis.getExpire(eq("recipe::1"), eq(TimeUnit.MILLISECONDS))).thenReturn(1500L);
+        when(redis.getExpire(eq("recipe::2"), eq(TimeUnit.MILLISECONDS))).thenThrow(new IllegalStateException());
+        CacheRefreshAhead withRedis = new CacheRefreshAhead(Set.of("recipe"), 0.2, 1, redis, meterRegistry);
+
+        assertEquals(1500L, withRedis.remainingTtlMillis("recipe::1"));
+        assertEquals(-1L, withRedis.remainingTtlMillis("recipe::2"));
+        assertEquals(-1L, refreshAhead.remainingTtlMillis("recipe::1"));
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).tag("cache", "recipe").counter().count();
+    }
+
+    private void awaitCount(String name, double expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (counter(name) < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, counter(name));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
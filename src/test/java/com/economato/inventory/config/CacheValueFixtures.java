@@ -0,0 +1,68 @@
+package com.economato.inventory.config;
+
+import com.economato.inventory.dto.RestPage;
+import com.economato.inventory.dto.response.AllergenResponseDTO;
+import com.economato.inventory.dto.response.ProductResponseDTO;
+import com.economato.inventory.dto.response.RecipeComponentResponseDTO;
+import com.economato.inventory.dto.response.RecipeResponseDTO;
+import com.economato.inventory.dto.response.SupplierResponseDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Valores de caché realistas compartidos por los tests y benchmarks del codec.
+ */
+final class CacheValueFixtures {
+
+    private CacheValueFixtures() {
+    }
+
+    /** Mismo mapper base que el bean {@code jackson2ObjectMapper}. */
+    static ObjectMapper baseMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.setDefaultPropertyInclusion(JsonInclude.Include.NON_NULL);
+        return mapper;
+    }
+
+    static ProductResponseDTO product(int id) {
+        return new ProductResponseDTO(id, "Producto " + id, "INGREDIENTE", "KG",
+                new BigDecimal("3.45"), "8410000" + String.format("%06d", id), new BigDecimal("125.500"),
+                new BigDecimal("62.75"), new BigDecimal("20.000"), false,
+                new SupplierResponseDTO(7, "Distribuciones del Norte", "pedidos@norte.example", "600123456"));
+    }
+
+    static RestPage<ProductResponseDTO> productPage(int size) {
+        List<ProductResponseDTO> content = new ArrayList<>();
+        for (int i = 1; i <= size; i++) {
+            content.add(product(i));
+        }
+        return new RestPage<>(content, PageRequest.of(0, size), 1_250);
+    }
+
+    static RecipeResponseDTO recipe(int id, int components) {
+        List<RecipeComponentResponseDTO> parts = new ArrayList<>();
+        for (int i = 1; i <= components; i++) {
+            parts.add(new RecipeComponentResponseDTO(i, id, i * 3, "Ingrediente " + i,
+                    new BigDecimal("0.250"), new BigDecimal("1.12")));
+        }
+        return new RecipeResponseDTO(id, "Receta " + id,
+                "Cortar, sofreír a fuego medio durante diez minutos y añadir el caldo poco a poco.",
+                "Servir caliente en plato hondo", new BigDecimal("12.40"), false, parts,
+                List.of(new AllergenResponseDTO(1, "Gluten"), new AllergenResponseDTO(4, "Huevo")));
+    }
+
+    static RestPage<RecipeResponseDTO> recipePage(int size) {
+        List<RecipeResponseDTO> content = new ArrayList<>();
+        for (int i = 1; i <= size; i++) {
+            content.add(recipe(i, 8));
+        }
+        return new RestPage<>(content, PageRequest.of(0, size), 340);
+    }
+}
@@ -0,0 +1,264 @@
+package com.economato.inventory.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class CircuitBreakerAwareCacheTest {
+
+    private static final int CALLERS = 32;
+
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    private ConcurrentMapCache redis;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+        redis = new ConcurrentMapCache("products_page", false);
+        loads = new AtomicInteger();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void concurrentMisses_runLoaderOnce() throws Exception {
+        CircuitBreakerAwareCache cache = new CircuitBreakerAwareCache(redis, circuitBreakerRegistry);
+
+        List<Object> results = getConcurrently(cache, slowLoader("page-0"));
+
+        assertEquals(1, loads.get());
+        results.forEach(result -> assertEquals("page-0", result));
+        assertEquals("page-0", redis.get("0-10").get());
+    }
+
+    @Test
+    void concurrentMisses_withRedisCircuitOpen_stillRunLoaderOnce() throws Exception {
+        circuitBreakerRegistry.circuitBreaker("redis").transitionToForcedOpenState();
+        CircuitBreakerAwareCache cache = new CircuitBreakerAwareCache(redis, circuitBreakerRegistry);
+
+        getConcurrently(cache, slowLoader("page-0"));
+
+        assertEquals(1, loads.get());
+        assertNull(redis.get("0-10"));
+    }
+
+    @Test
+    void loaderFailure_isPropagatedToEveryWaiter() {
+        CircuitBreakerAwareCache cache = new CircuitBreakerAwareCache(redis, circuitBreakerRegistry);
+
+        assertThrows(Cache.ValueRetrievalException.class, () -> cache.get("0-10", () -> {
+            throw new IllegalStateException("db down");
+        }));
+        assertEquals("page-0", cache.get("0-10", () -> "page-0"));
+    }
+
+    @Test
+    void hit_doesNotCallLoader() {
+        redis.put("0-10", "cached");
+        CircuitBreakerAwareCache cache = new CircuitBreakerAwareCache(redis, circuitBreakerRegistry);
+
+        assertEquals("cached", cache.get("0-10", slowLoader("fresh")));
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void leaseHeldByOtherNode_waitsForItsValue() {
+        StringRedisTemplate leaseTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> ops = mock(ValueOperations.class);
+        when(leaseTemplate.opsForValue()).thenReturn(ops);
+        when(ops.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenAnswer(invocation -> {
+            // Otro nodo tiene el lease y publica el valor poco después
+            new Thread(() -> {
+                sleep(50);
+                redis.put("0-10", "from-other-node");
+            }).start();
+            return false;
+        });
+        CircuitBreakerAwareCache cache = new CircuitBreakerAwareCache(redis, circuitBreakerRegistry,
+                new CacheLoadOptions(leaseTemplate, Duration.ofSeconds(2), 0));
+
+        assertEquals("from-other-node", cache.get("0-10", slowLoader("local")));
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    void redisOpen_servesLastGoodValueWithoutLoading() {
+        CircuitBreakerAwareCache cache = staleCache(Duration.ofMinutes(1));
+        cache.get("0-10", slowLoader("page-0"));
+        circuitBreakerRegistry.circuitBreaker("redis").transitionToForcedOpenState();
+
+        assertEquals("page-0", cache.get("0-10", slowLoader("fresh")));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void loaderFailsWithDbOpen_servesStaleAndMarksResponse() {
+        MockHttpServletResponse response = bindRequest();
+        CircuitBreakerAwareCache cache = staleCache(Duration.ZERO);
+        cache.get("0-10", () -> "page-0");
+        redis.clear();
+        circuitBreakerRegistry.circuitBreaker("db").transitionToForcedOpenState();
+
+        Object result = cache.get("0-10", () -> {
+            throw new IllegalStateException("db down");
+        });
+
+        assertEquals("page-0", result);
+        assertNotNull(response.getHeader(StaleResponseMarker.HEADER));
+    }
+
+    @Test
+    void loaderFailsWithDbClosed_propagatesError() {
+        CircuitBreakerAwareCache cache = staleCache(Duration.ZERO);
+        cache.get("0-10", () -> "page-0");
+        redis.clear();
+
+        assertThrows(Cache.ValueRetrievalException.class, () -> cache.get("0-10", () -> {
+            throw new IllegalStateException("query error");
+        }));
+    }
+
+    @Test
+    void evict_dropsStaleValue() {
+        CircuitBreakerAwareCache cache = staleCache(Duration.ZERO);
+        cache.get("0-10", () -> "page-0");
+        cache.evict("0-10");
+        circuitBreakerRegistry.circuitBreaker("redis").transitionToForcedOpenState();
+
+        assertEquals("fresh", cache.get("0-10", slowLoader("fresh")));
+    }
+
+    @Test
+    void staleKeys_areRefreshedOnRecovery() {
+        CircuitBreakerAwareCache cache = staleCache(Duration.ZERO);
+        cache.get("0-10", () -> "page-0");
+        circuitBreakerRegistry.circuitBreaker("redis").transitionToForcedOpenState();
+        cache.get("0-10", slowLoader("page-1"));
+        assertEquals(0, loads.get());
+
+        circuitBreakerRegistry.circuitBreaker("redis").transitionToClosedState();
+        cache.refreshStale(Runnable::run);
+
+        assertEquals(1, loads.get());
+        assertEquals("page-1", redis.get("0-10").get());
+    }
+
+    @Test
+    void localHitPastExpiry_refreshesEarlyAndReplacesLocalCopy() {
+        RedisCache redisCache = mock(RedisCache.class);
+        when(redisCache.getName()).thenReturn("product");
+        when(redisCache.getCacheConfiguration())
+                .thenReturn(RedisCacheConfiguration.defaultCacheConfig().entryTtl(Duration.ofMillis(50)));
+        CircuitBreakerAwareCache remote = new CircuitBreakerAwareCache(redisCache, circuitBreakerRegistry,
+                new CacheLoadOptions(null, Duration.ofSeconds(1), 1.0));
+        TwoLevelCache cache = twoLevel(remote);
+
+        assertEquals("v1", cache.get(1, () -> "v1"));
+        sleep(60); // Expirada en Redis, pero aún presente en L1
+
+        assertEquals("v2", cache.get(1, () -> "v2"));
+        assertEquals("v2", cache.get(1, String.class));
+    }
+
+    @Test
+    void staleValueServedDuringDbOutage_isNotCopiedToLocalCache() {
+        CircuitBreakerAwareCache remote = staleCache(Duration.ZERO);
+        remote.get("0-10", () -> "page-0");
+        redis.clear();
+        TwoLevelCache cache = twoLevel(remote);
+        circuitBreakerRegistry.circuitBreaker("db").transitionToForcedOpenState();
+
+        assertEquals("page-0", cache.get("0-10", () -> {
+            throw new IllegalStateException("db down");
+        }));
+
+        circuitBreakerRegistry.circuitBreaker("db").transitionToClosedState();
+        assertEquals("page-1", cache.get("0-10", () -> "page-1"));
+    }
+
+    private TwoLevelCache twoLevel(CircuitBreakerAwareCache remote) {
+        return new TwoLevelCache(remote, Caffeine.newBuilder().build(),
+                new CacheInvalidationBus(mock(StringRedisTemplate.class), circuitBreakerRegistry));
+    }
+
+    private CircuitBreakerAwareCache staleCache(Duration softTtl) {
+        return new CircuitBreakerAwareCache(redis, circuitBreakerRegistry, CacheLoadOptions.DEFAULTS,
+                new StaleCacheOptions(100, softTtl, Duration.ofHours(1)));
+    }
+
+    private MockHttpServletResponse bindRequest() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), response));
+        return response;
+    }
+
+    private List<Object> getConcurrently(CircuitBreakerAwareCache cache, Callable<String> loader) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get("0-10", loader);
+                }));
+            }
+            start.countDown();
+            List<Object> results = new ArrayList<>();
+            for (Future<Object> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Callable<String> slowLoader(String value) {
+        return () -> {
+            loads.incrementAndGet();
+            sleep(200);
+            return value;
+        };
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
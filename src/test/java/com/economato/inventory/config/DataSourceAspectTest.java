@@ -1,20 +1,25 @@
 package com.economato.inventory.config;
 
+import com.economato.inventory.annotation.AllowStaleReads;
+import com.economato.inventory.annotation.AnalyticsQuery;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.hibernate.exception.JDBCConnectionException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.net.UnknownHostException;
 import java.sql.SQLException;
+import java.time.Duration;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyLong;
@@ -35,7 +40,15 @@ class DataSourceAspectTest {
     @Mock
     private ProceedingJoinPoint proceedingJoinPoint;
 
-    @InjectMocks
+    @Mock
+    private ObjectProvider<ReplicaLagTracker> replicaLagTrackerProvider;
+
+    @Mock
+    private ReplicaLagTracker replicaLagTracker;
+
+    @Mock
+    private ObjectProvider<AnalyticsBulkhead> analyticsBulkheadProvider;
+
     private DataSourceAspect dataSourceAspect;
 
     private Transactional readOnlyTransactional;
@@ -43,6 +56,9 @@ class DataSourceAspectTest {
 
     @BeforeEach
     void setUp() {
+        dataSourceAspect = new DataSourceAspect(circuitBreakerRegistry, replicaLagTrackerProvider,
+                analyticsBulkheadProvider);
+
         readOnlyTransactional = mock(Transactional.class);
         lenient().when(readOnlyTransactional.readOnly()).thenReturn(true);
 
@@ -163,4 +179,93 @@ class DataSourceAspectTest {
         assertEquals("success from writer because replica is open", result);
         verify(proceedingJoinPoint, times(1)).proceed();
     }
+
+    @Test
+    void readOperationUsesWriterWhenReplicaIsBehindLastWrite() throws Throwable {
+        when(circuitBreaker.getState()).thenReturn(CircuitBreaker.State.CLOSED);
+        when(replicaCircuitBreaker.getState()).thenReturn(CircuitBreaker.State.CLOSED);
+        when(replicaLagTrackerProvider.getIfAvailable()).thenReturn(replicaLagTracker);
+        when(replicaLagTracker.replicaCaughtUp()).thenReturn(false);
+        when(proceedingJoinPoint.proceed()).thenAnswer(invocation -> DbContextHolder.get());
+
+        assertEquals(DataSourceType.WRITER, dataSourceAspect.proceed(proceedingJoinPoint, readOnlyTransactional));
+    }
+
+    @Test
+    void readOperationUsesReaderWhenReplicaCaughtUp() throws Throwable {
+        when(circuitBreaker.getState()).thenReturn(CircuitBreaker.State.CLOSED);
+        when(replicaCircuitBreaker.getState()).thenReturn(CircuitBreaker.State.CLOSED);
+        when(replicaLagTrackerProvider.getIfAvailable()).thenReturn(replicaLagTracker);
+        when(replicaLagTracker.replicaCaughtUp()).thenReturn(true);
+        when(proceedingJoinPoint.proceed()).thenAnswer(invocation -> DbContextHolder.get());
+
+        assertEquals(DataSourceType.READER, dataSourceAspect.proceed(proceedingJoinPoint, readOnlyTransactional));
+    }
+
+    @Test
+    void staleTolerantReadUsesReaderEvenIfReplicaIsBehind() throws Throwable {
+        when(circuitBreaker.getState()).thenReturn(CircuitBreaker.State.CLOSED);
+        when(replicaCircuitBreaker.getState()).thenReturn(CircuitBreaker.State.CLOSED);
+        when(replicaLagTrackerProvider.getIfAvailable()).thenReturn(replicaLagTracker);
+        MethodSignature signature = mock(MethodSignature.class);
+        when(signature.getMethod()).thenReturn(StaleTolerant.class.getDeclaredMethod("report"));
+        when(proceedingJoinPoint.getSignature()).thenReturn(signature);
+        when(proceedingJoinPoint.proceed()).thenAnswer(invocation -> DbContextHolder.get());
+
+        assertEquals(DataSourceType.READER, dataSourceAspect.proceed(proceedingJoinPoint, readOnlyTransactional));
+        verify(replicaLagTracker, never()).replicaCaughtUp();
+    }
+
+    @Test
+    void analyticsReadUsesAnalyticsPool() throws Throwable {
+        when(circuitBreaker.getState()).thenReturn(CircuitBreaker.State.CLOSED);
+        when(replicaCircuitBreaker.getState()).thenReturn(CircuitBreaker.State.CLOSED);
+        when(analyticsBulkheadProvider.getIfAvailable()).thenReturn(analyticsBulkhead());
+        signature("report");
+        when(proceedingJoinPoint.proceed()).thenAnswer(invocation -> DbContextHolder.get());
+
+        assertEquals(DataSourceType.ANALYTICS, dataSourceAspect.proceed(proceedingJoinPoint, readOnlyTransactional));
+    }
+
+    @Test
+    void analyticsWriteStaysOnWriter() throws Throwable {
+        when(analyticsBulkheadProvider.getIfAvailable()).thenReturn(analyticsBulkhead());
+        signature("report");
+        when(proceedingJoinPoint.proceed()).thenAnswer(invocation -> DbContextHolder.get());
+
+        assertEquals(DataSourceType.WRITER, dataSourceAspect.proceed(proceedingJoinPoint, writeTransactional));
+    }
+
+    @Test
+    void analyticsReadFallsBackToWriterWhenReplicaOpen() throws Throwable {
+        when(circuitBreaker.getState()).thenReturn(CircuitBreaker.State.CLOSED);
+        when(replicaCircuitBreaker.getState()).thenReturn(CircuitBreaker.State.OPEN);
+        when(analyticsBulkheadProvider.getIfAvailable()).thenReturn(analyticsBulkhead());
+        signature("report");
+        when(proceedingJoinPoint.proceed()).thenAnswer(invocation -> DbContextHolder.get());
+
+        assertEquals(DataSourceType.WRITER, dataSourceAspect.proceed(proceedingJoinPoint, readOnlyTransactional));
+    }
+
+    private void signature(String methodName) throws NoSuchMethodException {
+        MethodSignature signature = mock(MethodSignature.class);
+        when(signature.getMethod()).thenReturn(Heavy.class.getDeclaredMethod(methodName));
+        when(proceedingJoinPoint.getSignature()).thenReturn(signature);
+    }
+
+    private static AnalyticsBulkhead analyticsBulkhead() {
+        return new AnalyticsBulkhead(1, Duration.ofSeconds(1), new SimpleMeterRegistry());
+    }
+
+    static class Heavy {
+        @AnalyticsQuery
+        void report() {
+        }
+    }
+
+    static class StaleTolerant {
+        @AllowStaleReads
+        void report() {
+        }
+    }
 }
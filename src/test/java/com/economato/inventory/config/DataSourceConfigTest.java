@@ -0,0 +1,51 @@
+package com.economato.inventory.config;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataSourceConfigTest {
+
+    private DataSourceConfig config;
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        config = new DataSourceConfig();
+        ReflectionTestUtils.setField(config, "connectionTimeout", 2_000L);
+        ReflectionTestUtils.setField(config, "validationTimeout", 1_000L);
+        ReflectionTestUtils.setField(config, "idleTimeout", 600_000L);
+        ReflectionTestUtils.setField(config, "maxLifetime", 1_800_000L);
+        ReflectionTestUtils.setField(config, "maximumPoolSize", 2);
+        ReflectionTestUtils.setField(config, "minimumIdle", 0);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void readerPool_reportsHikariMetrics() throws SQLException {
+        // Las propiedades de PgJDBC (socketTimeout...) no existen en H2
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("spring.datasource.reader.jdbc-url",
+                        "jdbc:h2:mem:reader_metrics;DB_CLOSE_DELAY=-1;IGNORE_UNKNOWN_SETTINGS=TRUE")
+                .withProperty("spring.datasource.reader.username", "sa")
+                .withProperty("spring.datasource.reader.password", "");
+
+        DataSource reader = config.readerDataSource(environment, CircuitBreakerRegistry.ofDefaults(), meterRegistry);
+        try (Connection connection = reader.getConnection()) {
+            assertTrue(connection.isValid(1));
+        }
+
+        assertNotNull(meterRegistry.find("hikaricp.connections").tag("pool", "reader-pool").gauge());
+        assertNotNull(meterRegistry.find("hikaricp.connections.acquire").tag("pool", "reader-pool").timer());
+    }
+}
@@ -0,0 +1,83 @@
+package com.economato.inventory.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el JSON con tipado por defecto con {@link RedisValueCodec} sobre
+ * páginas reales de DTOs. No se ejecuta con los tests; lanzar con:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.economato.inventory.config.RedisValueCodecBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisValueCodecBenchmark {
+
+    @Param({ "products", "recipes" })
+    public String pageType;
+
+    private GenericJackson2JsonRedisSerializer json;
+    private RedisValueCodec binary;
+    private Object page;
+    private byte[] jsonBytes;
+    private byte[] binaryBytes;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper mapper = CacheValueFixtures.baseMapper();
+        json = RedisConfig.buildRedisSerializer(mapper);
+        binary = new RedisValueCodec(mapper, json, 1024, true);
+        page = "products".equals(pageType) ? CacheValueFixtures.productPage(20) : CacheValueFixtures.recipePage(20);
+        jsonBytes = json.serialize(page);
+        binaryBytes = binary.serialize(page);
+    }
+
+    @Benchmark
+    public byte[] serializeJson() {
+        return json.serialize(page);
+    }
+
+    @Benchmark
+    public byte[] serializeBinary() {
+        return binary.serialize(page);
+    }
+
+    @Benchmark
+    public Object deserializeJson() {
+        return json.deserialize(jsonBytes);
+    }
+
+    @Benchmark
+    public Object deserializeBinary() {
+        return binary.deserialize(binaryBytes);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RedisValueCodecBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
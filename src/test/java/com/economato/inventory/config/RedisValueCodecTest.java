@@ -0,0 +1,189 @@
+package com.economato.inventory.config;
+
+import com.economato.inventory.dto.RestPage;
+import com.economato.inventory.dto.response.ProductResponseDTO;
+import com.economato.inventory.dto.response.RecipeResponseDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedisValueCodecTest {
+
+    private static final int WARMUP_ROUND_TRIPS = 2_000;
+    private static final int TIMED_ROUNDS = 5;
+    private static final int ROUND_TRIPS_PER_ROUND = 500;
+    private static final int MAX_ROUND_TRIP_FACTOR = 2;
+
+    private GenericJackson2JsonRedisSerializer legacy;
+    private RedisValueCodec codec;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper mapper = CacheValueFixtures.baseMapper();
+        legacy = RedisConfig.buildRedisSerializer(mapper);
+        codec = new RedisValueCodec(mapper, legacy, 1024, true);
+    }
+
+    @Test
+    void roundTrip_productPage() {
+        RestPage<ProductResponseDTO> page = CacheValueFixtures.productPage(10);
+
+        byte[] encoded = codec.serialize(page);
+        @SuppressWarnings("unchecked")
+        RestPage<ProductResponseDTO> decoded = (RestPage<ProductResponseDTO>) codec.deserialize(encoded);
+
+        assertEquals(RedisValueCodec.MAGIC, encoded[0]);
+        assertEquals(page.getContent(), decoded.getContent());
+        assertEquals(page.getTotalElements(), decoded.getTotalElements());
+        assertEquals(page.getNumber(), decoded.getNumber());
+        assertEquals(page.getSize(), decoded.getSize());
+    }
+
+    @Test
+    void roundTrip_recipeWithNestedCollections() {
+        RecipeResponseDTO recipe = CacheValueFixtures.recipe(3, 12);
+
+        assertEquals(recipe, codec.deserialize(codec.serialize(recipe)));
+    }
+
+    @Test
+    void roundTrip_emptyPage() {
+        RestPage<Object> empty = new RestPage<>(List.of());
+
+        RestPage<?> decoded = (RestPage<?>) codec.deserialize(codec.serialize(empty));
+
+        assertTrue(decoded.getContent().isEmpty());
+    }
+
+    @Test
+    void roundTrip_stringGeneration() {
+        assertEquals("7f3a", codec.deserialize(codec.serialize("7f3a")));
+    }
+
+    @Test
+    void largeValues_areCompressed() {
+        RestPage<RecipeResponseDTO> page = CacheValueFixtures.recipePage(50);
+
+        byte[] encoded = codec.serialize(page);
+
+        assertEquals(1, encoded[2] & 1, "Se esperaba el flag LZ4");
+        assertEquals(page.getContent(), ((RestPage<?>) codec.deserialize(encoded)).getContent());
+    }
+
+    @Test
+    void unregisteredTypes_useLegacyJson() {
+        Map<String, Object> value = new HashMap<>(Map.of("clave", "valor"));
+
+        byte[] encoded = codec.serialize(value);
+
+        assertNotEquals(RedisValueCodec.MAGIC, encoded[0]);
+        assertEquals(value, codec.deserialize(encoded));
+    }
+
+    @Test
+    void legacyJsonValues_areStillReadable() {
+        ProductResponseDTO product = CacheValueFixtures.product(5);
+
+        assertEquals(product, codec.deserialize(legacy.serialize(product)));
+    }
+
+    @Test
+    void binaryDisabled_writesLegacyJsonButReadsBoth() {
+        RedisValueCodec jsonOnly = new RedisValueCodec(CacheValueFixtures.baseMapper(), legacy, 1024, false);
+        ProductResponseDTO product = CacheValueFixtures.product(5);
+
+        byte[] encoded = jsonOnly.serialize(product);
+
+        assertNotEquals(RedisValueCodec.MAGIC, encoded[0]);
+        assertEquals(product, jsonOnly.deserialize(codec.serialize(product)));
+    }
+
+    @Test
+    void unknownFormatVersion_isTreatedAsMiss() {
+        byte[] encoded = codec.serialize(CacheValueFixtures.product(1));
+        encoded[1] = RedisValueCodec.FORMAT_VERSION + 1;
+
+        assertNull(codec.deserialize(encoded));
+    }
+
+    @Test
+    void unknownSchemaVersion_isTreatedAsMiss() {
+        byte[] encoded = codec.serialize(CacheValueFixtures.product(1));
+        encoded[4] = 99; // versión de esquema (tras magic, versión, flags e id de tipo)
+
+        assertNull(codec.deserialize(encoded));
+    }
+
+    @Test
+    void payloadSize_isSmallerThanDefaultTypedJson() {
+        Object[] values = {
+                CacheValueFixtures.product(1),
+                CacheValueFixtures.recipe(1, 8),
+                CacheValueFixtures.productPage(10),
+                CacheValueFixtures.productPage(50),
+                CacheValueFixtures.recipePage(10)
+        };
+        for (Object value : values) {
+            int jsonBytes = legacy.serialize(value).length;
+            int binaryBytes = codec.serialize(value).length;
+            assertTrue(binaryBytes < jsonBytes, describe(value));
+        }
+    }
+
+    @Test
+    void compressedPage_isLessThanHalfOfDefaultTypedJson() {
+        RestPage<?> page = CacheValueFixtures.productPage(50);
+
+        byte[] binary = codec.serialize(page);
+
+        assertEquals(1, binary[2] & 1, "la página supera el umbral y se guarda comprimida con LZ4");
+        assertTrue(binary.length * 2 < legacy.serialize(page).length);
+    }
+
+    /**
+     * Versión reducida de {@link RedisValueCodecBenchmark} que sí corre con los
+     * tests: la mejor de varias rondas de ida y vuelta de una página de 20
+     * recetas no puede tardar más del doble que el JSON. La cota es holgada a
+     * propósito; detecta regresiones gruesas (p.ej. comprimir valores
+     * pequeños), no sustituye al benchmark.
+     */
+    @Test
+    void roundTripTime_staysWithinTwiceDefaultTypedJson() {
+        RestPage<RecipeResponseDTO> page = CacheValueFixtures.recipePage(20);
+
+        long jsonNanos = bestRoundTripNanos(() -> legacy.deserialize(legacy.serialize(page)));
+        long binaryNanos = bestRoundTripNanos(() -> codec.deserialize(codec.serialize(page)));
+
+        assertTrue(binaryNanos <= jsonNanos * MAX_ROUND_TRIP_FACTOR,
+                "binario " + binaryNanos / 1_000 + " µs frente a JSON " + jsonNanos / 1_000 + " µs");
+    }
+
+    private static long bestRoundTripNanos(Runnable roundTrip) {
+        for (int i = 0; i < WARMUP_ROUND_TRIPS; i++) {
+            roundTrip.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < TIMED_ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ROUND_TRIPS_PER_ROUND; i++) {
+                roundTrip.run();
+            }
+            best = Math.min(best, (System.nanoTime() - start) / ROUND_TRIPS_PER_ROUND);
+        }
+        return best;
+    }
+
+    private static String describe(Object value) {
+        if (value instanceof RestPage<?> page) {
+            return "RestPage<" + page.getContent().get(0).getClass().getSimpleName() + ">[" + page.getSize() + "]";
+        }
+        return value.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,164 @@
+package com.economato.inventory.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReplicaLagTrackerTest {
+
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private EntityManager entityManager;
+    private ReplicaLagTracker tracker;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        DataSource unavailable = mock(DataSource.class);
+        when(unavailable.getConnection()).thenThrow(new SQLException("Connection refused"));
+        tracker = new ReplicaLagTracker(unavailable, unavailable, new SimpleMeterRegistry(),
+                Duration.ofSeconds(2), Duration.ofMinutes(5));
+        entityManager = mock(EntityManager.class);
+        ReflectionTestUtils.setField(tracker, "entityManager", entityManager);
+        request = new MockHttpServletRequest();
+        response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void lsn_roundTripsAndOrdersAcrossSegments() {
+        long low = ReplicaLagTracker.parseLsn("0/FFFFFFFF");
+        long high = ReplicaLagTracker.parseLsn("1/0");
+
+        assertTrue(high > low);
+        assertEquals("16/B374D848", ReplicaLagTracker.formatLsn(ReplicaLagTracker.parseLsn("16/B374D848")));
+    }
+
+    @Test
+    void withoutWritesOrToken_replicaIsUsable() {
+        assertEquals(ReplicaLagTracker.NONE, tracker.requiredLsn());
+        assertTrue(tracker.replicaCaughtUp());
+    }
+
+    @Test
+    void clientToken_requiresSampledReplay() {
+        tracker.observeWriterLsn(ReplicaLagTracker.parseLsn("0/2000000"));
+        request.addHeader(ReplicaLagTracker.TOKEN_HEADER, "0/16B3748");
+
+        assertEquals(ReplicaLagTracker.parseLsn("0/16B3748"), tracker.requiredLsn());
+        assertFalse(tracker.replicaCaughtUp());
+    }
+
+    @Test
+    void clientTokenAheadOfWriter_isCappedAtWriterPosition() {
+        tracker.observeWriterLsn(ReplicaLagTracker.parseLsn("0/16B3748"));
+        request.addHeader(ReplicaLagTracker.TOKEN_HEADER, "FFFFFFFF/FFFFFFFE");
+
+        assertEquals(ReplicaLagTracker.parseLsn("0/16B3748"), tracker.requiredLsn());
+    }
+
+    @Test
+    void clientTokenBeforeWriterIsSampled_isIgnored() {
+        request.addHeader(ReplicaLagTracker.TOKEN_HEADER, "0/16B3748");
+
+        assertEquals(ReplicaLagTracker.NONE, tracker.requiredLsn());
+    }
+
+    @Test
+    void malformedToken_isIgnored() {
+        request.addHeader(ReplicaLagTracker.TOKEN_HEADER, "not-an-lsn");
+
+        assertTrue(tracker.replicaCaughtUp());
+    }
+
+    @Test
+    void commitWithUnknownPosition_sendsUserToWriter() {
+        loginAsChef();
+        when(entityManager.createNativeQuery(anyString())).thenThrow(new IllegalStateException("sin conexión"));
+
+        commitWriteTransaction();
+
+        assertFalse(tracker.replicaCaughtUp());
+        assertNull(response.getHeader(ReplicaLagTracker.TOKEN_HEADER));
+    }
+
+    @Test
+    void committedWrite_recordsPositionReadBeforeCommitOnItsConnection() {
+        loginAsChef();
+        Query query = mock(Query.class);
+        when(entityManager.createNativeQuery(anyString())).thenReturn(query);
+        when(query.getSingleResult()).thenReturn("0/16B3748");
+
+        commitWriteTransaction();
+
+        // Se vacían los cambios antes de leer la posición, que no se lee de nuevo tras el commit
+        InOrder order = inOrder(entityManager, query);
+        order.verify(entityManager).flush();
+        order.verify(query).getSingleResult();
+        assertEquals(ReplicaLagTracker.parseLsn("0/16B3748"), tracker.requiredLsn());
+        assertEquals("0/16B3748", response.getHeader(ReplicaLagTracker.TOKEN_HEADER));
+    }
+
+    @Test
+    void readOnlyAndJoinedTransactions_areNotTracked() {
+        TransactionExecution readOnly = mock(TransactionExecution.class);
+        when(readOnly.isNewTransaction()).thenReturn(true);
+        when(readOnly.isReadOnly()).thenReturn(true);
+        TransactionExecution joined = mock(TransactionExecution.class);
+        when(joined.isNewTransaction()).thenReturn(false);
+
+        tracker.afterBegin(readOnly, null);
+        tracker.afterBegin(joined, null);
+
+        assertTrue(TransactionSynchronizationManager.getSynchronizations().isEmpty());
+    }
+
+    private void commitWriteTransaction() {
+        TransactionExecution transaction = mock(TransactionExecution.class);
+        when(transaction.isNewTransaction()).thenReturn(true);
+        when(transaction.isReadOnly()).thenReturn(false);
+
+        tracker.afterBegin(transaction, null);
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.beforeCommit(false);
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+    }
+
+    private static void loginAsChef() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "chef", null, AuthorityUtils.createAuthorityList("ROLE_CHEF")));
+    }
+}
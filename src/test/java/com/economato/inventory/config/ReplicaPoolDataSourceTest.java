@@ -0,0 +1,101 @@
+package com.economato.inventory.config;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReplicaPoolDataSourceTest {
+
+    private DataSource first;
+    private DataSource second;
+    private ReplicaPoolDataSource.Replica replicaA;
+    private ReplicaPoolDataSource.Replica replicaB;
+    private ReplicaPoolDataSource pool;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        first = mock(DataSource.class);
+        second = mock(DataSource.class);
+        lenient().when(first.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        lenient().when(second.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        replicaA = new ReplicaPoolDataSource.Replica("a", first, circuitBreaker("a"));
+        replicaB = new ReplicaPoolDataSource.Replica("b", second, circuitBreaker("b"));
+        pool = new ReplicaPoolDataSource(List.of(replicaA, replicaB));
+    }
+
+    @Test
+    void connection_goesToLessLoadedReplica() throws SQLException {
+        Connection held = pool.getConnection();
+        ReplicaPoolDataSource.Replica busy = replicaA.inFlight() == 1 ? replicaA : replicaB;
+        ReplicaPoolDataSource.Replica idle = busy == replicaA ? replicaB : replicaA;
+
+        pool.getConnection();
+
+        assertEquals(1, busy.inFlight());
+        assertEquals(1, idle.inFlight());
+        held.close();
+        assertEquals(0, busy.inFlight());
+    }
+
+    @Test
+    void close_releasesReplicaOnce() throws SQLException {
+        Connection connection = pool.getConnection();
+
+        connection.close();
+        connection.close();
+
+        assertEquals(0, replicaA.inFlight() + replicaB.inFlight());
+    }
+
+    @Test
+    void slowReplica_isPreferredLess() {
+        replicaA.recordLatency(Duration.ofMillis(500).toNanos());
+
+        assertSame(replicaB, pool.candidates().getFirst());
+    }
+
+    @Test
+    void failingReplica_isSkippedAndDrained() throws SQLException {
+        when(first.getConnection()).thenThrow(new SQLTransientConnectionException("Connection refused"));
+
+        for (int i = 0; i < 5; i++) {
+            assertNotNull(pool.getConnection());
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, replicaA.circuitBreaker().getState());
+        assertEquals(5, replicaB.inFlight());
+        assertSame(replicaA, pool.candidates().getLast());
+        verify(first, atMost(1)).getConnection();
+    }
+
+    @Test
+    void allReplicasDown_failsAsConnectionError() throws SQLException {
+        when(first.getConnection()).thenThrow(new SQLTransientConnectionException("Connection refused"));
+        when(second.getConnection()).thenThrow(new SQLTransientConnectionException("Connection refused"));
+
+        SQLException error = assertThrows(SQLTransientConnectionException.class, pool::getConnection);
+
+        assertNotNull(error.getCause());
+        assertEquals(1, error.getCause().getSuppressed().length);
+    }
+
+    private static CircuitBreaker circuitBreaker(String name) {
+        return CircuitBreaker.of("replica-" + name, CircuitBreakerConfig.custom()
+                .slidingWindowSize(1)
+                .minimumNumberOfCalls(1)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofMinutes(1))
+                .build());
+    }
+}
@@ -0,0 +1,63 @@
+package com.economato.inventory.config;
+
+import com.economato.inventory.model.Product;
+import com.economato.inventory.repository.ProductRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RepositoryMetricsAspectTest {
+
+    @Test
+    void rows_countsReturnedEntities() {
+        assertEquals(0, RepositoryMetricsAspect.rows(null));
+        assertEquals(0, RepositoryMetricsAspect.rows(Optional.empty()));
+        assertEquals(1, RepositoryMetricsAspect.rows(Optional.of(new Product())));
+        assertEquals(2, RepositoryMetricsAspect.rows(List.of(new Product(), new Product())));
+        assertEquals(1, RepositoryMetricsAspect.rows(new PageImpl<>(List.of(new Product()))));
+        assertEquals(1, RepositoryMetricsAspect.rows(new Product()));
+    }
+
+    @Test
+    void repositoryName_isTheApplicationInterface() {
+        Object repository = Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { ProductRepository.class }, (proxy, method, args) -> null);
+
+        assertEquals("ProductRepository", RepositoryMetricsAspect.repositoryName(repository.getClass()));
+    }
+
+    @Test
+    void measure_recordsOnlyRowsTaggedLikeBootRepositoryTimer() throws Throwable {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RepositoryMetricsAspect aspect = new RepositoryMetricsAspect(registry);
+        Object repository = Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { ProductRepository.class }, (proxy, method, args) -> null);
+        MethodSignature signature = mock(MethodSignature.class);
+        when(signature.getMethod()).thenReturn(ProductRepository.class.getMethod("findAll"));
+        ProceedingJoinPoint pjp = mock(ProceedingJoinPoint.class);
+        when(pjp.getThis()).thenReturn(repository);
+        when(pjp.getSignature()).thenReturn(signature);
+        when(pjp.proceed()).thenReturn(List.of(new Product(), new Product()));
+
+        aspect.measure(pjp);
+
+        DistributionSummary rows = registry.find("db.repository.rows")
+                .tags("repository", "ProductRepository", "method", "findAll", "state", "SUCCESS", "exception", "None")
+                .summary();
+        assertNotNull(rows);
+        assertEquals(2, rows.totalAmount());
+        // La latencia ya la mide spring.data.repository.invocations
+        assertTrue(registry.find("db.repository.invocations").meters().isEmpty());
+        assertEquals(1, registry.getMeters().size());
+    }
+}
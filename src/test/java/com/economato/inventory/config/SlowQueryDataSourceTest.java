@@ -0,0 +1,78 @@
+package com.economato.inventory.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SlowQueryDataSourceTest {
+
+    private static final String SQL = "select p.id from product p where p.name = ? and p.supplier_id = ?";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DataSource target;
+    private PreparedStatement statement;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        target = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        statement = mock(PreparedStatement.class);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(SQL)).thenReturn(statement);
+    }
+
+    @Test
+    void slowStatement_isKeptWithBindShapes() throws SQLException {
+        SlowQueryLog slowQueryLog = new SlowQueryLog(Duration.ZERO, 10, meterRegistry);
+        SlowQueryDataSource dataSource = new SlowQueryDataSource(target, slowQueryLog);
+
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement prepared = connection.prepareStatement(SQL)) {
+            prepared.setString(1, "Harina");
+            prepared.setNull(2, Types.INTEGER);
+            prepared.executeQuery();
+        }
+
+        List<SlowQueryLog.SlowQuery> recent = slowQueryLog.recent();
+        assertEquals(1, recent.size());
+        assertEquals(SQL, recent.getFirst().sql());
+        assertEquals(List.of("varchar(6)", "null"), recent.getFirst().binds());
+        assertEquals("unknown", recent.getFirst().source());
+        assertEquals(1, meterRegistry.get("db.query.slow").tag("method", "unknown").counter().count());
+        verify(statement).setString(1, "Harina");
+        verify(statement).executeQuery();
+    }
+
+    @Test
+    void fastStatement_isNotRecorded() throws SQLException {
+        SlowQueryLog slowQueryLog = new SlowQueryLog(Duration.ofHours(1), 10, meterRegistry);
+        SlowQueryDataSource dataSource = new SlowQueryDataSource(target, slowQueryLog);
+
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement prepared = connection.prepareStatement(SQL)) {
+            prepared.setString(1, "Harina");
+            prepared.executeQuery();
+        }
+
+        assertTrue(slowQueryLog.recent().isEmpty());
+    }
+
+    @Test
+    void onlyPlainSelectsAreExplained() {
+        assertTrue(SlowQueryEndpoint.isSelect("  select * from product where updated_at > ?"));
+        assertFalse(SlowQueryEndpoint.isSelect("select * from product where id = ? for update"));
+        assertFalse(SlowQueryEndpoint.isSelect("with moved as (delete from stock returning *) select * from moved"));
+        assertFalse(SlowQueryEndpoint.isSelect("update product set name = ?"));
+    }
+}
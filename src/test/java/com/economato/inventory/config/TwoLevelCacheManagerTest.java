@@ -0,0 +1,126 @@
+package com.economato.inventory.config;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Simula dos nodos que comparten la misma L2 y se entregan mutuamente los
+ * mensajes de invalidación.
+ */
+class TwoLevelCacheManagerTest {
+
+    private ConcurrentMapCacheManager sharedRemote;
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    private final List<String> published = new ArrayList<>();
+
+    private TwoLevelCacheManager nodeA;
+    private TwoLevelCacheManager nodeB;
+
+    @BeforeEach
+    void setUp() {
+        sharedRemote = new ConcurrentMapCacheManager();
+        circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+        nodeA = newNode();
+        nodeB = newNode();
+    }
+
+    @Test
+    void localHit_doesNotReachRemote() {
+        nodeA.getCache("product").put(1, "Harina");
+        sharedRemote.getCache("product").clear();
+
+        assertEquals("Harina", nodeA.getCache("product").get(1).get());
+    }
+
+    @Test
+    void put_invalidatesOtherNodesLocalCopy() {
+        Cache cacheA = nodeA.getCache("product");
+        Cache cacheB = nodeB.getCache("product");
+        cacheA.put(1, "Harina");
+        assertEquals("Harina", cacheB.get(1).get());
+
+        cacheA.put(1, "Harina integral");
+        deliver(nodeB);
+
+        assertEquals("Harina integral", cacheB.get(1).get());
+    }
+
+    @Test
+    void clear_invalidatesOtherNodes() {
+        nodeA.getCache("products_page").put("0-10", "page");
+        nodeB.getCache("products_page").get("0-10");
+
+        nodeA.getCache("products_page").clear();
+        deliver(nodeB);
+
+        assertNull(nodeB.getCache("products_page").get("0-10"));
+    }
+
+    @Test
+    void ownMessages_areIgnored() {
+        Cache cacheA = nodeA.getCache("product");
+        cacheA.put(1, "Harina");
+        sharedRemote.getCache("product").clear();
+
+        deliver(nodeA);
+
+        assertEquals("Harina", cacheA.get(1).get());
+    }
+
+    @Test
+    void localCache_keepsServingWhenRedisCircuitIsOpen() {
+        Cache cacheA = nodeA.getCache("recipe");
+        cacheA.put(7, "Paella");
+        circuitBreakerRegistry.circuitBreaker("redis").transitionToForcedOpenState();
+        published.clear();
+
+        assertEquals("Paella", cacheA.get(7).get());
+        cacheA.evict(8);
+        assertTrue(published.isEmpty());
+    }
+
+    @Test
+    void redisRecovery_clearsLocalCaches() {
+        Cache cacheA = nodeA.getCache("recipe");
+        cacheA.put(7, "Paella");
+        sharedRemote.getCache("recipe").clear();
+
+        var redis = circuitBreakerRegistry.circuitBreaker("redis");
+        redis.transitionToOpenState();
+        redis.transitionToHalfOpenState();
+        redis.transitionToClosedState();
+
+        assertNull(cacheA.get(7));
+    }
+
+    private TwoLevelCacheManager newNode() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        doAnswer(invocation -> published.add(invocation.getArgument(1)))
+                .when(redisTemplate).convertAndSend(eq(CacheInvalidationBus.CHANNEL), anyString());
+        CacheInvalidationBus bus = new CacheInvalidationBus(redisTemplate, circuitBreakerRegistry);
+        return new TwoLevelCacheManager(sharedRemote, bus, circuitBreakerRegistry, 100, Duration.ofMinutes(5));
+    }
+
+    private void deliver(TwoLevelCacheManager node) {
+        for (String message : published) {
+            node.onMessage(new DefaultMessage(CacheInvalidationBus.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                    message.getBytes(StandardCharsets.UTF_8)), null);
+        }
+        published.clear();
+    }
+}
@@ -11,10 +11,13 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 
 import com.economato.inventory.repository.ProductRepository;
 import com.economato.inventory.service.CustomUserDetailsService;
 import com.economato.inventory.util.DatabaseCleaner;
+import com.economato.inventory.util.QueryBudget;
 import com.economato.inventory.dto.request.LoginRequestDTO;
 import com.economato.inventory.dto.response.LoginResponseDTO;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -47,6 +50,9 @@ public abstract class BaseIntegrationTest {
     @Autowired
     protected CustomUserDetailsService customUserDetailsService;
 
+    @Autowired
+    protected QueryBudget queryBudget;
+
     /**
      * H2 does not support FOR NO KEY UPDATE generated by @Lock(PESSIMISTIC_WRITE).
      * This spy stubs findByIdForUpdate to delegate to the lock-free findById so
@@ -76,6 +82,15 @@ public abstract class BaseIntegrationTest {
         }
     }
 
+    /**
+     * Ejecuta la petición y falla si prepara más de {@code maxStatements}
+     * sentencias SQL. Los datos de prueba deben tener varios elementos para
+     * que un N+1 supere el presupuesto.
+     */
+    protected ResultActions performWithinQueryBudget(long maxStatements, RequestBuilder request) throws Exception {
+        return queryBudget.assertAtMost(maxStatements, () -> mockMvc.perform(request));
+    }
+
     protected void clearDatabase() {
         databaseCleaner.clear();
     }
@@ -0,0 +1,98 @@
+package com.economato.inventory.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.economato.inventory.model.User;
+import com.economato.inventory.repository.UserRepository;
+import com.economato.inventory.service.LedgerBulkTransferService;
+import com.economato.inventory.service.LedgerBulkTransferService.BulkFormat;
+import com.economato.inventory.service.LedgerBulkTransferService.BulkTable;
+import com.economato.inventory.util.TestDataUtil;
+
+/**
+ * Exportación servida por el contenedor real: MockMvc no aplica los timeouts
+ * asíncronos. El timeout por defecto se reduce a 500 ms y la exportación
+ * simulada tarda más del triple; el COPY real necesita PostgreSQL, así que el
+ * servicio se sustituye por uno que escribe a trozos.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = "spring.mvc.async.request-timeout=500ms")
+class BulkTransferControllerIntegrationTest extends BaseIntegrationTest {
+
+    private static final int CHUNKS = 4;
+    private static final long CHUNK_PAUSE_MILLIS = 400;
+
+    @MockitoBean
+    private LedgerBulkTransferService bulkTransferService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Value("${local.server.port}")
+    private int port;
+
+    private String token;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        clearDatabase();
+        User adminUser = TestDataUtil.createAdminUser();
+        adminUser.setPassword(passwordEncoder.encode("admin123"));
+        userRepository.saveAndFlush(adminUser);
+        token = loginAsAdmin();
+    }
+
+    @Test
+    void exportLongerThanDefaultAsyncTimeout_isDeliveredComplete() throws Exception {
+        when(bulkTransferService.exportTimeout()).thenReturn(Duration.ZERO);
+        doAnswer(inv -> {
+            OutputStream out = inv.getArgument(2);
+            out.write("transaction_id,product_id\n".getBytes(StandardCharsets.UTF_8));
+            for (int i = 1; i <= CHUNKS; i++) {
+                out.flush();
+                Thread.sleep(CHUNK_PAUSE_MILLIS);
+                out.write((i + ",1\n").getBytes(StandardCharsets.UTF_8));
+            }
+            return (long) CHUNKS;
+        }).when(bulkTransferService).export(eq(BulkTable.STOCK_LEDGER), eq(BulkFormat.CSV), any());
+
+        HttpRequest request = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + port + "/api/bulk/stock_ledger/export"))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+        long start = System.nanoTime();
+        HttpResponse<String> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(elapsedMillis).isGreaterThan(CHUNKS * CHUNK_PAUSE_MILLIS - 100);
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Disposition")).hasValueSatisfying(
+                value -> assertThat(value).contains("stock_ledger.csv"));
+        assertThat(response.body()).isEqualTo("transaction_id,product_id\n1,1\n2,1\n3,1\n4,1\n");
+    }
+}
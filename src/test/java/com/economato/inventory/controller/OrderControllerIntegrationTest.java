@@ -81,6 +81,44 @@ class OrderControllerIntegrationTest extends BaseIntegrationTest {
                                 .andExpect(status().isOk());
         }
 
+        @Test
+        void whenGetOrders_thenStaysWithinQueryBudget() throws Exception {
+                Integer lastOrderId = null;
+                for (int i = 0; i < 5; i++) {
+                        OrderRequestDTO orderRequest = new OrderRequestDTO();
+                        orderRequest.setUserId(testUser.getId());
+                        orderRequest.setDetails(List.of(detail(testProduct1, "2.0"), detail(testProduct2, "1.5")));
+
+                        String response = mockMvc.perform(post(BASE_URL)
+                                        .header("Authorization", "Bearer " + jwtToken)
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content(asJsonString(orderRequest)))
+                                        .andExpect(status().isOk())
+                                        .andReturn().getResponse().getContentAsString();
+                        lastOrderId = objectMapper.readTree(response).get("id").asInt();
+                }
+
+                // Pedidos, usuario, líneas y productos en una consulta; un N+1 por pedido serían 6 o más
+                performWithinQueryBudget(2, get(BASE_URL)
+                                .header("Authorization", "Bearer " + jwtToken)
+                                .param("page", "0")
+                                .param("size", "10"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.content", hasSize(5)));
+
+                performWithinQueryBudget(2, get(BASE_URL + "/{id}", lastOrderId)
+                                .header("Authorization", "Bearer " + jwtToken))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.details", hasSize(2)));
+        }
+
+        private static OrderDetailRequestDTO detail(Product product, String quantity) {
+                OrderDetailRequestDTO detail = new OrderDetailRequestDTO();
+                detail.setProductId(product.getId());
+                detail.setQuantity(new BigDecimal(quantity));
+                return detail;
+        }
+
         @Test
         void whenCreateValidOrder_thenReturnsCreatedOrder() throws Exception {
 
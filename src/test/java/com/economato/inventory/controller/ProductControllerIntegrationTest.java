@@ -26,8 +26,10 @@ import com.economato.inventory.dto.request.LoginRequestDTO;
 import com.economato.inventory.dto.request.ProductRequestDTO;
 import com.economato.inventory.dto.response.LoginResponseDTO;
 import com.economato.inventory.model.Product;
+import com.economato.inventory.model.Supplier;
 import com.economato.inventory.model.User;
 import com.economato.inventory.repository.ProductRepository;
+import com.economato.inventory.repository.SupplierRepository;
 import com.economato.inventory.repository.UserRepository;
 import com.economato.inventory.util.TestDataUtil;
 
@@ -42,6 +44,9 @@ class ProductControllerIntegrationTest extends BaseIntegrationTest {
         @Autowired
         private UserRepository userRepository;
 
+        @Autowired
+        private SupplierRepository supplierRepository;
+
         @Autowired
         private PasswordEncoder passwordEncoder;
 
@@ -83,6 +88,26 @@ class ProductControllerIntegrationTest extends BaseIntegrationTest {
                                 .andExpect(jsonPath("$.content", notNullValue()));
         }
 
+        @Test
+        void whenGetAllProducts_thenStaysWithinQueryBudget() throws Exception {
+                for (int i = 1; i <= 5; i++) {
+                        Supplier supplier = supplierRepository.saveAndFlush(
+                                        Supplier.builder().name("Proveedor " + i).build());
+                        Product product = TestDataUtil.createProduct("Producto " + i, "Ingrediente", "KG",
+                                        new BigDecimal("1.00"), "PRV00" + i, new BigDecimal("10.0"));
+                        product.setSupplier(supplier);
+                        productRepository.saveAndFlush(product);
+                }
+
+                // Productos y proveedores en una consulta; un N+1 por proveedor serían 6
+                performWithinQueryBudget(2, get(BASE_URL)
+                                .header("Authorization", "Bearer " + jwtToken)
+                                .param("page", "0")
+                                .param("size", "20"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.content.length()").value(6));
+        }
+
         @Test
         void whenCreateValidProduct_thenReturnsCreatedProduct() throws Exception {
                 ProductRequestDTO productRequest = TestDataUtil.createProductRequestDTO();
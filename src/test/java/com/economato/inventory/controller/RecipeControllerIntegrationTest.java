@@ -30,10 +30,12 @@ import com.economato.inventory.dto.request.RecipeComponentRequestDTO;
 import com.economato.inventory.dto.request.RecipeCookingRequestDTO;
 import com.economato.inventory.dto.request.RecipeRequestDTO;
 import com.economato.inventory.dto.response.LoginResponseDTO;
+import com.economato.inventory.model.Allergen;
 import com.economato.inventory.model.MovementType;
 import com.economato.inventory.model.Product;
 import com.economato.inventory.model.StockLedger;
 import com.economato.inventory.model.User;
+import com.economato.inventory.repository.AllergenRepository;
 import com.economato.inventory.repository.ProductRepository;
 import com.economato.inventory.repository.StockLedgerRepository;
 import com.economato.inventory.repository.UserRepository;
@@ -43,6 +45,8 @@ class RecipeControllerIntegrationTest extends BaseIntegrationTest {
 
         private static final String BASE_URL = "/api/recipes";
         private static final String AUTH_URL = "/api/auth/login";
+        private static final int COOK_COMPONENTS = 6;
+        private static final long COOK_QUERY_BUDGET = 14;
 
         @Autowired
         private ProductRepository productRepository;
@@ -53,6 +57,9 @@ class RecipeControllerIntegrationTest extends BaseIntegrationTest {
         @Autowired
         private StockLedgerRepository stockLedgerRepository;
 
+        @Autowired
+        private AllergenRepository allergenRepository;
+
         private Product testProduct;
         private User testUser;
         private String jwtToken;
@@ -106,6 +113,93 @@ class RecipeControllerIntegrationTest extends BaseIntegrationTest {
                                 .andExpect(jsonPath("$.components[0].quantity", is(0.5)));
         }
 
+        @Test
+        void whenGetRecipes_thenStaysWithinQueryBudget() throws Exception {
+                Integer lastRecipeId = createRecipesWithComponentsAndAllergens(5);
+
+                // Recetas, componentes, productos y alérgenos en una consulta; un N+1 por receta serían 6 o más
+                performWithinQueryBudget(2, get(BASE_URL)
+                                .header("Authorization", "Bearer " + jwtToken)
+                                .param("page", "0")
+                                .param("size", "20"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.content", hasSize(5)));
+
+                performWithinQueryBudget(2, get(BASE_URL + "/{id}", lastRecipeId)
+                                .header("Authorization", "Bearer " + jwtToken))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.components", hasSize(2)));
+        }
+
+        @Test
+        void whenCookRecipe_thenStaysWithinQueryBudget() throws Exception {
+                List<RecipeComponentRequestDTO> components = new ArrayList<>();
+                for (int i = 1; i <= COOK_COMPONENTS; i++) {
+                        Product ingredient = productRepository.saveAndFlush(TestDataUtil.createProduct(
+                                        "Ingrediente " + i, "Ingrediente", "KG", new BigDecimal("1.00"), "COC00" + i,
+                                        new BigDecimal("100.0")));
+                        components.add(component(ingredient, "0.5"));
+                }
+                RecipeRequestDTO recipeRequest = new RecipeRequestDTO();
+                recipeRequest.setName("Menú degustación");
+                recipeRequest.setElaboration("1. Preparar\n2. Emplatar");
+                recipeRequest.setPresentation("En plato");
+                recipeRequest.setComponents(components);
+
+                String createResponse = mockMvc.perform(post(BASE_URL)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(asJsonString(recipeRequest))
+                                .header("Authorization", "Bearer " + jwtToken))
+                                .andExpect(status().isCreated())
+                                .andReturn().getResponse().getContentAsString();
+
+                RecipeCookingRequestDTO cookingRequest = new RecipeCookingRequestDTO();
+                cookingRequest.setRecipeId(objectMapper.readTree(createResponse).get("id").asInt());
+                cookingRequest.setQuantity(BigDecimal.ONE);
+
+                // Receta, usuario, productos, cabezas del ledger y un lote por tabla
+                // escrita; con una lectura y un flush por componente eran más de 30
+                performWithinQueryBudget(COOK_QUERY_BUDGET, post(BASE_URL + "/cook")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(asJsonString(cookingRequest))
+                                .header("Authorization", "Bearer " + jwtToken))
+                                .andExpect(status().isOk());
+
+                assertEquals(COOK_COMPONENTS, stockLedgerRepository.count());
+        }
+
+        private Integer createRecipesWithComponentsAndAllergens(int count) throws Exception {
+                Product sugar = productRepository.saveAndFlush(TestDataUtil.createSugar());
+                Allergen gluten = allergenRepository.saveAndFlush(TestDataUtil.createGlutenAllergen());
+                Allergen egg = allergenRepository.saveAndFlush(TestDataUtil.createEggAllergen());
+
+                Integer recipeId = null;
+                for (int i = 1; i <= count; i++) {
+                        RecipeRequestDTO recipeRequest = new RecipeRequestDTO();
+                        recipeRequest.setName("Bizcocho " + i);
+                        recipeRequest.setElaboration("1. Mezclar\n2. Hornear");
+                        recipeRequest.setPresentation("En porciones");
+                        recipeRequest.setComponents(List.of(component(testProduct, "0.5"), component(sugar, "0.2")));
+                        recipeRequest.setAllergenIds(List.of(gluten.getId(), egg.getId()));
+
+                        String response = mockMvc.perform(post(BASE_URL)
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content(asJsonString(recipeRequest))
+                                        .header("Authorization", "Bearer " + jwtToken))
+                                        .andExpect(status().isCreated())
+                                        .andReturn().getResponse().getContentAsString();
+                        recipeId = objectMapper.readTree(response).get("id").asInt();
+                }
+                return recipeId;
+        }
+
+        private static RecipeComponentRequestDTO component(Product product, String quantity) {
+                RecipeComponentRequestDTO component = new RecipeComponentRequestDTO();
+                component.setProductId(product.getId());
+                component.setQuantity(new BigDecimal(quantity));
+                return component;
+        }
+
         @Test
         void whenGetRecipeById_thenReturnsRecipe() throws Exception {
                 RecipeRequestDTO recipeRequest = new RecipeRequestDTO();
@@ -0,0 +1,101 @@
+package com.economato.inventory.controller;
+
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.economato.inventory.model.Product;
+import com.economato.inventory.model.Recipe;
+import com.economato.inventory.model.RecipeComponent;
+import com.economato.inventory.model.RecipeCookingAudit;
+import com.economato.inventory.model.StockPrediction;
+import com.economato.inventory.model.User;
+import com.economato.inventory.repository.RecipeComponentRepository;
+import com.economato.inventory.repository.RecipeCookingAuditRepository;
+import com.economato.inventory.repository.RecipeRepository;
+import com.economato.inventory.repository.StockPredictionRepository;
+import com.economato.inventory.repository.UserRepository;
+import com.economato.inventory.util.TestDataUtil;
+
+@DisplayName("Stock alerts Integration Tests")
+class StockAlertControllerIntegrationTest extends BaseIntegrationTest {
+
+    private static final String BASE_URL = "/api/stock-alerts";
+    private static final int ALERTED_PRODUCTS = 8;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private RecipeComponentRepository recipeComponentRepository;
+
+    @Autowired
+    private RecipeCookingAuditRepository cookingAuditRepository;
+
+    @Autowired
+    private StockPredictionRepository predictionRepository;
+
+    private String jwtToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        clearDatabase();
+        User admin = userRepository.saveAndFlush(TestDataUtil.createAdminUser());
+
+        Recipe recipe = recipeRepository.saveAndFlush(
+                TestDataUtil.createRecipe("Guiso", "Cocer", "En cazuela", BigDecimal.TEN));
+        for (int i = 1; i <= ALERTED_PRODUCTS; i++) {
+            // Stock para menos de un día con la proyección de 20 unidades en 14 días
+            Product product = productRepository.saveAndFlush(TestDataUtil.createProduct(
+                    "Ingrediente " + i, "Ingrediente", "KG", BigDecimal.ONE, "ALR00" + i, BigDecimal.ONE));
+
+            RecipeComponent component = new RecipeComponent();
+            component.setParentRecipe(recipe);
+            component.setProduct(product);
+            component.setQuantity(BigDecimal.ONE);
+            recipeComponentRepository.saveAndFlush(component);
+
+            predictionRepository.saveAndFlush(StockPrediction.builder()
+                    .product(product)
+                    .projectedConsumption(new BigDecimal("20.0000"))
+                    .build());
+        }
+
+        RecipeCookingAudit cooking = new RecipeCookingAudit();
+        cooking.setRecipe(recipe);
+        cooking.setUser(admin);
+        cooking.setQuantityCooked(new BigDecimal("3"));
+        cooking.setCookingDate(LocalDateTime.now().minusDays(1));
+        cookingAuditRepository.saveAndFlush(cooking);
+
+        jwtToken = loginAsAdmin();
+    }
+
+    @Test
+    void whenGetAlerts_thenStaysWithinQueryBudget() throws Exception {
+        // Predicciones, pedidos pendientes, productos y recetas que más consumen:
+        // una consulta cada una; con una por producto serían más de ALERTED_PRODUCTS
+        performWithinQueryBudget(6, get(BASE_URL)
+                .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(ALERTED_PRODUCTS)))
+                .andExpect(jsonPath("$[*].severity", everyItem(is("CRITICAL"))))
+                .andExpect(jsonPath("$[*].topConsumingRecipes[*]", everyItem(is("Guiso"))))
+                .andExpect(jsonPath("$[0].topConsumingRecipes", hasItem("Guiso")));
+    }
+}
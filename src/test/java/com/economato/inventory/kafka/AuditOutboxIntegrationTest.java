@@ -30,6 +30,8 @@ import com.economato.inventory.model.RecipeCookingAudit;
 import com.economato.inventory.model.OrderAudit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.test.context.EmbeddedKafka;
 import org.springframework.test.annotation.DirtiesContext;
@@ -38,7 +40,9 @@ import org.springframework.test.context.TestPropertySource;
 import org.testcontainers.shaded.org.awaitility.Awaitility;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -94,6 +98,9 @@ public class AuditOutboxIntegrationTest extends BaseIntegrationTest {
     @Autowired
     private RecipeRepository recipeRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private Product testProduct;
     private User testUser;
     private Order testOrder;
@@ -258,8 +265,8 @@ public class AuditOutboxIntegrationTest extends BaseIntegrationTest {
         AuditOutbox corruptedEvent = AuditOutbox.builder()
                 .topic(AuditEventProducer.INVENTORY_AUDIT_TOPIC)
                 .eventKey("corrupted-key")
-                .payload("{ \"invalid\": json }")
-                .createdAt(LocalDateTime.now())
+                .payload("{ \"invalid\": json }".getBytes(StandardCharsets.UTF_8))
+                .createdAt(LocalDateTime.now(ZoneOffset.UTC))
                 .build();
         auditOutboxRepository.save(corruptedEvent);
 
@@ -285,4 +292,79 @@ public class AuditOutboxIntegrationTest extends BaseIntegrationTest {
             assertThat(audits.stream().anyMatch(a -> "Valid Event".equals(a.getActionDescription()))).isTrue();
         });
     }
+
+    @Test
+    void testResentOutboxEventIsPersistedOnce() throws Exception {
+        InventoryAuditEvent event = new InventoryAuditEvent();
+        event.setProductId(testProduct.getId());
+        event.setMovementType("ENTRADA");
+        event.setQuantity(BigDecimal.ONE);
+        event.setMovementDate(LocalDateTime.now());
+        event.setActionDescription("Resent Event");
+        auditEventProducer.publishInventoryAudit(event);
+
+        AuditOutbox original = auditOutboxRepository.findAll().get(0);
+        auditOutboxProcessor.processOutbox();
+
+        Awaitility.await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> {
+            assertThat(inventoryAuditRepository.findAll()).hasSize(1);
+        });
+
+        // Simula un reenvío tras timeout: mismo event_id, nueva fila de Outbox
+        auditOutboxRepository.save(AuditOutbox.builder()
+                .eventId(original.getEventId())
+                .topic(original.getTopic())
+                .eventKey(original.getEventKey())
+                .payload(original.getPayload())
+                .build());
+        auditOutboxProcessor.processOutbox();
+
+        Awaitility.await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> {
+            assertThat(auditOutboxRepository.findAll()).isEmpty();
+        });
+        Awaitility.await().during(2, TimeUnit.SECONDS).atMost(5, TimeUnit.SECONDS).untilAsserted(() -> {
+            List<InventoryAudit> audits = inventoryAuditRepository.findAll();
+            assertThat(audits).hasSize(1);
+            assertThat(audits.get(0).getEventId()).isEqualTo(original.getEventId());
+        });
+    }
+
+    @Test
+    void testBatchConsumptionOfQueuedEvents() throws Exception {
+        final int totalEvents = 2000;
+        for (int i = 0; i < totalEvents; i++) {
+            InventoryAuditEvent event = new InventoryAuditEvent();
+            event.setProductId(testProduct.getId());
+            event.setUserId(testUser.getId());
+            event.setMovementType("ENTRADA");
+            event.setQuantity(BigDecimal.ONE);
+            event.setMovementDate(LocalDateTime.now());
+            event.setActionDescription("Bulk " + i);
+            auditEventProducer.publishInventoryAudit(event);
+        }
+
+        DistributionSummary batches = meterRegistry.get("kafka.audit.consumer.batch.size")
+                .tag("topic", AuditEventProducer.INVENTORY_AUDIT_TOPIC)
+                .summary();
+        long batchesBefore = batches.count();
+        double persistedBefore = batches.totalAmount();
+
+        while (auditOutboxRepository.count() > 0) {
+            auditOutboxProcessor.processOutbox();
+        }
+
+        Awaitility.await().atMost(60, TimeUnit.SECONDS).untilAsserted(() -> {
+            assertThat(inventoryAuditRepository.count()).isEqualTo(totalEvents);
+        });
+
+        // Cada evento se persiste una sola vez y en menos transacciones que eventos
+        List<String> descriptions = inventoryAuditRepository.findAll().stream()
+                .map(InventoryAudit::getActionDescription)
+                .toList();
+        assertThat(descriptions).doesNotHaveDuplicates().hasSize(totalEvents);
+        Awaitility.await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> {
+            assertThat(batches.totalAmount() - persistedBefore).isEqualTo(totalEvents);
+        });
+        assertThat(batches.count() - batchesBefore).isLessThan(totalEvents);
+    }
 }
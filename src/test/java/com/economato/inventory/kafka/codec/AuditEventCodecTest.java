@@ -0,0 +1,179 @@
+package com.economato.inventory.kafka.codec;
+
+import com.economato.inventory.dto.event.InventoryAuditEvent;
+import com.economato.inventory.dto.event.OrderAuditEvent;
+import com.economato.inventory.dto.event.RecipeAuditEvent;
+import com.economato.inventory.dto.event.RecipeCookingAuditEvent;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditEventCodecTest {
+
+    private static final int MAX_ENVELOPE_PERCENT = 60;
+    private static final LocalDateTime DATE = LocalDateTime.of(2025, 3, 14, 9, 26, 53, 589_793_000);
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    @Test
+    void roundTrip_inventoryEvent_preservesAllFields() {
+        InventoryAuditEvent event = inventoryEvent();
+
+        byte[] encoded = AuditEventCodec.encode(event);
+
+        assertTrue(AuditEventCodec.isEnvelope(encoded));
+        assertEquals(event, AuditEventCodec.decode(encoded, InventoryAuditEvent.class));
+    }
+
+    @Test
+    void roundTrip_recipeEvent_preservesAllFields() {
+        RecipeAuditEvent event = RecipeAuditEvent.builder()
+                .recipeId(7).recipeName("Paella").userId(3).userName("chef")
+                .action("UPDATE").details("Cambio de componentes")
+                .previousState("{\"cost\":10}").newState("{\"cost\":12}")
+                .auditDate(DATE)
+                .build();
+
+        assertEquals(event, AuditEventCodec.decode(AuditEventCodec.encode(event), RecipeAuditEvent.class));
+    }
+
+    @Test
+    void roundTrip_orderEvent_preservesAllFields() {
+        OrderAuditEvent event = OrderAuditEvent.builder()
+                .orderId(Integer.MAX_VALUE).userId(Integer.MIN_VALUE).userName("admin")
+                .action("STATUS_CHANGE").details("PENDING -> CONFIRMED")
+                .auditDate(DATE)
+                .build();
+
+        assertEquals(event, AuditEventCodec.decode(AuditEventCodec.encode(event), OrderAuditEvent.class));
+    }
+
+    @Test
+    void roundTrip_cookingEvent_preservesDecimalScaleAndUnicode() {
+        RecipeCookingAuditEvent event = RecipeCookingAuditEvent.builder()
+                .recipeId(12).recipeName("Tortilla española").userId(2).userName("Iñaki")
+                .quantityCooked(new BigDecimal("-0.250"))
+                .componentsState("[{\"productId\":1,\"quantity\":2.500},{\"productId\":9,\"quantity\":0.125}]")
+                .cookingDate(DATE)
+                .build();
+
+        RecipeCookingAuditEvent decoded = AuditEventCodec.decode(AuditEventCodec.encode(event),
+                RecipeCookingAuditEvent.class);
+
+        assertEquals(event, decoded);
+        assertEquals(3, decoded.getQuantityCooked().scale());
+    }
+
+    @Test
+    void roundTrip_withNullFields_keepsThemNull() {
+        InventoryAuditEvent event = InventoryAuditEvent.builder().productId(1).build();
+
+        assertEquals(event, AuditEventCodec.decode(AuditEventCodec.encode(event), InventoryAuditEvent.class));
+    }
+
+    @Test
+    void evolution_olderReader_ignoresTrailingFieldsFromNewerWriter() {
+        AuditEventCodec.Schema<InventoryAuditEvent> newerSchema = inventorySchemaPrefix(10)
+                .field(AuditEventCodec.FieldType.STRING, e -> "campo futuro", (e, v) -> {
+                });
+        InventoryAuditEvent event = inventoryEvent();
+
+        byte[] encoded = AuditEventCodec.encode(event, newerSchema);
+
+        assertEquals(event, AuditEventCodec.decode(encoded, InventoryAuditEvent.class));
+    }
+
+    @Test
+    void evolution_newerReader_leavesFieldsMissingFromOlderWriterNull() {
+        AuditEventCodec.Schema<InventoryAuditEvent> olderSchema = inventorySchemaPrefix(6);
+        InventoryAuditEvent event = inventoryEvent();
+
+        InventoryAuditEvent decoded = AuditEventCodec.decode(AuditEventCodec.encode(event, olderSchema),
+                InventoryAuditEvent.class);
+
+        assertEquals(event.getQuantity(), decoded.getQuantity());
+        assertNull(decoded.getActionDescription());
+        assertNull(decoded.getMovementDate());
+    }
+
+    @Test
+    void decode_withUnknownVersion_isRejected() {
+        byte[] encoded = AuditEventCodec.encode(inventoryEvent());
+        encoded[1] = (byte) (AuditEventCodec.VERSION + 1);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> AuditEventCodec.decode(encoded, InventoryAuditEvent.class));
+    }
+
+    @Test
+    void decode_withWrongType_isRejected() {
+        byte[] encoded = AuditEventCodec.encode(inventoryEvent());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> AuditEventCodec.decode(encoded, RecipeAuditEvent.class));
+    }
+
+    @Test
+    void deserializer_acceptsLegacyJsonPayloads() {
+        InventoryAuditEvent event = inventoryEvent();
+        byte[] json = jsonMapper.writeValueAsBytes(event);
+
+        AuditEventDeserializer<InventoryAuditEvent> deserializer = new AuditEventDeserializer<>(
+                InventoryAuditEvent.class, jsonMapper);
+
+        assertFalse(AuditEventCodec.isEnvelope(json));
+        assertEquals(event, deserializer.deserialize("inventory-audit-events", json));
+        assertEquals(event, deserializer.deserialize("inventory-audit-events", AuditEventCodec.encode(event)));
+    }
+
+    /** Medido: inventario 108 B frente a 278 B de JSON (39%), cocinado 166 B frente a 313 B (53%). */
+    @Test
+    void envelope_isAtMostSixtyPercentOfJson() {
+        RecipeCookingAuditEvent cooking = RecipeCookingAuditEvent.builder()
+                .recipeId(12).recipeName("Tortilla de patatas").userId(2).userName("chef")
+                .quantityCooked(new BigDecimal("4.000"))
+                .details("Cocinado de receta")
+                .componentsState("[{\"productId\":1,\"name\":\"Huevos\",\"quantity\":6.000},"
+                        + "{\"productId\":2,\"name\":\"Patatas\",\"quantity\":0.750}]")
+                .cookingDate(DATE)
+                .build();
+
+        for (Object event : new Object[] { inventoryEvent(), cooking }) {
+            int jsonBytes = jsonMapper.writeValueAsString(event).getBytes(StandardCharsets.UTF_8).length;
+            int envelopeBytes = AuditEventCodec.encode(event).length;
+            assertTrue(envelopeBytes * 100 <= jsonBytes * MAX_ENVELOPE_PERCENT,
+                    event.getClass().getSimpleName() + ": " + envelopeBytes + " B frente a " + jsonBytes + " B de JSON");
+        }
+    }
+
+    private static InventoryAuditEvent inventoryEvent() {
+        return InventoryAuditEvent.builder()
+                .productId(42).productName("Harina de trigo").userId(5).userName("almacen")
+                .movementType("ENTRADA").quantity(new BigDecimal("12.500"))
+                .actionDescription("Recepción de pedido")
+                .previousState("{\"stock\":3.000}").newState("{\"stock\":15.500}")
+                .movementDate(DATE)
+                .build();
+    }
+
+    /** Primeros {@code count} campos del esquema real de inventario. */
+    private static AuditEventCodec.Schema<InventoryAuditEvent> inventorySchemaPrefix(int count) {
+        AuditEventCodec.Schema<InventoryAuditEvent> schema = new AuditEventCodec.Schema<>(1, InventoryAuditEvent::new);
+        if (count > 0) schema.field(AuditEventCodec.FieldType.INT, InventoryAuditEvent::getProductId, InventoryAuditEvent::setProductId);
+        if (count > 1) schema.field(AuditEventCodec.FieldType.STRING, InventoryAuditEvent::getProductName, InventoryAuditEvent::setProductName);
+        if (count > 2) schema.field(AuditEventCodec.FieldType.INT, InventoryAuditEvent::getUserId, InventoryAuditEvent::setUserId);
+        if (count > 3) schema.field(AuditEventCodec.FieldType.STRING, InventoryAuditEvent::getUserName, InventoryAuditEvent::setUserName);
+        if (count > 4) schema.field(AuditEventCodec.FieldType.STRING, InventoryAuditEvent::getMovementType, InventoryAuditEvent::setMovementType);
+        if (count > 5) schema.field(AuditEventCodec.FieldType.DECIMAL, InventoryAuditEvent::getQuantity, InventoryAuditEvent::setQuantity);
+        if (count > 6) schema.field(AuditEventCodec.FieldType.STRING, InventoryAuditEvent::getActionDescription, InventoryAuditEvent::setActionDescription);
+        if (count > 7) schema.field(AuditEventCodec.FieldType.STRING, InventoryAuditEvent::getPreviousState, InventoryAuditEvent::setPreviousState);
+        if (count > 8) schema.field(AuditEventCodec.FieldType.STRING, InventoryAuditEvent::getNewState, InventoryAuditEvent::setNewState);
+        if (count > 9) schema.field(AuditEventCodec.FieldType.DATETIME, InventoryAuditEvent::getMovementDate, InventoryAuditEvent::setMovementDate);
+        return schema;
+    }
+}
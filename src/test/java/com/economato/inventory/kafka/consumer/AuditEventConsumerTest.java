@@ -0,0 +1,162 @@
+package com.economato.inventory.kafka.consumer;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.economato.inventory.dto.event.InventoryAuditEvent;
+import com.economato.inventory.kafka.producer.AuditEventProducer;
+import com.economato.inventory.kafka.producer.AuditOutboxMetrics;
+import com.economato.inventory.model.InventoryAudit;
+import com.economato.inventory.repository.InventoryAuditRepository;
+import com.economato.inventory.repository.OrderAuditRepository;
+import com.economato.inventory.repository.OrderRepository;
+import com.economato.inventory.repository.ProductRepository;
+import com.economato.inventory.repository.RecipeAuditRepository;
+import com.economato.inventory.repository.RecipeCookingAuditRepository;
+import com.economato.inventory.repository.RecipeRepository;
+import com.economato.inventory.repository.UserRepository;
+import com.economato.inventory.service.StockAlertService;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Coste por poll del consumidor: antes cada registro abría su transacción y
+ * hacía su propio INSERT; ahora un lote de N registros es una transacción,
+ * una consulta IN por entidad referenciada y un único saveAllAndFlush.
+ */
+@ExtendWith(MockitoExtension.class)
+class AuditEventConsumerTest {
+
+    private static final int BATCH_SIZE = 500;
+
+    @Mock
+    private InventoryAuditRepository inventoryAuditRepository;
+    @Mock
+    private RecipeAuditRepository recipeAuditRepository;
+    @Mock
+    private RecipeCookingAuditRepository recipeCookingAuditRepository;
+    @Mock
+    private OrderAuditRepository orderAuditRepository;
+    @Mock
+    private ProductRepository productRepository;
+    @Mock
+    private RecipeRepository recipeRepository;
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private StockAlertService stockAlertService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AuditEventConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        AuditEventDeduplicator deduplicator = new AuditEventDeduplicator(10_000, Duration.ofHours(1), meterRegistry);
+        consumer = new AuditEventConsumer(inventoryAuditRepository, recipeAuditRepository,
+                recipeCookingAuditRepository, orderAuditRepository, productRepository, recipeRepository,
+                orderRepository, userRepository, stockAlertService, deduplicator,
+                new AuditOutboxMetrics(meterRegistry), transactionManager);
+
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> new SimpleTransactionStatus());
+        when(productRepository.findExistingIds(anyCollection())).thenAnswer(inv -> new ArrayList<>(
+                inv.<Collection<Integer>>getArgument(0)));
+        when(userRepository.findExistingIds(anyCollection())).thenAnswer(inv -> new ArrayList<>(
+                inv.<Collection<Integer>>getArgument(0)));
+    }
+
+    @Test
+    void batch_isPersistedInOneTransactionAndOneInsert() {
+        consumer.consumeInventoryAudit(records(BATCH_SIZE));
+
+        verify(transactionManager, times(1)).getTransaction(any());
+        verify(transactionManager, times(1)).commit(any());
+        verify(productRepository, times(1)).findExistingIds(anyCollection());
+        verify(userRepository, times(1)).findExistingIds(anyCollection());
+        assertEquals(BATCH_SIZE, savedSizes().get(0));
+        verify(inventoryAuditRepository, times(1)).saveAllAndFlush(any());
+
+        DistributionSummary batchSize = meterRegistry.find("kafka.audit.consumer.batch.size")
+                .tag("topic", AuditEventProducer.INVENTORY_AUDIT_TOPIC).summary();
+        assertNotNull(batchSize);
+        assertEquals(1, batchSize.count());
+        assertEquals(BATCH_SIZE, batchSize.totalAmount());
+    }
+
+    @Test
+    void failedBatch_isRetriedPerRecordUpToTheFailingOne() {
+        when(inventoryAuditRepository.saveAllAndFlush(any()))
+                .thenThrow(new IllegalStateException("lote"))
+                .thenReturn(List.of())
+                .thenReturn(List.of())
+                .thenThrow(new IllegalStateException("registro 2"));
+
+        BatchListenerFailedException failure = assertThrows(BatchListenerFailedException.class,
+                () -> consumer.consumeInventoryAudit(records(5)));
+
+        assertEquals(2, failure.getIndex());
+        // El lote entero y los tres primeros registros por separado
+        verify(transactionManager, times(4)).getTransaction(any());
+        assertEquals(List.of(5, 1, 1, 1), savedSizes());
+    }
+
+    private List<Integer> savedSizes() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Iterable<InventoryAudit>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(inventoryAuditRepository, atLeastOnce()).saveAllAndFlush(captor.capture());
+        List<Integer> sizes = new ArrayList<>();
+        for (Iterable<InventoryAudit> saved : captor.getAllValues()) {
+            int size = 0;
+            for (InventoryAudit ignored : saved) {
+                size++;
+            }
+            sizes.add(size);
+        }
+        return sizes;
+    }
+
+    private static List<ConsumerRecord<String, InventoryAuditEvent>> records(int count) {
+        List<ConsumerRecord<String, InventoryAuditEvent>> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            InventoryAuditEvent event = InventoryAuditEvent.builder()
+                    .productId(1 + i % 10)
+                    .userId(1)
+                    .movementType("ENTRADA")
+                    .quantity(BigDecimal.ONE)
+                    .actionDescription("Entrada de stock")
+                    .movementDate(LocalDateTime.now())
+                    .build();
+            ConsumerRecord<String, InventoryAuditEvent> record = new ConsumerRecord<>(
+                    AuditEventProducer.INVENTORY_AUDIT_TOPIC, 0, i, String.valueOf(event.getProductId()), event);
+            record.headers().add(AuditEventProducer.EVENT_ID_HEADER,
+                    UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8));
+            records.add(record);
+        }
+        return records;
+    }
+}
@@ -0,0 +1,105 @@
+package com.economato.inventory.kafka.consumer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditEventDeduplicatorTest {
+
+    private AuditEventDeduplicator deduplicator;
+    private AtomicInteger dbChecks;
+    private Function<Collection<String>, List<String>> emptyFinder;
+
+    @BeforeEach
+    void setUp() {
+        deduplicator = new AuditEventDeduplicator(1000, Duration.ofHours(1), new SimpleMeterRegistry());
+        dbChecks = new AtomicInteger();
+        emptyFinder = ids -> {
+            dbChecks.incrementAndGet();
+            return List.of();
+        };
+    }
+
+    @Test
+    void findDuplicates_withFreshIds_returnsEmptyWithoutQuery() {
+        List<String> ids = randomIds(200);
+
+        Set<String> duplicates = deduplicator.findDuplicates(ids, emptyFinder);
+
+        assertTrue(duplicates.isEmpty());
+        assertEquals(0, dbChecks.get(), "Fresh ids must not hit the database");
+    }
+
+    @Test
+    void findDuplicates_withProcessedIds_detectsThemWithoutQuery() {
+        List<String> ids = randomIds(50);
+        deduplicator.markProcessed(ids);
+
+        Set<String> duplicates = deduplicator.findDuplicates(ids, emptyFinder);
+
+        assertEquals(Set.copyOf(ids), duplicates);
+        assertEquals(0, dbChecks.get(), "Exact window should confirm duplicates in memory");
+    }
+
+    @Test
+    void findDuplicates_withRepeatedIdInBatch_flagsTheRepetition() {
+        String id = UUID.randomUUID().toString();
+
+        Set<String> duplicates = deduplicator.findDuplicates(List.of(id, id), emptyFinder);
+
+        assertEquals(Set.of(id), duplicates);
+    }
+
+    @Test
+    void findDuplicates_withSuspectIds_verifiesAgainstDatabase() {
+        List<String> ids = randomIds(3);
+        deduplicator.markSuspect(ids);
+
+        Set<String> duplicates = deduplicator.findDuplicates(ids, found -> {
+            dbChecks.incrementAndGet();
+            return List.of(ids.get(0));
+        });
+
+        assertEquals(Set.of(ids.get(0)), duplicates);
+        assertEquals(1, dbChecks.get());
+
+        // Una vez verificados dejan de ser sospechosos
+        deduplicator.findDuplicates(ids.subList(1, 3), emptyFinder);
+        assertEquals(1, dbChecks.get());
+    }
+
+    @Test
+    void findDuplicates_afterRotation_keepsFalsePositiveQueriesRare() {
+        for (int i = 0; i < 5; i++) {
+            deduplicator.markProcessed(randomIds(1000));
+        }
+
+        int queries = 0;
+        for (int i = 0; i < 1000; i++) {
+            dbChecks.set(0);
+            deduplicator.findDuplicates(List.of(UUID.randomUUID().toString()), emptyFinder);
+            queries += dbChecks.get();
+        }
+
+        assertTrue(queries < 50, "Bloom filter false positives too frequent: " + queries);
+    }
+
+    private static List<String> randomIds(int count) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(UUID.randomUUID().toString());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,108 @@
+package com.economato.inventory.kafka.producer;
+
+import com.economato.inventory.model.AuditOutbox;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditOutboxMetricsTest {
+
+    private static final int BATCH_SIZE = 50;
+
+    private MeterRegistry meterRegistry;
+    private AuditOutboxMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new AuditOutboxMetrics(meterRegistry);
+    }
+
+    @Test
+    void partialBatch_setsExactBacklog() {
+        metrics.onEnqueued();
+        metrics.onEnqueued();
+
+        metrics.onPolled(events(10, LocalDateTime.now(ZoneOffset.UTC)), BATCH_SIZE);
+
+        assertEquals(10.0, backlog());
+    }
+
+    @Test
+    void fullBatch_keepsLargerEstimate() {
+        for (int i = 0; i < 120; i++) {
+            metrics.onEnqueued();
+        }
+
+        metrics.onPolled(events(BATCH_SIZE, LocalDateTime.now(ZoneOffset.UTC)), BATCH_SIZE);
+
+        assertEquals(120.0, backlog());
+    }
+
+    @Test
+    void measuredBacklog_isNotCappedByBatchSize() {
+        metrics.onMeasured(12_000);
+        metrics.onPolled(events(BATCH_SIZE, LocalDateTime.now(ZoneOffset.UTC)), BATCH_SIZE);
+        metrics.onEnqueued();
+
+        assertEquals(12_001.0, backlog());
+    }
+
+    @Test
+    void sendingWholeBatch_drainsBacklogAndOldestAge() {
+        List<AuditOutbox> batch = events(3, LocalDateTime.now(ZoneOffset.UTC).minusMinutes(2));
+        metrics.onPolled(batch, BATCH_SIZE);
+        assertTrue(oldestAge() >= 119.0);
+
+        for (int i = 0; i < batch.size(); i++) {
+            metrics.onSent(batch.get(i), TimeUnit.MILLISECONDS.toNanos(4),
+                    i + 1 < batch.size() ? batch.get(i + 1) : null);
+        }
+
+        assertEquals(0.0, backlog());
+        assertEquals(0.0, oldestAge());
+        assertEquals(3, meterRegistry.get("kafka.audit.outbox.send.latency")
+                .tag("topic", AuditEventProducer.INVENTORY_AUDIT_TOPIC).timer().count());
+    }
+
+    @Test
+    void recordEndToEnd_usesOutboxCreationTime() {
+        long createdAt = System.currentTimeMillis() - 1500;
+
+        metrics.recordEndToEnd(AuditEventProducer.ORDER_AUDIT_TOPIC, createdAt);
+
+        double seconds = meterRegistry.get("kafka.audit.end_to_end.latency")
+                .tag("topic", AuditEventProducer.ORDER_AUDIT_TOPIC).timer().totalTime(TimeUnit.SECONDS);
+        assertTrue(seconds >= 1.5);
+    }
+
+    private double backlog() {
+        return meterRegistry.get("kafka.audit.outbox.backlog").gauge().value();
+    }
+
+    private double oldestAge() {
+        return meterRegistry.get("kafka.audit.outbox.oldest.age").gauge().value();
+    }
+
+    private static List<AuditOutbox> events(int count, LocalDateTime firstCreatedAt) {
+        List<AuditOutbox> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            events.add(AuditOutbox.builder()
+                    .id((long) i)
+                    .topic(AuditEventProducer.INVENTORY_AUDIT_TOPIC)
+                    .eventKey("product-" + i)
+                    .createdAt(firstCreatedAt.plusSeconds(i))
+                    .build());
+        }
+        return events;
+    }
+}
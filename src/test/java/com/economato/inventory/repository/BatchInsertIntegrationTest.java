@@ -0,0 +1,184 @@
+package com.economato.inventory.repository;
+
+import com.economato.inventory.controller.BaseIntegrationTest;
+import com.economato.inventory.dto.request.BatchMovementItem;
+import com.economato.inventory.model.AuditOutbox;
+import com.economato.inventory.model.InventoryAudit;
+import com.economato.inventory.model.MovementType;
+import com.economato.inventory.model.Product;
+import com.economato.inventory.model.Role;
+import com.economato.inventory.model.User;
+import com.economato.inventory.service.StockLedgerService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Sentencias JDBC al insertar filas de auditoría, outbox y ledger con ids de
+ * secuencia pooled-lo: un nextval por cada 50 filas y los INSERT en un solo
+ * lote. Con IDENTITY cada fila era una sentencia.
+ *
+ * El movimiento en lote lee las cabezas de todas las cadenas antes de
+ * escribir, así que ninguna consulta vacía los INSERT a medias: el número de
+ * sentencias no crece con el número de productos.
+ */
+@DisplayName("Sequence ids and JDBC batch inserts Integration Tests")
+class BatchInsertIntegrationTest extends BaseIntegrationTest {
+
+    private static final int ROWS = 20;
+    private static final long BATCH_MOVEMENT_BUDGET = 8;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private InventoryAuditRepository inventoryAuditRepository;
+
+    @Autowired
+    private AuditOutboxRepository auditOutboxRepository;
+
+    @Autowired
+    private StockLedgerRepository stockLedgerRepository;
+
+    @Autowired
+    private StockLedgerService stockLedgerService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private Statistics statistics;
+    private User user;
+    private final List<Product> products = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        clearDatabase();
+        transaction = new TransactionTemplate(transactionManager);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        user = transaction.execute(status -> {
+            User cook = new User();
+            cook.setUser("cocinero");
+            cook.setName("Cocinero");
+            cook.setPassword("hashedPassword");
+            cook.setRole(Role.USER);
+            return userRepository.save(cook);
+        });
+        products.clear();
+        for (int i = 0; i < ROWS; i++) {
+            int index = i;
+            products.add(transaction.execute(status -> productRepository.save(product(index))));
+        }
+    }
+
+    @Test
+    @DisplayName("Lote de auditorías del consumidor: un nextval y un INSERT agrupado")
+    void auditBatch_isInsertedInOneJdbcBatch() {
+        statistics.clear();
+        transaction.executeWithoutResult(status -> inventoryAuditRepository.saveAllAndFlush(
+                products.stream().map(this::audit).toList()));
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(ROWS);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+        assertThat(inventoryAuditRepository.count()).isEqualTo(ROWS);
+    }
+
+    @Test
+    @DisplayName("Eventos del outbox en una transacción: un nextval y un INSERT agrupado")
+    void outboxEvents_areInsertedInOneJdbcBatch() {
+        statistics.clear();
+        transaction.executeWithoutResult(status -> IntStream.range(0, ROWS).forEach(i -> auditOutboxRepository
+                .save(AuditOutbox.builder()
+                        .topic("inventory-audit")
+                        .eventKey(String.valueOf(i))
+                        .payload("{}".getBytes(StandardCharsets.UTF_8))
+                        .build())));
+
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+        assertThat(auditOutboxRepository.count()).isEqualTo(ROWS);
+    }
+
+    @Test
+    @DisplayName("Movimiento en lote: ledger con ids de secuencia y cadenas íntegras")
+    void batchMovement_keepsChainsValid() {
+        stockLedgerService.recordBatchStockMovements(movements(), user, null);
+
+        assertThat(stockLedgerRepository.count()).isEqualTo(ROWS);
+        products.forEach(product -> assertThat(
+                stockLedgerService.verifyChainIntegrity(product.getId()).isValid()).isTrue());
+    }
+
+    @Test
+    @DisplayName("Movimiento en lote sobre cadenas existentes: sentencias constantes")
+    void batchMovement_onExistingChains_usesConstantStatements() throws Exception {
+        // Primer lote: crea snapshots y cabezas; el segundo es el caso habitual
+        stockLedgerService.recordBatchStockMovements(movements(), user, null);
+
+        // Productos, snapshots, cabezas, nextval y un lote por tabla escrita
+        queryBudget.assertAtMost(BATCH_MOVEMENT_BUDGET,
+                () -> stockLedgerService.recordBatchStockMovements(movements(), user, null));
+
+        assertThat(stockLedgerRepository.count()).isEqualTo(2L * ROWS);
+        products.forEach(product -> assertThat(
+                stockLedgerService.verifyChainIntegrity(product.getId()).isValid()).isTrue());
+    }
+
+    @Test
+    @DisplayName("Varios movimientos del mismo producto en un lote encadenan en memoria")
+    void batchMovement_sameProductTwice_chainsInMemory() {
+        Product product = products.get(0);
+        stockLedgerService.recordBatchStockMovements(List.of(
+                new BatchMovementItem(product.getId(), BigDecimal.ONE, MovementType.ENTRADA, "primero"),
+                new BatchMovementItem(product.getId(), BigDecimal.ONE.negate(), MovementType.SALIDA, "segundo")),
+                user, null);
+
+        assertThat(stockLedgerRepository.countByProductId(product.getId())).isEqualTo(2);
+        assertThat(stockLedgerService.verifyChainIntegrity(product.getId()).isValid()).isTrue();
+    }
+
+    private List<BatchMovementItem> movements() {
+        return products.stream()
+                .map(product -> new BatchMovementItem(product.getId(), BigDecimal.ONE, MovementType.ENTRADA, "lote"))
+                .toList();
+    }
+
+    private InventoryAudit audit(Product product) {
+        InventoryAudit audit = new InventoryAudit();
+        audit.setProduct(product);
+        audit.setUser(user);
+        audit.setMovementType("ENTRADA");
+        audit.setQuantity(BigDecimal.ONE);
+        audit.setActionDescription("Entrada de prueba");
+        return audit;
+    }
+
+    private static Product product(int index) {
+        Product product = new Product();
+        product.setName("Producto " + index);
+        product.setProductCode("SEQ-" + index);
+        product.setType("kg");
+        product.setUnit("kg");
+        product.setCurrentStock(BigDecimal.TEN);
+        product.setUnitPrice(BigDecimal.ONE);
+        product.setMinimumStock(BigDecimal.ONE);
+        return product;
+    }
+}
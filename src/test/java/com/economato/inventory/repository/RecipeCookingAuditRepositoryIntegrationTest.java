@@ -1,6 +1,7 @@
 package com.economato.inventory.repository;
 
 import com.economato.inventory.controller.BaseIntegrationTest;
+import com.economato.inventory.dto.projection.ProductTopRecipe;
 import com.economato.inventory.model.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -224,4 +225,51 @@ class RecipeCookingAuditRepositoryIntegrationTest extends BaseIntegrationTest {
         // --- Verify ---
         assertThat(topRecipes).hasSizeLessThanOrEqualTo(3);
     }
+
+    @Test
+    @DisplayName("findTopConsumingRecipesByProducts agrupa el top 3 por producto en una consulta")
+    void testFindTopConsumingRecipesByProducts_GroupsByProduct() {
+        // --- Setup ---
+        Product product2 = new Product();
+        product2.setName("Cebolla");
+        product2.setProductCode("PROD-CEBOLLA");
+        product2.setType("kg");
+        product2.setUnit("kg");
+        product2.setCurrentStock(BigDecimal.ZERO);
+        product2.setUnitPrice(BigDecimal.ONE);
+        product2.setMinimumStock(BigDecimal.ONE);
+        product2 = productRepository.save(product2);
+
+        RecipeComponent onion = new RecipeComponent();
+        onion.setParentRecipe(recipe2);
+        onion.setProduct(product2);
+        onion.setQuantity(BigDecimal.ONE);
+        componentRepository.save(onion);
+
+        Recipe[] recipes = { recipe1, recipe2, recipe3 };
+        int[] cooked = { 10, 5, 2 };
+        for (int i = 0; i < recipes.length; i++) {
+            RecipeCookingAudit audit = new RecipeCookingAudit();
+            audit.setRecipe(recipes[i]);
+            audit.setUser(testUser);
+            audit.setQuantityCooked(BigDecimal.valueOf(cooked[i]));
+            audit.setCookingDate(LocalDateTime.now());
+            cookingAuditRepository.save(audit);
+        }
+
+        // --- Execute ---
+        List<ProductTopRecipe> rows = cookingAuditRepository.findTopConsumingRecipesByProducts(
+                List.of(product1.getId(), product2.getId()),
+                LocalDateTime.now().minusWeeks(1)
+        );
+
+        // --- Verify ---
+        // Tomate: Pizza (3), Salsa (2.5), Sopa (0.4). Cebolla: solo Salsa
+        Integer tomatoId = product1.getId();
+        assertThat(rows.stream().filter(row -> row.getProductId().equals(tomatoId)).map(ProductTopRecipe::getRecipeName))
+                .containsExactly("Pizza", "Salsa", "Sopa");
+        Integer onionId = product2.getId();
+        assertThat(rows.stream().filter(row -> row.getProductId().equals(onionId)).map(ProductTopRecipe::getRecipeName))
+                .containsExactly("Salsa");
+    }
 }
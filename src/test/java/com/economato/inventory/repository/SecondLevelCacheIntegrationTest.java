@@ -0,0 +1,139 @@
+package com.economato.inventory.repository;
+
+import com.economato.inventory.controller.BaseIntegrationTest;
+import com.economato.inventory.model.Product;
+import com.economato.inventory.model.Role;
+import com.economato.inventory.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Consultas evitadas por la caché de segundo nivel en las búsquedas de
+ * entidades de referencia que hacen los flujos de cocinado
+ * (usuario actual por nombre + productos de la receta) y de alta de pedido
+ * (usuario por id + productos del pedido).
+ */
+@TestPropertySource(properties = "cache.hibernate.enabled=true")
+@DisplayName("Hibernate second-level cache Integration Tests")
+class SecondLevelCacheIntegrationTest extends BaseIntegrationTest {
+
+    private static final int PRODUCTS = 5;
+    private static final int REQUESTS = 20;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private Statistics statistics;
+    private User user;
+    private final List<Integer> productIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        clearDatabase();
+        transaction = new TransactionTemplate(transactionManager);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        user = transaction.execute(status -> {
+            User cook = new User();
+            cook.setUser("cocinero");
+            cook.setName("Cocinero");
+            cook.setPassword("hashedPassword");
+            cook.setRole(Role.USER);
+            return userRepository.save(cook);
+        });
+        productIds.clear();
+        for (int i = 0; i < PRODUCTS; i++) {
+            int index = i;
+            productIds.add(transaction.execute(status -> productRepository.save(product(index)).getId()));
+        }
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    @DisplayName("Cocinado: usuario por nombre y productos salen de caché tras la primera petición")
+    void cookFlowLookups_hitSecondLevelCache() {
+        long[] statements = measure(() -> {
+            assertThat(userRepository.findByName(user.getName())).isPresent();
+            productIds.forEach(id -> assertThat(productRepository.findById(id)).isPresent());
+        });
+
+        assertThat(statements[0]).isGreaterThan(0);
+        assertThat(statements[1]).isZero();
+    }
+
+    @Test
+    @DisplayName("Alta de pedido: usuario y productos por id salen de caché tras la primera petición")
+    void orderCreationLookups_hitSecondLevelCache() {
+        long[] statements = measure(() -> {
+            assertThat(userRepository.findById(user.getId())).isPresent();
+            productIds.forEach(id -> assertThat(productRepository.findById(id)).isPresent());
+        });
+
+        assertThat(statements[0]).isEqualTo(1 + PRODUCTS);
+        assertThat(statements[1]).isZero();
+    }
+
+    @Test
+    @DisplayName("Login por natural id sale de caché y se invalida al modificar el usuario")
+    void naturalIdLookup_isCachedAndInvalidatedOnUpdate() {
+        transaction.executeWithoutResult(status -> userRepository.findByUser("cocinero"));
+        statistics.clear();
+
+        transaction.executeWithoutResult(status -> assertThat(userRepository.findByUser("cocinero")).isPresent());
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        transaction.executeWithoutResult(status -> userRepository.findById(user.getId())
+                .ifPresent(cook -> cook.setUser("chef")));
+
+        transaction.executeWithoutResult(status -> {
+            assertThat(userRepository.findByUser("cocinero")).isEmpty();
+            assertThat(userRepository.findByUser("chef")).isPresent();
+        });
+    }
+
+    /** Sentencias de la primera petición (caché fría) y del resto. */
+    private long[] measure(Runnable lookups) {
+        statistics.clear();
+        transaction.executeWithoutResult(status -> lookups.run());
+        long cold = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        for (int i = 1; i < REQUESTS; i++) {
+            transaction.executeWithoutResult(status -> lookups.run());
+        }
+        return new long[] { cold, statistics.getPrepareStatementCount() };
+    }
+
+    private static Product product(int index) {
+        Product product = new Product();
+        product.setName("Producto " + index);
+        product.setProductCode("L2-" + index);
+        product.setType("kg");
+        product.setUnit("kg");
+        product.setCurrentStock(BigDecimal.TEN);
+        product.setUnitPrice(BigDecimal.ONE);
+        product.setMinimumStock(BigDecimal.ONE);
+        return product;
+    }
+}
@@ -0,0 +1,31 @@
+package com.economato.inventory.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.YearMonth;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+class CookingAuditPartitionServiceTest {
+
+    @Test
+    void partitionName_usesYearAndMonth() {
+        assertEquals("recipe_cooking_audit_p202603", CookingAuditPartitionService.partitionName(YearMonth.of(2026, 3)));
+    }
+
+    @Test
+    void partitionMonth_roundTripsPartitionName() {
+        YearMonth month = YearMonth.of(2025, 11);
+
+        assertEquals(Optional.of(month),
+                CookingAuditPartitionService.partitionMonth(CookingAuditPartitionService.partitionName(month)));
+    }
+
+    @Test
+    void partitionMonth_ignoresDefaultAndForeignTables() {
+        assertTrue(CookingAuditPartitionService.partitionMonth("recipe_cooking_audit_default").isEmpty());
+        assertTrue(CookingAuditPartitionService.partitionMonth("recipe_cooking_audit_p2026").isEmpty());
+        assertTrue(CookingAuditPartitionService.partitionMonth("order_audit_p202601").isEmpty());
+    }
+}
@@ -0,0 +1,189 @@
+package com.economato.inventory.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.economato.inventory.config.StaleResponseMarker;
+import com.economato.inventory.dto.RestPage;
+import com.economato.inventory.dto.response.ProductResponseDTO;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import tools.jackson.databind.json.JsonMapper;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JsonResponseCacheTest {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private ConcurrentMapCacheManager cacheManager;
+    private CacheGenerationService generations;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager();
+        generations = new CacheGenerationService(provider(cacheManager));
+        request = new MockHttpServletRequest("GET", "/api/products/1");
+        response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        loads = new AtomicInteger();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void disabled_returnsDto() {
+        ResponseEntity<?> result = cache(false, 1024).entity("product", 1, this::loadProduct);
+
+        assertInstanceOf(ProductResponseDTO.class, result.getBody());
+        assertNull(cacheManager.getCache(JsonResponseCache.CACHE_NAME).get("product:1"));
+    }
+
+    @Test
+    void disabled_doesNotTouchGenerations() {
+        JsonResponseCache cache = cache(false, 1024);
+
+        cache.entity("product", 1, this::loadProduct);
+        cache.page("products_page", PageRequest.of(0, 10), this::loadPage);
+
+        assertFalse(cacheManager.getCacheNames().contains(CacheGenerationService.GENERATIONS_CACHE));
+    }
+
+    @Test
+    void hit_returnsSameBytesWithoutLoading() {
+        JsonResponseCache cache = cache(true, 1024);
+
+        ResponseEntity<?> first = cache.entity("product", 1, this::loadProduct);
+        ResponseEntity<?> second = cache.entity("product", 1, this::loadProduct);
+
+        assertEquals(1, loads.get());
+        assertArrayEquals(jsonMapper.writeValueAsBytes(product()), (byte[]) first.getBody());
+        assertSame(first.getBody(), second.getBody());
+        assertEquals(first.getHeaders().getETag(), second.getHeaders().getETag());
+    }
+
+    @Test
+    void matchingIfNoneMatch_returnsNotModifiedWithoutLoading() {
+        JsonResponseCache cache = cache(true, 1024);
+        String eTag = cache.entity("product", 1, this::loadProduct).getHeaders().getETag();
+
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, eTag);
+        ResponseEntity<?> result = cache.entity("product", 1, this::loadProduct);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, result.getStatusCode());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void evictedVersion_changesETagAndReloads() {
+        JsonResponseCache cache = cache(true, 1024);
+        String before = cache.entity("product", 1, this::loadProduct).getHeaders().getETag();
+
+        cacheManager.getCache(CacheGenerationService.GENERATIONS_CACHE).evict("product:1");
+        String after = cache.entity("product", 1, this::loadProduct).getHeaders().getETag();
+
+        assertNotEquals(before, after);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void pages_useGenerationOfTheirCache() {
+        JsonResponseCache cache = cache(true, 1024);
+        PageRequest pageable = PageRequest.of(0, 10);
+
+        String before = cache.page("products_page", pageable, this::loadPage).getHeaders().getETag();
+        cache.page("products_page", pageable, this::loadPage);
+        generations.advance("products_page");
+        String after = cache.page("products_page", pageable, this::loadPage).getHeaders().getETag();
+
+        assertEquals(2, loads.get());
+        assertNotEquals(before, after);
+    }
+
+    @Test
+    void gzipClient_getsCompressedBytes() throws IOException {
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+
+        ResponseEntity<?> result = cache(true, 0).entity("product", 1, this::loadProduct);
+
+        assertEquals("gzip", result.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream((byte[]) result.getBody()))) {
+            assertEquals(new String(jsonMapper.writeValueAsBytes(product()), StandardCharsets.UTF_8),
+                    new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void missingEntity_isNotFoundAndNotCached() {
+        JsonResponseCache cache = cache(true, 1024);
+
+        ResponseEntity<?> result = cache.entity("product", 9, Optional::empty);
+
+        assertEquals(HttpStatus.NOT_FOUND, result.getStatusCode());
+    }
+
+    @Test
+    void staleData_isServedButNotCached() {
+        JsonResponseCache cache = cache(true, 1024);
+        response.setHeader(StaleResponseMarker.HEADER, "120");
+
+        cache.entity("product", 1, this::loadProduct);
+        cache.entity("product", 1, this::loadProduct);
+
+        assertEquals(2, loads.get());
+    }
+
+    private JsonResponseCache cache(boolean enabled, int gzipMinSize) {
+        return new JsonResponseCache(generations, provider(cacheManager), jsonMapper, enabled, true, gzipMinSize);
+    }
+
+    private Optional<ProductResponseDTO> loadProduct() {
+        loads.incrementAndGet();
+        return Optional.of(product());
+    }
+
+    private RestPage<ProductResponseDTO> loadPage() {
+        loads.incrementAndGet();
+        return new RestPage<>(List.of(product()), PageRequest.of(0, 10), 1);
+    }
+
+    private static ProductResponseDTO product() {
+        ProductResponseDTO product = new ProductResponseDTO();
+        product.setId(1);
+        product.setName("Harina");
+        product.setProductCode("HAR-1");
+        return product;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObjectProvider<CacheManager> provider(CacheManager cacheManager) {
+        ObjectProvider<CacheManager> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(cacheManager);
+        return provider;
+    }
+}
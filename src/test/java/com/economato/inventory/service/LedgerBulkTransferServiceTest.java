@@ -0,0 +1,129 @@
+package com.economato.inventory.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.economato.inventory.exception.InvalidOperationException;
+import com.economato.inventory.service.LedgerBulkTransferService.BulkFormat;
+import com.economato.inventory.service.LedgerBulkTransferService.BulkTable;
+import com.economato.inventory.service.LedgerBulkTransferService.ChainVerifier;
+import com.economato.inventory.service.LedgerBulkTransferService.LedgerRow;
+
+class LedgerBulkTransferServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    /** Hash de prueba: depende de producto, secuencia y hash anterior como el real. */
+    private static final LedgerBulkTransferService.Hasher HASHER = (productId, delta, stock, timestamp,
+            previousHash, sequenceNumber) -> "h" + productId + "-" + sequenceNumber + "-"
+                    + Integer.toHexString(previousHash.hashCode());
+
+    @Test
+    void chainFromGenesis_isValid() {
+        ChainVerifier verifier = new ChainVerifier(HASHER);
+
+        String hash1 = HASHER.hash(1, BigDecimal.ONE, BigDecimal.ONE, NOW, "GENESIS", 1L);
+        String hash2 = HASHER.hash(1, BigDecimal.ONE, BigDecimal.TWO, NOW, hash1, 2L);
+        verifier.accept(row(1, "GENESIS", hash1, 1, null, null));
+        verifier.accept(row(1, hash1, hash2, 2, null, null));
+
+        assertEquals(0, verifier.errorCount());
+        assertEquals(2, verifier.rows());
+    }
+
+    @Test
+    void chainContinuesFromExistingTail() {
+        ChainVerifier verifier = new ChainVerifier(HASHER);
+
+        String hash6 = HASHER.hash(7, BigDecimal.ONE, BigDecimal.ONE, NOW, "tail", 6L);
+        verifier.accept(row(7, "tail", hash6, 6, "tail", 5L));
+
+        assertEquals(0, verifier.errorCount());
+    }
+
+    @Test
+    void chainRestartingAtGenesisOverExistingTail_isRejected() {
+        ChainVerifier verifier = new ChainVerifier(HASHER);
+
+        String hash1 = HASHER.hash(7, BigDecimal.ONE, BigDecimal.ONE, NOW, "GENESIS", 1L);
+        verifier.accept(row(7, "GENESIS", hash1, 1, "tail", 5L));
+
+        assertEquals(2, verifier.errorCount());
+        assertTrue(verifier.errors().get(0).contains("Secuencia rota"));
+        assertTrue(verifier.errors().get(1).contains("previousHash incorrecto"));
+    }
+
+    @Test
+    void tamperedRow_isRejected() {
+        ChainVerifier verifier = new ChainVerifier(HASHER);
+
+        verifier.accept(row(1, "GENESIS", "manipulado", 1, null, null));
+
+        assertEquals(1, verifier.errorCount());
+        assertTrue(verifier.errors().get(0).startsWith("Producto 1 TX#1: Hash corrupto"));
+    }
+
+    @Test
+    void eachProductStartsItsOwnChain() {
+        ChainVerifier verifier = new ChainVerifier(HASHER);
+
+        verifier.accept(row(1, "GENESIS", HASHER.hash(1, null, null, null, "GENESIS", 1L), 1, null, null));
+        verifier.accept(row(2, "GENESIS", HASHER.hash(2, null, null, null, "GENESIS", 1L), 1, null, null));
+
+        assertEquals(0, verifier.errorCount());
+    }
+
+    @Test
+    void reportedErrorsAreCapped() {
+        ChainVerifier verifier = new ChainVerifier(HASHER);
+
+        for (int i = 1; i <= 50; i++) {
+            verifier.accept(row(i, "GENESIS", "manipulado", 1, null, null));
+        }
+
+        assertEquals(50, verifier.errorCount());
+        assertEquals(ChainVerifier.MAX_REPORTED_ERRORS, verifier.errors().size());
+    }
+
+    @Test
+    void tablesAndFormats_areResolvedByName() {
+        assertEquals(BulkTable.STOCK_LEDGER, BulkTable.of("stock_ledger"));
+        assertEquals(BulkTable.RECIPE_COOKING_AUDIT, BulkTable.of("RECIPE_COOKING_AUDIT"));
+        assertEquals(BulkFormat.BINARY, BulkFormat.of("binary"));
+        assertEquals(BulkFormat.CSV, BulkFormat.of("CSV"));
+        assertThrows(InvalidOperationException.class, () -> BulkTable.of("users"));
+        assertThrows(InvalidOperationException.class, () -> BulkFormat.of("xml"));
+    }
+
+    @Test
+    void auditInsert_skipsExistingEventsAndIdenticalRowsWithoutEventId() {
+        String sql = LedgerBulkTransferService.insertSql(BulkTable.ORDER_AUDIT,
+                List.of("event_id", "order_id", "action"), "bulk_order_audit", true);
+
+        assertEquals("INSERT INTO order_audit (event_id, order_id, action) "
+                + "SELECT event_id, order_id, action FROM bulk_order_audit WHERE event_id IS NOT NULL"
+                + " UNION ALL (SELECT event_id, order_id, action FROM bulk_order_audit WHERE event_id IS NULL"
+                + " EXCEPT ALL SELECT event_id, order_id, action FROM order_audit WHERE event_id IS NULL)"
+                + " ON CONFLICT DO NOTHING", sql);
+    }
+
+    @Test
+    void ledgerInsert_keepsChainOrderWithoutSkipping() {
+        String sql = LedgerBulkTransferService.insertSql(BulkTable.STOCK_LEDGER,
+                List.of("product_id", "sequence_number"), "bulk_stock_ledger", false);
+
+        assertEquals("INSERT INTO stock_ledger (product_id, sequence_number) SELECT product_id, sequence_number"
+                + " FROM bulk_stock_ledger ORDER BY product_id, sequence_number", sql);
+    }
+
+    private static LedgerRow row(int productId, String previousHash, String currentHash, long sequence,
+            String tailHash, Long tailSequence) {
+        return new LedgerRow(productId, BigDecimal.ONE, BigDecimal.ONE, NOW, previousHash, currentHash, sequence,
+                tailHash, tailSequence);
+    }
+}
@@ -320,7 +320,7 @@ class OrderServiceTest {
         testOrder.getDetails().get(0).setQuantityReceived(new BigDecimal("5.0"));
 
         when(repository.findByIdWithDetails(1)).thenReturn(Optional.of(testOrder));
-        when(productRepository.findByIdForUpdate(1)).thenReturn(Optional.of(testProduct));
+        when(productRepository.findById(1)).thenReturn(Optional.of(testProduct));
         when(stockLedgerService.recordStockMovement(
                 anyInt(), any(BigDecimal.class), any(MovementType.class), anyString(), any(User.class), anyInt()))
                 .thenReturn(null);
@@ -331,7 +331,7 @@ class OrderServiceTest {
 
         assertNotNull(result);
         verify(repository).findByIdWithDetails(1);
-        verify(productRepository).findByIdForUpdate(1);
+        verify(productRepository).findById(1);
         verify(stockLedgerService).recordStockMovement(
                 anyInt(), any(BigDecimal.class), any(MovementType.class), anyString(), any(User.class), anyInt());
         verify(repository).save(testOrder);
@@ -503,7 +503,7 @@ class OrderServiceTest {
         receptionData.setItems(Arrays.asList(receptionDetail));
 
         when(repository.findByIdWithDetails(1)).thenReturn(Optional.of(testOrder));
-        when(productRepository.findByIdForUpdate(1)).thenReturn(Optional.of(testProduct));
+        when(productRepository.findById(1)).thenReturn(Optional.of(testProduct));
         when(stockLedgerService.recordStockMovement(
                 anyInt(), any(BigDecimal.class), any(MovementType.class), anyString(), any(User.class), anyInt()))
                 .thenReturn(null);
@@ -514,7 +514,7 @@ class OrderServiceTest {
 
         assertNotNull(result);
         verify(repository).findByIdWithDetails(1);
-        verify(productRepository).findByIdForUpdate(1);
+        verify(productRepository).findById(1);
         verify(stockLedgerService).recordStockMovement(
                 anyInt(), any(BigDecimal.class), any(MovementType.class), anyString(), any(User.class), anyInt());
         verify(repository).save(any(Order.class));
@@ -24,6 +24,7 @@ import com.economato.inventory.exception.ConcurrencyException;
 import com.economato.inventory.exception.InvalidOperationException;
 import com.economato.inventory.exception.ResourceNotFoundException;
 import com.economato.inventory.mapper.ProductMapper;
+import com.economato.inventory.model.MovementType;
 import com.economato.inventory.model.Product;
 import com.economato.inventory.repository.InventoryAuditRepository;
 import com.economato.inventory.repository.ProductRepository;
@@ -72,6 +73,12 @@ class ProductServiceTest {
     @Mock
     private SecurityContextHelper securityContextHelper;
 
+    @Mock
+    private CacheGenerationService cacheGenerationService;
+
+    @Mock
+    private ReadModelService readModelService;
+
     @InjectMocks
     private ProductService productService;
 
@@ -155,6 +162,32 @@ class ProductServiceTest {
         verify(repository).findProjectedById(1);
     }
 
+    @Test
+    void findById_WhenReadModelHasProduct_ShouldNotQueryRepository() {
+
+        when(readModelService.findProduct(1)).thenReturn(Optional.of(testProductResponseDTO));
+
+        Optional<ProductResponseDTO> result = productService.findById(1);
+
+        assertTrue(result.isPresent());
+        assertEquals(testProductResponseDTO.getName(), result.get().getName());
+        verify(repository, never()).findProjectedById(anyInt());
+    }
+
+    @Test
+    void findAll_WhenReadModelServesPage_ShouldNotQueryRepository() {
+
+        Pageable pageable = PageRequest.of(0, 10);
+        Page<ProductResponseDTO> page = new PageImpl<>(Arrays.asList(testProductResponseDTO), pageable, 1);
+
+        when(readModelService.findProducts(pageable)).thenReturn(Optional.of(page));
+
+        Page<ProductResponseDTO> result = productService.findAll(pageable);
+
+        assertSame(page, result);
+        verify(repository, never()).findByIsHiddenFalse(any(Pageable.class));
+    }
+
     @Test
     void findById_WhenProductDoesNotExist_ShouldReturnEmpty() {
 
@@ -528,6 +561,7 @@ class ProductServiceTest {
         updatedProduct.setCurrentStock(new BigDecimal("50.0"));
 
         lenient().when(repository.findById(1)).thenReturn(Optional.of(testProduct), Optional.of(updatedProduct));
+        lenient().when(repository.lockStockById(1)).thenReturn(Optional.of(testProduct.getCurrentStock()));
         lenient().when(repository.existsByName(testProductRequestDTO.getName())).thenReturn(false);
         lenient().when(userRepository.findByName(anyString())).thenReturn(Optional.empty());
         lenient().when(productMapper.toResponseDTO(any(Product.class))).thenReturn(testProductResponseDTO);
@@ -550,6 +584,7 @@ class ProductServiceTest {
         updatedProduct.setCurrentStock(new BigDecimal("60.0"));
 
         lenient().when(repository.findById(1)).thenReturn(Optional.of(testProduct), Optional.of(updatedProduct));
+        lenient().when(repository.lockStockById(1)).thenReturn(Optional.of(testProduct.getCurrentStock()));
         lenient().when(repository.existsByName(testProductRequestDTO.getName())).thenReturn(false);
         lenient().when(userRepository.findByName(anyString())).thenReturn(Optional.empty());
         lenient().when(productMapper.toResponseDTO(any(Product.class))).thenReturn(testProductResponseDTO);
@@ -567,6 +602,7 @@ class ProductServiceTest {
         testProductRequestDTO.setCurrentStock(new BigDecimal("10.0"));
 
         lenient().when(repository.findById(1)).thenReturn(Optional.of(testProduct));
+        lenient().when(repository.lockStockById(1)).thenReturn(Optional.of(testProduct.getCurrentStock()));
         lenient().when(repository.existsByName(testProductRequestDTO.getName())).thenReturn(false);
         lenient().when(repository.save(any(Product.class))).thenReturn(testProduct);
         lenient().when(productMapper.toResponseDTO(any(Product.class))).thenReturn(testProductResponseDTO);
@@ -576,6 +612,24 @@ class ProductServiceTest {
         assertTrue(result.isPresent());
     }
 
+    @Test
+    void updateStockManually_WhenCachedStockIsStale_ShouldUseLockedStock() {
+        // Copia de la caché L2 anterior a un movimiento de otro nodo
+        testProduct.setCurrentStock(new BigDecimal("10.0"));
+        testProductRequestDTO.setCurrentStock(new BigDecimal("50.0"));
+
+        when(repository.findById(1)).thenReturn(Optional.of(testProduct));
+        when(repository.lockStockById(1)).thenReturn(Optional.of(new BigDecimal("30.000")));
+        lenient().when(repository.existsByName(testProductRequestDTO.getName())).thenReturn(false);
+        lenient().when(productMapper.toResponseDTO(any(Product.class))).thenReturn(testProductResponseDTO);
+
+        productService.updateStockManually(1, testProductRequestDTO);
+
+        verify(stockLedgerService).recordStockMovement(eq(1),
+                argThat(delta -> delta.compareTo(new BigDecimal("20")) == 0),
+                eq(MovementType.AJUSTE), anyString(), any(), isNull());
+    }
+
     @Test
     void updateStockManually_WhenProductDoesNotExist_ShouldReturnEmpty() {
         when(repository.findById(999)).thenReturn(Optional.empty());
@@ -593,6 +647,7 @@ class ProductServiceTest {
         testProductRequestDTO.setCurrentStock(new BigDecimal("10.0")); // Sin cambio de stock
 
         lenient().when(repository.findById(1)).thenReturn(Optional.of(testProduct));
+        lenient().when(repository.lockStockById(1)).thenReturn(Optional.of(testProduct.getCurrentStock()));
         lenient().when(repository.existsByName(testProductRequestDTO.getName())).thenReturn(false);
         lenient().when(repository.save(any(Product.class)))
                 .thenThrow(new OptimisticLockingFailureException("Lock failure"));
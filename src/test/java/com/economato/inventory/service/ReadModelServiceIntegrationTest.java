@@ -0,0 +1,262 @@
+package com.economato.inventory.service;
+
+import com.economato.inventory.controller.BaseIntegrationTest;
+import com.economato.inventory.dto.response.ProductResponseDTO;
+import com.economato.inventory.dto.response.RecipeResponseDTO;
+import com.economato.inventory.model.Product;
+import com.economato.inventory.model.Recipe;
+import com.economato.inventory.model.RecipeComponent;
+import com.economato.inventory.model.Supplier;
+import com.economato.inventory.repository.RecipeComponentRepository;
+import com.economato.inventory.repository.RecipeRepository;
+import com.economato.inventory.repository.SupplierRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Modelos de lectura de la migración 006 sobre PostgreSQL real: los
+ * disparadores (plpgsql), el JSONB y el SKIP LOCKED del barrido no existen en
+ * H2. El esquema lo crea Hibernate y la migración se aplica encima, una vez
+ * por clase.
+ *
+ * El orden importa en el primer test: ReadModelService recuerda por nodo que
+ * el relleno inicial terminó y no lo vuelve a comprobar.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@DisplayName("Read model projection Integration Tests")
+class ReadModelServiceIntegrationTest extends BaseIntegrationTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("read-model.enabled", () -> "true");
+    }
+
+    private static boolean migrated;
+
+    @Autowired
+    private ReadModelService readModelService;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private RecipeComponentRepository recipeComponentRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+    private Supplier supplier;
+    private Product product;
+    private Recipe recipe;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        if (!migrated) {
+            // Las funciones plpgsql llevan ';' dentro de $$: el script va entero en una sentencia
+            ResourceDatabasePopulator populator = new ResourceDatabasePopulator(
+                    new ClassPathResource("db/migration/006_catalog_read_models.sql"));
+            populator.setSeparator(ScriptUtils.EOF_STATEMENT_SEPARATOR);
+            populator.execute(dataSource);
+            migrated = true;
+        }
+        // DatabaseCleaner usa SET REFERENTIAL_INTEGRITY, que es de H2.
+        // TRUNCATE no dispara los disparadores por fila: el modelo se vacía aparte
+        jdbcTemplate.execute("TRUNCATE TABLE recipe_component, recipe_allergen, recipe, product_stock, product,"
+                + " supplier, product_read_model, recipe_read_model RESTART IDENTITY CASCADE");
+
+        supplier = new Supplier();
+        supplier.setName("Proveedor Original");
+        supplier = supplierRepository.save(supplier);
+
+        product = new Product();
+        product.setName("Harina");
+        product.setType("Ingrediente");
+        product.setUnit("KG");
+        product.setUnitPrice(new BigDecimal("2.50"));
+        product.setProductCode("RM-001");
+        product.setCurrentStock(new BigDecimal("40.000"));
+        product.setMinimumStock(BigDecimal.ONE);
+        product.setSupplier(supplier);
+        product = productRepository.save(product);
+
+        recipe = new Recipe();
+        recipe.setName("Pan");
+        recipe.setElaboration("Amasar y hornear");
+        recipe.setPresentation("Entero");
+        recipe.setTotalCost(new BigDecimal("1.25"));
+        recipe = recipeRepository.save(recipe);
+
+        RecipeComponent component = new RecipeComponent();
+        component.setParentRecipe(recipe);
+        component.setProduct(product);
+        component.setQuantity(new BigDecimal("0.500"));
+        recipeComponentRepository.save(component);
+    }
+
+    @Test
+    @Order(1)
+    void newRows_fallBackUntilProjected() {
+        assertThat(isStale("product_read_model", "product_id", product.getId())).isTrue();
+        assertThat(isStale("recipe_read_model", "recipe_id", recipe.getId())).isTrue();
+
+        // Relleno inicial sin terminar (projected_at NULL): ni listados ni detalles
+        assertThat(readModelService.findProducts(PageRequest.of(0, 10))).isEmpty();
+        assertThat(readModelService.findRecipes(PageRequest.of(0, 10))).isEmpty();
+        assertThat(readModelService.findProduct(product.getId())).isEmpty();
+        assertThat(readModelService.findRecipe(recipe.getId())).isEmpty();
+
+        assertThat(readModelService.projectStaleProducts(100)).isEqualTo(1);
+        assertThat(readModelService.projectStaleRecipes(100)).isEqualTo(1);
+
+        Optional<Page<ProductResponseDTO>> products = readModelService.findProducts(PageRequest.of(0, 10));
+        assertThat(products).isPresent();
+        assertThat(products.get().getContent()).extracting(ProductResponseDTO::getId).containsExactly(product.getId());
+
+        ProductResponseDTO projected = readModelService.findProduct(product.getId()).orElseThrow();
+        assertThat(projected.getName()).isEqualTo("Harina");
+        assertThat(projected.getSupplier().getName()).isEqualTo("Proveedor Original");
+        assertThat(projected.getCurrentStock()).isEqualByComparingTo("40.000");
+
+        RecipeResponseDTO projectedRecipe = readModelService.findRecipe(recipe.getId()).orElseThrow();
+        assertThat(projectedRecipe.getComponents()).hasSize(1);
+        assertThat(projectedRecipe.getComponents().get(0).getProductName()).isEqualTo("Harina");
+    }
+
+    @Test
+    @Order(2)
+    void productUpdate_marksProductAndRecipesStaleUntilProjected() {
+        projectAll();
+
+        jdbcTemplate.update("UPDATE product SET name = 'Harina de fuerza' WHERE product_id = ?", product.getId());
+
+        assertThat(isStale("product_read_model", "product_id", product.getId())).isTrue();
+        // El nombre del producto aparece en los componentes de la receta
+        assertThat(isStale("recipe_read_model", "recipe_id", recipe.getId())).isTrue();
+        assertThat(readModelService.findProduct(product.getId())).isEmpty();
+        assertThat(readModelService.findRecipe(recipe.getId())).isEmpty();
+
+        projectAll();
+
+        assertThat(isStale("product_read_model", "product_id", product.getId())).isFalse();
+        assertThat(readModelService.findProduct(product.getId()).orElseThrow().getName())
+                .isEqualTo("Harina de fuerza");
+        assertThat(readModelService.findRecipe(recipe.getId()).orElseThrow().getComponents().get(0).getProductName())
+                .isEqualTo("Harina de fuerza");
+    }
+
+    @Test
+    @Order(3)
+    void recipeComponentUpdate_marksRecipeStaleUntilProjected() {
+        projectAll();
+
+        jdbcTemplate.update("UPDATE recipe_component SET quantity = 0.750 WHERE parent_recipe_id = ?",
+                recipe.getId());
+
+        assertThat(isStale("recipe_read_model", "recipe_id", recipe.getId())).isTrue();
+        assertThat(isStale("product_read_model", "product_id", product.getId())).isFalse();
+        assertThat(readModelService.findRecipe(recipe.getId())).isEmpty();
+        assertThat(readModelService.findProduct(product.getId())).isPresent();
+
+        assertThat(readModelService.projectStaleRecipes(100)).isEqualTo(1);
+
+        assertThat(readModelService.findRecipe(recipe.getId()).orElseThrow().getComponents().get(0).getQuantity())
+                .isEqualByComparingTo("0.750");
+    }
+
+    @Test
+    @Order(4)
+    void supplierUpdate_marksItsProductsStaleUntilProjected() {
+        projectAll();
+
+        jdbcTemplate.update("UPDATE supplier SET name = 'Proveedor Renombrado' WHERE supplier_id = ?",
+                supplier.getId());
+
+        assertThat(isStale("product_read_model", "product_id", product.getId())).isTrue();
+        assertThat(readModelService.findProduct(product.getId())).isEmpty();
+
+        assertThat(readModelService.projectStaleProducts(100)).isEqualTo(1);
+
+        assertThat(readModelService.findProduct(product.getId()).orElseThrow().getSupplier().getName())
+                .isEqualTo("Proveedor Renombrado");
+    }
+
+    @Test
+    @Order(5)
+    void deletedProduct_removesItsRow() {
+        projectAll();
+
+        jdbcTemplate.update("DELETE FROM recipe_component WHERE product_id = ?", product.getId());
+        jdbcTemplate.update("DELETE FROM product_stock WHERE product_id = ?", product.getId());
+        jdbcTemplate.update("DELETE FROM product WHERE product_id = ?", product.getId());
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM product_read_model WHERE product_id = ?",
+                Long.class, product.getId())).isZero();
+        assertThat(readModelService.findProduct(product.getId())).isEmpty();
+        assertThat(readModelService.findProducts(PageRequest.of(0, 10)).orElseThrow().getContent()).isEmpty();
+
+        // La receta sin el componente vuelve a proyectarse sin él
+        assertThat(readModelService.projectStaleRecipes(100)).isEqualTo(1);
+        assertThat(readModelService.findRecipe(recipe.getId()).orElseThrow().getComponents()).isEmpty();
+    }
+
+    @Test
+    @Order(6)
+    void projectProducts_removesRowsOfMissingProducts() {
+        projectAll();
+        // Fila huérfana de un producto que el disparador de borrado no llegó a ver
+        jdbcTemplate.update("INSERT INTO product_read_model (product_id, name, hidden) VALUES (?, 'Huérfano', FALSE)",
+                product.getId() + 1000);
+
+        assertThat(readModelService.projectStaleProducts(100)).isEqualTo(1);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM product_read_model", Long.class)).isEqualTo(1L);
+    }
+
+    private void projectAll() {
+        readModelService.projectStaleProducts(100);
+        readModelService.projectStaleRecipes(100);
+    }
+
+    private boolean isStale(String table, String idColumn, Integer id) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT stale FROM " + table + " WHERE " + idColumn + " = ?", Boolean.class, id));
+    }
+}
@@ -0,0 +1,39 @@
+package com.economato.inventory.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+class ReadModelServiceTest {
+
+    private static final Map<String, String> COLUMNS = Map.of("id", "m.product_id", "name", "m.name");
+
+    @Test
+    void unsortedPage_isOrderedById() {
+        assertEquals(Optional.of("m.product_id"), ReadModelService.orderBy(Sort.unsorted(), COLUMNS, "m.product_id"));
+    }
+
+    @Test
+    void sortByName_addsIdAsTieBreaker() {
+        assertEquals(Optional.of("m.name DESC, m.product_id"),
+                ReadModelService.orderBy(Sort.by(Sort.Direction.DESC, "name"), COLUMNS, "m.product_id"));
+    }
+
+    @Test
+    void sortById_isNotRepeated() {
+        assertEquals(Optional.of("m.name ASC, m.product_id DESC"),
+                ReadModelService.orderBy(Sort.by(Sort.Order.asc("name"), Sort.Order.desc("id")), COLUMNS,
+                        "m.product_id"));
+    }
+
+    @Test
+    void unsupportedSort_fallsBackToNormalizedQuery() {
+        assertTrue(ReadModelService.orderBy(Sort.by("unitPrice"), COLUMNS, "m.product_id").isEmpty());
+        assertTrue(ReadModelService.orderBy(Sort.by(Sort.Order.asc("name").ignoreCase()), COLUMNS, "m.product_id")
+                .isEmpty());
+    }
+}
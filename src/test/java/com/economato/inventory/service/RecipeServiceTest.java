@@ -79,6 +79,12 @@ class RecipeServiceTest {
     @Mock
     private SecurityContextHelper securityContextHelper;
 
+    @Mock
+    private CacheGenerationService cacheGenerationService;
+
+    @Mock
+    private ReadModelService readModelService;
+
     @InjectMocks
     private RecipeService recipeService;
 
@@ -441,19 +447,19 @@ class RecipeServiceTest {
         testProduct.setCurrentStock(new BigDecimal("100.0"));
 
         when(repository.findByIdWithDetails(1)).thenReturn(Optional.of(testRecipe));
-        when(productRepository.findById(1)).thenReturn(Optional.of(testProduct));
+        when(productRepository.findAllById(any())).thenReturn(List.of(testProduct));
         when(recipeMapper.toResponseDTO(testRecipe)).thenReturn(testRecipeResponseDTO);
 
         RecipeResponseDTO result = recipeService.cookRecipe(cookingRequest);
 
         assertNotNull(result);
         verify(repository).findByIdWithDetails(1);
-        verify(productRepository).findById(1);
-        verify(stockLedgerService).recordStockMovement(
-                eq(1),
-                argThat(amount -> amount.compareTo(new BigDecimal("4.0").negate()) == 0),
-                eq(MovementType.SALIDA),
-                anyString(),
+        verify(productRepository).findAllById(any());
+        verify(stockLedgerService).recordBatchStockMovements(
+                argThat(movements -> movements.size() == 1
+                        && movements.get(0).getProductId().equals(1)
+                        && movements.get(0).getQuantityDelta().compareTo(new BigDecimal("4.0").negate()) == 0
+                        && movements.get(0).getMovementType() == MovementType.SALIDA),
                 any(),
                 isNull());
     }
@@ -472,7 +478,7 @@ class RecipeServiceTest {
         });
 
         verify(repository).findByIdWithDetails(999);
-        verify(stockLedgerService, never()).recordStockMovement(anyInt(), any(), any(), any(), any(), any());
+        verify(stockLedgerService, never()).recordBatchStockMovements(any(), any(), any());
     }
 
     @Test
@@ -494,7 +500,7 @@ class RecipeServiceTest {
         });
 
         assertTrue(exception.getMessage().contains("ERROR_RECIPE_NO_COMPONENTS"));
-        verify(stockLedgerService, never()).recordStockMovement(anyInt(), any(), any(), any(), any(), any());
+        verify(stockLedgerService, never()).recordBatchStockMovements(any(), any(), any());
     }
 
     @Test
@@ -507,7 +513,7 @@ class RecipeServiceTest {
         testProduct.setCurrentStock(new BigDecimal("5.0"));
 
         when(repository.findByIdWithDetails(1)).thenReturn(Optional.of(testRecipe));
-        when(productRepository.findById(1)).thenReturn(Optional.of(testProduct));
+        when(productRepository.findAllById(any())).thenReturn(List.of(testProduct));
 
         InvalidOperationException exception = assertThrows(InvalidOperationException.class, () -> {
             recipeService.cookRecipe(cookingRequest);
@@ -515,7 +521,7 @@ class RecipeServiceTest {
 
         assertTrue(exception.getMessage().contains("ERROR_RECIPE_STOCK_INSUFFICIENT"));
         assertTrue(exception.getMessage().contains(testProduct.getName()));
-        verify(stockLedgerService, never()).recordStockMovement(anyInt(), any(), any(), any(), any(), any());
+        verify(stockLedgerService, never()).recordBatchStockMovements(any(), any(), any());
     }
 
     @Test
@@ -526,14 +532,14 @@ class RecipeServiceTest {
         cookingRequest.setQuantity(new BigDecimal("1.0"));
 
         when(repository.findByIdWithDetails(1)).thenReturn(Optional.of(testRecipe));
-        when(productRepository.findById(1)).thenReturn(Optional.empty());
+        when(productRepository.findAllById(any())).thenReturn(List.of());
 
         assertThrows(ResourceNotFoundException.class, () -> {
             recipeService.cookRecipe(cookingRequest);
         });
 
-        verify(productRepository).findById(1);
-        verify(stockLedgerService, never()).recordStockMovement(anyInt(), any(), any(), any(), any(), any());
+        verify(productRepository).findAllById(any());
+        verify(stockLedgerService, never()).recordBatchStockMovements(any(), any(), any());
     }
 
     @Test
@@ -557,18 +563,18 @@ class RecipeServiceTest {
         testProduct.setCurrentStock(new BigDecimal("100.0"));
 
         when(repository.findByIdWithDetails(1)).thenReturn(Optional.of(testRecipe));
-        when(productRepository.findById(1)).thenReturn(Optional.of(testProduct));
-        when(productRepository.findById(2)).thenReturn(Optional.of(product2));
+        when(productRepository.findAllById(any())).thenReturn(List.of(testProduct, product2));
         when(recipeMapper.toResponseDTO(testRecipe)).thenReturn(testRecipeResponseDTO);
 
         RecipeResponseDTO result = recipeService.cookRecipe(cookingRequest);
 
         assertNotNull(result);
-        verify(stockLedgerService, times(2)).recordStockMovement(
-                anyInt(),
-                any(BigDecimal.class),
-                eq(MovementType.SALIDA),
-                anyString(),
+        // Ambos productos se cargan en una consulta y se descuentan en un solo lote
+        verify(productRepository, times(1)).findAllById(any());
+        verify(productRepository, never()).findById(anyInt());
+        verify(stockLedgerService, times(1)).recordBatchStockMovements(
+                argThat(movements -> movements.size() == 2
+                        && movements.stream().allMatch(m -> m.getMovementType() == MovementType.SALIDA)),
                 any(),
                 isNull());
     }
@@ -584,18 +590,16 @@ class RecipeServiceTest {
         testProduct.setCurrentStock(new BigDecimal("100.0"));
 
         when(repository.findByIdWithDetails(1)).thenReturn(Optional.of(testRecipe));
-        when(productRepository.findById(1)).thenReturn(Optional.of(testProduct));
+        when(productRepository.findAllById(any())).thenReturn(List.of(testProduct));
         when(recipeMapper.toResponseDTO(testRecipe)).thenReturn(testRecipeResponseDTO);
 
         RecipeResponseDTO result = recipeService.cookRecipe(cookingRequest);
 
         assertNotNull(result);
 
-        verify(stockLedgerService).recordStockMovement(
-                eq(1),
-                argThat(amount -> amount.compareTo(new BigDecimal("3.0").negate()) == 0),
-                eq(MovementType.SALIDA),
-                anyString(),
+        verify(stockLedgerService).recordBatchStockMovements(
+                argThat(movements -> movements.size() == 1
+                        && movements.get(0).getQuantityDelta().compareTo(new BigDecimal("3.0").negate()) == 0),
                 any(),
                 isNull());
     }
@@ -1,6 +1,7 @@
 package com.economato.inventory.service;
 
 import com.economato.inventory.dto.projection.PendingProductQuantity;
+import com.economato.inventory.dto.projection.ProductTopRecipe;
 import com.economato.inventory.dto.response.AlertResolution;
 import com.economato.inventory.dto.response.AlertSeverity;
 import com.economato.inventory.dto.response.StockAlertDTO;
@@ -20,11 +21,13 @@ import org.springframework.context.MessageSource;
 
 import java.math.BigDecimal;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -91,11 +94,13 @@ class StockAlertServiceTest {
 
         // --- Mocks ---
         when(predictionRepository.findAll()).thenReturn(List.of(prediction));
-        when(productRepository.findById(productId)).thenReturn(Optional.of(product));
         when(orderDetailRepository.findPendingQuantityPerProduct()).thenReturn(List.of());
-        when(productRepository.findAll()).thenReturn(List.of(product));
-        when(cookingAuditRepository.findTopConsumingRecipesByProduct(eq(productId), any()))
-                .thenReturn(List.of("Gazpacho"));
+        when(productRepository.findAllById(any())).thenReturn(List.of(product));
+        ProductTopRecipe topRecipe = mock(ProductTopRecipe.class);
+        when(topRecipe.getProductId()).thenReturn(productId);
+        when(topRecipe.getRecipeName()).thenReturn("Gazpacho");
+        when(cookingAuditRepository.findTopConsumingRecipesByProducts(eq(Set.of(productId)), any()))
+                .thenReturn(List.of(topRecipe));
 
         // --- Execute ---
         List<StockAlertDTO> alerts = stockAlertService.getActiveAlerts();
@@ -108,6 +113,7 @@ class StockAlertServiceTest {
         assertEquals(AlertResolution.UNCOVERED, alert.getResolution());
         assertTrue(alert.getMessage().contains("Déficit estimado"));
         assertEquals(BigDecimal.valueOf(15.0).setScale(3), alert.getEffectiveGap());
+        assertEquals(List.of("Gazpacho"), alert.getTopConsumingRecipes());
     }
 
     @Test
@@ -136,9 +142,8 @@ class StockAlertServiceTest {
 
         // --- Mocks ---
         when(predictionRepository.findAll()).thenReturn(List.of(prediction));
-        when(productRepository.findById(productId)).thenReturn(Optional.of(product));
         when(orderDetailRepository.findPendingQuantityPerProduct()).thenReturn(List.of(pending));
-        when(productRepository.findAll()).thenReturn(List.of(product));
+        when(productRepository.findAllById(any())).thenReturn(List.of(product));
 
         // --- Execute ---
         // DaysRemaining = (2+15) / (10/14) = 17 / 0.714 = ~23.8 days -> OK
@@ -146,6 +151,7 @@ class StockAlertServiceTest {
 
         // --- Verify ---
         assertTrue(alerts.isEmpty(), "If days covered >= 21, severity is OK and alert is filtered out");
+        verify(cookingAuditRepository, never()).findTopConsumingRecipesByProducts(any(), any());
     }
 
     @Test
@@ -174,9 +180,8 @@ class StockAlertServiceTest {
 
         // --- Mocks ---
         when(predictionRepository.findAll()).thenReturn(List.of(prediction));
-        when(productRepository.findById(productId)).thenReturn(Optional.of(product));
         when(orderDetailRepository.findPendingQuantityPerProduct()).thenReturn(List.of(pending));
-        when(productRepository.findAll()).thenReturn(List.of(product));
+        when(productRepository.findAllById(any())).thenReturn(List.of(product));
 
         // --- Execute ---
         List<StockAlertDTO> alerts = stockAlertService.getActiveAlerts();
@@ -219,9 +224,8 @@ class StockAlertServiceTest {
                 .build();
 
         when(predictionRepository.findAll()).thenReturn(List.of(prediction));
-        when(productRepository.findById(productId)).thenReturn(Optional.of(product));
         when(orderDetailRepository.findPendingQuantityPerProduct()).thenReturn(List.of());
-        when(productRepository.findAll()).thenReturn(List.of(product));
+        when(productRepository.findAllById(any())).thenReturn(List.of(product));
 
         List<StockAlertDTO> alerts = stockAlertService.getActiveAlerts();
 
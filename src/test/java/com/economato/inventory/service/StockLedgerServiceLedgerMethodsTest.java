@@ -55,6 +55,9 @@ class StockLedgerServiceLedgerMethodsTest {
         @Mock
         private SecurityContextHelper securityContextHelper;
 
+        @Mock
+        private CacheGenerationService cacheGenerationService;
+
         @Mock
         private Environment environment;
 
@@ -80,6 +83,7 @@ class StockLedgerServiceLedgerMethodsTest {
                         orderRepository,
                         recipeCookingAuditRepository,
                         securityContextHelper,
+                        cacheGenerationService,
                         environment,
                         meterRegistry
                 );
@@ -0,0 +1,51 @@
+package com.economato.inventory.service.warmup;
+
+import com.economato.inventory.service.ProductService;
+import com.economato.inventory.service.RecipeService;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.lang.reflect.Method;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheAccessKeyTest {
+
+    @Test
+    void pageableCall_roundTrips() throws Exception {
+        Method findAll = RecipeService.class.getMethod("findAll", Pageable.class);
+        Pageable pageable = PageRequest.of(2, 25, Sort.by(Sort.Order.desc("name"), Sort.Order.asc("id")));
+
+        String key = CacheAccessKey.encode(RecipeService.class, findAll, new Object[] { pageable });
+        CacheAccessKey.Invocation invocation = CacheAccessKey.decode(key);
+
+        assertNotNull(invocation);
+        assertEquals(findAll, invocation.method());
+        assertEquals(pageable, invocation.args()[0]);
+    }
+
+    @Test
+    void stringCall_escapesSeparators() throws Exception {
+        Method findByCodebar = ProductService.class.getMethod("findByCodebar", String.class);
+
+        String key = CacheAccessKey.encode(ProductService.class, findByCodebar, new Object[] { "84#12|3 4" });
+
+        assertEquals("84#12|3 4", CacheAccessKey.decode(key).args()[0]);
+    }
+
+    @Test
+    void unsupportedArgument_isNotEncoded() throws Exception {
+        Method findAll = RecipeService.class.getMethod("findAll", Pageable.class);
+
+        assertNull(CacheAccessKey.encode(RecipeService.class, findAll, new Object[] { new Object() }));
+    }
+
+    @Test
+    void decode_rejectsForeignClassesAndNonCacheableMethods() {
+        assertNull(CacheAccessKey.decode("java.lang.Runtime#exit#0"));
+        assertNull(CacheAccessKey.decode(ProductService.class.getName() + "#deleteById#1"));
+        assertNull(CacheAccessKey.decode("garbage"));
+    }
+}
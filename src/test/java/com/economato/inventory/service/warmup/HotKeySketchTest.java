@@ -0,0 +1,102 @@
+package com.economato.inventory.service.warmup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotKeySketchTest {
+
+    @Test
+    void estimate_neverUnderCounts() {
+        HotKeySketch sketch = new HotKeySketch(256, 10);
+        for (int i = 0; i < 1_000; i++) {
+            sketch.record("key-" + (i % 100));
+        }
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(sketch.estimate("key-" + i) >= 10);
+        }
+    }
+
+    @Test
+    void drain_returnsHeavyHittersInOrderAndResets() {
+        HotKeySketch sketch = new HotKeySketch(1024, 3);
+        record(sketch, "product:1", 50);
+        record(sketch, "product:2", 30);
+        record(sketch, "recipes_page:0-10", 40);
+        for (int i = 0; i < 200; i++) {
+            sketch.record("rare-" + i);
+        }
+
+        Map<String, Long> top = sketch.drain();
+
+        assertEquals(List.of("product:1", "recipes_page:0-10", "product:2"), new ArrayList<>(top.keySet()));
+        assertEquals(0, sketch.estimate("product:1"));
+        assertTrue(sketch.drain().isEmpty());
+    }
+
+    /** Sin candado: los accesos concurrentes a la misma clave no se pierden. */
+    @Test
+    void concurrentRecords_areAllCounted() throws InterruptedException {
+        HotKeySketch sketch = new HotKeySketch(256, 10);
+        int threads = 8;
+        int perThread = 5_000;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            workers.add(Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    sketch.record("hot");
+                    sketch.record("cold-" + id + "-" + (i % 500));
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertTrue(sketch.estimate("hot") >= (long) threads * perThread);
+        assertEquals("hot", sketch.drain().keySet().iterator().next());
+    }
+
+    /** Tráfico Zipf: el top-K debe contener casi todas las claves realmente más frecuentes. */
+    @Test
+    void zipfTraffic_topKMatchesExactTop() {
+        int keys = 5_000;
+        int k = 50;
+        double[] cumulative = new double[keys];
+        double total = 0;
+        for (int i = 0; i < keys; i++) {
+            total += 1.0 / (i + 1);
+            cumulative[i] = total;
+        }
+        HotKeySketch sketch = new HotKeySketch(k * 16, k);
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            double roll = random.nextDouble() * total;
+            int index = Arrays.binarySearch(cumulative, roll);
+            sketch.record("key-" + (index < 0 ? -index - 1 : index));
+        }
+
+        Map<String, Long> top = sketch.drain();
+        long hits = 0;
+        for (int i = 0; i < k; i++) {
+            if (top.containsKey("key-" + i)) {
+                hits++;
+            }
+        }
+        assertTrue(hits >= k * 0.8, "recall " + hits + "/" + k);
+    }
+
+    private static void record(HotKeySketch sketch, String key, int times) {
+        for (int i = 0; i < times; i++) {
+            sketch.record(key);
+        }
+    }
+}
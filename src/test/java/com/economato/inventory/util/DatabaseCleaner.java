@@ -1,6 +1,7 @@
 package com.economato.inventory.util;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.SecondaryTable;
 import jakarta.persistence.Table;
 import jakarta.persistence.metamodel.EntityType;
 import jakarta.transaction.Transactional;
@@ -8,6 +9,7 @@ import org.springframework.stereotype.Component;
 
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Component
 public class DatabaseCleaner {
@@ -24,9 +26,12 @@ public class DatabaseCleaner {
 
         Set<EntityType<?>> entities = entityManager.getMetamodel().getEntities();
         Set<String> tableNames = entities.stream()
-                .map(entity -> {
+                .flatMap(entity -> {
                     Table tableAnnotation = entity.getJavaType().getAnnotation(Table.class);
-                    return tableAnnotation != null ? tableAnnotation.name() : entity.getName().toLowerCase();
+                    String tableName = tableAnnotation != null ? tableAnnotation.name() : entity.getName().toLowerCase();
+                    // Las tablas secundarias (product_stock) tienen filas propias que también hay que vaciar
+                    SecondaryTable secondaryTable = entity.getJavaType().getAnnotation(SecondaryTable.class);
+                    return secondaryTable != null ? Stream.of(tableName, secondaryTable.name()) : Stream.of(tableName);
                 })
                 .collect(Collectors.toSet());
 
@@ -0,0 +1,64 @@
+package com.economato.inventory.util;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Presupuesto de sentencias SQL por petición, medido con las estadísticas de
+ * Hibernate (activas en el perfil test). Falla si una acción prepara más
+ * sentencias de las permitidas y muestra las consultas ejecutadas, para que
+ * un N+1 nuevo rompa el build en vez de llegar a producción.
+ *
+ * Las estadísticas son globales: solo es fiable mientras no haya otros hilos
+ * usando la base de datos, como ocurre en el perfil test.
+ */
+@Component
+public class QueryBudget {
+
+    private final Statistics statistics;
+
+    public QueryBudget(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public <T> T assertAtMost(long maxStatements, Action<T> action) throws Exception {
+        statistics.clear();
+        T result = action.run();
+        long statements = statistics.getPrepareStatementCount();
+        if (statements > maxStatements) {
+            throw new AssertionError(String.format(
+                    "Presupuesto de SQL superado: %d sentencias (máximo %d). "
+                            + "Cargas sueltas por entidad: %s, colecciones cargadas: %d. Consultas:%n%s",
+                    statements, maxStatements, entityFetches(), statistics.getCollectionFetchCount(), queries()));
+        }
+        return result;
+    }
+
+    private String entityFetches() {
+        return Arrays.stream(statistics.getEntityNames())
+                .filter(entity -> statistics.getEntityStatistics(entity).getFetchCount() > 0)
+                .map(entity -> entity.substring(entity.lastIndexOf('.') + 1) + "="
+                        + statistics.getEntityStatistics(entity).getFetchCount())
+                .collect(Collectors.joining(", ", "[", "]"));
+    }
+
+    private String queries() {
+        return Arrays.stream(statistics.getQueries())
+                .map(query -> Map.entry(query, statistics.getQueryStatistics(query).getExecutionCount()))
+                .sorted(Comparator.comparing(Map.Entry<String, Long>::getValue).reversed())
+                .map(entry -> "  " + entry.getValue() + "x " + entry.getKey())
+                .collect(Collectors.joining(System.lineSeparator()));
+    }
+
+    @FunctionalInterface
+    public interface Action<T> {
+        T run() throws Exception;
+    }
+}